@@ -0,0 +1,64 @@
+package com.adjust.sdk;
+
+import android.content.Context;
+
+import java.util.LinkedHashMap;
+
+/**
+ * Session and event packages as the PackageBuilder builds them for an installed app, for the
+ * benchmarks outside of this package.
+ */
+public final class BenchmarkPackages {
+    private BenchmarkPackages() {
+    }
+
+    /**
+     * @param parameterCount Callback and partner parameters of the session, each
+     */
+    public static ActivityPackage buildSessionPackage(Context context, int parameterCount) {
+        return build(context, parameterCount, false);
+    }
+
+    /**
+     * @param parameterCount Callback and partner parameters of the session and of the event, each
+     */
+    public static ActivityPackage buildEventPackage(Context context, int parameterCount) {
+        return build(context, parameterCount, true);
+    }
+
+    private static ActivityPackage build(Context context, int parameterCount, boolean isEvent) {
+        AdjustConfig adjustConfig = new AdjustConfig(context, "123456789012",
+                AdjustConfig.ENVIRONMENT_SANDBOX);
+        DeviceInfo deviceInfo = new DeviceInfo(context, null);
+        deviceInfo.reloadIdentifiers(context);
+
+        ActivityState activityState = new ActivityState();
+        activityState.sessionCount = 12;
+        activityState.subsessionCount = 3;
+        activityState.eventCount = 141;
+
+        SessionParameters sessionParameters = new SessionParameters();
+        sessionParameters.callbackParameters = new LinkedHashMap<String, String>();
+        sessionParameters.partnerParameters = new LinkedHashMap<String, String>();
+
+        AdjustEvent event = new AdjustEvent("abc123");
+        event.setRevenue(0.99, "EUR");
+
+        for (int i = 0; i < parameterCount; i++) {
+            sessionParameters.callbackParameters.put("session_key_" + i, "value " + i);
+            sessionParameters.partnerParameters.put("session_partner_" + i, "value " + i);
+            event.addCallbackParameter("event_key_" + i, "value " + i);
+            event.addPartnerParameter("event_partner_" + i, "value " + i);
+        }
+
+        try {
+            PackageBuilder packageBuilder = new PackageBuilder(adjustConfig, deviceInfo,
+                    activityState, sessionParameters, System.currentTimeMillis());
+            return isEvent
+                    ? packageBuilder.buildEventPackage(event, false)
+                    : packageBuilder.buildSessionPackage(false);
+        } finally {
+            deviceInfo.teardown();
+        }
+    }
+}
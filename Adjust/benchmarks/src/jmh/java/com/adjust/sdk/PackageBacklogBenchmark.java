@@ -0,0 +1,86 @@
+package com.adjust.sdk;
+
+import com.adjust.sdk.benchmarks.BenchmarkContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An offline backlog of queued event packages, kept on the heap as the package handler does
+ * by default or in a PackageBacklog. The heap retained by the backlog is printed when a trial
+ * starts, the benchmark moves one package through it as sending does once back online.
+ */
+@State(Scope.Thread)
+public class PackageBacklogBenchmark {
+    private static final int BACKLOG_MAX_BYTES = 64 * 1024 * 1024;
+
+    @Param({"50000"})
+    public int queuedPackages;
+
+    @Param({"heap", "backlog"})
+    public String store;
+
+    private BenchmarkContext context;
+    private List<ActivityPackage> packageQueue;
+    private PackageBacklog packageBacklog;
+    private int nextIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext();
+        long heapBefore = usedHeap();
+
+        if ("heap".equals(store)) {
+            packageQueue = new ArrayList<ActivityPackage>(queuedPackages);
+            for (nextIndex = 0; nextIndex < queuedPackages; nextIndex++) {
+                packageQueue.add(PackageQueueBenchmark.createEventPackage(nextIndex));
+            }
+        } else {
+            packageBacklog = PackageBacklog.open(context, BACKLOG_MAX_BYTES, true);
+            for (nextIndex = 0; nextIndex < queuedPackages; nextIndex++) {
+                packageBacklog.add(PackageQueueBenchmark.createEventPackage(nextIndex));
+            }
+        }
+
+        System.out.println(Util.formatString("%d packages in %s: %d KB of heap",
+                queuedPackages, store, (usedHeap() - heapBefore) / 1024));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (packageBacklog != null) {
+            packageBacklog.close();
+        }
+        context.delete();
+    }
+
+    @Benchmark
+    public ActivityPackage addAndTakeFirst() {
+        ActivityPackage activityPackage;
+        if (packageQueue != null) {
+            packageQueue.add(PackageQueueBenchmark.createEventPackage(nextIndex++));
+            activityPackage = packageQueue.remove(0);
+        } else {
+            packageBacklog.add(PackageQueueBenchmark.createEventPackage(nextIndex++));
+            activityPackage = packageBacklog.peek();
+            packageBacklog.removeFirst();
+        }
+        return activityPackage;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
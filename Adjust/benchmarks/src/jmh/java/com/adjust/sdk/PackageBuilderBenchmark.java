@@ -0,0 +1,118 @@
+package com.adjust.sdk;
+
+import android.content.Context;
+
+import com.adjust.sdk.benchmarks.BenchmarkContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.LinkedHashMap;
+
+/**
+ * Building session and event packages, as done on the activity handler thread for every
+ * tracked session and event.
+ *
+ * With an identifier latency, every identifier source is expired and takes that long to be read
+ * again, as the services of Google Play and of the OAID providers can. The packages are built
+ * from the identifiers read before while the sources are read in the background.
+ */
+@State(Scope.Thread)
+public class PackageBuilderBenchmark {
+    // callback and partner parameters of the event and of the session
+    @Param({"0", "10", "50"})
+    public int parameterCount;
+
+    // how long each identifier source takes to answer, 0 for sources that don't expire
+    @Param({"0", "3000"})
+    public long identifierLatencyMillis;
+
+    private BenchmarkContext context;
+    private SlowIdentifierResolver identifierResolver;
+    private AdjustConfig adjustConfig;
+    private DeviceInfo deviceInfo;
+    private ActivityState activityState;
+    private SessionParameters sessionParameters;
+    private AdjustEvent event;
+
+    @Setup
+    public void setUp() {
+        context = new BenchmarkContext();
+        adjustConfig = new AdjustConfig(context, "123456789012", AdjustConfig.ENVIRONMENT_SANDBOX);
+
+        identifierResolver = new SlowIdentifierResolver();
+        deviceInfo = new DeviceInfo(context, null, identifierResolver);
+        // read once up front, so that no refresh is started while measuring
+        deviceInfo.reloadIdentifiers(context);
+        // with a latency, every source is read again while measuring
+        identifierResolver.latencyMillis = identifierLatencyMillis;
+        // as the activity handler does, so the shared parameters are kept between packages
+        deviceInfo.startMonitoringChanges(context);
+
+        activityState = new ActivityState();
+        activityState.sessionCount = 12;
+        activityState.subsessionCount = 3;
+        activityState.eventCount = 141;
+
+        sessionParameters = new SessionParameters();
+        sessionParameters.callbackParameters = new LinkedHashMap<String, String>();
+        sessionParameters.partnerParameters = new LinkedHashMap<String, String>();
+
+        event = new AdjustEvent("abc123");
+        event.setRevenue(0.99, "EUR");
+
+        for (int i = 0; i < parameterCount; i++) {
+            sessionParameters.callbackParameters.put("session_key_" + i, "value " + i);
+            sessionParameters.partnerParameters.put("session_partner_" + i, "value " + i);
+            event.addCallbackParameter("event_key_" + i, "value " + i);
+            event.addPartnerParameter("event_partner_" + i, "value " + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        deviceInfo.stopMonitoringChanges(context);
+        deviceInfo.teardown();
+        context.delete();
+    }
+
+    @Benchmark
+    public ActivityPackage buildSessionPackage() {
+        return createPackageBuilder().buildSessionPackage(false);
+    }
+
+    @Benchmark
+    public ActivityPackage buildEventPackage() {
+        return createPackageBuilder().buildEventPackage(event, false);
+    }
+
+    private static class SlowIdentifierResolver extends IdentifierResolver {
+        volatile long latencyMillis;
+
+        @Override
+        long timeToLiveOf(Source source) {
+            return latencyMillis > 0 ? 0 : super.timeToLiveOf(source);
+        }
+
+        @Override
+        Object read(Context context, Source source, IdentifierSnapshot current) {
+            if (latencyMillis > 0) {
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.read(context, source, current);
+        }
+    }
+
+    private PackageBuilder createPackageBuilder() {
+        return new PackageBuilder(adjustConfig, deviceInfo, activityState, sessionParameters,
+                System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,103 @@
+package com.adjust.sdk;
+
+import com.adjust.sdk.benchmarks.BenchmarkContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializing the package queue to a file and reading it back with Util, at several queue sizes.
+ */
+@State(Scope.Thread)
+public class PackageQueueBenchmark {
+    private static final String FILENAME = "AdjustIoPackageQueue";
+    private static final String OBJECT_NAME = "Package queue";
+
+    @Param({"1", "100", "1000"})
+    public int queueSize;
+
+    private BenchmarkContext context;
+    private List<ActivityPackage> packageQueue;
+
+    @Setup
+    public void setUp() {
+        context = new BenchmarkContext();
+        packageQueue = new ArrayList<ActivityPackage>(queueSize);
+
+        for (int i = 0; i < queueSize; i++) {
+            packageQueue.add(createEventPackage(i));
+        }
+
+        Util.writeObject(packageQueue, context, FILENAME, OBJECT_NAME);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.delete();
+    }
+
+    @Benchmark
+    public void writeObject() {
+        Util.writeObject(packageQueue, context, FILENAME, OBJECT_NAME);
+    }
+
+    @Benchmark
+    public List readObject() {
+        return Util.readObject(context, FILENAME, OBJECT_NAME, List.class);
+    }
+
+    // parameters of a typical event package
+    static ActivityPackage createEventPackage(int index) {
+        ActivityPackage activityPackage = new ActivityPackage(ActivityKind.EVENT);
+        activityPackage.setPath("/event");
+        activityPackage.setClientSdk("android4.28.3");
+        activityPackage.setSuffix("'abc123'");
+
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("app_token", "123456789012");
+        parameters.put("event_token", "abc123");
+        parameters.put("event_count", Integer.toString(index));
+        parameters.put("created_at", "2021-03-04T10:11:12.123Z+0100");
+        parameters.put("android_uuid", "3f2e4a3c-8a9b-4c2d-9e1f-0a1b2c3d4e5f");
+        parameters.put("gps_adid", "38400000-8cf0-11bd-b23e-10b96e40000d");
+        parameters.put("tracking_enabled", "1");
+        parameters.put("attribution_deeplink", "1");
+        parameters.put("needs_response_details", "1");
+        parameters.put("environment", "production");
+        parameters.put("package_name", "com.adjust.benchmarks");
+        parameters.put("app_version", "1.0.0");
+        parameters.put("device_type", "phone");
+        parameters.put("device_name", "Benchmark");
+        parameters.put("device_manufacturer", "Adjust");
+        parameters.put("os_name", "android");
+        parameters.put("os_version", "11");
+        parameters.put("api_level", "30");
+        parameters.put("language", "en");
+        parameters.put("country", "US");
+        parameters.put("screen_size", "normal");
+        parameters.put("screen_format", "long");
+        parameters.put("screen_density", "high");
+        parameters.put("display_width", "1080");
+        parameters.put("display_height", "1920");
+        parameters.put("hardware_name", "BENCHMARK");
+        parameters.put("cpu_type", "x86_64");
+        parameters.put("session_count", "12");
+        parameters.put("subsession_count", "3");
+        parameters.put("session_length", "1234");
+        parameters.put("time_spent", "1200");
+        parameters.put("connectivity_type", "1");
+        parameters.put("callback_params", "{\"user_id\":\"12345\",\"tier\":\"gold\"}");
+        activityPackage.setParameters(parameters);
+
+        return activityPackage;
+    }
+}
@@ -0,0 +1,95 @@
+package com.adjust.sdk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encoding and decoding every package of a queue, as the queue journal does, with the Java
+ * serialization used before and with PersistenceCodec. The size of the encoded queue in both
+ * formats is printed when a trial starts.
+ */
+@State(Scope.Thread)
+public class PersistenceCodecBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int queueSize;
+
+    private List<ActivityPackage> packageQueue;
+    private List<byte[]> javaSerializedQueue;
+    private List<byte[]> encodedQueue;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        packageQueue = new ArrayList<ActivityPackage>(queueSize);
+        for (int i = 0; i < queueSize; i++) {
+            packageQueue.add(PackageQueueBenchmark.createEventPackage(i));
+        }
+
+        javaSerializedQueue = javaSerialize();
+        encodedQueue = encode();
+
+        System.out.println(Util.formatString("%d packages: %d bytes serialized, %d bytes encoded",
+                queueSize, sizeOf(javaSerializedQueue), sizeOf(encodedQueue)));
+    }
+
+    @Benchmark
+    public List<byte[]> javaSerialize() throws IOException {
+        List<byte[]> payloads = new ArrayList<byte[]>(packageQueue.size());
+        for (ActivityPackage activityPackage : packageQueue) {
+            ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+            ObjectOutputStream objectStream = new ObjectOutputStream(byteStream);
+            objectStream.writeObject(activityPackage);
+            objectStream.close();
+            payloads.add(byteStream.toByteArray());
+        }
+        return payloads;
+    }
+
+    @Benchmark
+    public List<ActivityPackage> javaDeserialize() throws Exception {
+        List<ActivityPackage> activityPackages = new ArrayList<ActivityPackage>(queueSize);
+        for (byte[] payload : javaSerializedQueue) {
+            ObjectInputStream objectStream =
+                    new ObjectInputStream(new ByteArrayInputStream(payload));
+            activityPackages.add((ActivityPackage) objectStream.readObject());
+        }
+        return activityPackages;
+    }
+
+    @Benchmark
+    public List<byte[]> encode() throws IOException {
+        List<byte[]> payloads = new ArrayList<byte[]>(packageQueue.size());
+        for (ActivityPackage activityPackage : packageQueue) {
+            payloads.add(PersistenceCodec.encodeActivityPackage(activityPackage));
+        }
+        return payloads;
+    }
+
+    @Benchmark
+    public List<ActivityPackage> decode() throws IOException {
+        List<ActivityPackage> activityPackages = new ArrayList<ActivityPackage>(queueSize);
+        for (byte[] payload : encodedQueue) {
+            activityPackages.add(PersistenceCodec.decodeActivityPackage(payload));
+        }
+        return activityPackages;
+    }
+
+    private static long sizeOf(List<byte[]> payloads) {
+        long size = 0;
+        for (byte[] payload : payloads) {
+            size += payload.length;
+        }
+        return size;
+    }
+}
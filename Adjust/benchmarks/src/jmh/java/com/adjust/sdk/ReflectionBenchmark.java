@@ -0,0 +1,94 @@
+package com.adjust.sdk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The reflective calls made for every package, looking the members up on each call as before and
+ * through the MemberCache: signing through an instance method, calling a plugin that is there and
+ * calling a plugin that is missing from the app.
+ */
+@State(Scope.Thread)
+public class ReflectionBenchmark {
+    private static final String PLUGIN_CLASS = "com.adjust.sdk.ReflectionBenchmark$Plugin";
+    private static final String MISSING_PLUGIN_CLASS = "com.adjust.sdk.imei.Util";
+    private static final Class<?>[] PLUGIN_PARAMETER_TYPES = new Class<?>[]{String.class};
+    private static final Class<?>[] SIGN_PARAMETER_TYPES =
+            new Class<?>[]{Object.class, Map.class, String.class, String.class};
+
+    public static class Plugin {
+        public static Map<String, String> getParameters(String value) {
+            return null;
+        }
+    }
+
+    public static class Signer {
+        public void sign(Object context, Map<String, String> parameters, String activityKind,
+                         String clientSdk)
+        {
+            parameters.put("signature", activityKind);
+        }
+    }
+
+    private Signer signer;
+    private Map<String, String> parameters;
+
+    @Setup
+    public void setUp() {
+        signer = new Signer();
+        parameters = new HashMap<String, String>();
+        MemberCache.clear();
+    }
+
+    @Benchmark
+    public Object signUncached() throws Exception {
+        Method method = signer.getClass().getMethod("sign", SIGN_PARAMETER_TYPES);
+        return method.invoke(signer, null, parameters, "event", "android4.0.0");
+    }
+
+    @Benchmark
+    public Object signCached() throws Exception {
+        return Reflection.invokeInstanceMethod(signer, "sign", SIGN_PARAMETER_TYPES,
+                null, parameters, "event", "android4.0.0");
+    }
+
+    @Benchmark
+    public Object pluginUncached() throws Exception {
+        Class<?> classObject = Class.forName(PLUGIN_CLASS);
+        Method method = classObject.getMethod("getParameters", PLUGIN_PARAMETER_TYPES);
+        return method.invoke(null, "value");
+    }
+
+    @Benchmark
+    public Object pluginCached() throws Exception {
+        return Reflection.invokeStaticMethod(PLUGIN_CLASS, "getParameters",
+                PLUGIN_PARAMETER_TYPES, "value");
+    }
+
+    @Benchmark
+    public Object missingPluginUncached() {
+        try {
+            Class<?> classObject = Class.forName(MISSING_PLUGIN_CLASS);
+            Method method = classObject.getMethod("getParameters", PLUGIN_PARAMETER_TYPES);
+            return method.invoke(null, "value");
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object missingPluginCached() {
+        try {
+            return Reflection.invokeStaticMethod(MISSING_PLUGIN_CLASS, "getParameters",
+                    PLUGIN_PARAMETER_TYPES, "value");
+        } catch (Exception e) {
+            return e;
+        }
+    }
+}
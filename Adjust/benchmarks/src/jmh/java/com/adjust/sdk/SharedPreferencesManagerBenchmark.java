@@ -0,0 +1,58 @@
+package com.adjust.sdk;
+
+import com.adjust.sdk.benchmarks.BenchmarkContext;
+
+import org.json.JSONArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Raw referrer operations of SharedPreferencesManager with a number of referrers already saved.
+ */
+@State(Scope.Thread)
+public class SharedPreferencesManagerBenchmark {
+    private static final String RAW_REFERRER = "utm_source=adjust_preinstall&adjust_reftag=abcdefghijkl";
+
+    // at most 10 referrers are kept, so that there is room for one more
+    @Param({"0", "4", "9"})
+    public int savedReferrers;
+
+    private SharedPreferencesManager sharedPreferencesManager;
+    private long lastClickTime;
+
+    @Setup
+    public void setUp() {
+        sharedPreferencesManager = new SharedPreferencesManager(new BenchmarkContext());
+
+        for (int i = 0; i < savedReferrers; i++) {
+            lastClickTime = 1600000000000L + i;
+            sharedPreferencesManager.saveRawReferrer(RAW_REFERRER + i, lastClickTime);
+        }
+    }
+
+    @Benchmark
+    public JSONArray getRawReferrerArray() {
+        return sharedPreferencesManager.getRawReferrerArray();
+    }
+
+    @Benchmark
+    public JSONArray getRawReferrer() {
+        return sharedPreferencesManager.getRawReferrer(RAW_REFERRER + (savedReferrers - 1),
+                lastClickTime);
+    }
+
+    @Benchmark
+    public boolean hasRawReferrer() {
+        return sharedPreferencesManager.hasRawReferrer(RAW_REFERRER + (savedReferrers - 1),
+                lastClickTime);
+    }
+
+    @Benchmark
+    public void saveAndRemoveRawReferrer() {
+        sharedPreferencesManager.saveRawReferrer(RAW_REFERRER, 1500000000000L);
+        sharedPreferencesManager.removeRawReferrer(RAW_REFERRER, 1500000000000L);
+    }
+}
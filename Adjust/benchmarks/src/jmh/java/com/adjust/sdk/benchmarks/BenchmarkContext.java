@@ -0,0 +1,224 @@
+package com.adjust.sdk.benchmarks;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ProviderInfo;
+import android.content.pm.ResolveInfo;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.os.Bundle;
+import android.util.DisplayMetrics;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Application context of an installed app for running sdk-core outside of Android.
+ *
+ * Files are kept in a temporary directory, shared preferences in memory.
+ */
+public class BenchmarkContext extends ContextWrapper {
+    private static final String PACKAGE_NAME = "com.adjust.benchmarks";
+
+    private final File filesDir;
+    private final Map<String, SharedPreferences> sharedPreferences;
+    private final Resources resources;
+    private final PackageManager packageManager;
+    private final ContentResolver contentResolver;
+
+    public BenchmarkContext() {
+        try {
+            filesDir = File.createTempFile("adjust-benchmarks", "");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        filesDir.delete();
+        filesDir.mkdirs();
+
+        sharedPreferences = new HashMap<String, SharedPreferences>();
+        resources = new BenchmarkResources();
+        packageManager = new BenchmarkPackageManager();
+        contentResolver = new ContentResolver();
+    }
+
+    /**
+     * Deletes all files written through this context.
+     */
+    public void delete() {
+        File[] files = filesDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        filesDir.delete();
+    }
+
+    @Override
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    @Override
+    public String getPackageName() {
+        return PACKAGE_NAME;
+    }
+
+    @Override
+    public File getFilesDir() {
+        return filesDir;
+    }
+
+    @Override
+    public File getFileStreamPath(String name) {
+        return new File(filesDir, name);
+    }
+
+    @Override
+    public FileInputStream openFileInput(String name) throws FileNotFoundException {
+        return new FileInputStream(getFileStreamPath(name));
+    }
+
+    @Override
+    public FileOutputStream openFileOutput(String name, int mode) throws FileNotFoundException {
+        return new FileOutputStream(getFileStreamPath(name), (mode & MODE_APPEND) != 0);
+    }
+
+    @Override
+    public boolean deleteFile(String name) {
+        return getFileStreamPath(name).delete();
+    }
+
+    @Override
+    public synchronized SharedPreferences getSharedPreferences(String name, int mode) {
+        SharedPreferences preferences = sharedPreferences.get(name);
+        if (preferences == null) {
+            preferences = new InMemorySharedPreferences();
+            sharedPreferences.put(name, preferences);
+        }
+        return preferences;
+    }
+
+    @Override
+    public int checkCallingOrSelfPermission(String permission) {
+        return PackageManager.PERMISSION_GRANTED;
+    }
+
+    @Override
+    public Resources getResources() {
+        return resources;
+    }
+
+    @Override
+    public PackageManager getPackageManager() {
+        return packageManager;
+    }
+
+    @Override
+    public ContentResolver getContentResolver() {
+        return contentResolver;
+    }
+
+    private static class BenchmarkResources extends Resources {
+        private final DisplayMetrics displayMetrics;
+        private final Configuration configuration;
+
+        BenchmarkResources() {
+            displayMetrics = new DisplayMetrics();
+            displayMetrics.densityDpi = DisplayMetrics.DENSITY_HIGH;
+            displayMetrics.widthPixels = 1080;
+            displayMetrics.heightPixels = 1920;
+
+            configuration = new Configuration();
+            configuration.screenLayout = Configuration.SCREENLAYOUT_SIZE_NORMAL
+                    | Configuration.SCREENLAYOUT_LONG_YES;
+            configuration.locale = Locale.US;
+        }
+
+        @Override
+        public DisplayMetrics getDisplayMetrics() {
+            return displayMetrics;
+        }
+
+        @Override
+        public Configuration getConfiguration() {
+            return configuration;
+        }
+    }
+
+    private static class BenchmarkPackageManager extends PackageManager {
+        private final long installTime = System.currentTimeMillis();
+
+        @Override
+        public PackageInfo getPackageInfo(String name, int flags) throws NameNotFoundException {
+            if (!PACKAGE_NAME.equals(name)) {
+                throw new NameNotFoundException();
+            }
+
+            PackageInfo packageInfo = new PackageInfo();
+            packageInfo.packageName = name;
+            packageInfo.versionName = "1.0.0";
+            packageInfo.firstInstallTime = installTime;
+            packageInfo.lastUpdateTime = installTime;
+            return packageInfo;
+        }
+
+        @Override
+        public ApplicationInfo getApplicationInfo(String name, int flags)
+                throws NameNotFoundException
+        {
+            if (!PACKAGE_NAME.equals(name)) {
+                throw new NameNotFoundException();
+            }
+
+            ApplicationInfo applicationInfo = new ApplicationInfo();
+            applicationInfo.packageName = name;
+            applicationInfo.metaData = new Bundle();
+            return applicationInfo;
+        }
+
+        @Override
+        public List<ResolveInfo> queryIntentActivities(Intent intent, int flags) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<ResolveInfo> queryBroadcastReceivers(Intent intent, int flags) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<ResolveInfo> queryIntentContentProviders(Intent intent, int flags) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public ProviderInfo resolveContentProvider(String authority, int flags) {
+            return null;
+        }
+
+        @Override
+        public ResolveInfo resolveService(Intent intent, int flags) {
+            return null;
+        }
+
+        @Override
+        public int checkPermission(String permission, String packageName) {
+            return PERMISSION_GRANTED;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.adjust.sdk.network;
+
+import com.adjust.sdk.ActivityPackage;
+import com.adjust.sdk.AdjustConfig;
+import com.adjust.sdk.AdjustFactory;
+import com.adjust.sdk.BenchmarkPackages;
+import com.adjust.sdk.ResponseData;
+import com.adjust.sdk.Util;
+import com.adjust.sdk.benchmarks.BenchmarkContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.security.cert.Certificate;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.HttpsURLConnection;
+
+/**
+ * Sending a package through ActivityPackageSender to a connection that answers immediately,
+ * which measures building the request, encoding (and compressing) the body and parsing the
+ * response. The packages are built by the PackageBuilder, with the callback and partner
+ * parameters of the session (and of the event).
+ *
+ * The bytes of the encoded body, as sent on the wire, are printed after each iteration.
+ */
+@State(Scope.Thread)
+public class ActivityPackageSenderBenchmark {
+    private static final byte[] RESPONSE = "{\"message\":\"Event tracked\",\"adid\":\"abc\"}".getBytes();
+
+    @Param({"none", AdjustConfig.BODY_COMPRESSION_GZIP, AdjustConfig.BODY_COMPRESSION_DEFLATE})
+    public String bodyCompression;
+
+    @Param({"session", "event"})
+    public String activityKind;
+
+    // callback and partner parameters of the session and of the event
+    @Param({"0", "50"})
+    public int parameterCount;
+
+    private ActivityPackageSender sender;
+    private ActivityPackage activityPackage;
+    private BenchmarkContext context;
+    // bytes written to the connection by the last request
+    private final AtomicLong bodyBytes = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AdjustFactory.setHttpsURLConnectionProvider(new UtilNetworking.IHttpsURLConnectionProvider() {
+            @Override
+            public HttpsURLConnection generateHttpsURLConnection(URL url) {
+                return new ImmediateConnection(url, bodyBytes);
+            }
+        });
+
+        sender = new ActivityPackageSender(null, null, null, null, "android4.28.3", 1,
+                "none".equals(bodyCompression) ? null : bodyCompression);
+
+        context = new BenchmarkContext();
+        activityPackage = "session".equals(activityKind)
+                ? BenchmarkPackages.buildSessionPackage(context, parameterCount)
+                : BenchmarkPackages.buildEventPackage(context, parameterCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        AdjustFactory.setHttpsURLConnectionProvider(null);
+        context.delete();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printBodySize() {
+        System.out.println(Util.formatString(
+                "%s package with %d callback and partner parameters: %d bytes on the wire with %s"
+                        + " compression", activityKind, parameterCount, bodyBytes.get(),
+                bodyCompression));
+    }
+
+    @Benchmark
+    public ResponseData sendActivityPackage() {
+        return sender.sendActivityPackageSync(activityPackage, null);
+    }
+
+    private static class ImmediateConnection extends HttpsURLConnection {
+        private final AtomicLong bodyBytes;
+
+        ImmediateConnection(URL url, AtomicLong bodyBytes) {
+            super(url);
+            this.bodyBytes = bodyBytes;
+            bodyBytes.set(0);
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return new OutputStream() {
+                @Override
+                public void write(int b) {
+                    bodyBytes.incrementAndGet();
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    bodyBytes.addAndGet(len);
+                }
+            };
+        }
+
+        @Override
+        public int getResponseCode() {
+            return HTTP_OK;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(RESPONSE);
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return null;
+        }
+
+        @Override
+        public String getCipherSuite() {
+            return null;
+        }
+
+        @Override
+        public Certificate[] getLocalCertificates() {
+            return null;
+        }
+
+        @Override
+        public Certificate[] getServerCertificates() {
+            return null;
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.adjust.sdk.network;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encoding of a POST body with the URLEncoder and StringBuilder based code the sender used
+ * before, and with PostBodyEncoder. Run with the gc profiler to compare allocations.
+ */
+@State(Scope.Thread)
+public class PostBodyEncoderBenchmark {
+    @Param({"10", "40", "120"})
+    public int parameterCount;
+
+    private Map<String, String> parameters;
+    private Map<String, String> sendingParameters;
+    private CountingOutputStream outputStream;
+
+    @Setup
+    public void setUp() {
+        parameters = new HashMap<String, String>();
+        for (int i = 0; i < parameterCount; i++) {
+            switch (i % 4) {
+                case 0:
+                    parameters.put("key_" + i, "2021-03-04T10:11:12.123Z+0100");
+                    break;
+                case 1:
+                    parameters.put("key_" + i, "3f2e4a3c-8a9b-4c2d-9e1f-0a1b2c3d4e5f");
+                    break;
+                case 2:
+                    parameters.put("key_" + i, "{\"user\":\"J\u00FCrgen M\u00FCller\",\"tier\":\"gold & silver\"}");
+                    break;
+                default:
+                    parameters.put("key_" + i, Integer.toString(i * 7919));
+                    break;
+            }
+        }
+
+        sendingParameters = new HashMap<String, String>();
+        sendingParameters.put("sent_at", "2021-03-04T10:11:13.456Z+0100");
+        sendingParameters.put("queue_size", "3");
+
+        outputStream = new CountingOutputStream();
+    }
+
+    @Benchmark
+    public long urlEncoder() throws IOException {
+        outputStream.count = 0;
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        dataOutputStream.writeBytes(urlEncoderBody(parameters, sendingParameters));
+        dataOutputStream.flush();
+        return outputStream.count;
+    }
+
+    @Benchmark
+    public long postBodyEncoder() throws IOException {
+        outputStream.count = 0;
+        PostBodyEncoder.writePostBody(parameters, sendingParameters, outputStream);
+        return outputStream.count;
+    }
+
+    // body as built by ActivityPackageSender before PostBodyEncoder
+    private static String urlEncoderBody(Map<String, String> parameters,
+                                         Map<String, String> sendingParameters)
+            throws IOException
+    {
+        StringBuilder builder = new StringBuilder();
+        appendUrlEncoded(parameters, builder);
+        appendUrlEncoded(sendingParameters, builder);
+
+        String body = builder.toString();
+        if (body.length() > 0 && body.charAt(body.length() - 1) == '&') {
+            body = body.substring(0, body.length() - 1);
+        }
+        return body;
+    }
+
+    private static void appendUrlEncoded(Map<String, String> parameters, StringBuilder builder)
+            throws IOException
+    {
+        for (Map.Entry<String, String> entry : parameters.entrySet()) {
+            String value = entry.getValue();
+            builder.append(URLEncoder.encode(entry.getKey(), "UTF-8"));
+            builder.append("=");
+            builder.append(value != null ? URLEncoder.encode(value, "UTF-8") : "");
+            builder.append("&");
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.adjust.sdk.scheduler;
+
+import com.adjust.sdk.AdjustFactory;
+import com.adjust.sdk.Util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many SDK instances in one JVM, as in a replay or load test harness. Each component lane of
+ * each instance sends one simulated request that blocks the lane, on the SdkExecutor and its
+ * I/O pool or on virtual threads, selected through AdjustFactory as a harness would.
+ *
+ * Measures the time until every lane ran. The platform threads alive before the run and at its
+ * peak are printed after each iteration.
+ *
+ * The virtual backend is experimental and left out of the default run. It needs JDK 21 or
+ * newer, fails its setup on older JVMs, and has no measured footprint or latency yet. On JDK 21
+ * run it from the jar of ./gradlew :benchmarks:jmhJar with
+ * SdkThreadFootprintBenchmark -p backend=shared,virtual.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class SdkThreadFootprintBenchmark {
+    // the lanes each SDK instance creates
+    private static final String[] COMPONENT_LANES = {"ActivityHandler", "PackageHandler",
+            "AttributionHandler", "SdkClickHandler", "InstallReferrer", "ActivityPackageSender"};
+    // the lanes that block on the network or on other lanes, on the I/O pool
+    private static final List<String> IO_LANES =
+            Arrays.asList("ActivityHandler", "ActivityPackageSender");
+    // how long a simulated request blocks its lane
+    private static final long REQUEST_MILLISECONDS = 1;
+
+    @Param({"10000"})
+    public int instances;
+
+    @Param({"shared"})
+    public String backend;
+
+    private Executor executor;
+    private ThreadMXBean threadMXBean;
+    private int threadsBefore;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        threadMXBean = ManagementFactory.getThreadMXBean();
+        if ("virtual".equals(backend)) {
+            executor = VirtualThreadExecutor.create();
+            if (executor == null) {
+                throw new IllegalStateException("Virtual threads need JDK 21 or newer");
+            }
+        } else {
+            executor = new SdkExecutor(SdkExecutor.MAX_THREADS);
+        }
+        AdjustFactory.setSdkExecutor(executor);
+        if (executor instanceof VirtualThreadExecutor) {
+            AdjustFactory.setSdkIoExecutor(executor);
+            AdjustFactory.setSdkWaitingExecutor(executor);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        AdjustFactory.setSdkExecutor(null);
+        AdjustFactory.setSdkIoExecutor(null);
+        AdjustFactory.setSdkWaitingExecutor(null);
+        if (executor instanceof VirtualThreadExecutor) {
+            ((VirtualThreadExecutor) executor).shutdown();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetThreadCount() {
+        threadMXBean.resetPeakThreadCount();
+        threadsBefore = threadMXBean.getThreadCount();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printThreadCount() {
+        String virtualThreads = executor instanceof VirtualThreadExecutor
+                ? Util.formatString(", %d virtual threads started so far",
+                        ((VirtualThreadExecutor) executor).getStartedThreadCount())
+                : "";
+        System.out.println(Util.formatString(
+                "%d instances on %s: %d platform threads before, %d at peak%s",
+                instances, backend, threadsBefore, threadMXBean.getPeakThreadCount(),
+                virtualThreads));
+    }
+
+    @Benchmark
+    public void runInstances() throws InterruptedException {
+        final CountDownLatch executed = new CountDownLatch(instances * COMPONENT_LANES.length);
+        Runnable request = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(REQUEST_MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                executed.countDown();
+            }
+        };
+
+        List<SingleThreadCachedScheduler> lanes =
+                new ArrayList<SingleThreadCachedScheduler>(instances * COMPONENT_LANES.length);
+        for (int i = 0; i < instances; i++) {
+            for (String component : COMPONENT_LANES) {
+                SingleThreadCachedScheduler lane = IO_LANES.contains(component)
+                        ? new SingleThreadCachedScheduler(component, AdjustFactory.getSdkIoExecutor())
+                        : new SingleThreadCachedScheduler(component);
+                lanes.add(lane);
+                lane.submit(request);
+            }
+        }
+
+        executed.await();
+        for (SingleThreadCachedScheduler lane : lanes) {
+            lane.teardown();
+        }
+    }
+}
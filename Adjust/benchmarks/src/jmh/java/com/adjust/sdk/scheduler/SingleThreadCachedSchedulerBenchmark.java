@@ -0,0 +1,138 @@
+package com.adjust.sdk.scheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A burst of tasks submitted to one scheduler from several producer threads at once, as when
+ * the app tracks many events from different threads. Measures the time until every task ran.
+ */
+@State(Scope.Benchmark)
+public class SingleThreadCachedSchedulerBenchmark {
+    private static final int TASKS_PER_PRODUCER = 10000;
+
+    @Param({"1", "2", "4", "8"})
+    public int producers;
+
+    // the lock free queue, or the synchronized ArrayList it replaced
+    @Param({"lockFree", "synchronized"})
+    public String queue;
+
+    private ExecutorService producerPool;
+    private ThreadExecutor scheduler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        producerPool = Executors.newFixedThreadPool(producers);
+        scheduler = "lockFree".equals(queue)
+                ? new SingleThreadCachedScheduler("Benchmark")
+                : new SynchronizedQueueScheduler();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scheduler.teardown();
+        producerPool.shutdown();
+    }
+
+    @Benchmark
+    public void submitBurst() throws Exception {
+        final CountDownLatch executed = new CountDownLatch(producers * TASKS_PER_PRODUCER);
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                executed.countDown();
+            }
+        };
+
+        List<Future<?>> futures = new ArrayList<Future<?>>(producers);
+        for (int p = 0; p < producers; p++) {
+            futures.add(producerPool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < TASKS_PER_PRODUCER; i++) {
+                        scheduler.submit(task);
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executed.await();
+    }
+
+    // SingleThreadCachedScheduler before the lock free queue
+    private static class SynchronizedQueueScheduler implements ThreadExecutor {
+        private final List<Runnable> queue = new ArrayList<Runnable>();
+        private boolean isThreadProcessing = false;
+        private boolean isTeardown = false;
+        private final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+                0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>());
+
+        @Override
+        public void submit(Runnable task) {
+            synchronized (queue) {
+                if (isTeardown) {
+                    return;
+                }
+                if (!isThreadProcessing) {
+                    isThreadProcessing = true;
+                    processQueue(task);
+                } else {
+                    queue.add(task);
+                }
+            }
+        }
+
+        private void processQueue(final Runnable firstRunnable) {
+            threadPoolExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    firstRunnable.run();
+
+                    Runnable runnable;
+                    while (true) {
+                        synchronized (queue) {
+                            if (isTeardown) {
+                                return;
+                            }
+                            if (queue.isEmpty()) {
+                                isThreadProcessing = false;
+                                break;
+                            }
+                            runnable = queue.get(0);
+                            queue.remove(0);
+                        }
+                        runnable.run();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void teardown() {
+            synchronized (queue) {
+                isTeardown = true;
+                queue.clear();
+                threadPoolExecutor.shutdown();
+            }
+        }
+    }
+}
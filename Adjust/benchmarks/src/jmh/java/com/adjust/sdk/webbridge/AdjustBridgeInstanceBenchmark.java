@@ -0,0 +1,57 @@
+package com.adjust.sdk.webbridge;
+
+import android.app.Application;
+import android.webkit.WebView;
+
+import com.adjust.sdk.benchmarks.BenchmarkContext;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parsing of the event JSON passed from the web view to AdjustBridgeInstance.trackEvent.
+ *
+ * The SDK is not started, so the parsed event is dropped by Adjust.trackEvent.
+ */
+@State(Scope.Thread)
+public class AdjustBridgeInstanceBenchmark {
+    // callback and partner parameters of the event
+    @Param({"0", "10", "50"})
+    public int parameterCount;
+
+    private AdjustBridgeInstance adjustBridgeInstance;
+    private String adjustEventString;
+
+    @Setup
+    public void setUp() throws Exception {
+        adjustBridgeInstance = new AdjustBridgeInstance(new Application(),
+                new WebView(new BenchmarkContext()));
+
+        JSONArray callbackParameters = new JSONArray();
+        JSONArray partnerParameters = new JSONArray();
+        for (int i = 0; i < parameterCount; i++) {
+            callbackParameters.put("key_" + i).put("value " + i);
+            partnerParameters.put("partner_" + i).put("value " + i);
+        }
+
+        adjustEventString = new JSONObject()
+                .put("eventToken", "abc123")
+                .put("revenue", "0.99")
+                .put("currency", "EUR")
+                .put("callbackParameters", callbackParameters)
+                .put("partnerParameters", partnerParameters)
+                .put("orderId", "order-1")
+                .put("callbackId", "callback-1")
+                .toString();
+    }
+
+    @Benchmark
+    public void trackEvent() {
+        adjustBridgeInstance.trackEvent(adjustEventString);
+    }
+}
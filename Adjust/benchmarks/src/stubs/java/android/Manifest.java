@@ -0,0 +1,11 @@
+package android;
+
+public class Manifest {
+    public static class permission {
+        public static final String INTERNET = "i";
+        public static final String ACCESS_WIFI_STATE = "w";
+        public static final String READ_PHONE_STATE = "p";
+        public static final String ACCESS_NETWORK_STATE = "n";
+        public static final String INSTALL_PACKAGES = "ip";
+    }
+}
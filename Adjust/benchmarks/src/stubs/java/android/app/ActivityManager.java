@@ -0,0 +1,12 @@
+package android.app;
+
+public class ActivityManager {
+    public static class RunningAppProcessInfo {
+        public int pid;
+        public String processName;
+    }
+
+    public java.util.List<RunningAppProcessInfo> getRunningAppProcesses() {
+        return null;
+    }
+}
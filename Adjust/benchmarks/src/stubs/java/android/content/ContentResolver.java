@@ -0,0 +1,7 @@
+package android.content;
+
+public class ContentResolver {
+    public android.database.Cursor query(android.net.Uri u, String[] p, String s, String[] a, String o) {
+        return null;
+    }
+}
@@ -0,0 +1,94 @@
+package android.content;
+
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+import android.content.res.AssetManager;
+import android.os.Looper;
+import java.io.*;
+
+public class Context {
+    public static final int MODE_PRIVATE = 0;
+    public static final int MODE_APPEND = 32768;
+    public static final String CONNECTIVITY_SERVICE = "connectivity";
+    public static final String TELEPHONY_SERVICE = "phone";
+    public static final String ACTIVITY_SERVICE = "activity";
+    public static final String WIFI_SERVICE = "wifi";
+    public static final int BIND_AUTO_CREATE = 1;
+
+    public Context getApplicationContext() {
+        return null;
+    }
+
+    public FileInputStream openFileInput(String n) throws FileNotFoundException {
+        return null;
+    }
+
+    public FileOutputStream openFileOutput(String n, int m) throws FileNotFoundException {
+        return null;
+    }
+
+    public boolean deleteFile(String n) {
+        return false;
+    }
+
+    public File getFileStreamPath(String n) {
+        return null;
+    }
+
+    public File getFilesDir() {
+        return null;
+    }
+
+    public int checkCallingOrSelfPermission(String p) {
+        return 0;
+    }
+
+    public Object getSystemService(String s) {
+        return null;
+    }
+
+    public PackageManager getPackageManager() {
+        return null;
+    }
+
+    public String getPackageName() {
+        return null;
+    }
+
+    public Resources getResources() {
+        return null;
+    }
+
+    public ContentResolver getContentResolver() {
+        return null;
+    }
+
+    public SharedPreferences getSharedPreferences(String n, int m) {
+        return null;
+    }
+
+    public Looper getMainLooper() {
+        return null;
+    }
+
+    public AssetManager getAssets() {
+        return null;
+    }
+
+    public void startActivity(Intent i) {
+    }
+
+    public boolean bindService(Intent i, ServiceConnection c, int f) {
+        return false;
+    }
+
+    public void unbindService(ServiceConnection c) {
+    }
+
+    public Intent registerReceiver(BroadcastReceiver r, IntentFilter f) {
+        return null;
+    }
+
+    public void unregisterReceiver(BroadcastReceiver r) {
+    }
+}
@@ -0,0 +1,44 @@
+package android.content;
+
+public class Intent {
+    public static final String ACTION_VIEW = "v";
+    public static final String ACTION_CONFIGURATION_CHANGED = "android.intent.action.CONFIGURATION_CHANGED";
+    public static final String ACTION_LOCALE_CHANGED = "android.intent.action.LOCALE_CHANGED";
+    public static final int FLAG_ACTIVITY_NEW_TASK = 1;
+
+    public Intent() {
+    }
+
+    public Intent(String a) {
+    }
+
+    public Intent(String a, android.net.Uri u) {
+    }
+
+    public Intent(String a, android.net.Uri u, Context c, Class<?> k) {
+    }
+
+    public Intent setFlags(int f) {
+        return this;
+    }
+
+    public Intent setPackage(String p) {
+        return this;
+    }
+
+    public String getStringExtra(String n) {
+        return null;
+    }
+
+    public android.net.Uri getData() {
+        return null;
+    }
+
+    public String getAction() {
+        return null;
+    }
+
+    public Intent setAction(String a) {
+        return this;
+    }
+}
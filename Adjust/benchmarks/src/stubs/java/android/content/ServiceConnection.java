@@ -0,0 +1,7 @@
+package android.content;
+
+public interface ServiceConnection {
+    void onServiceConnected(ComponentName n, android.os.IBinder b);
+
+    void onServiceDisconnected(ComponentName n);
+}
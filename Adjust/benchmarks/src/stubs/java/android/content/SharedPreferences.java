@@ -0,0 +1,33 @@
+package android.content;
+
+public interface SharedPreferences {
+    interface Editor {
+        Editor putString(String k, String v);
+
+        Editor putBoolean(String k, boolean v);
+
+        Editor putLong(String k, long v);
+
+        Editor putInt(String k, int v);
+
+        Editor remove(String k);
+
+        Editor clear();
+
+        boolean commit();
+
+        void apply();
+    }
+
+    String getString(String k, String d);
+
+    boolean getBoolean(String k, boolean d);
+
+    long getLong(String k, long d);
+
+    int getInt(String k, int d);
+
+    boolean contains(String k);
+
+    Editor edit();
+}
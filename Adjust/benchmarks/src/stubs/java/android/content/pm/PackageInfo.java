@@ -0,0 +1,9 @@
+package android.content.pm;
+
+public class PackageInfo {
+    public String versionName;
+    public long firstInstallTime;
+    public long lastUpdateTime;
+    public Signature[] signatures;
+    public String packageName;
+}
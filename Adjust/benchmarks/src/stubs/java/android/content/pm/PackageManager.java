@@ -0,0 +1,20 @@
+package android.content.pm;
+
+public abstract class PackageManager {
+    public static final int PERMISSION_GRANTED = 0;
+    public static final int GET_SIGNATURES = 64;
+    public static final int GET_PERMISSIONS = 4096;
+    public static final int GET_META_DATA = 128;
+
+    public static class NameNotFoundException extends Exception {
+    }
+
+    public abstract PackageInfo getPackageInfo(String n, int f) throws NameNotFoundException;
+    public abstract java.util.List<ResolveInfo> queryIntentActivities(android.content.Intent i, int f);
+    public abstract java.util.List<ResolveInfo> queryBroadcastReceivers(android.content.Intent i, int f);
+    public abstract ProviderInfo resolveContentProvider(String a, int f);
+    public abstract ResolveInfo resolveService(android.content.Intent i, int f);
+    public abstract java.util.List<ResolveInfo> queryIntentContentProviders(android.content.Intent i, int f);
+    public abstract int checkPermission(String p, String n);
+    public abstract ApplicationInfo getApplicationInfo(String n, int f) throws NameNotFoundException;
+}
@@ -0,0 +1,6 @@
+package android.content.pm;
+
+public class ProviderInfo {
+    public String packageName;
+    public String authority;
+}
@@ -0,0 +1,7 @@
+package android.content.pm;
+
+public class Signature {
+    public String toCharsString() {
+        return null;
+    }
+}
@@ -0,0 +1,21 @@
+package android.content.res;
+
+import android.os.LocaleList;
+
+import java.util.Locale;
+
+public class Configuration {
+    public static final int SCREENLAYOUT_SIZE_MASK = 15;
+    public static final int SCREENLAYOUT_SIZE_SMALL = 1;
+    public static final int SCREENLAYOUT_SIZE_NORMAL = 2;
+    public static final int SCREENLAYOUT_SIZE_LARGE = 3;
+    public static final int SCREENLAYOUT_LONG_MASK = 48;
+    public static final int SCREENLAYOUT_LONG_YES = 32;
+    public static final int SCREENLAYOUT_LONG_NO = 16;
+    public int screenLayout;
+    public Locale locale;
+
+    public LocaleList getLocales() {
+        return locale != null ? new LocaleList(locale) : new LocaleList();
+    }
+}
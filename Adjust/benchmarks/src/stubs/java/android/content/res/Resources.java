@@ -0,0 +1,11 @@
+package android.content.res;
+
+public class Resources {
+    public android.util.DisplayMetrics getDisplayMetrics() {
+        return null;
+    }
+
+    public Configuration getConfiguration() {
+        return null;
+    }
+}
@@ -0,0 +1,19 @@
+package android.database;
+
+public interface Cursor {
+    boolean moveToFirst();
+
+    boolean moveToNext();
+
+    void close();
+
+    String getString(int i);
+
+    int getColumnIndex(String n);
+
+    int getColumnIndexOrThrow(String n);
+
+    long getLong(int i);
+
+    int getInt(int i);
+}
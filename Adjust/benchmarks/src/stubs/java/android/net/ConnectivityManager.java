@@ -0,0 +1,34 @@
+package android.net;
+
+public class ConnectivityManager {
+    public static final String CONNECTIVITY_ACTION = "android.net.conn.CONNECTIVITY_CHANGE";
+
+    public NetworkInfo getActiveNetworkInfo() {
+        return null;
+    }
+
+    public Network getActiveNetwork() {
+        return null;
+    }
+
+    public NetworkCapabilities getNetworkCapabilities(Network n) {
+        return null;
+    }
+
+    public void registerDefaultNetworkCallback(NetworkCallback c) {
+    }
+
+    public void unregisterNetworkCallback(NetworkCallback c) {
+    }
+
+    public static class NetworkCallback {
+        public void onAvailable(Network n) {
+        }
+
+        public void onLost(Network n) {
+        }
+
+        public void onCapabilitiesChanged(Network n, NetworkCapabilities c) {
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package android.net;
+
+public class NetworkCapabilities {
+    public static final int TRANSPORT_CELLULAR = 0;
+    public static final int TRANSPORT_WIFI = 1;
+    public static final int TRANSPORT_BLUETOOTH = 2;
+    public static final int TRANSPORT_ETHERNET = 3;
+    public static final int TRANSPORT_VPN = 4;
+    public static final int TRANSPORT_WIFI_AWARE = 5;
+    public static final int TRANSPORT_LOWPAN = 6;
+    public static final int NET_CAPABILITY_INTERNET = 12;
+    public static final int NET_CAPABILITY_NOT_METERED = 11;
+    public static final int NET_CAPABILITY_VALIDATED = 16;
+
+    public boolean hasTransport(int t) {
+        return false;
+    }
+
+    public boolean hasCapability(int c) {
+        return false;
+    }
+}
@@ -0,0 +1,11 @@
+package android.net;
+
+public class NetworkInfo {
+    public int getType() {
+        return 0;
+    }
+
+    public boolean isConnected() {
+        return false;
+    }
+}
@@ -0,0 +1,43 @@
+package android.net;
+
+public abstract class Uri {
+    public static Uri parse(String s) {
+        return null;
+    }
+
+    public abstract String getQueryParameter(String k);
+    public abstract String getQuery();
+    public abstract String getScheme();
+    public abstract String getHost();
+    public abstract String getPath();
+    public abstract String getFragment();
+    public static final class Builder {
+        public Builder scheme(String s) {
+            return this;
+        }
+
+        public Builder encodedAuthority(String s) {
+            return this;
+        }
+
+        public Builder authority(String s) {
+            return this;
+        }
+
+        public Builder path(String s) {
+            return this;
+        }
+
+        public Builder appendPath(String s) {
+            return this;
+        }
+
+        public Builder appendQueryParameter(String k, String v) {
+            return this;
+        }
+
+        public Uri build() {
+            return null;
+        }
+    }
+}
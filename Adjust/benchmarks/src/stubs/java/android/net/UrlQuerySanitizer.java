@@ -0,0 +1,35 @@
+package android.net;
+
+public class UrlQuerySanitizer {
+    public static class ParameterValuePair {
+        public String mParameter;
+        public String mValue;
+    }
+
+    public static interface ValueSanitizer {
+        String sanitize(String v);
+    }
+
+    public static final ValueSanitizer getAllButNulLegal() {
+        return null;
+    }
+
+    public UrlQuerySanitizer() {
+    }
+
+    public void setUnregisteredParameterValueSanitizer(ValueSanitizer s) {
+    }
+
+    public void setAllowUnregisteredParamaters(boolean b) {
+    }
+
+    public void parseQuery(String q) {
+    }
+
+    public void parseUrl(String u) {
+    }
+
+    public java.util.List<ParameterValuePair> getParameterList() {
+        return null;
+    }
+}
@@ -0,0 +1,7 @@
+package android.net.wifi;
+
+public class WifiManager {
+    public WifiInfo getConnectionInfo() {
+        return null;
+    }
+}
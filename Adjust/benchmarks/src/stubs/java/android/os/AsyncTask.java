@@ -0,0 +1,11 @@
+package android.os;
+
+public abstract class AsyncTask<P, G, R> {
+    protected abstract R doInBackground(P... p);
+    protected void onPostExecute(R r) {
+    }
+
+    public final AsyncTask<P, G, R> execute(P... p) {
+        return this;
+    }
+}
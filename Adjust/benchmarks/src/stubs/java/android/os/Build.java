@@ -0,0 +1,31 @@
+package android.os;
+
+public class Build {
+    public static final String MODEL = "Benchmark";
+    public static final String MANUFACTURER = "Adjust";
+    public static final String ID = "BENCHMARK";
+    public static final String DISPLAY = "benchmark";
+    public static final String CPU_ABI = "x86_64";
+    public static final String[] SUPPORTED_ABIS = {"x86_64"};
+
+    public static class VERSION {
+        public static final int SDK_INT = 30;
+        public static final String RELEASE = "11";
+    }
+
+    public static class VERSION_CODES {
+        public static final int GINGERBREAD = 9;
+        public static final int HONEYCOMB = 11;
+        public static final int ICE_CREAM_SANDWICH = 14;
+        public static final int JELLY_BEAN_MR1 = 17;
+        public static final int KITKAT = 19;
+        public static final int LOLLIPOP = 21;
+        public static final int M = 23;
+        public static final int N = 24;
+        public static final int O = 26;
+        public static final int O_MR1 = 27;
+        public static final int P = 28;
+        public static final int Q = 29;
+        public static final int R = 30;
+    }
+}
@@ -0,0 +1,21 @@
+package android.os;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class Bundle {
+    private final Map<String, Object> values = new HashMap<String, Object>();
+
+    public Object get(String key) {
+        return values.get(key);
+    }
+
+    public String getString(String key) {
+        Object value = values.get(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    public void putString(String key, String value) {
+        values.put(key, value);
+    }
+}
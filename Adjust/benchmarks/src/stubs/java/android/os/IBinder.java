@@ -0,0 +1,7 @@
+package android.os;
+
+public interface IBinder {
+    boolean transact(int c, Parcel d, Parcel r, int f) throws RemoteException;
+
+    IInterface queryLocalInterface(String d);
+}
@@ -0,0 +1,19 @@
+package android.os;
+
+import java.util.Locale;
+
+public class LocaleList {
+    private final Locale[] locales;
+
+    public LocaleList(Locale... locales) {
+        this.locales = locales;
+    }
+
+    public boolean isEmpty() {
+        return locales.length == 0;
+    }
+
+    public Locale get(int index) {
+        return locales[index];
+    }
+}
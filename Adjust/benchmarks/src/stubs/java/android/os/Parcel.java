@@ -0,0 +1,27 @@
+package android.os;
+
+public class Parcel {
+    public static Parcel obtain() {
+        return null;
+    }
+
+    public void writeInterfaceToken(String s) {
+    }
+
+    public void readException() {
+    }
+
+    public String readString() {
+        return null;
+    }
+
+    public int readInt() {
+        return 0;
+    }
+
+    public void writeInt(int i) {
+    }
+
+    public void recycle() {
+    }
+}
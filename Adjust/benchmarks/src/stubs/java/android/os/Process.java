@@ -0,0 +1,10 @@
+package android.os;
+
+public class Process {
+    public static final int THREAD_PRIORITY_BACKGROUND = 10;
+    public static final int THREAD_PRIORITY_MORE_FAVORABLE = -1;
+
+    public static int myPid() {
+        return 0;
+    }
+}
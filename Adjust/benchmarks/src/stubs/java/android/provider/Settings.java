@@ -0,0 +1,18 @@
+package android.provider;
+
+public class Settings {
+    public static class Secure {
+        public static final String ANDROID_ID = "android_id";
+
+        public static String getString(android.content.ContentResolver r, String n) {
+            return null;
+        }
+
+        public static int getInt(android.content.ContentResolver r, String n) throws SettingNotFoundException {
+            return 0;
+        }
+    }
+
+    public static class SettingNotFoundException extends Exception {
+    }
+}
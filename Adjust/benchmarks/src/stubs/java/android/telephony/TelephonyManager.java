@@ -0,0 +1,15 @@
+package android.telephony;
+
+public class TelephonyManager {
+    public int getNetworkType() {
+        return 0;
+    }
+
+    public int getDataNetworkType() {
+        return 0;
+    }
+
+    public String getNetworkOperator() {
+        return null;
+    }
+}
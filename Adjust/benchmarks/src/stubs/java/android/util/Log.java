@@ -0,0 +1,34 @@
+package android.util;
+
+public class Log {
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+    public static final int ASSERT = 7;
+
+    public static int println(int p, String t, String m) {
+        return 0;
+    }
+
+    public static int v(String t, String m) {
+        return 0;
+    }
+
+    public static int d(String t, String m) {
+        return 0;
+    }
+
+    public static int i(String t, String m) {
+        return 0;
+    }
+
+    public static int w(String t, String m) {
+        return 0;
+    }
+
+    public static int e(String t, String m) {
+        return 0;
+    }
+}
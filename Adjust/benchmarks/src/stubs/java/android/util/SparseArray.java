@@ -0,0 +1,23 @@
+package android.util;
+
+public class SparseArray<E> {
+    private java.util.HashMap<Integer, E> m = new java.util.HashMap<>();
+
+    public SparseArray() {
+    }
+
+    public SparseArray(int c) {
+    }
+
+    public E get(int k) {
+        return m.get(k);
+    }
+
+    public void put(int k, E v) {
+        m.put(k, v);
+    }
+
+    public void clear() {
+        m.clear();
+    }
+}
@@ -19,6 +19,7 @@ import android.os.Handler;
 
 import com.adjust.sdk.network.ActivityPackageSender;
 import com.adjust.sdk.network.IActivityPackageSender;
+import com.adjust.sdk.network.INetworkMonitor;
 import com.adjust.sdk.network.UtilNetworking;
 import com.adjust.sdk.scheduler.SingleThreadCachedScheduler;
 import com.adjust.sdk.scheduler.ThreadExecutor;
@@ -33,6 +34,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import static com.adjust.sdk.Constants.ACTIVITY_STATE_FILENAME;
 import static com.adjust.sdk.Constants.ATTRIBUTION_FILENAME;
@@ -75,6 +78,9 @@ public class ActivityHandler implements IActivityHandler {
     private SessionParameters sessionParameters;
     private InstallReferrer installReferrer;
     private InstallReferrerHuawei installReferrerHuawei;
+    private AdjustStartupTrace startupTrace;
+    private INetworkMonitor networkMonitor;
+    private ActivityStatePersister activityStatePersister;
 
     @Override
     public void teardown() {
@@ -87,6 +93,9 @@ public class ActivityHandler implements IActivityHandler {
         if (delayStartTimer != null) {
             delayStartTimer.teardown();
         }
+        if (networkMonitor != null) {
+            networkMonitor.teardown();
+        }
         if (executor != null) {
             executor.teardown();
         }
@@ -99,6 +108,12 @@ public class ActivityHandler implements IActivityHandler {
         if (sdkClickHandler != null) {
             sdkClickHandler.teardown();
         }
+        if (deviceInfo != null) {
+            if (adjustConfig != null) {
+                deviceInfo.stopMonitoringChanges(adjustConfig.context);
+            }
+            deviceInfo.teardown();
+        }
         if (sessionParameters != null) {
             if (sessionParameters.callbackParameters != null) {
                 sessionParameters.callbackParameters.clear();
@@ -108,6 +123,10 @@ public class ActivityHandler implements IActivityHandler {
             }
         }
 
+        if (activityStatePersister != null) {
+            activityStatePersister.flush();
+        }
+
         teardownActivityStateS();
         teardownAttributionS();
         teardownAllSessionParametersS();
@@ -118,12 +137,14 @@ public class ActivityHandler implements IActivityHandler {
         executor = null;
         backgroundTimer = null;
         delayStartTimer = null;
+        networkMonitor = null;
         internalState = null;
         deviceInfo = null;
         adjustConfig = null;
         attributionHandler = null;
         sdkClickHandler = null;
         sessionParameters = null;
+        activityStatePersister = null;
     }
 
     static void deleteState(Context context) {
@@ -139,6 +160,7 @@ public class ActivityHandler implements IActivityHandler {
     public class InternalState {
         boolean enabled;
         boolean offline;
+        boolean networkConnected;
         boolean background;
         boolean delayStart;
         boolean updatePackages;
@@ -163,6 +185,14 @@ public class ActivityHandler implements IActivityHandler {
             return !offline;
         }
 
+        public boolean isNetworkConnected() {
+            return networkConnected;
+        }
+
+        public boolean isNetworkDisconnected() {
+            return !networkConnected;
+        }
+
         public boolean isInBackground() {
             return background;
         }
@@ -216,13 +246,19 @@ public class ActivityHandler implements IActivityHandler {
 
         logger.lockLogLevel();
 
-        executor = new SingleThreadCachedScheduler("ActivityHandler");
+        // waits for the startup stages and the first identifiers, which run on other lanes
+        executor = new SingleThreadCachedScheduler("ActivityHandler",
+                AdjustFactory.getSdkWaitingExecutor());
+        activityStatePersister = new ActivityStatePersister(adjustConfig.context, executor);
         internalState = new InternalState();
+        startupTrace = new AdjustStartupTrace();
 
         // enabled by default
         internalState.enabled = adjustConfig.startEnabled != null ? adjustConfig.startEnabled : true;
         // online by default
         internalState.offline = adjustConfig.startOffline;
+        // connected to a network until the network monitor tells otherwise
+        internalState.networkConnected = true;
         // in the background by default
         internalState.background = true;
         // delay start not configured by default
@@ -264,6 +300,11 @@ public class ActivityHandler implements IActivityHandler {
         return sessionParameters;
     }
 
+    @Override
+    public AdjustStartupTrace getStartupTrace() {
+        return startupTrace;
+    }
+
     @Override
     public void init(AdjustConfig adjustConfig) {
         this.adjustConfig = adjustConfig;
@@ -310,6 +351,9 @@ public class ActivityHandler implements IActivityHandler {
         executor.submit(new Runnable() {
             @Override
             public void run() {
+                // limit ad tracking or the ad id might have changed while in background
+                deviceInfo.refreshIdentifiers(adjustConfig.context);
+
                 delayStartI();
 
                 stopBackgroundTimerI();
@@ -431,7 +475,7 @@ public class ActivityHandler implements IActivityHandler {
         }
 
         activityState.adid = adid;
-        writeActivityStateI();
+        writeActivityStateNowI();
         return;
     }
 
@@ -743,6 +787,9 @@ public class ActivityHandler implements IActivityHandler {
     }
 
     private void initI() {
+        startupTrace.startStage(AdjustStartupTrace.STAGE_INIT);
+        StartupPipeline startupPipeline = new StartupPipeline(startupTrace);
+
         SESSION_INTERVAL = AdjustFactory.getSessionInterval();
         SUBSESSION_INTERVAL = AdjustFactory.getSubsessionInterval();
         // get timer values
@@ -750,13 +797,59 @@ public class ActivityHandler implements IActivityHandler {
         FOREGROUND_TIMER_START = AdjustFactory.getTimerStart();
         BACKGROUND_TIMER_INTERVAL = AdjustFactory.getTimerInterval();
 
-        // has to be read in the background
-        readAttributionI(adjustConfig.context);
-        readActivityStateI(adjustConfig.context);
-
+        // has to be read in the background, the files don't depend on each other
         sessionParameters = new SessionParameters();
-        readSessionCallbackParametersI(adjustConfig.context);
-        readSessionPartnerParametersI(adjustConfig.context);
+        List<Future<Void>> stateFileReads = new ArrayList<Future<Void>>();
+        stateFileReads.add(startupPipeline.runAsync(AdjustStartupTrace.STAGE_ATTRIBUTION,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        readAttributionI(adjustConfig.context);
+                    }
+                }));
+        stateFileReads.add(startupPipeline.runAsync(AdjustStartupTrace.STAGE_ACTIVITY_STATE,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        readActivityStateI(adjustConfig.context);
+                    }
+                }));
+        stateFileReads.add(startupPipeline.runAsync(AdjustStartupTrace.STAGE_SESSION_CALLBACK_PARAMETERS,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        readSessionCallbackParametersI(adjustConfig.context);
+                    }
+                }));
+        stateFileReads.add(startupPipeline.runAsync(AdjustStartupTrace.STAGE_SESSION_PARTNER_PARAMETERS,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        readSessionPartnerParametersI(adjustConfig.context);
+                    }
+                }));
+        stateFileReads.add(startupPipeline.runAsync(AdjustStartupTrace.STAGE_CONFIG_FILE,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        readConfigFile(adjustConfig.context);
+                    }
+                }));
+
+        // device info doesn't depend on the state, built while the files are read
+        Future<DeviceInfo> deviceInfoBuild = startupPipeline.callAsync(AdjustStartupTrace.STAGE_DEVICE_INFO,
+                new Callable<DeviceInfo>() {
+                    @Override
+                    public DeviceInfo call() {
+                        return new DeviceInfo(adjustConfig.context, adjustConfig.sdkPrefix);
+                    }
+                });
+
+        startupTrace.startStage(AdjustStartupTrace.STAGE_STATE_FILES);
+        for (Future<Void> stateFileRead : stateFileReads) {
+            startupPipeline.await(stateFileRead);
+        }
+        startupTrace.finishStage(AdjustStartupTrace.STAGE_STATE_FILES);
 
         if (adjustConfig.startEnabled != null) {
             adjustConfig.preLaunchActions.preLaunchActionsArray.add(new IRunActivityHandler() {
@@ -775,27 +868,37 @@ public class ActivityHandler implements IActivityHandler {
             internalState.firstLaunch = true; // first launch if activity state is null
         }
 
-        readConfigFile(adjustConfig.context);
-
-        deviceInfo = new DeviceInfo(adjustConfig.context, adjustConfig.sdkPrefix);
+        deviceInfo = startupPipeline.await(deviceInfoBuild);
+        if (deviceInfo == null) {
+            deviceInfo = new DeviceInfo(adjustConfig.context, adjustConfig.sdkPrefix);
+        }
+        deviceInfo.startMonitoringChanges(adjustConfig.context);
 
         if (adjustConfig.eventBufferingEnabled) {
             logger.info("Event buffering is enabled");
         }
 
-        deviceInfo.reloadPlayIds(adjustConfig.context);
-        if (deviceInfo.playAdId == null) {
-            logger.warn("Unable to get Google Play Services Advertising ID at start time");
-            if (deviceInfo.macSha1 == null &&
-                    deviceInfo.macShortMd5 == null &&
-                    deviceInfo.androidId == null)
-            {
-                logger.error("Unable to get any device id's. Please check if Proguard is correctly set with Adjust SDK");
-            }
-        } else {
-            logger.info("Google Play Services Advertising ID read correctly at start time");
+        if (adjustConfig.batchUploadEnabled) {
+            logger.info("Batch upload is enabled");
+        }
+
+        if (adjustConfig.packageBacklogMaxBytes > 0) {
+            logger.info("Package backlog of %d bytes is enabled", adjustConfig.packageBacklogMaxBytes);
         }
 
+        // first read doesn't block the start, the first session package waits for it until its deadline
+        final DeviceInfo startDeviceInfo = deviceInfo;
+        final ILogger startLogger = logger;
+        startupTrace.startStage(AdjustStartupTrace.STAGE_PLAY_IDS);
+        startDeviceInfo.refreshIdentifiers(adjustConfig.context);
+        startDeviceInfo.runAfterPlayIds(new Runnable() {
+            @Override
+            public void run() {
+                startupTrace.finishStage(AdjustStartupTrace.STAGE_PLAY_IDS);
+                checkFirstPlayIds(startDeviceInfo, startLogger);
+            }
+        });
+
         if (adjustConfig.defaultTracker != null) {
             logger.info("Default tracker: '%s'", adjustConfig.defaultTracker);
         }
@@ -883,13 +986,35 @@ public class ActivityHandler implements IActivityHandler {
 
         UtilNetworking.setUserAgent(adjustConfig.userAgent);
 
+        networkMonitor = AdjustFactory.getNetworkMonitor(adjustConfig.context);
+        networkMonitor.start(new INetworkMonitor.NetworkListener() {
+            @Override
+            public void onNetworkChanged(final boolean isConnected, final boolean isUnmetered) {
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        networkChangedI(isConnected, isUnmetered);
+                    }
+                });
+            }
+        });
+        internalState.networkConnected = networkMonitor.isConnected();
+        if (internalState.isNetworkDisconnected()) {
+            logger.info("Handlers will start paused due to the device having no network");
+        }
+
+        startupTrace.startStage(AdjustStartupTrace.STAGE_HANDLERS);
+
         IActivityPackageSender packageHandlerActivitySender =
                 new ActivityPackageSender(
                         adjustConfig.urlStrategy,
                         adjustConfig.basePath,
                         adjustConfig.gdprPath,
                         adjustConfig.subscriptionPath,
-                        deviceInfo.clientSdk);
+                        deviceInfo.clientSdk,
+                        adjustConfig.maxConcurrentRequests,
+                        adjustConfig.bodyCompression,
+                        adjustConfig.latencyBasedUrlSelectionEnabled);
         packageHandler = AdjustFactory.getPackageHandler(
                 this,
                 adjustConfig.context,
@@ -902,7 +1027,10 @@ public class ActivityHandler implements IActivityHandler {
                         adjustConfig.basePath,
                         adjustConfig.gdprPath,
                         adjustConfig.subscriptionPath,
-                        deviceInfo.clientSdk);
+                        deviceInfo.clientSdk,
+                        1,
+                        null,
+                        adjustConfig.latencyBasedUrlSelectionEnabled);
 
         attributionHandler = AdjustFactory.getAttributionHandler(
                 this,
@@ -915,13 +1043,21 @@ public class ActivityHandler implements IActivityHandler {
                         adjustConfig.basePath,
                         adjustConfig.gdprPath,
                         adjustConfig.subscriptionPath,
-                        deviceInfo.clientSdk);
+                        deviceInfo.clientSdk,
+                        1,
+                        adjustConfig.bodyCompression,
+                        adjustConfig.latencyBasedUrlSelectionEnabled);
 
         sdkClickHandler = AdjustFactory.getSdkClickHandler(
                 this,
                 toSendI(true),
                 sdkClickHandlerActivitySender);
 
+        packageHandler.setNetworkState(internalState.isNetworkConnected(),
+                networkMonitor.isUnmetered());
+
+        startupTrace.finishStage(AdjustStartupTrace.STAGE_HANDLERS);
+
         if (isToUpdatePackagesI()) {
             updatePackagesI();
         }
@@ -942,6 +1078,24 @@ public class ActivityHandler implements IActivityHandler {
 
         preLaunchActionsI(adjustConfig.preLaunchActions.preLaunchActionsArray);
         sendReftagReferrerI();
+
+        startupTrace.finishStage(AdjustStartupTrace.STAGE_INIT);
+    }
+
+    // runs outside of the SDK thread, after the first read finished
+    private static void checkFirstPlayIds(DeviceInfo deviceInfo, ILogger logger) {
+        IdentifierSnapshot.PlayIds playIds = deviceInfo.getCurrentPlayIds();
+        if (playIds == null || playIds.playAdId == null) {
+            logger.warn("Unable to get Google Play Services Advertising ID at start time");
+            if (deviceInfo.macSha1 == null &&
+                    deviceInfo.macShortMd5 == null &&
+                    deviceInfo.androidId == null)
+            {
+                logger.error("Unable to get any device id's. Please check if Proguard is correctly set with Adjust SDK");
+            }
+        } else {
+            logger.info("Google Play Services Advertising ID read correctly at start time");
+        }
     }
 
     private void checkForPreinstallI() {
@@ -1184,7 +1338,7 @@ public class ActivityHandler implements IActivityHandler {
         activityState.enabled = internalState.isEnabled();
         activityState.updatePackages = internalState.itHasToUpdatePackages();
 
-        writeActivityStateI();
+        writeActivityStateNowI();
         sharedPreferencesManager.removePushToken();
         sharedPreferencesManager.removeGdprForgetMe();
         sharedPreferencesManager.removeDisableThirdPartySharing();
@@ -1248,7 +1402,7 @@ public class ActivityHandler implements IActivityHandler {
 
         transferSessionPackageI(now);
         activityState.resetSessionAttributes(now);
-        writeActivityStateI();
+        writeActivityStateNowI();
     }
 
     private void checkAttributionStateI() {
@@ -1300,6 +1454,9 @@ public class ActivityHandler implements IActivityHandler {
         if (updateActivityStateI(System.currentTimeMillis())) {
             writeActivityStateI();
         }
+
+        // the process might not come back from the background
+        activityStatePersister.flush();
     }
 
     private void trackEventI(AdjustEvent event) {
@@ -1329,7 +1486,7 @@ public class ActivityHandler implements IActivityHandler {
             startBackgroundTimerI();
         }
 
-        writeActivityStateI();
+        writeActivityStateNowI();
     }
 
     private void launchEventResponseTasksI(final EventResponseData eventResponseData) {
@@ -1597,7 +1754,7 @@ public class ActivityHandler implements IActivityHandler {
         }
 
         activityState.enabled = enabled;
-        writeActivityStateI();
+        writeActivityStateNowI();
 
         if (enabled) {
             SharedPreferencesManager sharedPreferencesManager = new SharedPreferencesManager(getContext());
@@ -1693,6 +1850,27 @@ public class ActivityHandler implements IActivityHandler {
 
     }
 
+    private void networkChangedI(boolean isConnected, boolean isUnmetered) {
+        if (internalState.isNetworkConnected() != isConnected) {
+            internalState.networkConnected = isConnected;
+
+            if (internalState.hasFirstSdkStartOcurred()) {
+                updateStatusI(!isConnected,
+                        "Pausing handlers while the device has no network",
+                        "Handlers remain paused",
+                        "Resuming handlers now that the device has a network");
+
+                // the attribution asked for while there was no network
+                if (isConnected && toSendI()) {
+                    checkAttributionStateI();
+                }
+            }
+        }
+
+        // after resuming, so that the package handler sends its queue at once
+        packageHandler.setNetworkState(isConnected, isUnmetered);
+    }
+
     private boolean hasChangedStateI(boolean previousState, boolean newState,
                                      String trueMessage, String falseMessage)
     {
@@ -1735,7 +1913,7 @@ public class ActivityHandler implements IActivityHandler {
     private void setAskingAttributionI(boolean askingAttribution) {
         activityState.askingAttribution = askingAttribution;
 
-        writeActivityStateI();
+        writeActivityStateNowI();
     }
 
     private void sendReftagReferrerI() {
@@ -2008,7 +2186,7 @@ public class ActivityHandler implements IActivityHandler {
 
         if (activityState != null) {
             activityState.updatePackages = true;
-            writeActivityStateI();
+            writeActivityStateNowI();
         }
     }
 
@@ -2037,7 +2215,7 @@ public class ActivityHandler implements IActivityHandler {
         internalState.updatePackages = false;
         if (activityState != null) {
             activityState.updatePackages = false;
-            writeActivityStateI();
+            writeActivityStateNowI();
         }
     }
 
@@ -2167,7 +2345,7 @@ public class ActivityHandler implements IActivityHandler {
 
         // save new push token
         activityState.pushToken = token;
-        writeActivityStateI();
+        writeActivityStateNowI();
 
         long now = System.currentTimeMillis();
         PackageBuilder infoPackageBuilder = new PackageBuilder(adjustConfig, deviceInfo, activityState, sessionParameters, now);
@@ -2192,7 +2370,7 @@ public class ActivityHandler implements IActivityHandler {
         if (activityState.isGdprForgotten) { return; }
 
         activityState.isGdprForgotten = true;
-        writeActivityStateI();
+        writeActivityStateNowI();
 
         long now = System.currentTimeMillis();
         PackageBuilder gdprPackageBuilder = new PackageBuilder(adjustConfig, deviceInfo, activityState, sessionParameters, now);
@@ -2223,7 +2401,7 @@ public class ActivityHandler implements IActivityHandler {
         if (activityState.isThirdPartySharingDisabled) { return; }
 
         activityState.isThirdPartySharingDisabled = true;
-        writeActivityStateI();
+        writeActivityStateNowI();
 
         long now = System.currentTimeMillis();
         PackageBuilder packageBuilder = new PackageBuilder(adjustConfig, deviceInfo, activityState, sessionParameters, now);
@@ -2333,7 +2511,7 @@ public class ActivityHandler implements IActivityHandler {
 
     private void gotOptOutResponseI() {
         activityState.isGdprForgotten = true;
-        writeActivityStateI();
+        writeActivityStateNowI();
 
         packageHandler.flush();
         setEnabledI(false);
@@ -2341,7 +2519,7 @@ public class ActivityHandler implements IActivityHandler {
 
     private void readActivityStateI(Context context) {
         try {
-            activityState = Util.readObject(context, ACTIVITY_STATE_FILENAME, ACTIVITY_STATE_NAME, ActivityState.class);
+            activityState = ActivityStatePersister.read(context);
         } catch (Exception e) {
             logger.error("Failed to read %s file (%s)", ACTIVITY_STATE_NAME, e.getMessage());
             activityState = null;
@@ -2384,13 +2562,14 @@ public class ActivityHandler implements IActivityHandler {
         }
     }
 
+    // only for updates of the session time, other changes are written with writeActivityStateNowI
     private void writeActivityStateI() {
-        synchronized (ActivityState.class) {
-            if (activityState == null) {
-                return;
-            }
-            Util.writeObject(activityState, adjustConfig.context, ACTIVITY_STATE_FILENAME, ACTIVITY_STATE_NAME);
-        }
+        activityStatePersister.markDirty(activityState);
+    }
+
+    private void writeActivityStateNowI() {
+        activityStatePersister.markDirty(activityState);
+        activityStatePersister.flush();
     }
 
     private void teardownActivityStateS() {
@@ -2507,10 +2686,12 @@ public class ActivityHandler implements IActivityHandler {
         if (sdkClickHandlerOnly) {
             // sdk click handler is paused if either:
             return internalState.isOffline() ||     // it's offline
+                    internalState.isNetworkDisconnected() ||    // has no network
                     !isEnabledI();                  // is disabled
         }
         // other handlers are paused if either:
         return internalState.isOffline()    ||      // it's offline
+                internalState.isNetworkDisconnected() ||    // has no network
                 !isEnabledI()               ||      // is disabled
                 internalState.isInDelayedStart();   // is in delayed start
     }
@@ -2555,6 +2736,6 @@ public class ActivityHandler implements IActivityHandler {
             activityState.installReferrerHuawei = responseData.installReferrer;
         }
 
-        writeActivityStateI();
+        writeActivityStateNowI();
     }
 }
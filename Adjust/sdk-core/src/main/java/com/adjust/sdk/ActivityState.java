@@ -90,9 +90,13 @@ public class ActivityState implements Serializable, Cloneable {
     protected String installReferrerHuawei;
 
     protected ActivityState() {
-        logger = AdjustFactory.getLogger();
         // create UUID for new devices
-        uuid = Util.createUuid();
+        this(Util.createUuid());
+    }
+
+    ActivityState(String uuid) {
+        logger = AdjustFactory.getLogger();
+        this.uuid = uuid;
         enabled = true;
         isGdprForgotten = false;
         isThirdPartySharingDisabled = false;
@@ -0,0 +1,137 @@
+package com.adjust.sdk;
+
+import android.content.Context;
+
+import com.adjust.sdk.scheduler.FutureScheduler;
+import com.adjust.sdk.scheduler.SharedTimerScheduler;
+import com.adjust.sdk.scheduler.ThreadExecutor;
+
+import static com.adjust.sdk.Constants.ACTIVITY_STATE_FILENAME;
+
+/**
+ * Write-behind persistence for the activity state.
+ *
+ * Updates of the session time only mark the state as dirty and the state is written at most
+ * once per flush interval, so that the updates of the foreground timer and of subsessions end up
+ * in a single write. Pending changes are flushed right away when the app goes to the background,
+ * on teardown and for changes which must survive the process, like a new session, the event
+ * count and the order ids used to skip duplicated events.
+ */
+class ActivityStatePersister {
+    private static final String ACTIVITY_STATE_NAME = "Activity state";
+
+    private final Context context;
+    private final ThreadExecutor executor;
+    private final FutureScheduler timer;
+    private final long flushIntervalMillis;
+    private ActivityState dirtyActivityState;
+    private boolean isFlushScheduled;
+
+    ActivityStatePersister(Context context, ThreadExecutor executor) {
+        this(context, executor, SharedTimerScheduler.getInstance(),
+                AdjustFactory.getActivityStateFlushInterval());
+    }
+
+    /**
+     * @param executor Executor the activity state is changed on, the delayed flush runs on it
+     */
+    ActivityStatePersister(Context context,
+                           ThreadExecutor executor,
+                           FutureScheduler timer,
+                           long flushIntervalMillis)
+    {
+        this.context = context;
+        this.executor = executor;
+        this.timer = timer;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * Marks the activity state as changed, it gets written with the next flush.
+     */
+    synchronized void markDirty(ActivityState activityState) {
+        if (activityState == null) {
+            return;
+        }
+
+        dirtyActivityState = activityState;
+
+        if (flushIntervalMillis <= 0) {
+            flush();
+            return;
+        }
+
+        if (isFlushScheduled) {
+            return;
+        }
+        isFlushScheduled = true;
+
+        timer.scheduleFuture(new Runnable() {
+            @Override
+            public void run() {
+                // written on the executor, where the activity state is not being changed
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        flush();
+                    }
+                });
+            }
+        }, flushIntervalMillis);
+    }
+
+    /**
+     * Writes pending changes now.
+     */
+    synchronized void flush() {
+        isFlushScheduled = false;
+
+        if (dirtyActivityState == null) {
+            return;
+        }
+
+        ActivityState activityState = dirtyActivityState;
+        dirtyActivityState = null;
+
+        byte[] bytes;
+        synchronized (ActivityState.class) {
+            try {
+                bytes = PersistenceCodec.encodeActivityState(activityState);
+            } catch (Exception e) {
+                AdjustFactory.getLogger().error("Failed to encode %s (%s)",
+                        ACTIVITY_STATE_NAME, e.getMessage());
+                return;
+            }
+        }
+
+        if (Util.writeBytes(bytes, context, ACTIVITY_STATE_FILENAME, ACTIVITY_STATE_NAME)) {
+            AdjustFactory.getLogger().debug("Wrote %s: %s", ACTIVITY_STATE_NAME, activityState);
+        }
+    }
+
+    /**
+     * Reads the activity state, also when written with the Java serialization.
+     *
+     * @return The activity state, null if there is none or it can't be read
+     */
+    static ActivityState read(Context context) {
+        byte[] bytes = Util.readBytes(context, ACTIVITY_STATE_FILENAME, ACTIVITY_STATE_NAME);
+        if (bytes == null) {
+            return null;
+        }
+
+        try {
+            ActivityState activityState = PersistenceCodec.decodeActivityState(bytes);
+            AdjustFactory.getLogger().debug("Read %s: %s", ACTIVITY_STATE_NAME, activityState);
+            return activityState;
+        } catch (Exception e) {
+            AdjustFactory.getLogger().error("Failed to read %s object (%s)",
+                    ACTIVITY_STATE_NAME, e.getMessage());
+            return null;
+        }
+    }
+
+    synchronized boolean isDirty() {
+        return dirtyActivityState != null;
+    }
+}
@@ -0,0 +1,160 @@
+package com.adjust.sdk;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Retry policy that follows what the backend asks for and spreads the retries of many devices.
+ *
+ * A retry_in in the response or a Retry-After header is waited as given. Otherwise the wait
+ * grows with decorrelated jitter, a random time between the base wait of the backoff strategy
+ * and three times the previous wait, up to the longest wait of the strategy. A 429 without a
+ * Retry-After waits the longest time of that range.
+ *
+ * Each activity kind has a budget of retries within a sliding window. Once it is spent, the
+ * next retry of the kind waits until the oldest retry leaves the window, whatever the backoff.
+ * The budget doesn't lengthen a wait the backend asked for, and the install session, which
+ * everything after it waits for, has no budget.
+ */
+class AdaptiveRetryPolicy implements IRetryPolicy {
+    static final int DEFAULT_BUDGET_RETRIES = 10;
+    static final long DEFAULT_BUDGET_WINDOW = Constants.ONE_HOUR;
+    // longest wait the backend can ask for
+    static final long MAX_SERVER_WAIT = 24 * Constants.ONE_HOUR;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private final Map<ActivityKind, RetryBudget> budgets;
+    private final Map<ActivityKind, KindState> kindStates;
+    private final Random random;
+    private final ILogger logger;
+
+    private static class KindState {
+        long previousWait;
+        // when the retries in the budget window went out, oldest first
+        final ArrayDeque<Long> retryTimes = new ArrayDeque<Long>();
+    }
+
+    AdaptiveRetryPolicy(Map<ActivityKind, RetryBudget> budgets) {
+        this(budgets, new Random());
+    }
+
+    AdaptiveRetryPolicy(Map<ActivityKind, RetryBudget> budgets, Random random) {
+        this.budgets = new EnumMap<ActivityKind, RetryBudget>(ActivityKind.class);
+        if (budgets != null) {
+            this.budgets.putAll(budgets);
+        }
+        this.kindStates = new EnumMap<ActivityKind, KindState>(ActivityKind.class);
+        this.random = random;
+        this.logger = AdjustFactory.getLogger();
+    }
+
+    @Override
+    public synchronized long getRetryWait(ResponseData responseData,
+                                          int retries,
+                                          BackoffStrategy backoffStrategy)
+    {
+        ActivityKind activityKind = responseData.activityKind != null
+                ? responseData.activityKind : ActivityKind.UNKNOWN;
+        KindState kindState = kindStateFor(activityKind);
+        long now = currentTimeMillis();
+
+        long wait;
+        Long serverWait = serverWait(responseData);
+        if (serverWait != null) {
+            wait = Math.min(Math.max(0, serverWait), MAX_SERVER_WAIT);
+            logger.debug("Backend asked to retry %s in %d ms", activityKind, wait);
+            kindState.previousWait = Math.min(wait, backoffStrategy.maxWait);
+        } else if (retries < backoffStrategy.minRetries) {
+            wait = 0;
+        } else {
+            wait = decorrelatedWait(kindState, backoffStrategy, isThrottled(responseData));
+            kindState.previousWait = wait;
+        }
+
+        RetryBudget budget = budgetFor(activityKind);
+        ArrayDeque<Long> retryTimes = kindState.retryTimes;
+        while (!retryTimes.isEmpty() && retryTimes.peekFirst() <= now - budget.windowMilliSeconds) {
+            retryTimes.pollFirst();
+        }
+        if (serverWait == null
+                && !isInstallSession(responseData)
+                && retryTimes.size() >= budget.maxRetries)
+        {
+            long budgetWait = retryTimes.peekFirst() + budget.windowMilliSeconds - now;
+            if (budgetWait > wait) {
+                logger.debug("Retry budget of %s is spent, waiting for %d ms", activityKind, budgetWait);
+                wait = budgetWait;
+            }
+        }
+        retryTimes.addLast(now + wait);
+        return wait;
+    }
+
+    @Override
+    public synchronized void onSent(ActivityKind activityKind) {
+        KindState kindState = kindStates.get(activityKind);
+        if (kindState != null) {
+            kindState.previousWait = 0;
+        }
+    }
+
+    // the simulator of the tests runs on its own clock
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private long decorrelatedWait(KindState kindState,
+                                  BackoffStrategy backoffStrategy,
+                                  boolean isThrottled)
+    {
+        long baseWait = Math.min(backoffStrategy.milliSecondMultiplier, backoffStrategy.maxWait);
+        long previousWait = Math.max(kindState.previousWait, baseWait);
+        long highestWait = Math.min(backoffStrategy.maxWait, previousWait * 3);
+        if (isThrottled) {
+            return highestWait;
+        }
+        return baseWait + (long) (random.nextDouble() * (highestWait - baseWait));
+    }
+
+    private RetryBudget budgetFor(ActivityKind activityKind) {
+        RetryBudget budget = budgets.get(activityKind);
+        if (budget == null) {
+            budget = new RetryBudget(DEFAULT_BUDGET_RETRIES, DEFAULT_BUDGET_WINDOW);
+            budgets.put(activityKind, budget);
+        }
+        return budget;
+    }
+
+    private KindState kindStateFor(ActivityKind activityKind) {
+        KindState kindState = kindStates.get(activityKind);
+        if (kindState == null) {
+            kindState = new KindState();
+            kindStates.put(activityKind, kindState);
+        }
+        return kindState;
+    }
+
+    private static Long serverWait(ResponseData responseData) {
+        if (responseData.retryIn != null) {
+            return responseData.retryIn;
+        }
+        return responseData.retryAfter;
+    }
+
+    private static boolean isInstallSession(ResponseData responseData) {
+        if (responseData.activityKind != ActivityKind.SESSION
+                || responseData.activityPackage == null
+                || responseData.activityPackage.getParameters() == null)
+        {
+            return false;
+        }
+        return "1".equals(responseData.activityPackage.getParameters().get("session_count"));
+    }
+
+    private static boolean isThrottled(ResponseData responseData) {
+        return responseData.responseCode != null
+                && responseData.responseCode.intValue() == HTTP_TOO_MANY_REQUESTS;
+    }
+}
@@ -332,6 +332,16 @@ public class Adjust {
         return adjustInstance.getAttribution();
     }
 
+    /**
+     * Called to get the time spent in each stage of the SDK start.
+     *
+     * @return AdjustStartupTrace object with the stages finished so far
+     */
+    public static AdjustStartupTrace getStartupTrace() {
+        AdjustInstance adjustInstance = Adjust.getDefaultInstance();
+        return adjustInstance.getStartupTrace();
+    }
+
     /**
      * Called to get native SDK version string.
      *
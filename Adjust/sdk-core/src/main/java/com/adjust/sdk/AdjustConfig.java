@@ -2,7 +2,9 @@ package com.adjust.sdk;
 
 import android.content.Context;
 
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by pfms on 06/11/14.
@@ -17,6 +19,14 @@ public class AdjustConfig {
     String processName;
     String sdkPrefix;
     boolean eventBufferingEnabled;
+    boolean batchUploadEnabled;
+    int maxConcurrentRequests;
+    String bodyCompression;
+    boolean latencyBasedUrlSelectionEnabled;
+    int packageBacklogMaxBytes;
+    String packageBacklogOverflowPolicy;
+    int unmeteredBacklogThreshold;
+    Map<ActivityKind, RetryBudget> retryBudgets;
     String defaultTracker;
     OnAttributionChangedListener onAttributionChangedListener;
     Boolean deviceKnown;
@@ -51,6 +61,12 @@ public class AdjustConfig {
     public static final String DATA_RESIDENCY_TR = "data_residency_tr";
     public static final String DATA_RESIDENCY_US = "data_residency_us";
 
+    public static final String BODY_COMPRESSION_GZIP = "gzip";
+    public static final String BODY_COMPRESSION_DEFLATE = "deflate";
+
+    public static final String BACKLOG_OVERFLOW_DROP_OLDEST = "backlog_overflow_drop_oldest";
+    public static final String BACKLOG_OVERFLOW_DROP_NEWEST = "backlog_overflow_drop_newest";
+
     public static final String AD_REVENUE_APPLOVIN_MAX = "applovin_max_sdk";
     public static final String AD_REVENUE_MOPUB = "mopub";
     public static final String AD_REVENUE_ADMOB = "admob_sdk";
@@ -85,6 +101,7 @@ public class AdjustConfig {
 
         // default values
         this.eventBufferingEnabled = false;
+        this.maxConcurrentRequests = 1;
         this.sendInBackground = false;
         this.preinstallTrackingEnabled = false;
     }
@@ -97,6 +114,103 @@ public class AdjustConfig {
         this.eventBufferingEnabled = eventBufferingEnabled;
     }
 
+    // off by default, sends events and ad revenue as {"packages":[...]} to the /batch path of
+    // the endpoint and needs a backend that supports it. With an endpoint that doesn't, the
+    // first batch fails and the packages are sent one by one from then on
+    public void setBatchUploadEnabled(boolean batchUploadEnabled) {
+        this.batchUploadEnabled = batchUploadEnabled;
+    }
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        if (maxConcurrentRequests < 1) {
+            logger.error("Invalid number of concurrent requests %d", maxConcurrentRequests);
+            return;
+        }
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public void setBodyCompression(String bodyCompression) {
+        if (bodyCompression != null
+                && !bodyCompression.equals(BODY_COMPRESSION_GZIP)
+                && !bodyCompression.equals(BODY_COMPRESSION_DEFLATE))
+        {
+            logger.error("Unsupported body compression %s", bodyCompression);
+            return;
+        }
+        this.bodyCompression = bodyCompression;
+    }
+
+    public void setLatencyBasedUrlSelectionEnabled(boolean latencyBasedUrlSelectionEnabled) {
+        this.latencyBasedUrlSelectionEnabled = latencyBasedUrlSelectionEnabled;
+    }
+
+    /**
+     * Keeps the packages queued behind the ones being sent serialized in a memory-mapped file,
+     * instead of on the heap.
+     *
+     * @param maxBytes Size of the file, at least 64 KB
+     * @param overflowPolicy What is dropped when the file is full, BACKLOG_OVERFLOW_DROP_OLDEST
+     *                       or BACKLOG_OVERFLOW_DROP_NEWEST
+     */
+    public void setPackageBacklog(int maxBytes, String overflowPolicy) {
+        if (maxBytes < PackageBacklog.MIN_CAPACITY) {
+            logger.error("Package backlog of %d bytes is below the minimum of %d bytes",
+                    maxBytes, PackageBacklog.MIN_CAPACITY);
+            return;
+        }
+        if (!BACKLOG_OVERFLOW_DROP_OLDEST.equals(overflowPolicy)
+                && !BACKLOG_OVERFLOW_DROP_NEWEST.equals(overflowPolicy))
+        {
+            logger.error("Unsupported package backlog overflow policy %s", overflowPolicy);
+            return;
+        }
+        this.packageBacklogMaxBytes = maxBytes;
+        this.packageBacklogOverflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Holds back a queue of more packages than the given number while the device is on a
+     * metered network, such as mobile data, until it is on an unmetered one. Packages are
+     * still queued meanwhile.
+     *
+     * @param packageCount Largest queue sent over a metered network, 0 sends any queue
+     */
+    public void setUnmeteredBacklogThreshold(int packageCount) {
+        if (packageCount < 0) {
+            logger.error("Unmetered backlog threshold of %d packages is negative", packageCount);
+            return;
+        }
+        this.unmeteredBacklogThreshold = packageCount;
+    }
+
+    /**
+     * Limits how often packages of one kind are retried while the backend keeps failing. Once
+     * the given number of retries went out within the window, the next retry of the kind waits
+     * until the oldest one leaves it. Without a budget a kind gets 10 retries per hour. Waits
+     * the backend asks for and the retries of the install session are not held back.
+     *
+     * @param activityKind   Kind of package, such as "session", "event" or "click"
+     * @param maxRetries     Retries allowed within the window
+     * @param windowInSeconds Length of the sliding window
+     */
+    public void setRetryBudget(String activityKind, int maxRetries, int windowInSeconds) {
+        ActivityKind kind = ActivityKind.fromString(activityKind);
+        if (kind == ActivityKind.UNKNOWN) {
+            logger.error("Unsupported activity kind %s for a retry budget", activityKind);
+            return;
+        }
+        if (maxRetries <= 0 || windowInSeconds <= 0) {
+            logger.error("Retry budget of %d retries per %d seconds is not positive",
+                    maxRetries, windowInSeconds);
+            return;
+        }
+        if (retryBudgets == null) {
+            retryBudgets = new EnumMap<ActivityKind, RetryBudget>(ActivityKind.class);
+        }
+        retryBudgets.put(kind,
+                new RetryBudget(maxRetries, (long) windowInSeconds * Constants.ONE_SECOND));
+    }
+
     public void setSendInBackground(boolean sendInBackground) {
         this.sendInBackground = sendInBackground;
     }
@@ -2,10 +2,15 @@ package com.adjust.sdk;
 
 import android.content.Context;
 
+import com.adjust.sdk.network.EndpointHealthRegistry;
 import com.adjust.sdk.network.IActivityPackageSender;
+import com.adjust.sdk.network.INetworkMonitor;
+import com.adjust.sdk.network.NetworkMonitor;
 import com.adjust.sdk.network.UtilNetworking;
+import com.adjust.sdk.scheduler.SdkExecutor;
 
 import java.net.URL;
+import java.util.concurrent.Executor;
 
 import javax.net.ssl.HttpsURLConnection;
 
@@ -20,6 +25,7 @@ public class AdjustFactory {
     private static long timerStart = -1;
     private static long sessionInterval = -1;
     private static long subsessionInterval = -1;
+    private static long activityStateFlushInterval = -1;
     private static BackoffStrategy sdkClickBackoffStrategy = null;
     private static BackoffStrategy packageHandlerBackoffStrategy = null;
     private static BackoffStrategy installSessionBackoffStrategy = null;
@@ -29,6 +35,12 @@ public class AdjustFactory {
     private static String subscriptionUrl = null;
     private static UtilNetworking.IConnectionOptions connectionOptions = null;
     private static UtilNetworking.IHttpsURLConnectionProvider httpsURLConnectionProvider = null;
+    private static EndpointHealthRegistry endpointHealthRegistry = null;
+    private static INetworkMonitor networkMonitor = null;
+    private static IRetryPolicy retryPolicy = null;
+    private static Executor sdkExecutor = null;
+    private static Executor sdkIoExecutor = null;
+    private static Executor sdkWaitingExecutor = null;
     private static boolean tryInstallReferrer = true;
 
     public static class URLGetConnection {
@@ -74,6 +86,13 @@ public class AdjustFactory {
         return timerInterval;
     }
 
+    public static long getActivityStateFlushInterval() {
+        if (activityStateFlushInterval == -1) {
+            return Constants.ONE_SECOND * 5;
+        }
+        return activityStateFlushInterval;
+    }
+
     public static long getTimerStart() {
         if (timerStart == -1) {
             return Constants.ONE_MINUTE;
@@ -188,6 +207,49 @@ public class AdjustFactory {
         return httpsURLConnectionProvider;
     }
 
+    // one registry for all senders, so that they fail over together
+    public static synchronized EndpointHealthRegistry getEndpointHealthRegistry() {
+        if (endpointHealthRegistry == null) {
+            endpointHealthRegistry = new EndpointHealthRegistry();
+        }
+        return endpointHealthRegistry;
+    }
+
+    public static INetworkMonitor getNetworkMonitor(Context context) {
+        if (networkMonitor == null) {
+            return new NetworkMonitor(context);
+        }
+        return networkMonitor;
+    }
+
+    public static IRetryPolicy getRetryPolicy(AdjustConfig adjustConfig) {
+        if (retryPolicy == null) {
+            return new AdaptiveRetryPolicy(adjustConfig != null ? adjustConfig.retryBudgets : null);
+        }
+        return retryPolicy;
+    }
+
+    public static Executor getSdkExecutor() {
+        if (sdkExecutor == null) {
+            return SdkExecutor.getInstance();
+        }
+        return sdkExecutor;
+    }
+
+    public static Executor getSdkIoExecutor() {
+        if (sdkIoExecutor == null) {
+            return SdkExecutor.getIoInstance();
+        }
+        return sdkIoExecutor;
+    }
+
+    public static Executor getSdkWaitingExecutor() {
+        if (sdkWaitingExecutor == null) {
+            return SdkExecutor.getWaitingInstance();
+        }
+        return sdkWaitingExecutor;
+    }
+
     public static boolean getTryInstallReferrer() {
         return tryInstallReferrer;
     }
@@ -204,6 +266,10 @@ public class AdjustFactory {
         AdjustFactory.timerInterval = timerInterval;
     }
 
+    public static void setActivityStateFlushInterval(long activityStateFlushInterval) {
+        AdjustFactory.activityStateFlushInterval = activityStateFlushInterval;
+    }
+
     public static void setTimerStart(long timerStart) {
         AdjustFactory.timerStart = timerStart;
     }
@@ -258,6 +324,36 @@ public class AdjustFactory {
         AdjustFactory.httpsURLConnectionProvider = httpsURLConnectionProvider;
     }
 
+    public static synchronized void setEndpointHealthRegistry(
+            EndpointHealthRegistry endpointHealthRegistry)
+    {
+        AdjustFactory.endpointHealthRegistry = endpointHealthRegistry;
+    }
+
+    public static void setNetworkMonitor(INetworkMonitor networkMonitor) {
+        AdjustFactory.networkMonitor = networkMonitor;
+    }
+
+    public static void setRetryPolicy(IRetryPolicy retryPolicy) {
+        AdjustFactory.retryPolicy = retryPolicy;
+    }
+
+    // used by the lanes created afterwards, null goes back to the shared SdkExecutor
+    public static void setSdkExecutor(Executor sdkExecutor) {
+        AdjustFactory.sdkExecutor = sdkExecutor;
+    }
+
+    // used by the blocking lanes created afterwards, null goes back to the SdkExecutor I/O pool
+    public static void setSdkIoExecutor(Executor sdkIoExecutor) {
+        AdjustFactory.sdkIoExecutor = sdkIoExecutor;
+    }
+
+    // used by the lanes that wait for other lanes created afterwards, null goes back to the
+    // SdkExecutor waiting pool
+    public static void setSdkWaitingExecutor(Executor sdkWaitingExecutor) {
+        AdjustFactory.sdkWaitingExecutor = sdkWaitingExecutor;
+    }
+
     public static void setTryInstallReferrer(boolean tryInstallReferrer) {
         AdjustFactory.tryInstallReferrer = tryInstallReferrer;
     }
@@ -307,6 +403,7 @@ public class AdjustFactory {
         timerStart = -1;
         sessionInterval = -1;
         subsessionInterval = -1;
+        activityStateFlushInterval = -1;
         sdkClickBackoffStrategy = null;
         packageHandlerBackoffStrategy = null;
         maxDelayStart = -1;
@@ -315,6 +412,12 @@ public class AdjustFactory {
         subscriptionUrl = Constants.SUBSCRIPTION_URL;
         connectionOptions = null;
         httpsURLConnectionProvider = null;
+        setEndpointHealthRegistry(null);
+        networkMonitor = null;
+        retryPolicy = null;
+        sdkExecutor = null;
+        sdkIoExecutor = null;
+        sdkWaitingExecutor = null;
         tryInstallReferrer = true;
     }
 }
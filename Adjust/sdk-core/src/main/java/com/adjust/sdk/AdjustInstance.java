@@ -501,6 +501,18 @@ public class AdjustInstance {
         return activityHandler.getAttribution();
     }
 
+    /**
+     * Called to get the time spent in each stage of the SDK start.
+     *
+     * @return AdjustStartupTrace object with the stages finished so far
+     */
+    public AdjustStartupTrace getStartupTrace() {
+        if (!checkActivityHandler()) {
+            return null;
+        }
+        return activityHandler.getStartupTrace();
+    }
+
     /**
      * Called to get native SDK version string.
      *
@@ -2,11 +2,12 @@ package com.adjust.sdk;
 
 import android.net.Uri;
 
+import com.adjust.sdk.scheduler.SingleThreadCachedScheduler;
+import com.adjust.sdk.scheduler.ThreadExecutor;
+
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public final class AdjustLinkResolution {
     public interface AdjustLinkResolutionCallback {
@@ -14,7 +15,7 @@ public final class AdjustLinkResolution {
     }
 
     // https://www.cs.umd.edu/~pugh/java/memoryModel/DoubleCheckedLocking.html
-    private static volatile ExecutorService executor;
+    private static volatile ThreadExecutor executor;
 
     private static final int maxRecursions = 10;
     private static final String[] expectedUrlHostSuffixArray = {
@@ -58,13 +59,14 @@ public final class AdjustLinkResolution {
         if (executor == null) {
             synchronized (expectedUrlHostSuffixArray) {
                 if (executor == null) {
-                    executor = Executors.newSingleThreadExecutor();
+                    executor = new SingleThreadCachedScheduler("AdjustLinkResolution",
+                            AdjustFactory.getSdkIoExecutor());
                 }
             }
         }
 
         final URL finalOriginalURL = originalURL;
-        executor.execute(new Runnable() {
+        executor.submit(new Runnable() {
             @Override
             public void run() {
                 requestAndResolve(finalOriginalURL, 0, adjustLinkResolutionCallback);
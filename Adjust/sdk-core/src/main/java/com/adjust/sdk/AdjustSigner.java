@@ -6,8 +6,13 @@ import java.util.Map;
 
 public class AdjustSigner {
 
+    private static final Class<?>[] SIGN_PARAMETER_TYPES =
+            new Class<?>[]{Context.class, Map.class, String.class, String.class};
+
     // https://www.cs.umd.edu/~pugh/java/memoryModel/DoubleCheckedLocking.html
     private static volatile Object signerInstance = null;
+    // also set when the signature plugin isn't there, so that it isn't looked for again
+    private static volatile boolean isSignerLoaded = false;
 
     private AdjustSigner() {
     }
@@ -63,8 +68,7 @@ public class AdjustSigner {
         }
 
         try {
-            Reflection.invokeInstanceMethod(signerInstance, "sign",
-                            new Class[]{Context.class, Map.class, String.class, String.class},
+            Reflection.invokeInstanceMethod(signerInstance, "sign", SIGN_PARAMETER_TYPES,
                             context, parameters, activityKind, clientSdk);
 
         } catch (Exception e) {
@@ -73,10 +77,11 @@ public class AdjustSigner {
     }
 
     private static void getSignerInstance() {
-        if (signerInstance == null) {
+        if (!isSignerLoaded) {
             synchronized (AdjustSigner.class) {
-                if (signerInstance == null) {
+                if (!isSignerLoaded) {
                     signerInstance = Reflection.createDefaultInstance("com.adjust.sdk.sig.Signer");
+                    isSignerLoaded = true;
                 }
             }
         }
@@ -0,0 +1,83 @@
+package com.adjust.sdk;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Time spent in each stage of the SDK start, in the order the stages finished.
+ *
+ * Stages started on background threads run in parallel, so their durations can overlap.
+ */
+public class AdjustStartupTrace {
+    // whole initialisation on the SDK thread
+    public static final String STAGE_INIT = "init";
+    // state files, read in parallel
+    public static final String STAGE_ATTRIBUTION = "attribution";
+    public static final String STAGE_ACTIVITY_STATE = "activity_state";
+    public static final String STAGE_SESSION_CALLBACK_PARAMETERS = "session_callback_parameters";
+    public static final String STAGE_SESSION_PARTNER_PARAMETERS = "session_partner_parameters";
+    public static final String STAGE_CONFIG_FILE = "config_file";
+    // SDK thread waiting for the state files
+    public static final String STAGE_STATE_FILES = "state_files";
+    public static final String STAGE_DEVICE_INFO = "device_info";
+    // first read of the Google Play Services ids, does not block the start
+    public static final String STAGE_PLAY_IDS = "play_ids";
+    public static final String STAGE_HANDLERS = "handlers";
+
+    private final Map<String, Long> stageStartNanos = new LinkedHashMap<String, Long>();
+    private final Map<String, Long> stageDurationNanos = new LinkedHashMap<String, Long>();
+
+    AdjustStartupTrace() {
+    }
+
+    synchronized void startStage(String stage) {
+        stageStartNanos.put(stage, System.nanoTime());
+    }
+
+    void finishStage(String stage) {
+        long durationNanos;
+        synchronized (this) {
+            Long startNanos = stageStartNanos.get(stage);
+            if (startNanos == null || stageDurationNanos.containsKey(stage)) {
+                return;
+            }
+            durationNanos = System.nanoTime() - startNanos;
+            stageDurationNanos.put(stage, durationNanos);
+        }
+
+        AdjustFactory.getLogger().verbose("Startup stage %s took %d ms",
+                stage, durationNanos / 1000000);
+    }
+
+    /**
+     * @param stage One of the STAGE_ constants
+     * @return Milliseconds spent in the stage, or -1 if it has not finished
+     */
+    public synchronized long getStageDuration(String stage) {
+        Long durationNanos = stageDurationNanos.get(stage);
+        if (durationNanos == null) {
+            return -1;
+        }
+        return durationNanos / 1000000;
+    }
+
+    /**
+     * @return Milliseconds spent in each finished stage, in the order they finished
+     */
+    public synchronized Map<String, Long> getStageDurations() {
+        Map<String, Long> stageDurations = new LinkedHashMap<String, Long>();
+        for (Map.Entry<String, Long> entry : stageDurationNanos.entrySet()) {
+            stageDurations.put(entry.getKey(), entry.getValue() / 1000000);
+        }
+        return stageDurations;
+    }
+
+    public synchronized boolean isStageFinished(String stage) {
+        return stageDurationNanos.containsKey(stage);
+    }
+
+    @Override
+    public String toString() {
+        return Util.formatString("startup trace %s", getStageDurations());
+    }
+}
@@ -11,6 +11,7 @@ package com.adjust.sdk;
 import android.net.Uri;
 
 import com.adjust.sdk.network.IActivityPackageSender;
+import com.adjust.sdk.scheduler.SharedTimerScheduler;
 import com.adjust.sdk.scheduler.SingleThreadCachedScheduler;
 import com.adjust.sdk.scheduler.ThreadScheduler;
 import com.adjust.sdk.scheduler.TimerOnce;
@@ -66,7 +67,7 @@ public class AttributionHandler implements IAttributionHandler,
             public void run() {
                 sendAttributionRequest();
             }
-        }, ATTRIBUTION_TIMER_NAME);
+        }, ATTRIBUTION_TIMER_NAME, SharedTimerScheduler.getInstance());
 
         init(activityHandler, startsSending, attributionHandlerActivityPackageSender);
     }
@@ -1,14 +1,18 @@
 package com.adjust.sdk;
 
 import android.annotation.SuppressLint;
+import android.content.BroadcastReceiver;
 import android.content.ContentResolver;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.Signature;
 import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.database.Cursor;
+import android.net.ConnectivityManager;
 import android.net.Uri;
 import android.os.Build;
 import android.util.DisplayMetrics;
@@ -29,7 +33,6 @@ import static com.adjust.sdk.Constants.XLARGE;
  * Created by pfms on 06/11/14.
  */
 class DeviceInfo {
-
     private static final String OFFICIAL_FACEBOOK_SIGNATURE =
             "30820268308201d102044a9c4610300d06092a864886f70d0101040500307a310b3009060355040613" +
                     "025553310b3009060355040813024341311230100603550407130950616c6f20416c746f31" +
@@ -49,11 +52,15 @@ class DeviceInfo {
                     "0d247663b26a9031e15f84bc1c74d141ff98a02d76f85b2c8ab2571b6469b232d8e768a7f7" +
                     "ca04f7abe4a775615916c07940656b58717457b42bd928a2";
 
-    String playAdId;
-    String playAdIdSource;
-    int playAdIdAttempt;
-    Boolean isTrackingEnabled;
+    private final IdentifierResolver identifierResolver;
     private boolean nonGoogleIdsReadOnce = false;
+    // parameters shared by the packages, dropped by changeReceiver when they could change
+    private volatile DeviceParameters deviceParameters;
+    // read again by the next build of the parameters after a configuration change
+    private DeviceConfiguration deviceConfiguration;
+    private volatile boolean isConfigurationChanged = false;
+    private int deviceParametersChanges = 0;
+    private BroadcastReceiver changeReceiver;
     String macSha1;
     String macShortMd5;
     String androidId;
@@ -61,19 +68,11 @@ class DeviceInfo {
     String clientSdk;
     String packageName;
     String appVersion;
-    String deviceType;
     String deviceName;
     String deviceManufacturer;
     String osName;
     String osVersion;
     String apiLevel;
-    String language;
-    String country;
-    String screenSize;
-    String screenFormat;
-    String screenDensity;
-    String displayWidth;
-    String displayHeight;
     String hardwareName;
     String abi;
     String buildName;
@@ -81,28 +80,19 @@ class DeviceInfo {
     String appUpdateTime;
 
     DeviceInfo(Context context, String sdkPrefix) {
-        Resources resources = context.getResources();
-        DisplayMetrics displayMetrics = resources.getDisplayMetrics();
-        Configuration configuration = resources.getConfiguration();
-        Locale locale = Util.getLocale(configuration);
-        int screenLayout = configuration.screenLayout;
-        ContentResolver contentResolver = context.getContentResolver();
+        this(context, sdkPrefix, new IdentifierResolver());
+    }
 
+    DeviceInfo(Context context, String sdkPrefix, IdentifierResolver identifierResolver) {
+        this.identifierResolver = identifierResolver;
         packageName = getPackageName(context);
         appVersion = getAppVersion(context);
-        deviceType = getDeviceType(screenLayout);
         deviceName = getDeviceName();
         deviceManufacturer = getDeviceManufacturer();
         osName = getOsName();
         osVersion = getOsVersion();
         apiLevel = getApiLevel();
-        language = getLanguage(locale);
-        country = getCountry(locale);
-        screenSize = getScreenSize(screenLayout);
-        screenFormat = getScreenFormat(screenLayout);
-        screenDensity = getScreenDensity(displayMetrics);
-        displayWidth = getDisplayWidth(displayMetrics);
-        displayHeight = getDisplayHeight(displayMetrics);
+        deviceConfiguration = readConfiguration(context);
         clientSdk = getClientSdk(sdkPrefix);
         fbAttributionId = getFacebookAttributionId(context);
         hardwareName = getHardwareName();
@@ -112,75 +102,164 @@ class DeviceInfo {
         appUpdateTime = getAppUpdateTime(context);
     }
 
-    void reloadPlayIds(Context context) {
-        String previousPlayAdId = playAdId;
-        Boolean previousIsTrackingEnabled = isTrackingEnabled;
+    // the fields that change with the configuration of the device: screen and locale
+    private DeviceConfiguration readConfiguration(Context context) {
+        Resources resources = context.getResources();
+        DisplayMetrics displayMetrics = resources.getDisplayMetrics();
+        Configuration configuration = resources.getConfiguration();
+        Locale locale = Util.getLocale(configuration);
+        int screenLayout = configuration.screenLayout;
 
-        playAdId = null;
-        isTrackingEnabled = null;
-        playAdIdSource = null;
-        playAdIdAttempt = -1;
+        return new DeviceConfiguration(
+                getDeviceType(screenLayout),
+                getLanguage(locale),
+                getCountry(locale),
+                getScreenSize(screenLayout),
+                getScreenFormat(screenLayout),
+                getScreenDensity(displayMetrics),
+                getDisplayWidth(displayMetrics),
+                getDisplayHeight(displayMetrics));
+    }
 
+    // builders of the parameters wait here for a configuration read by another one
+    private synchronized DeviceConfiguration getDeviceConfiguration(Context context) {
+        if (isConfigurationChanged) {
+            isConfigurationChanged = false;
+            deviceConfiguration = readConfiguration(context);
+        }
+        return deviceConfiguration;
+    }
 
-        // attempt connecting to Google Play Service by own
-        for (int serviceAttempt = 1; serviceAttempt <= 3; serviceAttempt += 1) {
-            try {
-                // timeout is a multiplier of the attempt number with 3 seconds
-                // so first 3 seconds, second 6 seconds and third and last 9 seconds
-                long timeoutServiceMilli = Constants.ONE_SECOND * 3 * serviceAttempt;
-                GooglePlayServicesClient.GooglePlayServicesInfo gpsInfo =
-                        GooglePlayServicesClient.getGooglePlayServicesInfo(context,
-                                timeoutServiceMilli);
-                if (playAdId == null) {
-                    playAdId = gpsInfo.getGpsAdid();
-                }
-                if (isTrackingEnabled == null) {
-                    isTrackingEnabled = gpsInfo.isTrackingEnabled();
-                }
+    /**
+     * Starts keeping the parameters shared by the packages until the connectivity, the
+     * configuration or the locale of the device change. Without it they are read for every
+     * package.
+     */
+    void startMonitoringChanges(Context context) {
+        if (changeReceiver != null) {
+            return;
+        }
 
-                if (playAdId != null && isTrackingEnabled != null) {
-                    playAdIdSource = "service";
-                    playAdIdAttempt = serviceAttempt;
-                    return;
+        BroadcastReceiver receiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                String action = intent.getAction();
+                if (Intent.ACTION_CONFIGURATION_CHANGED.equals(action)
+                        || Intent.ACTION_LOCALE_CHANGED.equals(action))
+                {
+                    isConfigurationChanged = true;
                 }
-            } catch (Exception e) {}
-        }
+                invalidateDeviceParameters();
+            }
+        };
 
-        // as fallback attempt connecting to Google Play Service using library
-        for (int libAttempt = 1; libAttempt <= 3; libAttempt += 1) {
-            // timeout inside library is 10 seconds, so 10 + 1 seconds are given
-            Object advertisingInfoObject = Util.getAdvertisingInfoObject(
-                    context, Constants.ONE_SECOND * 11);
+        IntentFilter intentFilter = new IntentFilter();
+        intentFilter.addAction(ConnectivityManager.CONNECTIVITY_ACTION);
+        intentFilter.addAction(Intent.ACTION_CONFIGURATION_CHANGED);
+        intentFilter.addAction(Intent.ACTION_LOCALE_CHANGED);
 
-            if (advertisingInfoObject == null) {
-                continue;
-            }
+        try {
+            context.registerReceiver(receiver, intentFilter);
+            changeReceiver = receiver;
+        } catch (Exception e) {
+            AdjustFactory.getLogger().warn("Failed to monitor device changes (%s)", e.getMessage());
+        }
+    }
 
-            if (playAdId == null) {
-                // just needs a short timeout since it should be just accessing a POJO
-                playAdId = Util.getPlayAdId(
-                        context, advertisingInfoObject, Constants.ONE_SECOND);
-            }
-            if (isTrackingEnabled == null) {
-                // just needs a short timeout since it should be just accessing a POJO
-                isTrackingEnabled = Util.isPlayTrackingEnabled(
-                        context, advertisingInfoObject, Constants.ONE_SECOND);
-            }
+    void stopMonitoringChanges(Context context) {
+        if (changeReceiver == null) {
+            return;
+        }
+        try {
+            context.unregisterReceiver(changeReceiver);
+        } catch (Exception e) {
+            AdjustFactory.getLogger().warn("Failed to stop monitoring device changes (%s)",
+                    e.getMessage());
+        }
+        changeReceiver = null;
+        invalidateDeviceParameters();
+    }
 
-            if (playAdId != null && isTrackingEnabled != null) {
-                playAdIdSource = "library";
-                playAdIdAttempt = libAttempt;
-                return;
-            }
+    /**
+     * @return The parameters shared by the packages built with the given config
+     */
+    DeviceParameters getDeviceParameters(AdjustConfig adjustConfig) {
+        DeviceParameters currentParameters = deviceParameters;
+        if (currentParameters != null && currentParameters.adjustConfig == adjustConfig) {
+            return currentParameters;
         }
 
-        // if both weren't found, use previous values
-        if (playAdId == null) {
-            playAdId = previousPlayAdId;
+        int changes;
+        synchronized (this) {
+            changes = deviceParametersChanges;
         }
-        if (isTrackingEnabled == null) {
-            isTrackingEnabled = previousIsTrackingEnabled;
+        DeviceParameters builtParameters = new DeviceParameters(adjustConfig, this,
+                getDeviceConfiguration(adjustConfig.context));
+
+        synchronized (this) {
+            // a change during the build could have been missed by it
+            if (changeReceiver != null && changes == deviceParametersChanges) {
+                deviceParameters = builtParameters;
+            }
         }
+        return builtParameters;
+    }
+
+    synchronized void invalidateDeviceParameters() {
+        deviceParametersChanges++;
+        deviceParameters = null;
+    }
+
+    /**
+     * @return The advertising ids and the ids of the plugins, as last read from their sources
+     */
+    IdentifierSnapshot getIdentifierSnapshot(Context context) {
+        return identifierResolver.getSnapshot(context);
+    }
+
+    // reads the identifiers again in the background, for when they could have changed
+    void refreshIdentifiers(Context context) {
+        identifierResolver.refresh(context);
+    }
+
+    // reads the identifiers on the calling thread
+    void reloadIdentifiers(Context context) {
+        identifierResolver.resolveNow(context);
+    }
+
+    /**
+     * Like getIdentifierSnapshot, but waits for the first read of every source until its
+     * deadline. Returns right away once the first reads finished or their deadlines passed.
+     */
+    IdentifierSnapshot awaitFirstIdentifiers(Context context) {
+        identifierResolver.getSnapshot(context);
+        return identifierResolver.awaitFirstResolutions();
+    }
+
+    /**
+     * @return Whether the Google Play Services and the Fire OS ids were read at least once,
+     * before which their absence doesn't mean the device has none
+     */
+    boolean isAdvertisingIdsRead() {
+        return identifierResolver.isFirstResolutionDone(IdentifierResolver.Source.PLAY)
+                && identifierResolver.isFirstResolutionDone(IdentifierResolver.Source.FIRE);
+    }
+
+    // runs the task after the Google Play Services ids requested until now were read
+    void runAfterPlayIds(Runnable task) {
+        identifierResolver.runAfterResolution(IdentifierResolver.Source.PLAY, task);
+    }
+
+    IdentifierSnapshot.PlayIds getCurrentPlayIds() {
+        return identifierResolver.getCurrentSnapshot().playIds;
+    }
+
+    IdentifierResolver.SourceMetrics getIdentifierMetrics(IdentifierResolver.Source source) {
+        return identifierResolver.getMetrics(source);
+    }
+
+    void teardown() {
+        identifierResolver.teardown();
     }
 
     void reloadNonPlayIds(Context context) {
@@ -429,4 +508,32 @@ class DeviceInfo {
             return null;
         }
     }
+
+    /**
+     * Immutable result of one read of the screen and locale of the device.
+     */
+    static final class DeviceConfiguration {
+        final String deviceType;
+        final String language;
+        final String country;
+        final String screenSize;
+        final String screenFormat;
+        final String screenDensity;
+        final String displayWidth;
+        final String displayHeight;
+
+        DeviceConfiguration(String deviceType, String language, String country,
+                            String screenSize, String screenFormat, String screenDensity,
+                            String displayWidth, String displayHeight)
+        {
+            this.deviceType = deviceType;
+            this.language = language;
+            this.country = country;
+            this.screenSize = screenSize;
+            this.screenFormat = screenFormat;
+            this.screenDensity = screenDensity;
+            this.displayWidth = displayWidth;
+            this.displayHeight = displayHeight;
+        }
+    }
 }
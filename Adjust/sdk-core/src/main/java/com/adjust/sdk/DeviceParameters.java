@@ -0,0 +1,92 @@
+package com.adjust.sdk;
+
+import android.content.Context;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the package parameters that describe the device, the app, the network
+ * and the SDK configuration, which are the same in every package built until one of them
+ * changes. Each template holds the ones of a group of package kinds.
+ *
+ * Built by DeviceInfo on first use and dropped by it on configuration and connectivity changes.
+ * The network and connectivity types change too often for a template, PackageBuilder reads
+ * them for every package.
+ */
+final class DeviceParameters {
+    final AdjustConfig adjustConfig;
+    // sdk_info
+    final Map<String, String> infoTemplate;
+    // attribution, gdpr_forget_device and disable_third_party_sharing
+    final Map<String, String> appTemplate;
+    // third_party_sharing and measurement_consent
+    final Map<String, String> thirdPartySharingTemplate;
+    // event
+    final Map<String, String> eventTemplate;
+    // sdk_click
+    final Map<String, String> clickTemplate;
+    // session, ad_revenue and purchase
+    final Map<String, String> sessionTemplate;
+
+    DeviceParameters(AdjustConfig adjustConfig, DeviceInfo deviceInfo,
+                     DeviceInfo.DeviceConfiguration deviceConfiguration)
+    {
+        this.adjustConfig = adjustConfig;
+        Context context = adjustConfig.context;
+
+        Map<String, String> parameters = new HashMap<String, String>();
+        PackageBuilder.addString(parameters, "app_secret", adjustConfig.appSecret);
+        PackageBuilder.addString(parameters, "app_token", adjustConfig.appToken);
+        PackageBuilder.addBoolean(parameters, "attribution_deeplink", true);
+        PackageBuilder.addBoolean(parameters, "device_known", adjustConfig.deviceKnown);
+        PackageBuilder.addBoolean(parameters, "needs_cost", adjustConfig.needsCost);
+        PackageBuilder.addString(parameters, "environment", adjustConfig.environment);
+        PackageBuilder.addBoolean(parameters, "event_buffering_enabled", adjustConfig.eventBufferingEnabled);
+        PackageBuilder.addString(parameters, "external_device_id", adjustConfig.externalDeviceId);
+        PackageBuilder.addBoolean(parameters, "needs_response_details", true);
+        PackageBuilder.addString(parameters, "secret_id", adjustConfig.secretId);
+        infoTemplate = immutableCopy(parameters);
+
+        PackageBuilder.addString(parameters, "api_level", deviceInfo.apiLevel);
+        PackageBuilder.addString(parameters, "app_version", deviceInfo.appVersion);
+        PackageBuilder.addString(parameters, "device_name", deviceInfo.deviceName);
+        PackageBuilder.addString(parameters, "device_type", deviceConfiguration.deviceType);
+        PackageBuilder.addString(parameters, "os_name", deviceInfo.osName);
+        PackageBuilder.addString(parameters, "os_version", deviceInfo.osVersion);
+        PackageBuilder.addString(parameters, "package_name", deviceInfo.packageName);
+        appTemplate = immutableCopy(parameters);
+
+        Map<String, String> thirdPartySharingParameters = new HashMap<String, String>(parameters);
+        thirdPartySharingParameters.remove("needs_cost");
+        thirdPartySharingTemplate = Collections.unmodifiableMap(thirdPartySharingParameters);
+
+        PackageBuilder.addString(parameters, "country", deviceConfiguration.country);
+        PackageBuilder.addString(parameters, "cpu_type", deviceInfo.abi);
+        PackageBuilder.addString(parameters, "device_manufacturer", deviceInfo.deviceManufacturer);
+        PackageBuilder.addString(parameters, "display_height", deviceConfiguration.displayHeight);
+        PackageBuilder.addString(parameters, "display_width", deviceConfiguration.displayWidth);
+        PackageBuilder.addString(parameters, "fb_id", deviceInfo.fbAttributionId);
+        PackageBuilder.addString(parameters, "hardware_name", deviceInfo.hardwareName);
+        PackageBuilder.addString(parameters, "language", deviceConfiguration.language);
+        PackageBuilder.addString(parameters, "mcc", Util.getMcc(context));
+        PackageBuilder.addString(parameters, "mnc", Util.getMnc(context));
+        PackageBuilder.addString(parameters, "os_build", deviceInfo.buildName);
+        PackageBuilder.addString(parameters, "screen_density", deviceConfiguration.screenDensity);
+        PackageBuilder.addString(parameters, "screen_format", deviceConfiguration.screenFormat);
+        PackageBuilder.addString(parameters, "screen_size", deviceConfiguration.screenSize);
+        eventTemplate = immutableCopy(parameters);
+
+        PackageBuilder.addString(parameters, "installed_at", deviceInfo.appInstallTime);
+        PackageBuilder.addString(parameters, "updated_at", deviceInfo.appUpdateTime);
+        clickTemplate = immutableCopy(parameters);
+
+        PackageBuilder.addString(parameters, "default_tracker", adjustConfig.defaultTracker);
+        sessionTemplate = Collections.unmodifiableMap(parameters);
+    }
+
+    private static Map<String, String> immutableCopy(Map<String, String> parameters) {
+        return Collections.unmodifiableMap(new HashMap<String, String>(parameters));
+    }
+}
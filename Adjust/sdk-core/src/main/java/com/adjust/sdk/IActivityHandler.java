@@ -92,4 +92,6 @@ public interface IActivityHandler {
     ActivityState getActivityState();
 
     SessionParameters getSessionParameters();
+
+    AdjustStartupTrace getStartupTrace();
 }
@@ -18,6 +18,8 @@ public interface IPackageHandler {
 
     void resumeSending();
 
+    void setNetworkState(boolean isConnected, boolean isUnmetered);
+
     void updatePackages(SessionParameters sessionParameters);
 
     void flush();
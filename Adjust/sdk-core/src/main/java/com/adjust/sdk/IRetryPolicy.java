@@ -0,0 +1,12 @@
+package com.adjust.sdk;
+
+/**
+ * Decides how long a package waits before it is sent again after a failed attempt.
+ */
+public interface IRetryPolicy {
+    // milliseconds to wait before sending the package of the response for the given retry
+    long getRetryWait(ResponseData responseData, int retries, BackoffStrategy backoffStrategy);
+
+    // a package of the kind got an answer, its backoff starts over
+    void onSent(ActivityKind activityKind);
+}
@@ -0,0 +1,459 @@
+package com.adjust.sdk;
+
+import android.content.ContentResolver;
+import android.content.Context;
+
+import com.adjust.sdk.scheduler.SingleThreadCachedScheduler;
+import com.adjust.sdk.scheduler.ThreadExecutor;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reads the identifiers of every source on its own thread and publishes them together as an
+ * IdentifierSnapshot, which the package builders read without waiting for the sources.
+ *
+ * A source is read again once its value is older than its time to live. A new snapshot is only
+ * published when a source read a different value. The session, click and attribution packages
+ * wait for the first read of every source until the deadline of the source, counted from when
+ * that read was requested, and go on without the ones that didn't answer by then. Once the
+ * deadlines passed, nothing waits anymore. A source that answers late still gets into the
+ * snapshot.
+ */
+class IdentifierResolver {
+    enum Source {
+        // the service and then the library, each tried three times, the deadline covers the
+        // first two attempts of the service
+        PLAY("play", 10 * Constants.ONE_SECOND, 5 * Constants.ONE_MINUTE),
+        // a query of the secure settings
+        FIRE("fire", Constants.ONE_SECOND, 5 * Constants.ONE_MINUTE),
+        // the imei plugin, which can be turned on and off at runtime
+        IMEI("imei", Constants.ONE_SECOND, Constants.ONE_MINUTE),
+        // the oaid plugin, which keeps its own cache of the services
+        OAID("oaid", 3 * Constants.ONE_SECOND, Constants.ONE_MINUTE);
+
+        final String name;
+        final long deadline;
+        final long timeToLive;
+
+        Source(String name, long deadline, long timeToLive) {
+            this.name = name;
+            this.deadline = deadline;
+            this.timeToLive = timeToLive;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Counters of one source since the resolver was created.
+     */
+    static final class SourceMetrics {
+        final long resolutions;
+        // reads that gave an identifier
+        final long found;
+        // reads that gave a different value than the one before
+        final long changes;
+        // snapshot reads that found the value of the source within its time to live
+        final long cacheHits;
+        final long cacheMisses;
+        // waits that stopped before the first read of the source finished
+        final long deadlineMisses;
+        final long totalLatencyMillis;
+        final long maxLatencyMillis;
+
+        private SourceMetrics(SourceState state) {
+            this.resolutions = state.resolutions.get();
+            this.found = state.found.get();
+            this.changes = state.changes.get();
+            this.cacheHits = state.cacheHits.get();
+            this.cacheMisses = state.cacheMisses.get();
+            this.deadlineMisses = state.deadlineMisses.get();
+            this.totalLatencyMillis = state.totalLatencyMillis.get();
+            this.maxLatencyMillis = state.maxLatencyMillis.get();
+        }
+
+        double cacheHitRate() {
+            long reads = cacheHits + cacheMisses;
+            return reads == 0 ? 0 : (double) cacheHits / reads;
+        }
+
+        long averageLatencyMillis() {
+            return resolutions == 0 ? 0 : totalLatencyMillis / resolutions;
+        }
+
+        @Override
+        public String toString() {
+            return Util.formatString("%d reads, %d found, %d changed, %d ms average latency,"
+                            + " %d ms max latency, %.2f cache hit rate, %d deadline misses",
+                    resolutions, found, changes, averageLatencyMillis(), maxLatencyMillis,
+                    cacheHitRate(), deadlineMisses);
+        }
+    }
+
+    private static final class SourceState {
+        final AtomicBoolean isResolving = new AtomicBoolean(false);
+        final CountDownLatch firstResolution = new CountDownLatch(1);
+        final AtomicLong firstRequestedAt = new AtomicLong(0);
+        // 0 until the first read finished
+        volatile long resolvedAt;
+
+        final AtomicLong resolutions = new AtomicLong();
+        final AtomicLong found = new AtomicLong();
+        final AtomicLong changes = new AtomicLong();
+        final AtomicLong cacheHits = new AtomicLong();
+        final AtomicLong cacheMisses = new AtomicLong();
+        final AtomicLong deadlineMisses = new AtomicLong();
+        final AtomicLong totalLatencyMillis = new AtomicLong();
+        final AtomicLong maxLatencyMillis = new AtomicLong();
+    }
+
+    private static final Source[] SOURCES = Source.values();
+
+    private final AtomicReference<IdentifierSnapshot> snapshot;
+    private final Map<Source, SourceState> sourceStates;
+    private final Map<Source, ThreadExecutor> lanes;
+
+    IdentifierResolver() {
+        snapshot = new AtomicReference<IdentifierSnapshot>(IdentifierSnapshot.EMPTY);
+        sourceStates = new EnumMap<Source, SourceState>(Source.class);
+        // a lane per source, so that a slow one doesn't hold back the others
+        lanes = new EnumMap<Source, ThreadExecutor>(Source.class);
+        for (Source source : SOURCES) {
+            sourceStates.put(source, new SourceState());
+            lanes.put(source, new SingleThreadCachedScheduler("IdentifierResolver",
+                    AdjustFactory.getSdkWaitingExecutor()));
+        }
+    }
+
+    /**
+     * @return The identifiers last read, refreshing the sources that expired in the background
+     */
+    IdentifierSnapshot getSnapshot(Context context) {
+        long now = System.currentTimeMillis();
+        for (Source source : SOURCES) {
+            SourceState state = sourceStates.get(source);
+            long resolvedAt = state.resolvedAt;
+            if (resolvedAt != 0 && now - resolvedAt < timeToLiveOf(source)) {
+                state.cacheHits.incrementAndGet();
+                continue;
+            }
+            state.cacheMisses.incrementAndGet();
+            refresh(context, source);
+        }
+        return snapshot.get();
+    }
+
+    // reads all sources again in the background, whether they expired or not
+    void refresh(Context context) {
+        for (Source source : SOURCES) {
+            refresh(context, source);
+        }
+    }
+
+    // reads all sources on the calling thread
+    void resolveNow(Context context) {
+        for (Source source : SOURCES) {
+            sourceStates.get(source).firstRequestedAt.compareAndSet(0, System.currentTimeMillis());
+            resolve(context, source);
+        }
+    }
+
+    /**
+     * Waits until the first read of every requested source finished or its deadline passed.
+     * The sources are read concurrently, so this takes at most the longest deadline.
+     *
+     * @return The identifiers read until then
+     */
+    IdentifierSnapshot awaitFirstResolutions() {
+        for (Source source : SOURCES) {
+            awaitFirstResolution(source);
+        }
+        return snapshot.get();
+    }
+
+    /**
+     * Waits until the first read of the source finished or its deadline passed.
+     *
+     * @return The identifiers read until then
+     */
+    IdentifierSnapshot awaitFirstResolution(Source source) {
+        SourceState state = sourceStates.get(source);
+        if (state.firstResolution.getCount() == 0) {
+            return snapshot.get();
+        }
+        long firstRequestedAt = state.firstRequestedAt.get();
+        if (firstRequestedAt == 0) {
+            return snapshot.get();
+        }
+
+        long remaining = firstRequestedAt + deadlineOf(source) - System.currentTimeMillis();
+        try {
+            if (remaining <= 0 || !state.firstResolution.await(remaining, TimeUnit.MILLISECONDS)) {
+                state.deadlineMisses.incrementAndGet();
+                AdjustFactory.getLogger().debug("Identifier source %s missed its deadline of %d ms",
+                        source, deadlineOf(source));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return snapshot.get();
+    }
+
+    // true once the first read of the source finished, whether it found an identifier or not
+    boolean isFirstResolutionDone(Source source) {
+        return sourceStates.get(source).firstResolution.getCount() == 0;
+    }
+
+    /**
+     * Runs the task on the lane of the source, after the reads of it requested until now.
+     */
+    void runAfterResolution(Source source, Runnable task) {
+        lanes.get(source).submit(task);
+    }
+
+    // the identifiers read until now, without refreshing any source
+    IdentifierSnapshot getCurrentSnapshot() {
+        return snapshot.get();
+    }
+
+    SourceMetrics getMetrics(Source source) {
+        return new SourceMetrics(sourceStates.get(source));
+    }
+
+    void teardown() {
+        for (ThreadExecutor lane : lanes.values()) {
+            lane.teardown();
+        }
+    }
+
+    long deadlineOf(Source source) {
+        return source.deadline;
+    }
+
+    long timeToLiveOf(Source source) {
+        return source.timeToLive;
+    }
+
+    /**
+     * Reads the current value of the source, can block for as long as the source takes.
+     *
+     * @return PlayIds, FireIds or the parameters of a plugin, null for a plugin that isn't there
+     */
+    Object read(Context context, Source source, IdentifierSnapshot current) {
+        switch (source) {
+            case PLAY:
+                return readPlayIds(context, current.playIds);
+            case FIRE:
+                ContentResolver contentResolver = context.getContentResolver();
+                return new IdentifierSnapshot.FireIds(Util.getFireAdvertisingId(contentResolver),
+                        Util.getFireTrackingEnabled(contentResolver));
+            case IMEI:
+                return Reflection.getImeiParameters(context, AdjustFactory.getLogger());
+            case OAID:
+                return Reflection.getOaidParameters(context, AdjustFactory.getLogger());
+            default:
+                return null;
+        }
+    }
+
+    private void refresh(final Context context, final Source source) {
+        final SourceState state = sourceStates.get(source);
+        state.firstRequestedAt.compareAndSet(0, System.currentTimeMillis());
+        if (!state.isResolving.compareAndSet(false, true)) {
+            return;
+        }
+
+        lanes.get(source).submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    resolve(context, source);
+                } finally {
+                    state.isResolving.set(false);
+                }
+            }
+        });
+    }
+
+    private void resolve(Context context, Source source) {
+        SourceState state = sourceStates.get(source);
+        long start = System.currentTimeMillis();
+        Object value = null;
+        try {
+            value = read(context, source, snapshot.get());
+        } catch (Throwable t) {
+            AdjustFactory.getLogger().debug("Failed to read identifier source %s (%s)",
+                    source, t.getMessage());
+        }
+        long latency = System.currentTimeMillis() - start;
+
+        boolean isChanged = publish(source, value);
+
+        state.resolutions.incrementAndGet();
+        state.totalLatencyMillis.addAndGet(latency);
+        long maxLatency = state.maxLatencyMillis.get();
+        while (latency > maxLatency
+                && !state.maxLatencyMillis.compareAndSet(maxLatency, latency))
+        {
+            maxLatency = state.maxLatencyMillis.get();
+        }
+        if (isFound(value)) {
+            state.found.incrementAndGet();
+        }
+        if (isChanged) {
+            state.changes.incrementAndGet();
+        }
+        state.resolvedAt = System.currentTimeMillis();
+        state.firstResolution.countDown();
+
+        AdjustFactory.getLogger().verbose("Read identifier source %s in %d ms%s",
+                source, latency, isChanged ? ", it changed" : "");
+    }
+
+    // swaps in a snapshot with the value of the source, unless it's the same as before
+    private boolean publish(Source source, Object value) {
+        while (true) {
+            IdentifierSnapshot current = snapshot.get();
+            if (Util.equalObject(valueOf(current, source), value)) {
+                return false;
+            }
+            IdentifierSnapshot updated = with(current, source, value);
+            if (snapshot.compareAndSet(current, updated)) {
+                return true;
+            }
+        }
+    }
+
+    private static Object valueOf(IdentifierSnapshot snapshot, Source source) {
+        switch (source) {
+            case PLAY:
+                return snapshot.playIds;
+            case FIRE:
+                return snapshot.fireIds;
+            case IMEI:
+                return snapshot.imeiParameters;
+            case OAID:
+                return snapshot.oaidParameters;
+            default:
+                return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IdentifierSnapshot with(IdentifierSnapshot snapshot, Source source, Object value) {
+        switch (source) {
+            case PLAY:
+                return snapshot.withPlayIds((IdentifierSnapshot.PlayIds) value);
+            case FIRE:
+                return snapshot.withFireIds((IdentifierSnapshot.FireIds) value);
+            case IMEI:
+                return snapshot.withImeiParameters((Map<String, String>) value);
+            case OAID:
+                return snapshot.withOaidParameters((Map<String, String>) value);
+            default:
+                return snapshot;
+        }
+    }
+
+    private static boolean isFound(Object value) {
+        if (value instanceof IdentifierSnapshot.PlayIds) {
+            return ((IdentifierSnapshot.PlayIds) value).playAdId != null;
+        }
+        if (value instanceof IdentifierSnapshot.FireIds) {
+            return ((IdentifierSnapshot.FireIds) value).fireAdId != null;
+        }
+        if (value instanceof Map) {
+            return !((Map<?, ?>) value).isEmpty();
+        }
+        return false;
+    }
+
+    private static IdentifierSnapshot.PlayIds readPlayIds(Context context,
+                                                          IdentifierSnapshot.PlayIds previousPlayIds)
+    {
+        String playAdId = null;
+        Boolean isTrackingEnabled = null;
+
+        // attempt connecting to Google Play Service by own
+        for (int serviceAttempt = 1; serviceAttempt <= 3; serviceAttempt += 1) {
+            try {
+                // timeout is a multiplier of the attempt number with 3 seconds
+                // so first 3 seconds, second 6 seconds and third and last 9 seconds
+                long timeoutServiceMilli = Constants.ONE_SECOND * 3 * serviceAttempt;
+                GooglePlayServicesClient.GooglePlayServicesInfo gpsInfo =
+                        GooglePlayServicesClient.getGooglePlayServicesInfo(context,
+                                timeoutServiceMilli);
+                if (playAdId == null) {
+                    playAdId = gpsInfo.getGpsAdid();
+                }
+                if (isTrackingEnabled == null) {
+                    isTrackingEnabled = gpsInfo.isTrackingEnabled();
+                }
+
+                if (playAdId != null && isTrackingEnabled != null) {
+                    return checkTrackingChange(previousPlayIds, new IdentifierSnapshot.PlayIds(
+                            playAdId, "service", serviceAttempt, isTrackingEnabled));
+                }
+            } catch (Exception e) {}
+        }
+
+        // as fallback attempt connecting to Google Play Service using library
+        for (int libAttempt = 1; libAttempt <= 3; libAttempt += 1) {
+            // timeout inside library is 10 seconds, so 10 + 1 seconds are given
+            Object advertisingInfoObject = Util.getAdvertisingInfoObject(
+                    context, Constants.ONE_SECOND * 11);
+
+            if (advertisingInfoObject == null) {
+                continue;
+            }
+
+            if (playAdId == null) {
+                // just needs a short timeout since it should be just accessing a POJO
+                playAdId = Util.getPlayAdId(
+                        context, advertisingInfoObject, Constants.ONE_SECOND);
+            }
+            if (isTrackingEnabled == null) {
+                // just needs a short timeout since it should be just accessing a POJO
+                isTrackingEnabled = Util.isPlayTrackingEnabled(
+                        context, advertisingInfoObject, Constants.ONE_SECOND);
+            }
+
+            if (playAdId != null && isTrackingEnabled != null) {
+                return checkTrackingChange(previousPlayIds, new IdentifierSnapshot.PlayIds(
+                        playAdId, "library", libAttempt, isTrackingEnabled));
+            }
+        }
+
+        // if both weren't found, use previous values
+        if (playAdId == null) {
+            playAdId = previousPlayIds.playAdId;
+        }
+        if (isTrackingEnabled == null) {
+            isTrackingEnabled = previousPlayIds.isTrackingEnabled;
+        }
+
+        return new IdentifierSnapshot.PlayIds(playAdId, null, -1, isTrackingEnabled);
+    }
+
+    private static IdentifierSnapshot.PlayIds checkTrackingChange(
+            IdentifierSnapshot.PlayIds previousPlayIds,
+            IdentifierSnapshot.PlayIds playIds)
+    {
+        if (previousPlayIds.isTrackingEnabled != null
+                && !previousPlayIds.isTrackingEnabled.equals(playIds.isTrackingEnabled))
+        {
+            AdjustFactory.getLogger().debug("Google Play Services limit ad tracking changed to %s",
+                    !playIds.isTrackingEnabled);
+        }
+        return playIds;
+    }
+}
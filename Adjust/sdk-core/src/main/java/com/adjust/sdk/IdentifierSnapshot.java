@@ -0,0 +1,139 @@
+package com.adjust.sdk;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable set of the advertising and device identifiers added to the packages, as last read
+ * from each identifier source by IdentifierResolver.
+ */
+final class IdentifierSnapshot {
+    /**
+     * Immutable result of one read of the Google Play Services ids.
+     */
+    static final class PlayIds {
+        final String playAdId;
+        final String playAdIdSource;
+        final int playAdIdAttempt;
+        final Boolean isTrackingEnabled;
+
+        PlayIds(String playAdId, String playAdIdSource, int playAdIdAttempt,
+                Boolean isTrackingEnabled)
+        {
+            this.playAdId = playAdId;
+            this.playAdIdSource = playAdIdSource;
+            this.playAdIdAttempt = playAdIdAttempt;
+            this.isTrackingEnabled = isTrackingEnabled;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            }
+            if (!(other instanceof PlayIds)) {
+                return false;
+            }
+            PlayIds otherPlayIds = (PlayIds) other;
+            return Util.equalString(playAdId, otherPlayIds.playAdId)
+                    && Util.equalString(playAdIdSource, otherPlayIds.playAdIdSource)
+                    && playAdIdAttempt == otherPlayIds.playAdIdAttempt
+                    && Util.equalBoolean(isTrackingEnabled, otherPlayIds.isTrackingEnabled);
+        }
+
+        @Override
+        public int hashCode() {
+            int hashCode = 17;
+            hashCode = 37 * hashCode + Util.hashString(playAdId);
+            hashCode = 37 * hashCode + Util.hashString(playAdIdSource);
+            hashCode = 37 * hashCode + playAdIdAttempt;
+            hashCode = 37 * hashCode + Util.hashBoolean(isTrackingEnabled);
+            return hashCode;
+        }
+    }
+
+    /**
+     * Immutable result of one read of the Fire OS advertising settings.
+     */
+    static final class FireIds {
+        final String fireAdId;
+        final Boolean isFireTrackingEnabled;
+
+        FireIds(String fireAdId, Boolean isFireTrackingEnabled) {
+            this.fireAdId = fireAdId;
+            this.isFireTrackingEnabled = isFireTrackingEnabled;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            }
+            if (!(other instanceof FireIds)) {
+                return false;
+            }
+            FireIds otherFireIds = (FireIds) other;
+            return Util.equalString(fireAdId, otherFireIds.fireAdId)
+                    && Util.equalBoolean(isFireTrackingEnabled, otherFireIds.isFireTrackingEnabled);
+        }
+
+        @Override
+        public int hashCode() {
+            int hashCode = 17;
+            hashCode = 37 * hashCode + Util.hashString(fireAdId);
+            hashCode = 37 * hashCode + Util.hashBoolean(isFireTrackingEnabled);
+            return hashCode;
+        }
+    }
+
+    static final PlayIds NO_PLAY_IDS = new PlayIds(null, null, -1, null);
+    static final FireIds NO_FIRE_IDS = new FireIds(null, null);
+    static final IdentifierSnapshot EMPTY =
+            new IdentifierSnapshot(NO_PLAY_IDS, NO_FIRE_IDS, null, null);
+
+    final PlayIds playIds;
+    final FireIds fireIds;
+    // parameters of the imei plugin, null without it
+    final Map<String, String> imeiParameters;
+    // parameters of the oaid plugin, null without it
+    final Map<String, String> oaidParameters;
+
+    private IdentifierSnapshot(PlayIds playIds,
+                               FireIds fireIds,
+                               Map<String, String> imeiParameters,
+                               Map<String, String> oaidParameters)
+    {
+        this.playIds = playIds;
+        this.fireIds = fireIds;
+        this.imeiParameters = imeiParameters;
+        this.oaidParameters = oaidParameters;
+    }
+
+    IdentifierSnapshot withPlayIds(PlayIds playIds) {
+        return new IdentifierSnapshot(playIds != null ? playIds : NO_PLAY_IDS,
+                fireIds, imeiParameters, oaidParameters);
+    }
+
+    IdentifierSnapshot withFireIds(FireIds fireIds) {
+        return new IdentifierSnapshot(playIds, fireIds != null ? fireIds : NO_FIRE_IDS,
+                imeiParameters, oaidParameters);
+    }
+
+    IdentifierSnapshot withImeiParameters(Map<String, String> imeiParameters) {
+        return new IdentifierSnapshot(playIds, fireIds, immutableCopy(imeiParameters),
+                oaidParameters);
+    }
+
+    IdentifierSnapshot withOaidParameters(Map<String, String> oaidParameters) {
+        return new IdentifierSnapshot(playIds, fireIds, imeiParameters,
+                immutableCopy(oaidParameters));
+    }
+
+    private static Map<String, String> immutableCopy(Map<String, String> parameters) {
+        if (parameters == null) {
+            return null;
+        }
+        return Collections.unmodifiableMap(new HashMap<String, String>(parameters));
+    }
+}
@@ -110,14 +110,20 @@ public class InstallReferrer implements InvocationHandler {
         this.context = context;
         this.shouldTryToRead = new AtomicBoolean(true);
         this.retries = 0;
+        this.referrerCallback = referrerCallback;
+        this.executor = new SingleThreadCachedScheduler("InstallReferrer");
+        // the retry timer runs on the shared timer thread, the connection is started on the lane
         this.retryTimer = new TimerOnce(new Runnable() {
             @Override
             public void run() {
-                startConnection();
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        startConnection();
+                    }
+                });
             }
         }, "InstallReferrer");
-        this.referrerCallback = referrerCallback;
-        this.executor = new SingleThreadCachedScheduler("InstallReferrer");
     }
 
     private Object createInstallReferrer(Context context, InstallReferrerReadListener referrerCallback, ILogger logger) {
@@ -203,7 +209,7 @@ public class InstallReferrer implements InvocationHandler {
      */
     private Class getInstallReferrerStateListenerClass() {
         try {
-            return Class.forName(PACKAGE_BASE_NAME + "api.InstallReferrerStateListener");
+            return MemberCache.getClass(PACKAGE_BASE_NAME + "api.InstallReferrerStateListener");
         } catch (Exception ex) {
             logger.error("getInstallReferrerStateListenerClass error (%s) from (%s)",
                     ex.getMessage(),
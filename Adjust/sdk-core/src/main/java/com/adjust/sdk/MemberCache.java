@@ -0,0 +1,154 @@
+package com.adjust.sdk;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Classes, methods and constructors looked up through reflection, kept for the lifetime of the
+ * process so that the reflective calls made for every package don't look them up again.
+ *
+ * Lookups that failed are kept as well: a plugin missing from the app doesn't show up later, and
+ * a failed lookup is the most expensive one to repeat. The exception of the first lookup is
+ * thrown again for those.
+ */
+final class MemberCache {
+    private static final class Missing {
+        final Exception exception;
+
+        Missing(Exception exception) {
+            this.exception = exception;
+        }
+    }
+
+    private static final class MemberKey {
+        final Class<?> declaringClass;
+        // null for constructors
+        final String name;
+        final Class<?>[] parameterTypes;
+        final int hashCode;
+
+        MemberKey(Class<?> declaringClass, String name, Class<?>[] parameterTypes) {
+            this.declaringClass = declaringClass;
+            this.name = name;
+            this.parameterTypes = parameterTypes != null ? parameterTypes : NO_PARAMETER_TYPES;
+
+            int hashCode = 17;
+            hashCode = 37 * hashCode + declaringClass.hashCode();
+            hashCode = 37 * hashCode + Util.hashString(name);
+            hashCode = 37 * hashCode + Arrays.hashCode(this.parameterTypes);
+            this.hashCode = hashCode;
+        }
+
+        // the key that gets stored, which the caller can't change anymore
+        MemberKey copy() {
+            return new MemberKey(declaringClass, name, parameterTypes.clone());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            }
+            if (!(other instanceof MemberKey)) {
+                return false;
+            }
+            MemberKey otherKey = (MemberKey) other;
+            return declaringClass == otherKey.declaringClass
+                    && Util.equalString(name, otherKey.name)
+                    && Arrays.equals(parameterTypes, otherKey.parameterTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final Class<?>[] NO_PARAMETER_TYPES = new Class<?>[0];
+
+    private static final ConcurrentMap<String, Object> classes =
+            new ConcurrentHashMap<String, Object>();
+    private static final ConcurrentMap<MemberKey, Object> methods =
+            new ConcurrentHashMap<MemberKey, Object>();
+    private static final ConcurrentMap<MemberKey, Object> constructors =
+            new ConcurrentHashMap<MemberKey, Object>();
+
+    private MemberCache() {
+    }
+
+    static Class<?> getClass(String className) throws ClassNotFoundException {
+        Object cached = classes.get(className);
+        if (cached == null) {
+            try {
+                cached = Class.forName(className);
+            } catch (ClassNotFoundException e) {
+                cached = new Missing(e);
+            }
+            Object previous = classes.putIfAbsent(className, cached);
+            if (previous != null) {
+                cached = previous;
+            }
+        }
+        if (cached instanceof Missing) {
+            throw (ClassNotFoundException) ((Missing) cached).exception;
+        }
+        return (Class<?>) cached;
+    }
+
+    static Method getMethod(Class<?> classObject, String methodName, Class<?>[] parameterTypes)
+            throws NoSuchMethodException
+    {
+        MemberKey key = new MemberKey(classObject, methodName, parameterTypes);
+        Object cached = methods.get(key);
+        if (cached == null) {
+            try {
+                cached = classObject.getMethod(methodName, key.parameterTypes);
+            } catch (NoSuchMethodException e) {
+                cached = new Missing(e);
+            }
+            Object previous = methods.putIfAbsent(key.copy(), cached);
+            if (previous != null) {
+                cached = previous;
+            }
+        }
+        if (cached instanceof Missing) {
+            throw (NoSuchMethodException) ((Missing) cached).exception;
+        }
+        return (Method) cached;
+    }
+
+    static Constructor<?> getConstructor(Class<?> classObject, Class<?>[] parameterTypes)
+            throws NoSuchMethodException
+    {
+        MemberKey key = new MemberKey(classObject, null, parameterTypes);
+        Object cached = constructors.get(key);
+        if (cached == null) {
+            try {
+                cached = classObject.getConstructor(key.parameterTypes);
+            } catch (NoSuchMethodException e) {
+                cached = new Missing(e);
+            }
+            Object previous = constructors.putIfAbsent(key.copy(), cached);
+            if (previous != null) {
+                cached = previous;
+            }
+        }
+        if (cached instanceof Missing) {
+            throw (NoSuchMethodException) ((Missing) cached).exception;
+        }
+        return (Constructor<?>) cached;
+    }
+
+    static int size() {
+        return classes.size() + methods.size() + constructors.size();
+    }
+
+    static void clear() {
+        classes.clear();
+        methods.clear();
+        constructors.clear();
+    }
+}
@@ -0,0 +1,156 @@
+package com.adjust.sdk;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Parameters of one package on top of a shared, immutable template.
+ *
+ * Reads fall through to the template, writes go to a small map of the package's own entries.
+ * The template is only copied into it when one of its entries is removed, so building a
+ * package does not copy the parameters every package has in common.
+ *
+ * Entries of the template are read-only and removing through the views is not supported.
+ */
+final class OverlayMap extends AbstractMap<String, String> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Map<String, String> template;
+    private final HashMap<String, String> overlay;
+    // entries of the overlay that hide an entry of the template
+    private int hiddenEntries;
+    private transient Set<Entry<String, String>> entrySet;
+
+    OverlayMap(Map<String, String> template) {
+        this.template = template;
+        this.overlay = new HashMap<String, String>();
+        this.hiddenEntries = 0;
+    }
+
+    @Override
+    public int size() {
+        return template.size() + overlay.size() - hiddenEntries;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return overlay.containsKey(key) || template.containsKey(key);
+    }
+
+    @Override
+    public String get(Object key) {
+        String value = overlay.get(key);
+        if (value != null || overlay.containsKey(key)) {
+            return value;
+        }
+        return template.get(key);
+    }
+
+    @Override
+    public String put(String key, String value) {
+        if (overlay.containsKey(key)) {
+            return overlay.put(key, value);
+        }
+        String previousValue = template.get(key);
+        if (previousValue != null || template.containsKey(key)) {
+            hiddenEntries++;
+        }
+        overlay.put(key, value);
+        return previousValue;
+    }
+
+    @Override
+    public String remove(Object key) {
+        if (template.containsKey(key)) {
+            copyTemplate();
+        }
+        return overlay.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        template = Collections.emptyMap();
+        overlay.clear();
+        hiddenEntries = 0;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<String, String>>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return OverlayMap.this.size();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private void copyTemplate() {
+        for (Entry<String, String> entry : template.entrySet()) {
+            if (!overlay.containsKey(entry.getKey())) {
+                overlay.put(entry.getKey(), entry.getValue());
+            }
+        }
+        template = Collections.emptyMap();
+        hiddenEntries = 0;
+    }
+
+    // packages are persisted by the PersistenceCodec, this is only for packages still written
+    // with Java serialization, which then hold a plain map of their own entries
+    private Object writeReplace() {
+        return new HashMap<String, String>(this);
+    }
+
+    // entries of the overlay, then the ones of the template it does not hide
+    private class EntryIterator implements Iterator<Entry<String, String>> {
+        private final Iterator<Entry<String, String>> overlayIterator = overlay.entrySet().iterator();
+        private final Iterator<Entry<String, String>> templateIterator = template.entrySet().iterator();
+        private Entry<String, String> nextTemplateEntry;
+
+        @Override
+        public boolean hasNext() {
+            if (overlayIterator.hasNext()) {
+                return true;
+            }
+            while (nextTemplateEntry == null && templateIterator.hasNext()) {
+                Entry<String, String> entry = templateIterator.next();
+                if (!overlay.containsKey(entry.getKey())) {
+                    nextTemplateEntry = entry;
+                }
+            }
+            return nextTemplateEntry != null;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (overlayIterator.hasNext()) {
+                return overlayIterator.next();
+            }
+            Entry<String, String> entry = nextTemplateEntry;
+            nextTemplateEntry = null;
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
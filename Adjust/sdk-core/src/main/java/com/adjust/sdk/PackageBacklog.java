@@ -0,0 +1,392 @@
+package com.adjust.sdk;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Ring buffer of encoded packages in a memory-mapped file, for the packages queued behind the
+ * send window of the package handler.
+ *
+ * Packages stay encoded with PersistenceCodec until they are taken out of the backlog, so a
+ * backlog built up over days offline takes no heap. Writes go to the mapped pages, which
+ * belong to the page cache and survive the process being killed.
+ *
+ * File layout: [magic:4][capacity:4][head:4][tail:4] followed by capacity bytes of records,
+ * each one [payload length:4][payload crc32:4][payload]. A record that does not fit before
+ * the end of the buffer is written at its start, after a wrap marker when there is room for
+ * one. The tail is only moved once a record is complete, so a crash mid-write never leaves
+ * a partial record behind it.
+ */
+class PackageBacklog {
+    private static final String BACKLOG_FILENAME = "AdjustIoPackageBacklog";
+    private static final String REWRITE_FILENAME = "AdjustIoPackageBacklog.tmp";
+    private static final String BACKLOG_NAME = "Package backlog";
+
+    // smallest byte cap that can be configured, any package fits in half of it
+    static final int MIN_CAPACITY = 64 * 1024;
+
+    private static final int MAGIC = 0xAD4A424C;
+    private static final int HEADER_SIZE = 16;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int HEAD_OFFSET = 8;
+    private static final int TAIL_OFFSET = 12;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int WRAP_MARKER = -1;
+
+    interface PackageUpdater {
+        void update(ActivityPackage activityPackage);
+    }
+
+    private final Context context;
+    private final String fileName;
+    private final boolean dropOldest;
+    private final ILogger logger;
+    private RandomAccessFile randomAccessFile;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    // offsets into the record area, head == tail when the backlog is empty
+    private int head;
+    private int tail;
+    private int count;
+
+    /**
+     * Opens the backlog, with the packages left in it by earlier runs.
+     *
+     * @param capacity Byte cap of the records, an existing backlog with another cap is resized,
+     *                 0 keeps the cap of an existing backlog
+     * @param dropOldest When the backlog is full, true drops its oldest packages to make room
+     *                   and false drops the package being added
+     * @return The backlog, null if it can't be opened
+     */
+    static PackageBacklog open(Context context, int capacity, boolean dropOldest) {
+        try {
+            PackageBacklog packageBacklog =
+                    new PackageBacklog(context, BACKLOG_FILENAME, capacity, dropOldest);
+            if (capacity > 0 && packageBacklog.capacity != capacity) {
+                packageBacklog.rewrite(capacity, null);
+            }
+            return packageBacklog;
+        } catch (Exception e) {
+            AdjustFactory.getLogger().error("Failed to open %s (%s)", BACKLOG_NAME, e.getMessage());
+            return null;
+        }
+    }
+
+    static boolean exists(Context context) {
+        File backlogFile = context.getFileStreamPath(BACKLOG_FILENAME);
+        return backlogFile != null && backlogFile.exists();
+    }
+
+    static boolean delete(Context context) {
+        context.deleteFile(REWRITE_FILENAME);
+        return context.deleteFile(BACKLOG_FILENAME);
+    }
+
+    private PackageBacklog(Context context, String fileName, int capacity, boolean dropOldest)
+            throws IOException
+    {
+        this.context = context;
+        this.fileName = fileName;
+        this.dropOldest = dropOldest;
+        this.logger = AdjustFactory.getLogger();
+
+        map(capacity);
+    }
+
+    int size() {
+        return count;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Adds a package at the end of the backlog, applying the overflow policy when it is full.
+     *
+     * @return false if the package was dropped
+     */
+    boolean add(ActivityPackage activityPackage) {
+        byte[] payload;
+        try {
+            payload = PersistenceCodec.encodeActivityPackage(activityPackage);
+        } catch (Exception e) {
+            logger.error("Failed to serialize %s (%s)", activityPackage, e.getMessage());
+            return false;
+        }
+        return append(payload);
+    }
+
+    /**
+     * @return The oldest package, null if the backlog is empty
+     */
+    ActivityPackage peek() {
+        while (count > 0) {
+            int position = recordPosition(head);
+            try {
+                return PersistenceCodec.decodeActivityPackage(readPayload(position));
+            } catch (Exception e) {
+                logger.error("Failed to deserialize package from %s (%s)",
+                        BACKLOG_NAME, e.getMessage());
+                removeFirst();
+            }
+        }
+        return null;
+    }
+
+    void removeFirst() {
+        if (count == 0) {
+            return;
+        }
+        int position = recordPosition(head);
+        setHead(position + RECORD_HEADER_SIZE + buffer.getInt(HEADER_SIZE + position));
+        count--;
+    }
+
+    void clear() {
+        setHead(tail);
+        count = 0;
+    }
+
+    /**
+     * Rewrites every package in the backlog, one at a time.
+     */
+    void update(PackageUpdater packageUpdater) {
+        try {
+            rewrite(capacity, packageUpdater);
+        } catch (Exception e) {
+            logger.error("Failed to update %s (%s)", BACKLOG_NAME, e.getMessage());
+        }
+    }
+
+    void close() {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+        try {
+            randomAccessFile.close();
+        } catch (Exception e) {
+            logger.error("Failed to close %s file (%s)", BACKLOG_NAME, e.getMessage());
+        }
+    }
+
+    private boolean append(byte[] payload) {
+        int recordSize = RECORD_HEADER_SIZE + payload.length;
+        if (recordSize > capacity / 2) {
+            logger.error("Package of %d bytes does not fit in %s of %d bytes, dropping it",
+                    payload.length, BACKLOG_NAME, capacity);
+            return false;
+        }
+
+        int position = freePosition(recordSize);
+        int droppedPackages = 0;
+        while (position == -1) {
+            if (!dropOldest) {
+                logger.warn("%s is full with %d packages, dropping the newest one",
+                        BACKLOG_NAME, count);
+                return false;
+            }
+            removeFirst();
+            droppedPackages++;
+            position = freePosition(recordSize);
+        }
+        if (droppedPackages > 0) {
+            logger.warn("%s is full, dropped the oldest %d packages", BACKLOG_NAME, droppedPackages);
+        }
+
+        if (position != tail && capacity - tail >= RECORD_HEADER_SIZE) {
+            buffer.putInt(HEADER_SIZE + tail, WRAP_MARKER);
+        }
+        buffer.putInt(HEADER_SIZE + position, payload.length);
+        buffer.putInt(HEADER_SIZE + position + 4, (int) checksum(payload));
+        ByteBuffer recordBuffer = buffer.duplicate();
+        recordBuffer.position(HEADER_SIZE + position + RECORD_HEADER_SIZE);
+        recordBuffer.put(payload);
+
+        // the record only becomes part of the backlog here
+        setTail(position + recordSize);
+        count++;
+        return true;
+    }
+
+    // where a record of the given size can be written, -1 if it would reach the head
+    private int freePosition(int recordSize) {
+        if (tail >= head) {
+            if (capacity - tail >= recordSize) {
+                return tail;
+            }
+            return head > recordSize ? 0 : -1;
+        }
+        return head - tail > recordSize ? tail : -1;
+    }
+
+    // the position of the record starting at or wrapping from the given position
+    private int recordPosition(int position) {
+        if (position == tail) {
+            return position;
+        }
+        if (capacity - position < RECORD_HEADER_SIZE
+                || buffer.getInt(HEADER_SIZE + position) == WRAP_MARKER)
+        {
+            return 0;
+        }
+        return position;
+    }
+
+    private byte[] readPayload(int position) {
+        byte[] payload = new byte[buffer.getInt(HEADER_SIZE + position)];
+        ByteBuffer recordBuffer = buffer.duplicate();
+        recordBuffer.position(HEADER_SIZE + position + RECORD_HEADER_SIZE);
+        recordBuffer.get(payload);
+        return payload;
+    }
+
+    private void setHead(int head) {
+        this.head = head;
+        buffer.putInt(HEAD_OFFSET, head);
+    }
+
+    private void setTail(int tail) {
+        this.tail = tail;
+        buffer.putInt(TAIL_OFFSET, tail);
+    }
+
+    private void map(int defaultCapacity) throws IOException {
+        randomAccessFile = new RandomAccessFile(context.getFileStreamPath(fileName), "rw");
+
+        boolean hasHeader = false;
+        capacity = defaultCapacity;
+        if (randomAccessFile.length() >= HEADER_SIZE) {
+            hasHeader = randomAccessFile.readInt() == MAGIC;
+            randomAccessFile.seek(CAPACITY_OFFSET);
+            int savedCapacity = randomAccessFile.readInt();
+            if (hasHeader && savedCapacity > 0
+                    && randomAccessFile.length() >= HEADER_SIZE + (long) savedCapacity)
+            {
+                capacity = savedCapacity;
+            } else {
+                hasHeader = false;
+            }
+        }
+
+        buffer = randomAccessFile.getChannel().map(
+                FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity);
+
+        if (!hasHeader) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            setHead(0);
+            setTail(0);
+            count = 0;
+            return;
+        }
+
+        head = buffer.getInt(HEAD_OFFSET);
+        tail = buffer.getInt(TAIL_OFFSET);
+        if (head < 0 || head > capacity || tail < 0 || tail > capacity) {
+            logger.error("%s has an invalid header, discarding its packages", BACKLOG_NAME);
+            setHead(0);
+            setTail(0);
+            count = 0;
+            return;
+        }
+
+        count = countRecords();
+        logger.debug("Package handler read %d packages from %s", count, BACKLOG_NAME);
+    }
+
+    // counts the records between head and tail, and cuts the backlog at the first bad one
+    private int countRecords() {
+        int records = 0;
+        int position = head;
+        boolean hasWrapped = false;
+        while (position != tail) {
+            int recordPosition = recordPosition(position);
+            if (recordPosition != position) {
+                // records only wrap once, back to a tail behind the head
+                if (hasWrapped || tail > head) {
+                    break;
+                }
+                hasWrapped = true;
+                position = recordPosition;
+                continue;
+            }
+
+            int end = position < tail ? tail : capacity;
+            int length = buffer.getInt(HEADER_SIZE + position);
+            if (length < 0 || end - position - RECORD_HEADER_SIZE < length) {
+                break;
+            }
+            long checksum = buffer.getInt(HEADER_SIZE + position + 4) & 0xFFFFFFFFL;
+            if (checksum(readPayload(position)) != checksum) {
+                break;
+            }
+            records++;
+            position += RECORD_HEADER_SIZE + length;
+        }
+
+        if (position != tail) {
+            logger.warn("%s had a corrupted record, keeping its first %d packages",
+                    BACKLOG_NAME, records);
+            setTail(position);
+        }
+        return records;
+    }
+
+    // copies the backlog into a file with the given capacity and then replaces it
+    private void rewrite(int newCapacity, PackageUpdater packageUpdater) throws IOException {
+        context.deleteFile(REWRITE_FILENAME);
+        PackageBacklog rewritten =
+                new PackageBacklog(context, REWRITE_FILENAME, newCapacity, dropOldest);
+
+        try {
+            int position = head;
+            for (int i = 0; i < count; i++) {
+                position = recordPosition(position);
+                byte[] payload = readPayload(position);
+                position += RECORD_HEADER_SIZE + payload.length;
+
+                if (packageUpdater == null) {
+                    rewritten.append(payload);
+                    continue;
+                }
+                ActivityPackage activityPackage;
+                try {
+                    activityPackage = PersistenceCodec.decodeActivityPackage(payload);
+                } catch (Exception e) {
+                    logger.error("Failed to deserialize package from %s (%s)",
+                            BACKLOG_NAME, e.getMessage());
+                    continue;
+                }
+                packageUpdater.update(activityPackage);
+                rewritten.add(activityPackage);
+            }
+        } finally {
+            rewritten.close();
+        }
+
+        close();
+        // rename is atomic, so a crash leaves either the old or the new backlog in place
+        File rewrittenFile = context.getFileStreamPath(REWRITE_FILENAME);
+        if (!rewrittenFile.renameTo(context.getFileStreamPath(fileName))) {
+            context.deleteFile(REWRITE_FILENAME);
+            map(capacity);
+            throw new IOException("Failed to replace " + BACKLOG_NAME + " with its rewritten version");
+        }
+        map(newCapacity);
+    }
+
+    private static long checksum(byte[] payload) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(payload, 0, payload.length);
+        return crc32.getValue();
+    }
+}
@@ -10,12 +10,10 @@ package com.adjust.sdk;
 
 import java.util.Map;
 import java.util.Date;
-import java.util.HashMap;
 
 import org.json.JSONObject;
 
 import android.text.TextUtils;
-import android.content.ContentResolver;
 
 public class PackageBuilder {
     private static ILogger logger = AdjustFactory.getLogger();
@@ -258,9 +256,10 @@ public class PackageBuilder {
     }
 
     private Map<String, String> getSessionParameters(boolean isInDelay) {
-        ContentResolver contentResolver = adjustConfig.context.getContentResolver();
-        Map<String, String> parameters = new HashMap<String, String>();
-        Map<String, String> imeiParameters = Reflection.getImeiParameters(adjustConfig.context, logger);
+        // waits for the first read of the identifiers, only shortly after the start
+        IdentifierSnapshot identifiers = deviceInfo.awaitFirstIdentifiers(adjustConfig.context);
+        Map<String, String> parameters = new OverlayMap(deviceInfo.getDeviceParameters(adjustConfig).sessionTemplate);
+        Map<String, String> imeiParameters = identifiers.imeiParameters;
 
         // Check if plugin is used and if yes, add read parameters.
         if (imeiParameters != null) {
@@ -268,7 +267,7 @@ public class PackageBuilder {
         }
 
         // Check if oaid plugin is used and if yes, add the parameter
-        Map<String, String> oaidParameters = Reflection.getOaidParameters(adjustConfig.context, logger);
+        Map<String, String> oaidParameters = identifiers.oaidParameters;
         if (oaidParameters != null) {
             parameters.putAll(oaidParameters);
         }
@@ -280,16 +279,18 @@ public class PackageBuilder {
         }
 
         // Device identifiers.
-        deviceInfo.reloadPlayIds(adjustConfig.context);
+        IdentifierSnapshot.PlayIds playIds = identifiers.playIds;
         PackageBuilder.addString(parameters, "android_uuid", activityStateCopy.uuid);
-        PackageBuilder.addString(parameters, "gps_adid", deviceInfo.playAdId);
-        PackageBuilder.addLong(parameters, "gps_adid_attempt", deviceInfo.playAdIdAttempt);
-        PackageBuilder.addString(parameters, "gps_adid_src", deviceInfo.playAdIdSource);
-        PackageBuilder.addBoolean(parameters, "tracking_enabled", deviceInfo.isTrackingEnabled);
-        PackageBuilder.addString(parameters, "fire_adid", Util.getFireAdvertisingId(contentResolver));
-        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", Util.getFireTrackingEnabled(contentResolver));
-
-        if (!containsPlayIds(parameters) && !containsFireIds(parameters)) {
+        PackageBuilder.addString(parameters, "gps_adid", playIds.playAdId);
+        PackageBuilder.addLong(parameters, "gps_adid_attempt", playIds.playAdIdAttempt);
+        PackageBuilder.addString(parameters, "gps_adid_src", playIds.playAdIdSource);
+        PackageBuilder.addBoolean(parameters, "tracking_enabled", playIds.isTrackingEnabled);
+        PackageBuilder.addString(parameters, "fire_adid", identifiers.fireIds.fireAdId);
+        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", identifiers.fireIds.isFireTrackingEnabled);
+
+        if (!containsPlayIds(parameters) && !containsFireIds(parameters)
+                && deviceInfo.isAdvertisingIdsRead())
+        {
             logger.warn("Google Advertising ID or Fire Advertising ID not detected, " +
                     "fallback to non Google Play and Fire identifiers will take place");
             deviceInfo.reloadNonPlayIds(adjustConfig.context);
@@ -299,58 +300,24 @@ public class PackageBuilder {
         }
 
         // Rest of the parameters.
-        PackageBuilder.addString(parameters, "api_level", deviceInfo.apiLevel);
-        PackageBuilder.addString(parameters, "app_secret", adjustConfig.appSecret);
-        PackageBuilder.addString(parameters, "app_token", adjustConfig.appToken);
-        PackageBuilder.addString(parameters, "app_version", deviceInfo.appVersion);
-        PackageBuilder.addBoolean(parameters, "attribution_deeplink", true);
         PackageBuilder.addLong(parameters, "connectivity_type", Util.getConnectivityType(adjustConfig.context));
-        PackageBuilder.addString(parameters, "country", deviceInfo.country);
-        PackageBuilder.addString(parameters, "cpu_type", deviceInfo.abi);
+        PackageBuilder.addLong(parameters, "network_type", Util.getNetworkType(adjustConfig.context));
         PackageBuilder.addDateInMilliseconds(parameters, "created_at", createdAt);
-        PackageBuilder.addString(parameters, "default_tracker", adjustConfig.defaultTracker);
-        PackageBuilder.addBoolean(parameters, "device_known", adjustConfig.deviceKnown);
-        PackageBuilder.addBoolean(parameters, "needs_cost", adjustConfig.needsCost);
-        PackageBuilder.addString(parameters, "device_manufacturer", deviceInfo.deviceManufacturer);
-        PackageBuilder.addString(parameters, "device_name", deviceInfo.deviceName);
-        PackageBuilder.addString(parameters, "device_type", deviceInfo.deviceType);
-        PackageBuilder.addString(parameters, "display_height", deviceInfo.displayHeight);
-        PackageBuilder.addString(parameters, "display_width", deviceInfo.displayWidth);
-        PackageBuilder.addString(parameters, "environment", adjustConfig.environment);
-        PackageBuilder.addBoolean(parameters, "event_buffering_enabled", adjustConfig.eventBufferingEnabled);
-        PackageBuilder.addString(parameters, "external_device_id", adjustConfig.externalDeviceId);
-        PackageBuilder.addString(parameters, "fb_id", deviceInfo.fbAttributionId);
-        PackageBuilder.addString(parameters, "hardware_name", deviceInfo.hardwareName);
-        PackageBuilder.addString(parameters, "installed_at", deviceInfo.appInstallTime);
-        PackageBuilder.addString(parameters, "language", deviceInfo.language);
         PackageBuilder.addDuration(parameters, "last_interval", activityStateCopy.lastInterval);
-        PackageBuilder.addString(parameters, "mcc", Util.getMcc(adjustConfig.context));
-        PackageBuilder.addString(parameters, "mnc", Util.getMnc(adjustConfig.context));
-        PackageBuilder.addBoolean(parameters, "needs_response_details", true);
-        PackageBuilder.addLong(parameters, "network_type", Util.getNetworkType(adjustConfig.context));
-        PackageBuilder.addString(parameters, "os_build", deviceInfo.buildName);
-        PackageBuilder.addString(parameters, "os_name", deviceInfo.osName);
-        PackageBuilder.addString(parameters, "os_version", deviceInfo.osVersion);
-        PackageBuilder.addString(parameters, "package_name", deviceInfo.packageName);
         PackageBuilder.addString(parameters, "push_token", activityStateCopy.pushToken);
-        PackageBuilder.addString(parameters, "screen_density", deviceInfo.screenDensity);
-        PackageBuilder.addString(parameters, "screen_format", deviceInfo.screenFormat);
-        PackageBuilder.addString(parameters, "screen_size", deviceInfo.screenSize);
-        PackageBuilder.addString(parameters, "secret_id", adjustConfig.secretId);
         PackageBuilder.addLong(parameters, "session_count", activityStateCopy.sessionCount);
         PackageBuilder.addDuration(parameters, "session_length", activityStateCopy.sessionLength);
         PackageBuilder.addLong(parameters, "subsession_count", activityStateCopy.subsessionCount);
         PackageBuilder.addDuration(parameters, "time_spent", activityStateCopy.timeSpent);
-        PackageBuilder.addString(parameters, "updated_at", deviceInfo.appUpdateTime);
 
         checkDeviceIds(parameters);
         return parameters;
     }
 
     public Map<String, String> getEventParameters(AdjustEvent event, boolean isInDelay) {
-        ContentResolver contentResolver = adjustConfig.context.getContentResolver();
-        Map<String, String> parameters = new HashMap<String, String>();
-        Map<String, String> imeiParameters = Reflection.getImeiParameters(adjustConfig.context, logger);
+        IdentifierSnapshot identifiers = deviceInfo.getIdentifierSnapshot(adjustConfig.context);
+        Map<String, String> parameters = new OverlayMap(deviceInfo.getDeviceParameters(adjustConfig).eventTemplate);
+        Map<String, String> imeiParameters = identifiers.imeiParameters;
 
         // Check if plugin is used and if yes, add read parameters.
         if (imeiParameters != null) {
@@ -358,7 +325,7 @@ public class PackageBuilder {
         }
 
         // Check if oaid plugin is used and if yes, add the parameter
-        Map<String, String> oaidParameters = Reflection.getOaidParameters(adjustConfig.context, logger);
+        Map<String, String> oaidParameters = identifiers.oaidParameters;
         if (oaidParameters != null) {
             parameters.putAll(oaidParameters);
         }
@@ -370,16 +337,18 @@ public class PackageBuilder {
         }
 
         // Device identifiers.
-        deviceInfo.reloadPlayIds(adjustConfig.context);
+        IdentifierSnapshot.PlayIds playIds = identifiers.playIds;
         PackageBuilder.addString(parameters, "android_uuid", activityStateCopy.uuid);
-        PackageBuilder.addString(parameters, "gps_adid", deviceInfo.playAdId);
-        PackageBuilder.addLong(parameters, "gps_adid_attempt", deviceInfo.playAdIdAttempt);
-        PackageBuilder.addString(parameters, "gps_adid_src", deviceInfo.playAdIdSource);
-        PackageBuilder.addBoolean(parameters, "tracking_enabled", deviceInfo.isTrackingEnabled);
-        PackageBuilder.addString(parameters, "fire_adid", Util.getFireAdvertisingId(contentResolver));
-        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", Util.getFireTrackingEnabled(contentResolver));
-
-        if (!containsPlayIds(parameters) && !containsFireIds(parameters)) {
+        PackageBuilder.addString(parameters, "gps_adid", playIds.playAdId);
+        PackageBuilder.addLong(parameters, "gps_adid_attempt", playIds.playAdIdAttempt);
+        PackageBuilder.addString(parameters, "gps_adid_src", playIds.playAdIdSource);
+        PackageBuilder.addBoolean(parameters, "tracking_enabled", playIds.isTrackingEnabled);
+        PackageBuilder.addString(parameters, "fire_adid", identifiers.fireIds.fireAdId);
+        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", identifiers.fireIds.isFireTrackingEnabled);
+
+        if (!containsPlayIds(parameters) && !containsFireIds(parameters)
+                && deviceInfo.isAdvertisingIdsRead())
+        {
             logger.warn("Google Advertising ID or Fire Advertising ID not detected, " +
                     "fallback to non Google Play and Fire identifiers will take place");
             deviceInfo.reloadNonPlayIds(adjustConfig.context);
@@ -389,46 +358,15 @@ public class PackageBuilder {
         }
 
         // Rest of the parameters.
-        PackageBuilder.addString(parameters, "api_level", deviceInfo.apiLevel);
-        PackageBuilder.addString(parameters, "app_secret", adjustConfig.appSecret);
-        PackageBuilder.addString(parameters, "app_token", adjustConfig.appToken);
-        PackageBuilder.addString(parameters, "app_version", deviceInfo.appVersion);
-        PackageBuilder.addBoolean(parameters, "attribution_deeplink", true);
         PackageBuilder.addLong(parameters, "connectivity_type", Util.getConnectivityType(adjustConfig.context));
-        PackageBuilder.addString(parameters, "country", deviceInfo.country);
-        PackageBuilder.addString(parameters, "cpu_type", deviceInfo.abi);
+        PackageBuilder.addLong(parameters, "network_type", Util.getNetworkType(adjustConfig.context));
         PackageBuilder.addDateInMilliseconds(parameters, "created_at", createdAt);
         PackageBuilder.addString(parameters, "currency", event.currency);
-        PackageBuilder.addBoolean(parameters, "device_known", adjustConfig.deviceKnown);
-        PackageBuilder.addBoolean(parameters, "needs_cost", adjustConfig.needsCost);
-        PackageBuilder.addString(parameters, "device_manufacturer", deviceInfo.deviceManufacturer);
-        PackageBuilder.addString(parameters, "device_name", deviceInfo.deviceName);
-        PackageBuilder.addString(parameters, "device_type", deviceInfo.deviceType);
-        PackageBuilder.addString(parameters, "display_height", deviceInfo.displayHeight);
-        PackageBuilder.addString(parameters, "display_width", deviceInfo.displayWidth);
-        PackageBuilder.addString(parameters, "environment", adjustConfig.environment);
         PackageBuilder.addString(parameters, "event_callback_id", event.callbackId);
         PackageBuilder.addLong(parameters, "event_count", activityStateCopy.eventCount);
-        PackageBuilder.addBoolean(parameters, "event_buffering_enabled", adjustConfig.eventBufferingEnabled);
         PackageBuilder.addString(parameters, "event_token", event.eventToken);
-        PackageBuilder.addString(parameters, "external_device_id", adjustConfig.externalDeviceId);
-        PackageBuilder.addString(parameters, "fb_id", deviceInfo.fbAttributionId);
-        PackageBuilder.addString(parameters, "hardware_name", deviceInfo.hardwareName);
-        PackageBuilder.addString(parameters, "language", deviceInfo.language);
-        PackageBuilder.addString(parameters, "mcc", Util.getMcc(adjustConfig.context));
-        PackageBuilder.addString(parameters, "mnc", Util.getMnc(adjustConfig.context));
-        PackageBuilder.addBoolean(parameters, "needs_response_details", true);
-        PackageBuilder.addLong(parameters, "network_type", Util.getNetworkType(adjustConfig.context));
-        PackageBuilder.addString(parameters, "os_build", deviceInfo.buildName);
-        PackageBuilder.addString(parameters, "os_name", deviceInfo.osName);
-        PackageBuilder.addString(parameters, "os_version", deviceInfo.osVersion);
-        PackageBuilder.addString(parameters, "package_name", deviceInfo.packageName);
         PackageBuilder.addString(parameters, "push_token", activityStateCopy.pushToken);
         PackageBuilder.addDouble(parameters, "revenue", event.revenue);
-        PackageBuilder.addString(parameters, "screen_density", deviceInfo.screenDensity);
-        PackageBuilder.addString(parameters, "screen_format", deviceInfo.screenFormat);
-        PackageBuilder.addString(parameters, "screen_size", deviceInfo.screenSize);
-        PackageBuilder.addString(parameters, "secret_id", adjustConfig.secretId);
         PackageBuilder.addLong(parameters, "session_count", activityStateCopy.sessionCount);
         PackageBuilder.addDuration(parameters, "session_length", activityStateCopy.sessionLength);
         PackageBuilder.addLong(parameters, "subsession_count", activityStateCopy.subsessionCount);
@@ -439,9 +377,9 @@ public class PackageBuilder {
     }
 
     private Map<String, String> getInfoParameters(String source) {
-        ContentResolver contentResolver = adjustConfig.context.getContentResolver();
-        Map<String, String> parameters = new HashMap<String, String>();
-        Map<String, String> imeiParameters = Reflection.getImeiParameters(adjustConfig.context, logger);
+        IdentifierSnapshot identifiers = deviceInfo.getIdentifierSnapshot(adjustConfig.context);
+        Map<String, String> parameters = new OverlayMap(deviceInfo.getDeviceParameters(adjustConfig).infoTemplate);
+        Map<String, String> imeiParameters = identifiers.imeiParameters;
 
         // Check if plugin is used and if yes, add read parameters.
         if (imeiParameters != null) {
@@ -449,22 +387,24 @@ public class PackageBuilder {
         }
 
         // Check if oaid plugin is used and if yes, add the parameter
-        Map<String, String> oaidParameters = Reflection.getOaidParameters(adjustConfig.context, logger);
+        Map<String, String> oaidParameters = identifiers.oaidParameters;
         if (oaidParameters != null) {
             parameters.putAll(oaidParameters);
         }
 
         // Device identifiers.
-        deviceInfo.reloadPlayIds(adjustConfig.context);
+        IdentifierSnapshot.PlayIds playIds = identifiers.playIds;
         PackageBuilder.addString(parameters, "android_uuid", activityStateCopy.uuid);
-        PackageBuilder.addString(parameters, "gps_adid", deviceInfo.playAdId);
-        PackageBuilder.addLong(parameters, "gps_adid_attempt", deviceInfo.playAdIdAttempt);
-        PackageBuilder.addString(parameters, "gps_adid_src", deviceInfo.playAdIdSource);
-        PackageBuilder.addBoolean(parameters, "tracking_enabled", deviceInfo.isTrackingEnabled);
-        PackageBuilder.addString(parameters, "fire_adid", Util.getFireAdvertisingId(contentResolver));
-        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", Util.getFireTrackingEnabled(contentResolver));
-
-        if (!containsPlayIds(parameters) && !containsFireIds(parameters)) {
+        PackageBuilder.addString(parameters, "gps_adid", playIds.playAdId);
+        PackageBuilder.addLong(parameters, "gps_adid_attempt", playIds.playAdIdAttempt);
+        PackageBuilder.addString(parameters, "gps_adid_src", playIds.playAdIdSource);
+        PackageBuilder.addBoolean(parameters, "tracking_enabled", playIds.isTrackingEnabled);
+        PackageBuilder.addString(parameters, "fire_adid", identifiers.fireIds.fireAdId);
+        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", identifiers.fireIds.isFireTrackingEnabled);
+
+        if (!containsPlayIds(parameters) && !containsFireIds(parameters)
+                && deviceInfo.isAdvertisingIdsRead())
+        {
             logger.warn("Google Advertising ID or Fire Advertising ID not detected, " +
                     "fallback to non Google Play and Fire identifiers will take place");
             deviceInfo.reloadNonPlayIds(adjustConfig.context);
@@ -474,18 +414,8 @@ public class PackageBuilder {
         }
 
         // Rest of the parameters.
-        PackageBuilder.addString(parameters, "app_secret", adjustConfig.appSecret);
-        PackageBuilder.addString(parameters, "app_token", adjustConfig.appToken);
-        PackageBuilder.addBoolean(parameters, "attribution_deeplink", true);
         PackageBuilder.addDateInMilliseconds(parameters, "created_at", createdAt);
-        PackageBuilder.addBoolean(parameters, "device_known", adjustConfig.deviceKnown);
-        PackageBuilder.addBoolean(parameters, "needs_cost", adjustConfig.needsCost);
-        PackageBuilder.addString(parameters, "environment", adjustConfig.environment);
-        PackageBuilder.addBoolean(parameters, "event_buffering_enabled", adjustConfig.eventBufferingEnabled);
-        PackageBuilder.addString(parameters, "external_device_id", adjustConfig.externalDeviceId);
-        PackageBuilder.addBoolean(parameters, "needs_response_details", true);
         PackageBuilder.addString(parameters, "push_token", activityStateCopy.pushToken);
-        PackageBuilder.addString(parameters, "secret_id", adjustConfig.secretId);
         PackageBuilder.addString(parameters, "source", source);
 
         checkDeviceIds(parameters);
@@ -493,9 +423,10 @@ public class PackageBuilder {
     }
 
     private Map<String, String> getClickParameters(String source) {
-        ContentResolver contentResolver = adjustConfig.context.getContentResolver();
-        Map<String, String> parameters = new HashMap<String, String>();
-        Map<String, String> imeiParameters = Reflection.getImeiParameters(adjustConfig.context, logger);
+        // waits for the first read of the identifiers, only shortly after the start
+        IdentifierSnapshot identifiers = deviceInfo.awaitFirstIdentifiers(adjustConfig.context);
+        Map<String, String> parameters = new OverlayMap(deviceInfo.getDeviceParameters(adjustConfig).clickTemplate);
+        Map<String, String> imeiParameters = identifiers.imeiParameters;
 
         // Check if plugin is used and if yes, add read parameters.
         if (imeiParameters != null) {
@@ -503,22 +434,24 @@ public class PackageBuilder {
         }
 
         // Check if oaid plugin is used and if yes, add the parameter
-        Map<String, String> oaidParameters = Reflection.getOaidParameters(adjustConfig.context, logger);
+        Map<String, String> oaidParameters = identifiers.oaidParameters;
         if (oaidParameters != null) {
             parameters.putAll(oaidParameters);
         }
 
         // Device identifiers.
-        deviceInfo.reloadPlayIds(adjustConfig.context);
+        IdentifierSnapshot.PlayIds playIds = identifiers.playIds;
         PackageBuilder.addString(parameters, "android_uuid", activityStateCopy.uuid);
-        PackageBuilder.addString(parameters, "gps_adid", deviceInfo.playAdId);
-        PackageBuilder.addLong(parameters, "gps_adid_attempt", deviceInfo.playAdIdAttempt);
-        PackageBuilder.addString(parameters, "gps_adid_src", deviceInfo.playAdIdSource);
-        PackageBuilder.addBoolean(parameters, "tracking_enabled", deviceInfo.isTrackingEnabled);
-        PackageBuilder.addString(parameters, "fire_adid", Util.getFireAdvertisingId(contentResolver));
-        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", Util.getFireTrackingEnabled(contentResolver));
-
-        if (!containsPlayIds(parameters) && !containsFireIds(parameters)) {
+        PackageBuilder.addString(parameters, "gps_adid", playIds.playAdId);
+        PackageBuilder.addLong(parameters, "gps_adid_attempt", playIds.playAdIdAttempt);
+        PackageBuilder.addString(parameters, "gps_adid_src", playIds.playAdIdSource);
+        PackageBuilder.addBoolean(parameters, "tracking_enabled", playIds.isTrackingEnabled);
+        PackageBuilder.addString(parameters, "fire_adid", identifiers.fireIds.fireAdId);
+        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", identifiers.fireIds.isFireTrackingEnabled);
+
+        if (!containsPlayIds(parameters) && !containsFireIds(parameters)
+                && deviceInfo.isAdvertisingIdsRead())
+        {
             logger.warn("Google Advertising ID or Fire Advertising ID not detected, " +
                     "fallback to non Google Play and Fire identifiers will take place");
             deviceInfo.reloadNonPlayIds(adjustConfig.context);
@@ -536,47 +469,19 @@ public class PackageBuilder {
         }
 
         // Rest of the parameters.
-        PackageBuilder.addString(parameters, "api_level", deviceInfo.apiLevel);
-        PackageBuilder.addString(parameters, "app_secret", adjustConfig.appSecret);
-        PackageBuilder.addString(parameters, "app_token", adjustConfig.appToken);
-        PackageBuilder.addString(parameters, "app_version", deviceInfo.appVersion);
-        PackageBuilder.addBoolean(parameters, "attribution_deeplink", true);
+        PackageBuilder.addLong(parameters, "connectivity_type", Util.getConnectivityType(adjustConfig.context));
+        PackageBuilder.addLong(parameters, "network_type", Util.getNetworkType(adjustConfig.context));
         PackageBuilder.addMapJson(parameters, "callback_params", this.sessionParameters.callbackParameters);
         PackageBuilder.addDateInMilliseconds(parameters, "click_time", clickTimeInMilliseconds);
         PackageBuilder.addDateInSeconds(parameters, "click_time", clickTimeInSeconds);
         PackageBuilder.addDateInSeconds(parameters, "click_time_server", clickTimeServerInSeconds);
-        PackageBuilder.addLong(parameters, "connectivity_type", Util.getConnectivityType(adjustConfig.context));
-        PackageBuilder.addString(parameters, "country", deviceInfo.country);
-        PackageBuilder.addString(parameters, "cpu_type", deviceInfo.abi);
         PackageBuilder.addDateInMilliseconds(parameters, "created_at", createdAt);
         PackageBuilder.addString(parameters, "deeplink", deeplink);
-        PackageBuilder.addBoolean(parameters, "device_known", adjustConfig.deviceKnown);
-        PackageBuilder.addBoolean(parameters, "needs_cost", adjustConfig.needsCost);
-        PackageBuilder.addString(parameters, "device_manufacturer", deviceInfo.deviceManufacturer);
-        PackageBuilder.addString(parameters, "device_name", deviceInfo.deviceName);
-        PackageBuilder.addString(parameters, "device_type", deviceInfo.deviceType);
-        PackageBuilder.addString(parameters, "display_height", deviceInfo.displayHeight);
-        PackageBuilder.addString(parameters, "display_width", deviceInfo.displayWidth);
-        PackageBuilder.addString(parameters, "environment", adjustConfig.environment);
-        PackageBuilder.addBoolean(parameters, "event_buffering_enabled", adjustConfig.eventBufferingEnabled);
-        PackageBuilder.addString(parameters, "external_device_id", adjustConfig.externalDeviceId);
-        PackageBuilder.addString(parameters, "fb_id", deviceInfo.fbAttributionId);
         PackageBuilder.addBoolean(parameters, "google_play_instant", googlePlayInstant);
-        PackageBuilder.addString(parameters, "hardware_name", deviceInfo.hardwareName);
         PackageBuilder.addDateInSeconds(parameters, "install_begin_time", installBeginTimeInSeconds);
         PackageBuilder.addDateInSeconds(parameters, "install_begin_time_server", installBeginTimeServerInSeconds);
         PackageBuilder.addString(parameters, "install_version", installVersion);
-        PackageBuilder.addString(parameters, "installed_at", deviceInfo.appInstallTime);
-        PackageBuilder.addString(parameters, "language", deviceInfo.language);
         PackageBuilder.addDuration(parameters, "last_interval", activityStateCopy.lastInterval);
-        PackageBuilder.addString(parameters, "mcc", Util.getMcc(adjustConfig.context));
-        PackageBuilder.addString(parameters, "mnc", Util.getMnc(adjustConfig.context));
-        PackageBuilder.addBoolean(parameters, "needs_response_details", true);
-        PackageBuilder.addLong(parameters, "network_type", Util.getNetworkType(adjustConfig.context));
-        PackageBuilder.addString(parameters, "os_build", deviceInfo.buildName);
-        PackageBuilder.addString(parameters, "os_name", deviceInfo.osName);
-        PackageBuilder.addString(parameters, "os_version", deviceInfo.osVersion);
-        PackageBuilder.addString(parameters, "package_name", deviceInfo.packageName);
         PackageBuilder.addMapJson(parameters, "params", extraParameters);
         PackageBuilder.addMapJson(parameters, "partner_params", this.sessionParameters.partnerParameters);
         PackageBuilder.addString(parameters, "push_token", activityStateCopy.pushToken);
@@ -584,16 +489,11 @@ public class PackageBuilder {
         PackageBuilder.addString(parameters, "referrer", referrer);
         PackageBuilder.addString(parameters, "referrer_api", referrerApi);
         PackageBuilder.addString(parameters, "reftag", reftag);
-        PackageBuilder.addString(parameters, "screen_density", deviceInfo.screenDensity);
-        PackageBuilder.addString(parameters, "screen_format", deviceInfo.screenFormat);
-        PackageBuilder.addString(parameters, "screen_size", deviceInfo.screenSize);
-        PackageBuilder.addString(parameters, "secret_id", adjustConfig.secretId);
         PackageBuilder.addLong(parameters, "session_count", activityStateCopy.sessionCount);
         PackageBuilder.addDuration(parameters, "session_length", activityStateCopy.sessionLength);
         PackageBuilder.addString(parameters, "source", source);
         PackageBuilder.addLong(parameters, "subsession_count", activityStateCopy.subsessionCount);
         PackageBuilder.addDuration(parameters, "time_spent", activityStateCopy.timeSpent);
-        PackageBuilder.addString(parameters, "updated_at", deviceInfo.appUpdateTime);
         PackageBuilder.addString(parameters, "payload", preinstallPayload);
         PackageBuilder.addString(parameters, "found_location", preinstallLocation);
 
@@ -602,9 +502,10 @@ public class PackageBuilder {
     }
 
     private Map<String, String> getAttributionParameters(String initiatedBy) {
-        ContentResolver contentResolver = adjustConfig.context.getContentResolver();
-        Map<String, String> parameters = new HashMap<String, String>();
-        Map<String, String> imeiParameters = Reflection.getImeiParameters(adjustConfig.context, logger);
+        // waits for the first read of the identifiers, only shortly after the start
+        IdentifierSnapshot identifiers = deviceInfo.awaitFirstIdentifiers(adjustConfig.context);
+        Map<String, String> parameters = new OverlayMap(deviceInfo.getDeviceParameters(adjustConfig).appTemplate);
+        Map<String, String> imeiParameters = identifiers.imeiParameters;
 
         // Check if plugin is used and if yes, add read parameters.
         if (imeiParameters != null) {
@@ -612,22 +513,24 @@ public class PackageBuilder {
         }
 
         // Check if oaid plugin is used and if yes, add the parameter
-        Map<String, String> oaidParameters = Reflection.getOaidParameters(adjustConfig.context, logger);
+        Map<String, String> oaidParameters = identifiers.oaidParameters;
         if (oaidParameters != null) {
             parameters.putAll(oaidParameters);
         }
 
         // Device identifiers.
-        deviceInfo.reloadPlayIds(adjustConfig.context);
+        IdentifierSnapshot.PlayIds playIds = identifiers.playIds;
         PackageBuilder.addString(parameters, "android_uuid", activityStateCopy.uuid);
-        PackageBuilder.addString(parameters, "gps_adid", deviceInfo.playAdId);
-        PackageBuilder.addLong(parameters, "gps_adid_attempt", deviceInfo.playAdIdAttempt);
-        PackageBuilder.addString(parameters, "gps_adid_src", deviceInfo.playAdIdSource);
-        PackageBuilder.addBoolean(parameters, "tracking_enabled", deviceInfo.isTrackingEnabled);
-        PackageBuilder.addString(parameters, "fire_adid", Util.getFireAdvertisingId(contentResolver));
-        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", Util.getFireTrackingEnabled(contentResolver));
-
-        if (!containsPlayIds(parameters) && !containsFireIds(parameters)) {
+        PackageBuilder.addString(parameters, "gps_adid", playIds.playAdId);
+        PackageBuilder.addLong(parameters, "gps_adid_attempt", playIds.playAdIdAttempt);
+        PackageBuilder.addString(parameters, "gps_adid_src", playIds.playAdIdSource);
+        PackageBuilder.addBoolean(parameters, "tracking_enabled", playIds.isTrackingEnabled);
+        PackageBuilder.addString(parameters, "fire_adid", identifiers.fireIds.fireAdId);
+        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", identifiers.fireIds.isFireTrackingEnabled);
+
+        if (!containsPlayIds(parameters) && !containsFireIds(parameters)
+                && deviceInfo.isAdvertisingIdsRead())
+        {
             logger.warn("Google Advertising ID or Fire Advertising ID not detected, " +
                     "fallback to non Google Play and Fire identifiers will take place");
             deviceInfo.reloadNonPlayIds(adjustConfig.context);
@@ -637,35 +540,18 @@ public class PackageBuilder {
         }
 
         // Rest of the parameters.
-        PackageBuilder.addString(parameters, "api_level", deviceInfo.apiLevel);
-        PackageBuilder.addString(parameters, "app_secret", adjustConfig.appSecret);
-        PackageBuilder.addString(parameters, "app_token", adjustConfig.appToken);
-        PackageBuilder.addString(parameters, "app_version", deviceInfo.appVersion);
-        PackageBuilder.addBoolean(parameters, "attribution_deeplink", true);
         PackageBuilder.addDateInMilliseconds(parameters, "created_at", createdAt);
-        PackageBuilder.addBoolean(parameters, "device_known", adjustConfig.deviceKnown);
-        PackageBuilder.addBoolean(parameters, "needs_cost", adjustConfig.needsCost);
-        PackageBuilder.addString(parameters, "device_name", deviceInfo.deviceName);
-        PackageBuilder.addString(parameters, "device_type", deviceInfo.deviceType);
-        PackageBuilder.addString(parameters, "environment", adjustConfig.environment);
-        PackageBuilder.addBoolean(parameters, "event_buffering_enabled", adjustConfig.eventBufferingEnabled);
-        PackageBuilder.addString(parameters, "external_device_id", adjustConfig.externalDeviceId);
         PackageBuilder.addString(parameters, "initiated_by", initiatedBy);
-        PackageBuilder.addBoolean(parameters, "needs_response_details", true);
-        PackageBuilder.addString(parameters, "os_name", deviceInfo.osName);
-        PackageBuilder.addString(parameters, "os_version", deviceInfo.osVersion);
-        PackageBuilder.addString(parameters, "package_name", deviceInfo.packageName);
         PackageBuilder.addString(parameters, "push_token", activityStateCopy.pushToken);
-        PackageBuilder.addString(parameters, "secret_id", adjustConfig.secretId);
 
         checkDeviceIds(parameters);
         return parameters;
     }
 
     private Map<String, String> getGdprParameters() {
-        ContentResolver contentResolver = adjustConfig.context.getContentResolver();
-        Map<String, String> parameters = new HashMap<String, String>();
-        Map<String, String> imeiParameters = Reflection.getImeiParameters(adjustConfig.context, logger);
+        IdentifierSnapshot identifiers = deviceInfo.getIdentifierSnapshot(adjustConfig.context);
+        Map<String, String> parameters = new OverlayMap(deviceInfo.getDeviceParameters(adjustConfig).appTemplate);
+        Map<String, String> imeiParameters = identifiers.imeiParameters;
 
         // Check if plugin is used and if yes, add read parameters.
         if (imeiParameters != null) {
@@ -673,22 +559,24 @@ public class PackageBuilder {
         }
 
         // Check if oaid plugin is used and if yes, add the parameter
-        Map<String, String> oaidParameters = Reflection.getOaidParameters(adjustConfig.context, logger);
+        Map<String, String> oaidParameters = identifiers.oaidParameters;
         if (oaidParameters != null) {
             parameters.putAll(oaidParameters);
         }
 
         // Device identifiers.
-        deviceInfo.reloadPlayIds(adjustConfig.context);
+        IdentifierSnapshot.PlayIds playIds = identifiers.playIds;
         PackageBuilder.addString(parameters, "android_uuid", activityStateCopy.uuid);
-        PackageBuilder.addString(parameters, "gps_adid", deviceInfo.playAdId);
-        PackageBuilder.addLong(parameters, "gps_adid_attempt", deviceInfo.playAdIdAttempt);
-        PackageBuilder.addString(parameters, "gps_adid_src", deviceInfo.playAdIdSource);
-        PackageBuilder.addBoolean(parameters, "tracking_enabled", deviceInfo.isTrackingEnabled);
-        PackageBuilder.addString(parameters, "fire_adid", Util.getFireAdvertisingId(contentResolver));
-        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", Util.getFireTrackingEnabled(contentResolver));
-
-        if (!containsPlayIds(parameters) && !containsFireIds(parameters)) {
+        PackageBuilder.addString(parameters, "gps_adid", playIds.playAdId);
+        PackageBuilder.addLong(parameters, "gps_adid_attempt", playIds.playAdIdAttempt);
+        PackageBuilder.addString(parameters, "gps_adid_src", playIds.playAdIdSource);
+        PackageBuilder.addBoolean(parameters, "tracking_enabled", playIds.isTrackingEnabled);
+        PackageBuilder.addString(parameters, "fire_adid", identifiers.fireIds.fireAdId);
+        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", identifiers.fireIds.isFireTrackingEnabled);
+
+        if (!containsPlayIds(parameters) && !containsFireIds(parameters)
+                && deviceInfo.isAdvertisingIdsRead())
+        {
             logger.warn("Google Advertising ID or Fire Advertising ID not detected, " +
                     "fallback to non Google Play and Fire identifiers will take place");
             deviceInfo.reloadNonPlayIds(adjustConfig.context);
@@ -698,34 +586,17 @@ public class PackageBuilder {
         }
 
         // Rest of the parameters.
-        PackageBuilder.addString(parameters, "api_level", deviceInfo.apiLevel);
-        PackageBuilder.addString(parameters, "app_secret", adjustConfig.appSecret);
-        PackageBuilder.addString(parameters, "app_token", adjustConfig.appToken);
-        PackageBuilder.addString(parameters, "app_version", deviceInfo.appVersion);
-        PackageBuilder.addBoolean(parameters, "attribution_deeplink", true);
         PackageBuilder.addDateInMilliseconds(parameters, "created_at", createdAt);
-        PackageBuilder.addBoolean(parameters, "device_known", adjustConfig.deviceKnown);
-        PackageBuilder.addBoolean(parameters, "needs_cost", adjustConfig.needsCost);
-        PackageBuilder.addString(parameters, "device_name", deviceInfo.deviceName);
-        PackageBuilder.addString(parameters, "device_type", deviceInfo.deviceType);
-        PackageBuilder.addString(parameters, "environment", adjustConfig.environment);
-        PackageBuilder.addBoolean(parameters, "event_buffering_enabled", adjustConfig.eventBufferingEnabled);
-        PackageBuilder.addString(parameters, "external_device_id", adjustConfig.externalDeviceId);
-        PackageBuilder.addBoolean(parameters, "needs_response_details", true);
-        PackageBuilder.addString(parameters, "os_name", deviceInfo.osName);
-        PackageBuilder.addString(parameters, "os_version", deviceInfo.osVersion);
-        PackageBuilder.addString(parameters, "package_name", deviceInfo.packageName);
         PackageBuilder.addString(parameters, "push_token", activityStateCopy.pushToken);
-        PackageBuilder.addString(parameters, "secret_id", adjustConfig.secretId);
 
         checkDeviceIds(parameters);
         return parameters;
     }
 
     private Map<String, String> getDisableThirdPartySharingParameters() {
-        ContentResolver contentResolver = adjustConfig.context.getContentResolver();
-        Map<String, String> parameters = new HashMap<String, String>();
-        Map<String, String> imeiParameters = Reflection.getImeiParameters(adjustConfig.context, logger);
+        IdentifierSnapshot identifiers = deviceInfo.getIdentifierSnapshot(adjustConfig.context);
+        Map<String, String> parameters = new OverlayMap(deviceInfo.getDeviceParameters(adjustConfig).appTemplate);
+        Map<String, String> imeiParameters = identifiers.imeiParameters;
 
         // Check if plugin is used and if yes, add read parameters.
         if (imeiParameters != null) {
@@ -733,22 +604,24 @@ public class PackageBuilder {
         }
 
         // Check if oaid plugin is used and if yes, add the parameter
-        Map<String, String> oaidParameters = Reflection.getOaidParameters(adjustConfig.context, logger);
+        Map<String, String> oaidParameters = identifiers.oaidParameters;
         if (oaidParameters != null) {
             parameters.putAll(oaidParameters);
         }
 
         // Device identifiers.
-        deviceInfo.reloadPlayIds(adjustConfig.context);
+        IdentifierSnapshot.PlayIds playIds = identifiers.playIds;
         PackageBuilder.addString(parameters, "android_uuid", activityStateCopy.uuid);
-        PackageBuilder.addString(parameters, "gps_adid", deviceInfo.playAdId);
-        PackageBuilder.addLong(parameters, "gps_adid_attempt", deviceInfo.playAdIdAttempt);
-        PackageBuilder.addString(parameters, "gps_adid_src", deviceInfo.playAdIdSource);
-        PackageBuilder.addBoolean(parameters, "tracking_enabled", deviceInfo.isTrackingEnabled);
-        PackageBuilder.addString(parameters, "fire_adid", Util.getFireAdvertisingId(contentResolver));
-        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", Util.getFireTrackingEnabled(contentResolver));
-
-        if (!containsPlayIds(parameters) && !containsFireIds(parameters)) {
+        PackageBuilder.addString(parameters, "gps_adid", playIds.playAdId);
+        PackageBuilder.addLong(parameters, "gps_adid_attempt", playIds.playAdIdAttempt);
+        PackageBuilder.addString(parameters, "gps_adid_src", playIds.playAdIdSource);
+        PackageBuilder.addBoolean(parameters, "tracking_enabled", playIds.isTrackingEnabled);
+        PackageBuilder.addString(parameters, "fire_adid", identifiers.fireIds.fireAdId);
+        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", identifiers.fireIds.isFireTrackingEnabled);
+
+        if (!containsPlayIds(parameters) && !containsFireIds(parameters)
+                && deviceInfo.isAdvertisingIdsRead())
+        {
             logger.warn("Google Advertising ID or Fire Advertising ID not detected, " +
                     "fallback to non Google Play and Fire identifiers will take place");
             deviceInfo.reloadNonPlayIds(adjustConfig.context);
@@ -758,25 +631,8 @@ public class PackageBuilder {
         }
 
         // Rest of the parameters.
-        PackageBuilder.addString(parameters, "api_level", deviceInfo.apiLevel);
-        PackageBuilder.addString(parameters, "app_secret", adjustConfig.appSecret);
-        PackageBuilder.addString(parameters, "app_token", adjustConfig.appToken);
-        PackageBuilder.addString(parameters, "app_version", deviceInfo.appVersion);
-        PackageBuilder.addBoolean(parameters, "attribution_deeplink", true);
         PackageBuilder.addDateInMilliseconds(parameters, "created_at", createdAt);
-        PackageBuilder.addBoolean(parameters, "device_known", adjustConfig.deviceKnown);
-        PackageBuilder.addBoolean(parameters, "needs_cost", adjustConfig.needsCost);
-        PackageBuilder.addString(parameters, "device_name", deviceInfo.deviceName);
-        PackageBuilder.addString(parameters, "device_type", deviceInfo.deviceType);
-        PackageBuilder.addString(parameters, "environment", adjustConfig.environment);
-        PackageBuilder.addBoolean(parameters, "event_buffering_enabled", adjustConfig.eventBufferingEnabled);
-        PackageBuilder.addString(parameters, "external_device_id", adjustConfig.externalDeviceId);
-        PackageBuilder.addBoolean(parameters, "needs_response_details", true);
-        PackageBuilder.addString(parameters, "os_name", deviceInfo.osName);
-        PackageBuilder.addString(parameters, "os_version", deviceInfo.osVersion);
-        PackageBuilder.addString(parameters, "package_name", deviceInfo.packageName);
         PackageBuilder.addString(parameters, "push_token", activityStateCopy.pushToken);
-        PackageBuilder.addString(parameters, "secret_id", adjustConfig.secretId);
 
         checkDeviceIds(parameters);
         return parameters;
@@ -785,9 +641,9 @@ public class PackageBuilder {
     private Map<String, String> getThirdPartySharingParameters
             (final AdjustThirdPartySharing adjustThirdPartySharing)
     {
-        ContentResolver contentResolver = adjustConfig.context.getContentResolver();
-        Map<String, String> parameters = new HashMap<String, String>();
-        Map<String, String> imeiParameters = Reflection.getImeiParameters(adjustConfig.context, logger);
+        IdentifierSnapshot identifiers = deviceInfo.getIdentifierSnapshot(adjustConfig.context);
+        Map<String, String> parameters = new OverlayMap(deviceInfo.getDeviceParameters(adjustConfig).thirdPartySharingTemplate);
+        Map<String, String> imeiParameters = identifiers.imeiParameters;
 
         // Check if plugin is used and if yes, add read parameters.
         if (imeiParameters != null) {
@@ -795,7 +651,7 @@ public class PackageBuilder {
         }
 
         // Check if oaid plugin is used and if yes, add the parameter
-        Map<String, String> oaidParameters = Reflection.getOaidParameters(adjustConfig.context, logger);
+        Map<String, String> oaidParameters = identifiers.oaidParameters;
         if (oaidParameters != null) {
             parameters.putAll(oaidParameters);
         }
@@ -810,16 +666,18 @@ public class PackageBuilder {
                 adjustThirdPartySharing.granularOptions);
 
         // Device identifiers.
-        deviceInfo.reloadPlayIds(adjustConfig.context);
+        IdentifierSnapshot.PlayIds playIds = identifiers.playIds;
         PackageBuilder.addString(parameters, "android_uuid", activityStateCopy.uuid);
-        PackageBuilder.addString(parameters, "gps_adid", deviceInfo.playAdId);
-        PackageBuilder.addLong(parameters, "gps_adid_attempt", deviceInfo.playAdIdAttempt);
-        PackageBuilder.addString(parameters, "gps_adid_src", deviceInfo.playAdIdSource);
-        PackageBuilder.addBoolean(parameters, "tracking_enabled", deviceInfo.isTrackingEnabled);
-        PackageBuilder.addString(parameters, "fire_adid", Util.getFireAdvertisingId(contentResolver));
-        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", Util.getFireTrackingEnabled(contentResolver));
-
-        if (!containsPlayIds(parameters) && !containsFireIds(parameters)) {
+        PackageBuilder.addString(parameters, "gps_adid", playIds.playAdId);
+        PackageBuilder.addLong(parameters, "gps_adid_attempt", playIds.playAdIdAttempt);
+        PackageBuilder.addString(parameters, "gps_adid_src", playIds.playAdIdSource);
+        PackageBuilder.addBoolean(parameters, "tracking_enabled", playIds.isTrackingEnabled);
+        PackageBuilder.addString(parameters, "fire_adid", identifiers.fireIds.fireAdId);
+        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", identifiers.fireIds.isFireTrackingEnabled);
+
+        if (!containsPlayIds(parameters) && !containsFireIds(parameters)
+                && deviceInfo.isAdvertisingIdsRead())
+        {
             logger.warn("Google Advertising ID or Fire Advertising ID not detected, " +
                     "fallback to non Google Play and Fire identifiers will take place");
             deviceInfo.reloadNonPlayIds(adjustConfig.context);
@@ -829,24 +687,8 @@ public class PackageBuilder {
         }
 
         // Rest of the parameters.
-        PackageBuilder.addString(parameters, "api_level", deviceInfo.apiLevel);
-        PackageBuilder.addString(parameters, "app_secret", adjustConfig.appSecret);
-        PackageBuilder.addString(parameters, "app_token", adjustConfig.appToken);
-        PackageBuilder.addString(parameters, "app_version", deviceInfo.appVersion);
-        PackageBuilder.addBoolean(parameters, "attribution_deeplink", true);
         PackageBuilder.addDateInMilliseconds(parameters, "created_at", createdAt);
-        PackageBuilder.addBoolean(parameters, "device_known", adjustConfig.deviceKnown);
-        PackageBuilder.addString(parameters, "device_name", deviceInfo.deviceName);
-        PackageBuilder.addString(parameters, "device_type", deviceInfo.deviceType);
-        PackageBuilder.addString(parameters, "environment", adjustConfig.environment);
-        PackageBuilder.addBoolean(parameters, "event_buffering_enabled", adjustConfig.eventBufferingEnabled);
-        PackageBuilder.addString(parameters, "external_device_id", adjustConfig.externalDeviceId);
-        PackageBuilder.addBoolean(parameters, "needs_response_details", true);
-        PackageBuilder.addString(parameters, "os_name", deviceInfo.osName);
-        PackageBuilder.addString(parameters, "os_version", deviceInfo.osVersion);
-        PackageBuilder.addString(parameters, "package_name", deviceInfo.packageName);
         PackageBuilder.addString(parameters, "push_token", activityStateCopy.pushToken);
-        PackageBuilder.addString(parameters, "secret_id", adjustConfig.secretId);
 
         checkDeviceIds(parameters);
         return parameters;
@@ -855,9 +697,9 @@ public class PackageBuilder {
     private Map<String, String> getMeasurementConsentParameters(
             final boolean consentMeasurement)
     {
-        ContentResolver contentResolver = adjustConfig.context.getContentResolver();
-        Map<String, String> parameters = new HashMap<String, String>();
-        Map<String, String> imeiParameters = Reflection.getImeiParameters(adjustConfig.context, logger);
+        IdentifierSnapshot identifiers = deviceInfo.getIdentifierSnapshot(adjustConfig.context);
+        Map<String, String> parameters = new OverlayMap(deviceInfo.getDeviceParameters(adjustConfig).thirdPartySharingTemplate);
+        Map<String, String> imeiParameters = identifiers.imeiParameters;
 
         // Check if plugin is used and if yes, add read parameters.
         if (imeiParameters != null) {
@@ -865,7 +707,7 @@ public class PackageBuilder {
         }
 
         // Check if oaid plugin is used and if yes, add the parameter
-        Map<String, String> oaidParameters = Reflection.getOaidParameters(adjustConfig.context, logger);
+        Map<String, String> oaidParameters = identifiers.oaidParameters;
         if (oaidParameters != null) {
             parameters.putAll(oaidParameters);
         }
@@ -875,16 +717,18 @@ public class PackageBuilder {
                 consentMeasurement ? "enable" : "disable");
 
         // Device identifiers.
-        deviceInfo.reloadPlayIds(adjustConfig.context);
+        IdentifierSnapshot.PlayIds playIds = identifiers.playIds;
         PackageBuilder.addString(parameters, "android_uuid", activityStateCopy.uuid);
-        PackageBuilder.addString(parameters, "gps_adid", deviceInfo.playAdId);
-        PackageBuilder.addLong(parameters, "gps_adid_attempt", deviceInfo.playAdIdAttempt);
-        PackageBuilder.addString(parameters, "gps_adid_src", deviceInfo.playAdIdSource);
-        PackageBuilder.addBoolean(parameters, "tracking_enabled", deviceInfo.isTrackingEnabled);
-        PackageBuilder.addString(parameters, "fire_adid", Util.getFireAdvertisingId(contentResolver));
-        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", Util.getFireTrackingEnabled(contentResolver));
-
-        if (!containsPlayIds(parameters) && !containsFireIds(parameters)) {
+        PackageBuilder.addString(parameters, "gps_adid", playIds.playAdId);
+        PackageBuilder.addLong(parameters, "gps_adid_attempt", playIds.playAdIdAttempt);
+        PackageBuilder.addString(parameters, "gps_adid_src", playIds.playAdIdSource);
+        PackageBuilder.addBoolean(parameters, "tracking_enabled", playIds.isTrackingEnabled);
+        PackageBuilder.addString(parameters, "fire_adid", identifiers.fireIds.fireAdId);
+        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", identifiers.fireIds.isFireTrackingEnabled);
+
+        if (!containsPlayIds(parameters) && !containsFireIds(parameters)
+                && deviceInfo.isAdvertisingIdsRead())
+        {
             logger.warn("Google Advertising ID or Fire Advertising ID not detected, " +
                     "fallback to non Google Play and Fire identifiers will take place");
             deviceInfo.reloadNonPlayIds(adjustConfig.context);
@@ -894,33 +738,17 @@ public class PackageBuilder {
         }
 
         // Rest of the parameters.
-        PackageBuilder.addString(parameters, "api_level", deviceInfo.apiLevel);
-        PackageBuilder.addString(parameters, "app_secret", adjustConfig.appSecret);
-        PackageBuilder.addString(parameters, "app_token", adjustConfig.appToken);
-        PackageBuilder.addString(parameters, "app_version", deviceInfo.appVersion);
-        PackageBuilder.addBoolean(parameters, "attribution_deeplink", true);
         PackageBuilder.addDateInMilliseconds(parameters, "created_at", createdAt);
-        PackageBuilder.addBoolean(parameters, "device_known", adjustConfig.deviceKnown);
-        PackageBuilder.addString(parameters, "device_name", deviceInfo.deviceName);
-        PackageBuilder.addString(parameters, "device_type", deviceInfo.deviceType);
-        PackageBuilder.addString(parameters, "environment", adjustConfig.environment);
-        PackageBuilder.addBoolean(parameters, "event_buffering_enabled", adjustConfig.eventBufferingEnabled);
-        PackageBuilder.addString(parameters, "external_device_id", adjustConfig.externalDeviceId);
-        PackageBuilder.addBoolean(parameters, "needs_response_details", true);
-        PackageBuilder.addString(parameters, "os_name", deviceInfo.osName);
-        PackageBuilder.addString(parameters, "os_version", deviceInfo.osVersion);
-        PackageBuilder.addString(parameters, "package_name", deviceInfo.packageName);
         PackageBuilder.addString(parameters, "push_token", activityStateCopy.pushToken);
-        PackageBuilder.addString(parameters, "secret_id", adjustConfig.secretId);
 
         checkDeviceIds(parameters);
         return parameters;
     }
 
     private Map<String, String> getAdRevenueParameters(String source, JSONObject adRevenueJson) {
-        ContentResolver contentResolver = adjustConfig.context.getContentResolver();
-        Map<String, String> parameters = new HashMap<String, String>();
-        Map<String, String> imeiParameters = Reflection.getImeiParameters(adjustConfig.context, logger);
+        IdentifierSnapshot identifiers = deviceInfo.getIdentifierSnapshot(adjustConfig.context);
+        Map<String, String> parameters = new OverlayMap(deviceInfo.getDeviceParameters(adjustConfig).sessionTemplate);
+        Map<String, String> imeiParameters = identifiers.imeiParameters;
 
         // Check if plugin is used and if yes, add read parameters.
         if (imeiParameters != null) {
@@ -928,22 +756,24 @@ public class PackageBuilder {
         }
 
         // Check if oaid plugin is used and if yes, add the parameter
-        Map<String, String> oaidParameters = Reflection.getOaidParameters(adjustConfig.context, logger);
+        Map<String, String> oaidParameters = identifiers.oaidParameters;
         if (oaidParameters != null) {
             parameters.putAll(oaidParameters);
         }
 
         // Device identifiers.
-        deviceInfo.reloadPlayIds(adjustConfig.context);
+        IdentifierSnapshot.PlayIds playIds = identifiers.playIds;
         PackageBuilder.addString(parameters, "android_uuid", activityStateCopy.uuid);
-        PackageBuilder.addString(parameters, "gps_adid", deviceInfo.playAdId);
-        PackageBuilder.addLong(parameters, "gps_adid_attempt", deviceInfo.playAdIdAttempt);
-        PackageBuilder.addString(parameters, "gps_adid_src", deviceInfo.playAdIdSource);
-        PackageBuilder.addBoolean(parameters, "tracking_enabled", deviceInfo.isTrackingEnabled);
-        PackageBuilder.addString(parameters, "fire_adid", Util.getFireAdvertisingId(contentResolver));
-        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", Util.getFireTrackingEnabled(contentResolver));
-
-        if (!containsPlayIds(parameters) && !containsFireIds(parameters)) {
+        PackageBuilder.addString(parameters, "gps_adid", playIds.playAdId);
+        PackageBuilder.addLong(parameters, "gps_adid_attempt", playIds.playAdIdAttempt);
+        PackageBuilder.addString(parameters, "gps_adid_src", playIds.playAdIdSource);
+        PackageBuilder.addBoolean(parameters, "tracking_enabled", playIds.isTrackingEnabled);
+        PackageBuilder.addString(parameters, "fire_adid", identifiers.fireIds.fireAdId);
+        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", identifiers.fireIds.isFireTrackingEnabled);
+
+        if (!containsPlayIds(parameters) && !containsFireIds(parameters)
+                && deviceInfo.isAdvertisingIdsRead())
+        {
             logger.warn("Google Advertising ID or Fire Advertising ID not detected, " +
                     "fallback to non Google Play and Fire identifiers will take place");
             deviceInfo.reloadNonPlayIds(adjustConfig.context);
@@ -953,60 +783,26 @@ public class PackageBuilder {
         }
 
         // Rest of the parameters.
-        PackageBuilder.addString(parameters, "api_level", deviceInfo.apiLevel);
-        PackageBuilder.addString(parameters, "app_secret", adjustConfig.appSecret);
-        PackageBuilder.addString(parameters, "app_token", adjustConfig.appToken);
-        PackageBuilder.addString(parameters, "app_version", deviceInfo.appVersion);
-        PackageBuilder.addBoolean(parameters, "attribution_deeplink", true);
         PackageBuilder.addLong(parameters, "connectivity_type", Util.getConnectivityType(adjustConfig.context));
-        PackageBuilder.addString(parameters, "country", deviceInfo.country);
-        PackageBuilder.addString(parameters, "cpu_type", deviceInfo.abi);
+        PackageBuilder.addLong(parameters, "network_type", Util.getNetworkType(adjustConfig.context));
         PackageBuilder.addDateInMilliseconds(parameters, "created_at", createdAt);
-        PackageBuilder.addString(parameters, "default_tracker", adjustConfig.defaultTracker);
-        PackageBuilder.addBoolean(parameters, "device_known", adjustConfig.deviceKnown);
-        PackageBuilder.addBoolean(parameters, "needs_cost", adjustConfig.needsCost);
-        PackageBuilder.addString(parameters, "device_manufacturer", deviceInfo.deviceManufacturer);
-        PackageBuilder.addString(parameters, "device_name", deviceInfo.deviceName);
-        PackageBuilder.addString(parameters, "device_type", deviceInfo.deviceType);
-        PackageBuilder.addString(parameters, "display_height", deviceInfo.displayHeight);
-        PackageBuilder.addString(parameters, "display_width", deviceInfo.displayWidth);
-        PackageBuilder.addString(parameters, "environment", adjustConfig.environment);
-        PackageBuilder.addBoolean(parameters, "event_buffering_enabled", adjustConfig.eventBufferingEnabled);
-        PackageBuilder.addString(parameters, "external_device_id", adjustConfig.externalDeviceId);
-        PackageBuilder.addString(parameters, "fb_id", deviceInfo.fbAttributionId);
-        PackageBuilder.addString(parameters, "hardware_name", deviceInfo.hardwareName);
-        PackageBuilder.addString(parameters, "installed_at", deviceInfo.appInstallTime);
-        PackageBuilder.addString(parameters, "language", deviceInfo.language);
         PackageBuilder.addDuration(parameters, "last_interval", activityStateCopy.lastInterval);
-        PackageBuilder.addString(parameters, "mcc", Util.getMcc(adjustConfig.context));
-        PackageBuilder.addString(parameters, "mnc", Util.getMnc(adjustConfig.context));
-        PackageBuilder.addBoolean(parameters, "needs_response_details", true);
-        PackageBuilder.addLong(parameters, "network_type", Util.getNetworkType(adjustConfig.context));
-        PackageBuilder.addString(parameters, "os_build", deviceInfo.buildName);
-        PackageBuilder.addString(parameters, "os_name", deviceInfo.osName);
-        PackageBuilder.addString(parameters, "os_version", deviceInfo.osVersion);
-        PackageBuilder.addString(parameters, "package_name", deviceInfo.packageName);
         PackageBuilder.addString(parameters, "push_token", activityStateCopy.pushToken);
-        PackageBuilder.addString(parameters, "screen_density", deviceInfo.screenDensity);
-        PackageBuilder.addString(parameters, "screen_format", deviceInfo.screenFormat);
-        PackageBuilder.addString(parameters, "screen_size", deviceInfo.screenSize);
-        PackageBuilder.addString(parameters, "secret_id", adjustConfig.secretId);
         PackageBuilder.addString(parameters, "source", source);
         PackageBuilder.addJsonObject(parameters, "payload", adRevenueJson);
         PackageBuilder.addLong(parameters, "session_count", activityStateCopy.sessionCount);
         PackageBuilder.addDuration(parameters, "session_length", activityStateCopy.sessionLength);
         PackageBuilder.addLong(parameters, "subsession_count", activityStateCopy.subsessionCount);
         PackageBuilder.addDuration(parameters, "time_spent", activityStateCopy.timeSpent);
-        PackageBuilder.addString(parameters, "updated_at", deviceInfo.appUpdateTime);
 
         checkDeviceIds(parameters);
         return parameters;
     }
 
     private Map<String, String> getAdRevenueParameters(AdjustAdRevenue adjustAdRevenue, boolean isInDelay) {
-        ContentResolver contentResolver = adjustConfig.context.getContentResolver();
-        Map<String, String> parameters = new HashMap<String, String>();
-        Map<String, String> imeiParameters = Reflection.getImeiParameters(adjustConfig.context, logger);
+        IdentifierSnapshot identifiers = deviceInfo.getIdentifierSnapshot(adjustConfig.context);
+        Map<String, String> parameters = new OverlayMap(deviceInfo.getDeviceParameters(adjustConfig).sessionTemplate);
+        Map<String, String> imeiParameters = identifiers.imeiParameters;
 
         // Check if plugin is used and if yes, add read parameters.
         if (imeiParameters != null) {
@@ -1014,7 +810,7 @@ public class PackageBuilder {
         }
 
         // Check if oaid plugin is used and if yes, add the parameter
-        Map<String, String> oaidParameters = Reflection.getOaidParameters(adjustConfig.context, logger);
+        Map<String, String> oaidParameters = identifiers.oaidParameters;
         if (oaidParameters != null) {
             parameters.putAll(oaidParameters);
         }
@@ -1026,16 +822,18 @@ public class PackageBuilder {
         }
 
         // Device identifiers.
-        deviceInfo.reloadPlayIds(adjustConfig.context);
+        IdentifierSnapshot.PlayIds playIds = identifiers.playIds;
         PackageBuilder.addString(parameters, "android_uuid", activityStateCopy.uuid);
-        PackageBuilder.addString(parameters, "gps_adid", deviceInfo.playAdId);
-        PackageBuilder.addLong(parameters, "gps_adid_attempt", deviceInfo.playAdIdAttempt);
-        PackageBuilder.addString(parameters, "gps_adid_src", deviceInfo.playAdIdSource);
-        PackageBuilder.addBoolean(parameters, "tracking_enabled", deviceInfo.isTrackingEnabled);
-        PackageBuilder.addString(parameters, "fire_adid", Util.getFireAdvertisingId(contentResolver));
-        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", Util.getFireTrackingEnabled(contentResolver));
-
-        if (!containsPlayIds(parameters) && !containsFireIds(parameters)) {
+        PackageBuilder.addString(parameters, "gps_adid", playIds.playAdId);
+        PackageBuilder.addLong(parameters, "gps_adid_attempt", playIds.playAdIdAttempt);
+        PackageBuilder.addString(parameters, "gps_adid_src", playIds.playAdIdSource);
+        PackageBuilder.addBoolean(parameters, "tracking_enabled", playIds.isTrackingEnabled);
+        PackageBuilder.addString(parameters, "fire_adid", identifiers.fireIds.fireAdId);
+        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", identifiers.fireIds.isFireTrackingEnabled);
+
+        if (!containsPlayIds(parameters) && !containsFireIds(parameters)
+                && deviceInfo.isAdvertisingIdsRead())
+        {
             logger.warn("Google Advertising ID or Fire Advertising ID not detected, " +
                         "fallback to non Google Play and Fire identifiers will take place");
             deviceInfo.reloadNonPlayIds(adjustConfig.context);
@@ -1045,44 +843,11 @@ public class PackageBuilder {
         }
 
         // Rest of the parameters.
-        PackageBuilder.addString(parameters, "api_level", deviceInfo.apiLevel);
-        PackageBuilder.addString(parameters, "app_secret", adjustConfig.appSecret);
-        PackageBuilder.addString(parameters, "app_token", adjustConfig.appToken);
-        PackageBuilder.addString(parameters, "app_version", deviceInfo.appVersion);
-        PackageBuilder.addBoolean(parameters, "attribution_deeplink", true);
         PackageBuilder.addLong(parameters, "connectivity_type", Util.getConnectivityType(adjustConfig.context));
-        PackageBuilder.addString(parameters, "country", deviceInfo.country);
-        PackageBuilder.addString(parameters, "cpu_type", deviceInfo.abi);
+        PackageBuilder.addLong(parameters, "network_type", Util.getNetworkType(adjustConfig.context));
         PackageBuilder.addDateInMilliseconds(parameters, "created_at", createdAt);
-        PackageBuilder.addString(parameters, "default_tracker", adjustConfig.defaultTracker);
-        PackageBuilder.addBoolean(parameters, "device_known", adjustConfig.deviceKnown);
-        PackageBuilder.addBoolean(parameters, "needs_cost", adjustConfig.needsCost);
-        PackageBuilder.addString(parameters, "device_manufacturer", deviceInfo.deviceManufacturer);
-        PackageBuilder.addString(parameters, "device_name", deviceInfo.deviceName);
-        PackageBuilder.addString(parameters, "device_type", deviceInfo.deviceType);
-        PackageBuilder.addString(parameters, "display_height", deviceInfo.displayHeight);
-        PackageBuilder.addString(parameters, "display_width", deviceInfo.displayWidth);
-        PackageBuilder.addString(parameters, "environment", adjustConfig.environment);
-        PackageBuilder.addBoolean(parameters, "event_buffering_enabled", adjustConfig.eventBufferingEnabled);
-        PackageBuilder.addString(parameters, "external_device_id", adjustConfig.externalDeviceId);
-        PackageBuilder.addString(parameters, "fb_id", deviceInfo.fbAttributionId);
-        PackageBuilder.addString(parameters, "hardware_name", deviceInfo.hardwareName);
-        PackageBuilder.addString(parameters, "installed_at", deviceInfo.appInstallTime);
-        PackageBuilder.addString(parameters, "language", deviceInfo.language);
         PackageBuilder.addDuration(parameters, "last_interval", activityStateCopy.lastInterval);
-        PackageBuilder.addString(parameters, "mcc", Util.getMcc(adjustConfig.context));
-        PackageBuilder.addString(parameters, "mnc", Util.getMnc(adjustConfig.context));
-        PackageBuilder.addBoolean(parameters, "needs_response_details", true);
-        PackageBuilder.addLong(parameters, "network_type", Util.getNetworkType(adjustConfig.context));
-        PackageBuilder.addString(parameters, "os_build", deviceInfo.buildName);
-        PackageBuilder.addString(parameters, "os_name", deviceInfo.osName);
-        PackageBuilder.addString(parameters, "os_version", deviceInfo.osVersion);
-        PackageBuilder.addString(parameters, "package_name", deviceInfo.packageName);
         PackageBuilder.addString(parameters, "push_token", activityStateCopy.pushToken);
-        PackageBuilder.addString(parameters, "screen_density", deviceInfo.screenDensity);
-        PackageBuilder.addString(parameters, "screen_format", deviceInfo.screenFormat);
-        PackageBuilder.addString(parameters, "screen_size", deviceInfo.screenSize);
-        PackageBuilder.addString(parameters, "secret_id", adjustConfig.secretId);
         PackageBuilder.addString(parameters, "source", adjustAdRevenue.source);
         PackageBuilder.addDoubleWithoutRounding(parameters, "revenue", adjustAdRevenue.revenue);
         PackageBuilder.addString(parameters, "currency", adjustAdRevenue.currency);
@@ -1094,16 +859,15 @@ public class PackageBuilder {
         PackageBuilder.addDuration(parameters, "session_length", activityStateCopy.sessionLength);
         PackageBuilder.addLong(parameters, "subsession_count", activityStateCopy.subsessionCount);
         PackageBuilder.addDuration(parameters, "time_spent", activityStateCopy.timeSpent);
-        PackageBuilder.addString(parameters, "updated_at", deviceInfo.appUpdateTime);
 
         checkDeviceIds(parameters);
         return parameters;
     }
 
     private Map<String, String> getSubscriptionParameters(AdjustPlayStoreSubscription subscription, boolean isInDelay) {
-        ContentResolver contentResolver = adjustConfig.context.getContentResolver();
-        Map<String, String> parameters = new HashMap<String, String>();
-        Map<String, String> imeiParameters = Reflection.getImeiParameters(adjustConfig.context, logger);
+        IdentifierSnapshot identifiers = deviceInfo.getIdentifierSnapshot(adjustConfig.context);
+        Map<String, String> parameters = new OverlayMap(deviceInfo.getDeviceParameters(adjustConfig).sessionTemplate);
+        Map<String, String> imeiParameters = identifiers.imeiParameters;
 
         // Check if plugin is used and if yes, add read parameters.
         if (imeiParameters != null) {
@@ -1111,22 +875,24 @@ public class PackageBuilder {
         }
 
         // Check if oaid plugin is used and if yes, add the parameter
-        Map<String, String> oaidParameters = Reflection.getOaidParameters(adjustConfig.context, logger);
+        Map<String, String> oaidParameters = identifiers.oaidParameters;
         if (oaidParameters != null) {
             parameters.putAll(oaidParameters);
         }
 
         // Device identifiers.
-        deviceInfo.reloadPlayIds(adjustConfig.context);
+        IdentifierSnapshot.PlayIds playIds = identifiers.playIds;
         PackageBuilder.addString(parameters, "android_uuid", activityStateCopy.uuid);
-        PackageBuilder.addString(parameters, "gps_adid", deviceInfo.playAdId);
-        PackageBuilder.addLong(parameters, "gps_adid_attempt", deviceInfo.playAdIdAttempt);
-        PackageBuilder.addString(parameters, "gps_adid_src", deviceInfo.playAdIdSource);
-        PackageBuilder.addBoolean(parameters, "tracking_enabled", deviceInfo.isTrackingEnabled);
-        PackageBuilder.addString(parameters, "fire_adid", Util.getFireAdvertisingId(contentResolver));
-        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", Util.getFireTrackingEnabled(contentResolver));
-
-        if (!containsPlayIds(parameters) && !containsFireIds(parameters)) {
+        PackageBuilder.addString(parameters, "gps_adid", playIds.playAdId);
+        PackageBuilder.addLong(parameters, "gps_adid_attempt", playIds.playAdIdAttempt);
+        PackageBuilder.addString(parameters, "gps_adid_src", playIds.playAdIdSource);
+        PackageBuilder.addBoolean(parameters, "tracking_enabled", playIds.isTrackingEnabled);
+        PackageBuilder.addString(parameters, "fire_adid", identifiers.fireIds.fireAdId);
+        PackageBuilder.addBoolean(parameters, "fire_tracking_enabled", identifiers.fireIds.isFireTrackingEnabled);
+
+        if (!containsPlayIds(parameters) && !containsFireIds(parameters)
+                && deviceInfo.isAdvertisingIdsRead())
+        {
             logger.warn("Google Advertising ID or Fire Advertising ID not detected, " +
                     "fallback to non Google Play and Fire identifiers will take place");
             deviceInfo.reloadNonPlayIds(adjustConfig.context);
@@ -1142,49 +908,15 @@ public class PackageBuilder {
         }
 
         // Rest of the parameters.
-        PackageBuilder.addString(parameters, "api_level", deviceInfo.apiLevel);
-        PackageBuilder.addString(parameters, "app_secret", adjustConfig.appSecret);
-        PackageBuilder.addString(parameters, "app_token", adjustConfig.appToken);
-        PackageBuilder.addString(parameters, "app_version", deviceInfo.appVersion);
-        PackageBuilder.addBoolean(parameters, "attribution_deeplink", true);
         PackageBuilder.addLong(parameters, "connectivity_type", Util.getConnectivityType(adjustConfig.context));
-        PackageBuilder.addString(parameters, "country", deviceInfo.country);
-        PackageBuilder.addString(parameters, "cpu_type", deviceInfo.abi);
+        PackageBuilder.addLong(parameters, "network_type", Util.getNetworkType(adjustConfig.context));
         PackageBuilder.addDateInMilliseconds(parameters, "created_at", createdAt);
-        PackageBuilder.addString(parameters, "default_tracker", adjustConfig.defaultTracker);
-        PackageBuilder.addBoolean(parameters, "device_known", adjustConfig.deviceKnown);
-        PackageBuilder.addBoolean(parameters, "needs_cost", adjustConfig.needsCost);
-        PackageBuilder.addString(parameters, "device_manufacturer", deviceInfo.deviceManufacturer);
-        PackageBuilder.addString(parameters, "device_name", deviceInfo.deviceName);
-        PackageBuilder.addString(parameters, "device_type", deviceInfo.deviceType);
-        PackageBuilder.addString(parameters, "display_height", deviceInfo.displayHeight);
-        PackageBuilder.addString(parameters, "display_width", deviceInfo.displayWidth);
-        PackageBuilder.addString(parameters, "environment", adjustConfig.environment);
-        PackageBuilder.addBoolean(parameters, "event_buffering_enabled", adjustConfig.eventBufferingEnabled);
-        PackageBuilder.addString(parameters, "external_device_id", adjustConfig.externalDeviceId);
-        PackageBuilder.addString(parameters, "fb_id", deviceInfo.fbAttributionId);
-        PackageBuilder.addString(parameters, "hardware_name", deviceInfo.hardwareName);
-        PackageBuilder.addString(parameters, "installed_at", deviceInfo.appInstallTime);
-        PackageBuilder.addString(parameters, "language", deviceInfo.language);
         PackageBuilder.addDuration(parameters, "last_interval", activityStateCopy.lastInterval);
-        PackageBuilder.addString(parameters, "mcc", Util.getMcc(adjustConfig.context));
-        PackageBuilder.addString(parameters, "mnc", Util.getMnc(adjustConfig.context));
-        PackageBuilder.addBoolean(parameters, "needs_response_details", true);
-        PackageBuilder.addLong(parameters, "network_type", Util.getNetworkType(adjustConfig.context));
-        PackageBuilder.addString(parameters, "os_build", deviceInfo.buildName);
-        PackageBuilder.addString(parameters, "os_name", deviceInfo.osName);
-        PackageBuilder.addString(parameters, "os_version", deviceInfo.osVersion);
-        PackageBuilder.addString(parameters, "package_name", deviceInfo.packageName);
         PackageBuilder.addString(parameters, "push_token", activityStateCopy.pushToken);
-        PackageBuilder.addString(parameters, "screen_density", deviceInfo.screenDensity);
-        PackageBuilder.addString(parameters, "screen_format", deviceInfo.screenFormat);
-        PackageBuilder.addString(parameters, "screen_size", deviceInfo.screenSize);
-        PackageBuilder.addString(parameters, "secret_id", adjustConfig.secretId);
         PackageBuilder.addLong(parameters, "session_count", activityStateCopy.sessionCount);
         PackageBuilder.addDuration(parameters, "session_length", activityStateCopy.sessionLength);
         PackageBuilder.addLong(parameters, "subsession_count", activityStateCopy.subsessionCount);
         PackageBuilder.addDuration(parameters, "time_spent", activityStateCopy.timeSpent);
-        PackageBuilder.addString(parameters, "updated_at", deviceInfo.appUpdateTime);
 
         // subscription specific parameters
         PackageBuilder.addString(parameters, "billing_store", subscription.getBillingStore());
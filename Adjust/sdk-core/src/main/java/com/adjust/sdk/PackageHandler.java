@@ -17,31 +17,49 @@ import com.adjust.sdk.scheduler.ThreadScheduler;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.adjust.sdk.Constants.CALLBACK_PARAMETERS;
 import static com.adjust.sdk.Constants.PARTNER_PARAMETERS;
 
 // persistent
 public class PackageHandler implements IPackageHandler,
-        IActivityPackageSender.ResponseDataCallbackSubscriber
+        IActivityPackageSender.ResponseDataCallbackSubscriber,
+        IActivityPackageSender.BatchResponseDataCallbackSubscriber
 {
-    private static final String PACKAGE_QUEUE_FILENAME = "AdjustIoPackageQueue";
-    private static final String PACKAGE_QUEUE_NAME = "Package queue";
+    private static final int MAX_BATCH_SIZE = 50;
 
     private ThreadScheduler scheduler;
     private IActivityPackageSender activityPackageSender;
     private WeakReference<IActivityHandler> activityHandlerWeakRef;
     private List<ActivityPackage> packageQueue;
-    private AtomicBoolean isSending;
+    private PackageQueueJournal packageQueueJournal;
+    // packages behind the ones the queue holds, only when a backlog size is configured
+    private PackageBacklog packageBacklog;
+    private int packageBacklogMaxBytes;
+    private boolean dropOldestWhenBacklogFull;
+    // packages handed to the sender and not answered yet, compared by identity
+    private List<ActivityPackage> inFlightPackages;
+    private int inFlightRequests;
+    private int maxInFlightRequests;
+    private boolean isBarrierInFlight;
+    // failed packages waiting for their backoff, compared by identity, the others keep going out
+    private List<ActivityPackage> retryingPackages;
+    // the backoffs being waited, a reconnect cuts them all short and leaves their retries without effect
+    private int retryWait;
+    private boolean isNetworkConnected;
+    private boolean isNetworkUnmetered;
+    private int unmeteredBacklogThreshold;
     private boolean paused;
+    private boolean batchUploadEnabled;
     private Context context;
     private ILogger logger;
     private BackoffStrategy backoffStrategy;
     private BackoffStrategy backoffStrategyForInstallSession;
+    private IRetryPolicy retryPolicy;
 
     @Override
     public void teardown() {
@@ -55,13 +73,20 @@ public class PackageHandler implements IPackageHandler,
         if (packageQueue != null) {
             packageQueue.clear();
         }
+        if (packageBacklog != null) {
+            packageBacklog.close();
+        }
         scheduler = null;
         activityHandlerWeakRef = null;
         packageQueue = null;
-        isSending = null;
+        packageQueueJournal = null;
+        packageBacklog = null;
+        inFlightPackages = null;
+        retryingPackages = null;
         context = null;
         logger = null;
         backoffStrategy = null;
+        retryPolicy = null;
     }
 
     static void deleteState(Context context) {
@@ -99,6 +124,16 @@ public class PackageHandler implements IPackageHandler,
         this.context = context;
         this.paused = !startsSending;
         this.activityPackageSender = packageHandlerActivityPackageSender;
+
+        AdjustConfig adjustConfig = activityHandler != null ? activityHandler.getAdjustConfig() : null;
+        this.batchUploadEnabled = adjustConfig != null && adjustConfig.batchUploadEnabled;
+        this.maxInFlightRequests = adjustConfig != null && adjustConfig.maxConcurrentRequests > 1
+                ? adjustConfig.maxConcurrentRequests : 1;
+        this.packageBacklogMaxBytes = adjustConfig != null ? adjustConfig.packageBacklogMaxBytes : 0;
+        this.dropOldestWhenBacklogFull = adjustConfig == null
+                || !AdjustConfig.BACKLOG_OVERFLOW_DROP_NEWEST.equals(adjustConfig.packageBacklogOverflowPolicy);
+        this.unmeteredBacklogThreshold = adjustConfig != null ? adjustConfig.unmeteredBacklogThreshold : 0;
+        this.retryPolicy = AdjustFactory.getRetryPolicy(adjustConfig);
     }
 
     // add a package to the queue
@@ -125,6 +160,13 @@ public class PackageHandler implements IPackageHandler,
 
     @Override
     public void onResponseDataCallback(final ResponseData responseData) {
+        onResponseDataCallback(responseData, responseData.activityPackage);
+    }
+
+    // the sent package leaves the in-flight window whatever the response holds
+    private void onResponseDataCallback(final ResponseData responseData,
+                                        final ActivityPackage sentPackage)
+    {
         logger.debug("Got response in PackageHandler");
         IActivityHandler activityHandler = activityHandlerWeakRef.get();
         if (activityHandler != null &&
@@ -136,7 +178,7 @@ public class PackageHandler implements IPackageHandler,
             scheduler.submit(new Runnable() {
                 @Override
                 public void run() {
-                    sendNextI();
+                    sendNextI(responseData, sentPackage);
                 }
             });
 
@@ -150,33 +192,96 @@ public class PackageHandler implements IPackageHandler,
             activityHandler.finishedTrackingActivity(responseData);
         }
 
-        Runnable runnable = new Runnable() {
+        scheduler.submit(new Runnable() {
             @Override
             public void run() {
-                logger.verbose("Package handler can send");
-                isSending.set(false);
+                requestFinishedI(Collections.singletonList(sentPackage));
+                List<ActivityPackage> failedPackages = new ArrayList<ActivityPackage>(1);
+                if (sentPackage != null) {
+                    failedPackages.add(sentPackage);
+                }
+                retryLaterI(responseData, failedPackages);
+            }
+        });
+    }
+
+    @Override
+    public void onBatchResponseDataCallback(final List<ResponseData> responseDataList) {
+        List<ActivityPackage> sentPackages = new ArrayList<ActivityPackage>(responseDataList.size());
+        for (ResponseData responseData : responseDataList) {
+            sentPackages.add(responseData.activityPackage);
+        }
+        onBatchResponseDataCallback(responseDataList, sentPackages);
+    }
+
+    // the sent packages leave the in-flight window whatever the responses hold
+    private void onBatchResponseDataCallback(final List<ResponseData> responseDataList,
+                                             final List<ActivityPackage> sentPackages)
+    {
+        logger.debug("Got batch response in PackageHandler for %d packages", responseDataList.size());
+        IActivityHandler activityHandler = activityHandlerWeakRef.get();
+        if (activityHandler != null) {
+            boolean gotOptOutResponse = false;
+            for (ResponseData responseData : responseDataList) {
+                if (responseData.batchUnsupported) {
+                    continue;
+                }
+                if (!gotOptOutResponse && responseData.trackingState == TrackingState.OPTED_OUT) {
+                    gotOptOutResponse = true;
+                    activityHandler.gotOptOutResponse();
+                }
+                activityHandler.finishedTrackingActivity(responseData);
+            }
+        }
 
-                // Try to send the same package after sleeping
-                sendFirstPackage();
+        scheduler.submit(new Runnable() {
+            @Override
+            public void run() {
+                sendNextAfterBatchI(responseDataList, sentPackages);
             }
-        };
+        });
+    }
 
-        if (responseData.activityPackage == null) {
-            runnable.run();
+    // only the failed packages wait, their wait is armed once and not moved by later failures
+    private void retryLaterI(final ResponseData responseData,
+                             final List<ActivityPackage> failedPackages)
+    {
+        if (failedPackages.isEmpty()) {
+            sendFirstI();
             return;
         }
 
-        int retries = responseData.activityPackage.increaseRetries();
+        retryingPackages.addAll(failedPackages);
+        final int currentRetryWait = retryWait;
+
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                if (currentRetryWait != retryWait) {
+                    return;
+                }
+                removeByIdentity(retryingPackages, failedPackages);
+                logger.verbose("Package handler can send");
+
+                // Try to send the same packages after sleeping
+                sendFirstI();
+            }
+        };
+
+        // the other failed packages of a batch counted their attempt already
+        ActivityPackage retryPackage = failedPackages.get(0);
+        int retries = retryPackage.increaseRetries();
         long waitTimeMilliSeconds;
 
         SharedPreferencesManager sharedPreferencesManager = new SharedPreferencesManager(context);
 
-        if (responseData.activityPackage.getActivityKind() ==
+        if (retryPackage.getActivityKind() ==
                 ActivityKind.SESSION && !sharedPreferencesManager.getInstallTracked())
         {
-            waitTimeMilliSeconds = Util.getWaitingTime(retries, backoffStrategyForInstallSession);
+            waitTimeMilliSeconds = retryPolicy.getRetryWait(responseData, retries,
+                    backoffStrategyForInstallSession);
         } else {
-            waitTimeMilliSeconds = Util.getWaitingTime(retries, backoffStrategy);
+            waitTimeMilliSeconds = retryPolicy.getRetryWait(responseData, retries, backoffStrategy);
         }
 
         double waitTimeSeconds = waitTimeMilliSeconds / 1000.0;
@@ -184,6 +289,9 @@ public class PackageHandler implements IPackageHandler,
 
         logger.verbose("Waiting for %s seconds before retrying the %d time", secondsString, retries);
         scheduler.schedule(runnable, waitTimeMilliSeconds);
+
+        // the packages that didn't fail don't wait for them
+        sendFirstI();
     }
 
     // interrupt the sending loop after the current request has finished
@@ -198,6 +306,17 @@ public class PackageHandler implements IPackageHandler,
         paused = false;
     }
 
+    // the activity handler pauses sending while there is no network, this only tells when to send
+    @Override
+    public void setNetworkState(final boolean isConnected, final boolean isUnmetered) {
+        scheduler.submit(new Runnable() {
+            @Override
+            public void run() {
+                setNetworkStateI(isConnected, isUnmetered);
+            }
+        });
+    }
+
     @Override
     public void updatePackages(SessionParameters sessionParameters) {
         final SessionParameters sessionParametersCopy;
@@ -226,20 +345,42 @@ public class PackageHandler implements IPackageHandler,
 
     // internal methods run in dedicated queue thread
     private void initI() {
-        isSending = new AtomicBoolean();
+        inFlightPackages = new ArrayList<ActivityPackage>();
+        inFlightRequests = 0;
+        isBarrierInFlight = false;
+        retryingPackages = new ArrayList<ActivityPackage>();
+        retryWait = 0;
+        isNetworkConnected = true;
+        isNetworkUnmetered = true;
 
         readPackageQueueI();
+        openPackageBacklogI();
     }
 
     private void addI(ActivityPackage newPackage) {
+        if (packageBacklog != null
+                && (!packageBacklog.isEmpty() || packageQueue.size() >= sendWindowSizeI()))
+        {
+            if (packageBacklog.add(newPackage)) {
+                logger.debug("Added package %d to backlog (%s)",
+                        packageQueue.size() + packageBacklog.size(), newPackage);
+                logger.verbose("%s", newPackage.getExtendedString());
+            }
+            return;
+        }
+
         packageQueue.add(newPackage);
         logger.debug("Added package %d (%s)", packageQueue.size(), newPackage);
         logger.verbose("%s", newPackage.getExtendedString());
 
-        writePackageQueueI();
+        if (packageQueueJournal.append(newPackage, packageQueue)) {
+            logger.debug("Package handler wrote %d packages", packageQueue.size());
+        }
     }
 
     private void sendFirstI() {
+        fillFromBacklogI();
+
         if (packageQueue.isEmpty()) {
             return;
         }
@@ -248,17 +389,168 @@ public class PackageHandler implements IPackageHandler,
             logger.debug("Package handler is paused");
             return;
         }
-        if (isSending.getAndSet(true)) {
+        if (isBarrierInFlight || inFlightRequests >= maxInFlightRequests) {
             logger.verbose("Package handler is already sending");
             return;
         }
+        if (!isNetworkUnmetered && unmeteredBacklogThreshold > 0) {
+            int queueSize = queueSizeI();
+            if (queueSize > unmeteredBacklogThreshold) {
+                logger.debug("Package handler waits for an unmetered network to send %d packages",
+                        queueSize);
+                return;
+            }
+        }
+
+        // fill the in-flight window with the oldest packages not sent yet
+        while (inFlightRequests < maxInFlightRequests) {
+            int nextIndex = nextPackageToSendIndexI();
+            if (nextIndex == -1) {
+                return;
+            }
+
+            ActivityPackage nextPackage = packageQueue.get(nextIndex);
+            if (!isPipelinable(nextPackage)) {
+                // sessions, GDPR and the like are only sent alone, in queue order
+                if (inFlightRequests > 0) {
+                    logger.verbose("Package handler waits for %d requests before sending %s",
+                            inFlightRequests, nextPackage);
+                    return;
+                }
+                isBarrierInFlight = true;
+            }
+
+            List<ActivityPackage> sendingPackages;
+            if (batchUploadEnabled && isBatchable(nextPackage)) {
+                sendingPackages = collectBatchI(nextIndex);
+            } else {
+                sendingPackages = Collections.singletonList(nextPackage);
+            }
+
+            inFlightPackages.addAll(sendingPackages);
+            inFlightRequests++;
+
+            Map<String, String> sendingParameters = generateSendingParametersI();
+
+            if (sendingPackages.size() > 1) {
+                logger.verbose("Sending batch of %d packages", sendingPackages.size());
+                final List<ActivityPackage> sentPackages = sendingPackages;
+                activityPackageSender.sendActivityPackageBatch(sendingPackages,
+                        sendingParameters,
+                        new IActivityPackageSender.BatchResponseDataCallbackSubscriber() {
+                            @Override
+                            public void onBatchResponseDataCallback(List<ResponseData> responseDataList) {
+                                PackageHandler.this.onBatchResponseDataCallback(responseDataList,
+                                        sentPackages);
+                            }
+                        });
+            } else {
+                final ActivityPackage sentPackage = nextPackage;
+                activityPackageSender.sendActivityPackage(nextPackage,
+                        sendingParameters,
+                        new IActivityPackageSender.ResponseDataCallbackSubscriber() {
+                            @Override
+                            public void onResponseDataCallback(ResponseData responseData) {
+                                PackageHandler.this.onResponseDataCallback(responseData, sentPackage);
+                            }
+                        });
+            }
+
+            if (isBarrierInFlight) {
+                return;
+            }
+        }
+    }
+
+    // packages waiting to retry are passed over, but nothing passes a waiting barrier package
+    // and barrier packages don't pass waiting ones
+    private int nextPackageToSendIndexI() {
+        boolean isRetryPending = false;
+        for (int i = 0; i < packageQueue.size(); i++) {
+            ActivityPackage activityPackage = packageQueue.get(i);
+            if (containsByIdentity(retryingPackages, activityPackage)) {
+                if (!isPipelinable(activityPackage)) {
+                    return -1;
+                }
+                isRetryPending = true;
+                continue;
+            }
+            if (isInFlightI(activityPackage)) {
+                continue;
+            }
+            if (isRetryPending && !isPipelinable(activityPackage)) {
+                return -1;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private boolean isInFlightI(ActivityPackage activityPackage) {
+        return containsByIdentity(inFlightPackages, activityPackage);
+    }
+
+    private static boolean containsByIdentity(List<ActivityPackage> activityPackages,
+                                              ActivityPackage activityPackage)
+    {
+        for (ActivityPackage listedPackage : activityPackages) {
+            if (listedPackage == activityPackage) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void removeByIdentity(List<ActivityPackage> activityPackages,
+                                         List<ActivityPackage> removedPackages)
+    {
+        for (ActivityPackage removedPackage : removedPackages) {
+            for (int i = 0; i < activityPackages.size(); i++) {
+                if (activityPackages.get(i) == removedPackage) {
+                    activityPackages.remove(i);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void requestFinishedI(List<ActivityPackage> sentPackages) {
+        removeByIdentity(inFlightPackages, sentPackages);
+        if (inFlightRequests > 0) {
+            inFlightRequests--;
+        }
+        // a barrier package is always the only request in flight
+        isBarrierInFlight = false;
+    }
+
+    // consecutive packages not sent yet that can share one request
+    private List<ActivityPackage> collectBatchI(int startIndex) {
+        List<ActivityPackage> batch = new ArrayList<ActivityPackage>();
+        for (int i = startIndex; i < packageQueue.size(); i++) {
+            ActivityPackage activityPackage = packageQueue.get(i);
+            if (batch.size() >= MAX_BATCH_SIZE
+                    || !isBatchable(activityPackage)
+                    || isInFlightI(activityPackage)
+                    || containsByIdentity(retryingPackages, activityPackage))
+            {
+                break;
+            }
+            batch.add(activityPackage);
+        }
+        return batch;
+    }
 
-        Map<String, String> sendingParameters = generateSendingParametersI();
+    private static boolean isBatchable(ActivityPackage activityPackage) {
+        ActivityKind activityKind = activityPackage.getActivityKind();
+        return activityKind == ActivityKind.EVENT || activityKind == ActivityKind.AD_REVENUE;
+    }
 
-        ActivityPackage firstPackage = packageQueue.get(0);
-        activityPackageSender.sendActivityPackage(firstPackage,
-                sendingParameters,
-                this);
+    // packages whose order relative to each other does not matter to the backend
+    private static boolean isPipelinable(ActivityPackage activityPackage) {
+        ActivityKind activityKind = activityPackage.getActivityKind();
+        return activityKind == ActivityKind.EVENT
+                || activityKind == ActivityKind.AD_REVENUE
+                || activityKind == ActivityKind.SUBSCRIPTION;
     }
 
     private Map<String, String> generateSendingParametersI() {
@@ -269,26 +561,95 @@ public class PackageHandler implements IPackageHandler,
 
         PackageBuilder.addString(sendingParameters, "sent_at", dateString);
 
-        int queueSize = packageQueue.size() - 1;
+        int queueSize = queueSizeI() - inFlightPackages.size();
         if (queueSize > 0) {
             PackageBuilder.addLong(sendingParameters, "queue_size", queueSize);
         }
         return sendingParameters;
     }
 
-    private void sendNextI() {
-        if (packageQueue.isEmpty()) {
+    private void sendNextI(ResponseData responseData, ActivityPackage sentPackage) {
+        requestFinishedI(Collections.singletonList(sentPackage));
+        retryPolicy.onSent(responseData.activityKind);
+
+        if (removePackageI(sentPackage)) {
+            logger.debug("Package handler wrote %d packages", packageQueue.size());
+        }
+        logger.verbose("Package handler can send");
+        sendFirstI();
+    }
+
+    private void sendNextAfterBatchI(List<ResponseData> responseDataList,
+                                     List<ActivityPackage> sentPackages)
+    {
+        requestFinishedI(sentPackages);
+
+        if (!responseDataList.isEmpty() && responseDataList.get(0).batchUnsupported) {
+            // nothing of the batch was sent, its packages go out one by one from now on
+            if (batchUploadEnabled) {
+                logger.warn("Batch upload turned off, the endpoint doesn't support it");
+                batchUploadEnabled = false;
+            }
+            sendFirstI();
+            return;
+        }
+
+        ResponseData firstRetryResponseData = null;
+        List<ActivityPackage> failedPackages = new ArrayList<ActivityPackage>();
+        boolean isRemovalWritten = false;
+
+        for (ResponseData responseData : responseDataList) {
+            if (responseData.willRetry) {
+                if (firstRetryResponseData == null) {
+                    // the wait follows the first failed response
+                    firstRetryResponseData = responseData;
+                }
+                if (responseData.activityPackage == null) {
+                    continue;
+                }
+                if (!failedPackages.isEmpty()) {
+                    // every failed package counts the attempt, the first one when the retry is scheduled
+                    responseData.activityPackage.increaseRetries();
+                }
+                failedPackages.add(responseData.activityPackage);
+                continue;
+            }
+            retryPolicy.onSent(responseData.activityKind);
+            if (removePackageI(responseData.activityPackage)) {
+                isRemovalWritten = true;
+            }
+        }
+        if (isRemovalWritten) {
+            logger.debug("Package handler wrote %d packages", packageQueue.size());
+        }
+
+        if (firstRetryResponseData != null) {
+            // failed packages stay in the queue and are retried together
+            retryLaterI(firstRetryResponseData, failedPackages);
             return;
         }
 
-        packageQueue.remove(0);
-        writePackageQueueI();
-        isSending.set(false);
         logger.verbose("Package handler can send");
         sendFirstI();
     }
 
-    public void updatePackagesI(SessionParameters sessionParameters) {
+    // returns true when the removal was written to the journal
+    private boolean removePackageI(ActivityPackage activityPackage) {
+        if (activityPackage == null) {
+            return false;
+        }
+
+        // packages are compared by identity, since the queue can hold equal packages
+        for (int i = 0; i < packageQueue.size(); i++) {
+            if (packageQueue.get(i) == activityPackage) {
+                packageQueue.remove(i);
+                return packageQueueJournal.remove(i, packageQueue);
+            }
+        }
+        return false;
+    }
+
+    public void updatePackagesI(final SessionParameters sessionParameters) {
         if (sessionParameters == null) {
             return;
         }
@@ -298,37 +659,53 @@ public class PackageHandler implements IPackageHandler,
         logger.verbose("Session partner parameters: %s", sessionParameters.partnerParameters);
 
         for (ActivityPackage activityPackage : packageQueue) {
-            Map<String, String> parameters = activityPackage.getParameters();
-            // callback parameters
-            Map<String, String> mergedCallbackParameters = Util.mergeParameters(sessionParameters.callbackParameters,
-                    activityPackage.getCallbackParameters(),
-                    "Callback");
+            updatePackageI(activityPackage, sessionParameters);
+        }
 
-            PackageBuilder.addMapJson(parameters, CALLBACK_PARAMETERS, mergedCallbackParameters);
-            // partner parameters
-            Map<String, String> mergedPartnerParameters = Util.mergeParameters(sessionParameters.partnerParameters,
-                    activityPackage.getPartnerParameters(),
-                    "Partner");
+        writePackageQueueI();
 
-            PackageBuilder.addMapJson(parameters, PARTNER_PARAMETERS, mergedPartnerParameters);
+        if (packageBacklog != null) {
+            packageBacklog.update(new PackageBacklog.PackageUpdater() {
+                @Override
+                public void update(ActivityPackage activityPackage) {
+                    updatePackageI(activityPackage, sessionParameters);
+                }
+            });
         }
+    }
 
-        writePackageQueueI();
+    private void updatePackageI(ActivityPackage activityPackage, SessionParameters sessionParameters) {
+        Map<String, String> parameters = activityPackage.getParameters();
+        // callback parameters
+        Map<String, String> mergedCallbackParameters = Util.mergeParameters(sessionParameters.callbackParameters,
+                activityPackage.getCallbackParameters(),
+                "Callback");
+
+        PackageBuilder.addMapJson(parameters, CALLBACK_PARAMETERS, mergedCallbackParameters);
+        // partner parameters
+        Map<String, String> mergedPartnerParameters = Util.mergeParameters(sessionParameters.partnerParameters,
+                activityPackage.getPartnerParameters(),
+                "Partner");
+
+        PackageBuilder.addMapJson(parameters, PARTNER_PARAMETERS, mergedPartnerParameters);
     }
 
     private void flushI() {
         packageQueue.clear();
         writePackageQueueI();
+
+        if (packageBacklog != null) {
+            packageBacklog.clear();
+        }
     }
 
     private void readPackageQueueI() {
+        packageQueueJournal = new PackageQueueJournal(context);
+
         try {
-            packageQueue = Util.readObject(context,
-                    PACKAGE_QUEUE_FILENAME,
-                    PACKAGE_QUEUE_NAME,
-                    (Class<List<ActivityPackage>>)(Class)List.class);
+            packageQueue = packageQueueJournal.read();
         } catch (Exception e) {
-            logger.error("Failed to read %s file (%s)", PACKAGE_QUEUE_NAME, e.getMessage());
+            logger.error("Failed to read package queue (%s)", e.getMessage());
             packageQueue = null;
         }
 
@@ -339,12 +716,93 @@ public class PackageHandler implements IPackageHandler,
         }
     }
 
+    private void openPackageBacklogI() {
+        if (packageBacklogMaxBytes > 0) {
+            packageBacklog = PackageBacklog.open(context, packageBacklogMaxBytes, dropOldestWhenBacklogFull);
+            return;
+        }
+
+        if (!PackageBacklog.exists(context)) {
+            return;
+        }
+
+        // left by a run with the backlog enabled, its packages go back to the queue
+        PackageBacklog leftOverBacklog = PackageBacklog.open(context, 0, true);
+        if (leftOverBacklog != null) {
+            logger.debug("Moving %d packages from backlog to the queue", leftOverBacklog.size());
+            for (ActivityPackage activityPackage = leftOverBacklog.peek();
+                 activityPackage != null;
+                 activityPackage = leftOverBacklog.peek())
+            {
+                packageQueue.add(activityPackage);
+                leftOverBacklog.removeFirst();
+            }
+            leftOverBacklog.close();
+            writePackageQueueI();
+        }
+        PackageBacklog.delete(context);
+    }
+
+    private int queueSizeI() {
+        if (packageBacklog == null) {
+            return packageQueue.size();
+        }
+        return packageQueue.size() + packageBacklog.size();
+    }
+
+    private void setNetworkStateI(boolean isConnected, boolean isUnmetered) {
+        boolean isReconnected = isConnected && !isNetworkConnected;
+        boolean isNowUnmetered = isUnmetered && !isNetworkUnmetered;
+        isNetworkConnected = isConnected;
+        isNetworkUnmetered = isUnmetered;
+
+        if (!isConnected) {
+            return;
+        }
+        // the backoff was most likely for the lost network, the retry doesn't wait for it
+        if (isReconnected && !retryingPackages.isEmpty()) {
+            logger.verbose("Package handler retries now that the network is back");
+            retryWait++;
+            retryingPackages.clear();
+        }
+        if (isReconnected || isNowUnmetered) {
+            sendFirstI();
+        }
+    }
+
+    // packages that can be in flight at once, the queue holds no more while there is a backlog
+    private int sendWindowSizeI() {
+        return (batchUploadEnabled ? MAX_BATCH_SIZE : 1) * maxInFlightRequests;
+    }
+
+    // moves packages from the backlog into the queue as the ones before them get sent
+    private void fillFromBacklogI() {
+        if (packageBacklog == null) {
+            return;
+        }
+
+        while (packageQueue.size() < sendWindowSizeI()) {
+            ActivityPackage activityPackage = packageBacklog.peek();
+            if (activityPackage == null) {
+                return;
+            }
+
+            packageQueue.add(activityPackage);
+            // journaled before it leaves the backlog, a crash in between sends it twice, not never
+            packageQueueJournal.append(activityPackage, packageQueue);
+            packageBacklog.removeFirst();
+        }
+    }
+
+    // rewrites the whole queue, only for changes that touch every package
     private void writePackageQueueI() {
-        Util.writeObject(packageQueue, context, PACKAGE_QUEUE_FILENAME, PACKAGE_QUEUE_NAME);
-        logger.debug("Package handler wrote %d packages", packageQueue.size());
+        if (packageQueueJournal.compact(packageQueue)) {
+            logger.debug("Package handler wrote %d packages", packageQueue.size());
+        }
     }
 
     public static Boolean deletePackageQueue(Context context) {
-        return context.deleteFile(PACKAGE_QUEUE_FILENAME);
+        boolean packageBacklogDeleted = PackageBacklog.delete(context);
+        return PackageQueueJournal.delete(context) || packageBacklogDeleted;
     }
 }
@@ -0,0 +1,363 @@
+package com.adjust.sdk;
+
+import android.content.Context;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only persistence for the package queue.
+ *
+ * Every added package is appended as a single record and every sent package is recorded
+ * as a small removal marker, so persisting one change does not depend on the queue size.
+ * The journal is rewritten from the in-memory queue once enough removals have piled up,
+ * after bulk updates and whenever a torn record is found while replaying it. When a rewrite
+ * fails, the next change rewrites the whole queue instead of appending to the journal.
+ *
+ * Record layout: [type:1][payload length:4][payload crc32:4][payload].
+ */
+class PackageQueueJournal {
+    private static final String JOURNAL_FILENAME = "AdjustIoPackageQueueJournal";
+    private static final String COMPACTION_FILENAME = "AdjustIoPackageQueueJournal.tmp";
+    private static final String LEGACY_QUEUE_FILENAME = "AdjustIoPackageQueue";
+    private static final String JOURNAL_NAME = "Package queue journal";
+    private static final String LEGACY_QUEUE_NAME = "Package queue";
+
+    private static final byte RECORD_ADD = 1;
+    private static final byte RECORD_REMOVE_FIRST = 2;
+    private static final byte RECORD_REMOVE_AT = 3;
+    private static final int RECORD_HEADER_SIZE = 9;
+    private static final int MAX_RECORD_PAYLOAD_SIZE = 1024 * 1024;
+    // removal records tolerated before the journal gets compacted, see shouldCompact
+    private static final int MIN_REMOVALS_BEFORE_COMPACTION = 32;
+
+    private Context context;
+    private ILogger logger;
+    private int removalsSinceCompaction;
+    // the journal on disk doesn't match the queue anymore, after a failed compaction
+    private boolean isCompactionPending;
+    // the legacy queue file is deleted once its packages are compacted into the journal
+    private boolean isMigrationPending;
+
+    PackageQueueJournal(Context context) {
+        this.context = context;
+        this.logger = AdjustFactory.getLogger();
+        this.removalsSinceCompaction = 0;
+        this.isCompactionPending = false;
+        this.isMigrationPending = false;
+    }
+
+    List<ActivityPackage> read() {
+        // the journal is only in place once a migration was compacted into it, so a legacy
+        //  file next to it is left over from a migration interrupted before deleting it
+        if (!context.getFileStreamPath(JOURNAL_FILENAME).exists()) {
+            List<ActivityPackage> legacyQueue = readLegacyQueue();
+            if (legacyQueue != null) {
+                logger.debug("Migrating %d packages from legacy %s file",
+                        legacyQueue.size(), LEGACY_QUEUE_NAME);
+                // kept until the queue is in the journal, a failed compaction leaves it to the
+                //  next change, which won't append to the journal before compacting it
+                isMigrationPending = true;
+                compact(legacyQueue);
+                return legacyQueue;
+            }
+        } else if (context.getFileStreamPath(LEGACY_QUEUE_FILENAME).exists()) {
+            logger.debug("Deleting legacy %s file, already migrated", LEGACY_QUEUE_NAME);
+            context.deleteFile(LEGACY_QUEUE_FILENAME);
+        }
+
+        List<ActivityPackage> packageQueue = new ArrayList<ActivityPackage>();
+        boolean isTorn = replay(packageQueue);
+
+        if (isTorn) {
+            logger.warn("%s had an incomplete record, rewriting it with %d packages",
+                    JOURNAL_NAME, packageQueue.size());
+            compact(packageQueue);
+        }
+
+        return packageQueue;
+    }
+
+    /**
+     * @param packageQueue Queue the package was added to
+     * @return true when the change was written
+     */
+    boolean append(ActivityPackage activityPackage, List<ActivityPackage> packageQueue) {
+        if (isCompactionPending) {
+            return compact(packageQueue);
+        }
+
+        byte[] payload = serialize(activityPackage);
+        if (payload == null) {
+            return false;
+        }
+        return appendRecord(RECORD_ADD, payload);
+    }
+
+    boolean removeFirst(List<ActivityPackage> remainingQueue) {
+        return remove(0, remainingQueue);
+    }
+
+    /**
+     * @return true when the change was written
+     */
+    boolean remove(int index, List<ActivityPackage> remainingQueue) {
+        removalsSinceCompaction++;
+
+        if (isCompactionPending || shouldCompact(remainingQueue.size())) {
+            return compact(remainingQueue);
+        }
+
+        if (index == 0) {
+            return appendRecord(RECORD_REMOVE_FIRST, new byte[0]);
+        }
+
+        byte[] payload = new byte[] {
+                (byte) (index >>> 24), (byte) (index >>> 16), (byte) (index >>> 8), (byte) index };
+        return appendRecord(RECORD_REMOVE_AT, payload);
+    }
+
+    boolean compact(List<ActivityPackage> packageQueue) {
+        FileOutputStream outputStream = null;
+        try {
+            outputStream = context.openFileOutput(COMPACTION_FILENAME, Context.MODE_PRIVATE);
+            DataOutputStream dataStream = new DataOutputStream(
+                    new BufferedOutputStream(outputStream));
+
+            for (ActivityPackage activityPackage : packageQueue) {
+                byte[] payload = serialize(activityPackage);
+                if (payload == null) {
+                    continue;
+                }
+                writeRecord(dataStream, RECORD_ADD, payload);
+            }
+            dataStream.flush();
+            outputStream.getFD().sync();
+            dataStream.close();
+            outputStream = null;
+        } catch (Exception e) {
+            logger.error("Failed to compact %s (%s)", JOURNAL_NAME, e.getMessage());
+            closeQuietly(outputStream);
+            context.deleteFile(COMPACTION_FILENAME);
+            isCompactionPending = true;
+            return false;
+        }
+
+        // rename is atomic, so a crash leaves either the old or the new journal in place
+        File compactedFile = context.getFileStreamPath(COMPACTION_FILENAME);
+        File journalFile = context.getFileStreamPath(JOURNAL_FILENAME);
+        if (!compactedFile.renameTo(journalFile)) {
+            logger.error("Failed to replace %s with its compacted version", JOURNAL_NAME);
+            context.deleteFile(COMPACTION_FILENAME);
+            isCompactionPending = true;
+            return false;
+        }
+
+        removalsSinceCompaction = 0;
+        isCompactionPending = false;
+        if (isMigrationPending) {
+            context.deleteFile(LEGACY_QUEUE_FILENAME);
+            isMigrationPending = false;
+        }
+        logger.debug("Package handler compacted queue journal with %d packages", packageQueue.size());
+        return true;
+    }
+
+    static boolean delete(Context context) {
+        boolean journalDeleted = context.deleteFile(JOURNAL_FILENAME);
+        boolean legacyDeleted = context.deleteFile(LEGACY_QUEUE_FILENAME);
+        context.deleteFile(COMPACTION_FILENAME);
+        return journalDeleted || legacyDeleted;
+    }
+
+    private boolean shouldCompact(int remainingQueueSize) {
+        // only rewrite when the removal markers outnumber the live packages,
+        //  which keeps the amortised cost of a removal constant
+        return removalsSinceCompaction >= MIN_REMOVALS_BEFORE_COMPACTION
+                && removalsSinceCompaction >= remainingQueueSize;
+    }
+
+    private List<ActivityPackage> readLegacyQueue() {
+        File legacyFile = context.getFileStreamPath(LEGACY_QUEUE_FILENAME);
+        if (legacyFile == null || !legacyFile.exists()) {
+            return null;
+        }
+
+        List<?> legacyObjects = null;
+        try {
+            legacyObjects = Util.readObject(context,
+                    LEGACY_QUEUE_FILENAME,
+                    LEGACY_QUEUE_NAME,
+                    List.class);
+        } catch (Exception e) {
+            logger.error("Failed to read %s file (%s)", LEGACY_QUEUE_NAME, e.getMessage());
+        }
+
+        if (legacyObjects == null) {
+            // nothing to migrate, but don't try to read it again next time
+            context.deleteFile(LEGACY_QUEUE_FILENAME);
+            return null;
+        }
+
+        List<ActivityPackage> legacyQueue = new ArrayList<ActivityPackage>(legacyObjects.size());
+        for (Object legacyObject : legacyObjects) {
+            if (legacyObject instanceof ActivityPackage) {
+                legacyQueue.add((ActivityPackage) legacyObject);
+            }
+        }
+        return legacyQueue;
+    }
+
+    // returns true when the journal ends with an incomplete or corrupted record
+    private boolean replay(List<ActivityPackage> packageQueue) {
+        DataInputStream dataStream = null;
+        int removalRecords = 0;
+        boolean isTorn = false;
+
+        try {
+            dataStream = new DataInputStream(
+                    new BufferedInputStream(context.openFileInput(JOURNAL_FILENAME)));
+
+            while (true) {
+                byte type;
+                try {
+                    type = dataStream.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                int length = dataStream.readInt();
+                long checksum = dataStream.readInt() & 0xFFFFFFFFL;
+                if (length < 0 || length > MAX_RECORD_PAYLOAD_SIZE) {
+                    isTorn = true;
+                    break;
+                }
+
+                byte[] payload = new byte[length];
+                dataStream.readFully(payload);
+
+                if (checksum(payload) != checksum) {
+                    isTorn = true;
+                    break;
+                }
+
+                if (type == RECORD_ADD) {
+                    ActivityPackage activityPackage = deserialize(payload);
+                    if (activityPackage == null) {
+                        isTorn = true;
+                        break;
+                    }
+                    packageQueue.add(activityPackage);
+                } else if (type == RECORD_REMOVE_FIRST) {
+                    removalRecords++;
+                    if (!packageQueue.isEmpty()) {
+                        packageQueue.remove(0);
+                    }
+                } else if (type == RECORD_REMOVE_AT && length == 4) {
+                    removalRecords++;
+                    int index = new DataInputStream(new ByteArrayInputStream(payload)).readInt();
+                    if (index >= 0 && index < packageQueue.size()) {
+                        packageQueue.remove(index);
+                    }
+                } else {
+                    isTorn = true;
+                    break;
+                }
+            }
+        } catch (FileNotFoundException e) {
+            logger.debug("%s file not found", JOURNAL_NAME);
+            return false;
+        } catch (EOFException e) {
+            // record header or payload cut short by a crash mid-write
+            isTorn = true;
+        } catch (Exception e) {
+            logger.error("Failed to read %s file (%s)", JOURNAL_NAME, e.getMessage());
+            isTorn = true;
+        } finally {
+            closeQuietly(dataStream);
+        }
+
+        removalsSinceCompaction = removalRecords;
+        logger.debug("Package handler read %d packages from queue journal", packageQueue.size());
+        return isTorn;
+    }
+
+    private boolean appendRecord(byte type, byte[] payload) {
+        FileOutputStream outputStream = null;
+        try {
+            ByteArrayOutputStream recordBytes =
+                    new ByteArrayOutputStream(RECORD_HEADER_SIZE + payload.length);
+            writeRecord(new DataOutputStream(recordBytes), type, payload);
+
+            outputStream = context.openFileOutput(JOURNAL_FILENAME, Context.MODE_APPEND);
+            // single write call, so a record is either fully on disk or cut at the tail
+            outputStream.write(recordBytes.toByteArray());
+            return true;
+        } catch (Exception e) {
+            logger.error("Failed to append to %s (%s)", JOURNAL_NAME, e.getMessage());
+            isCompactionPending = true;
+            return false;
+        } finally {
+            closeQuietly(outputStream);
+        }
+    }
+
+    private static void writeRecord(DataOutputStream dataStream, byte type, byte[] payload)
+            throws IOException
+    {
+        dataStream.writeByte(type);
+        dataStream.writeInt(payload.length);
+        dataStream.writeInt((int) checksum(payload));
+        dataStream.write(payload);
+        dataStream.flush();
+    }
+
+    private static long checksum(byte[] payload) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(payload, 0, payload.length);
+        return crc32.getValue();
+    }
+
+    private byte[] serialize(ActivityPackage activityPackage) {
+        try {
+            return PersistenceCodec.encodeActivityPackage(activityPackage);
+        } catch (Exception e) {
+            logger.error("Failed to serialize %s (%s)", activityPackage, e.getMessage());
+            return null;
+        }
+    }
+
+    // records written by earlier versions hold Java serialized packages
+    private ActivityPackage deserialize(byte[] payload) {
+        try {
+            return PersistenceCodec.decodeActivityPackage(payload);
+        } catch (Exception e) {
+            logger.error("Failed to deserialize package from %s (%s)", JOURNAL_NAME, e.getMessage());
+            return null;
+        }
+    }
+
+    private void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            logger.error("Failed to close %s file (%s)", JOURNAL_NAME, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,508 @@
+package com.adjust.sdk;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static com.adjust.sdk.Constants.ENCODING;
+
+/**
+ * Binary format used to persist activity packages and the activity state, in place of
+ * the Java serialization which writes class descriptors and boxed maps.
+ *
+ * Layout: [magic:2][version:varint] followed by fields as [tag:varint][value], where the
+ * tag holds the field number and how its value is written. Readers skip fields they don't
+ * know, so fields can be added without a new version. Numbers are varints, negative ones
+ * zigzag encoded, strings are UTF-8 with their length in front and parameter keys known
+ * in advance are written as their index in PARAMETER_KEYS.
+ *
+ * Data written with Java serialization is still read, it starts with its own magic.
+ */
+final class PersistenceCodec {
+    private static final int MAGIC_FIRST = 0xAD;
+    private static final int MAGIC_SECOND = 0x4A;
+    private static final int JAVA_SERIALIZATION_MAGIC_FIRST = 0xAC;
+    private static final int JAVA_SERIALIZATION_MAGIC_SECOND = 0xED;
+    private static final int VERSION = 1;
+
+    private static final int WIRE_TYPE_VARINT = 0;
+    private static final int WIRE_TYPE_LENGTH_DELIMITED = 2;
+    private static final int WIRE_TYPE_BITS = 3;
+    private static final int WIRE_TYPE_MASK = (1 << WIRE_TYPE_BITS) - 1;
+
+    // activity package fields, never reuse a number
+    private static final int PACKAGE_PATH = 1;
+    private static final int PACKAGE_CLIENT_SDK = 2;
+    private static final int PACKAGE_PARAMETERS = 3;
+    private static final int PACKAGE_ACTIVITY_KIND = 4;
+    private static final int PACKAGE_SUFFIX = 5;
+    private static final int PACKAGE_CALLBACK_PARAMETERS = 6;
+    private static final int PACKAGE_PARTNER_PARAMETERS = 7;
+
+    // activity state fields, never reuse a number
+    private static final int STATE_UUID = 1;
+    private static final int STATE_ENABLED = 2;
+    private static final int STATE_IS_GDPR_FORGOTTEN = 3;
+    private static final int STATE_IS_THIRD_PARTY_SHARING_DISABLED = 4;
+    private static final int STATE_ASKING_ATTRIBUTION = 5;
+    private static final int STATE_EVENT_COUNT = 6;
+    private static final int STATE_SESSION_COUNT = 7;
+    private static final int STATE_SUBSESSION_COUNT = 8;
+    private static final int STATE_SESSION_LENGTH = 9;
+    private static final int STATE_TIME_SPENT = 10;
+    private static final int STATE_LAST_ACTIVITY = 11;
+    private static final int STATE_LAST_INTERVAL = 12;
+    private static final int STATE_UPDATE_PACKAGES = 13;
+    private static final int STATE_ORDER_IDS = 14;
+    private static final int STATE_PUSH_TOKEN = 15;
+    private static final int STATE_ADID = 16;
+    private static final int STATE_CLICK_TIME = 17;
+    private static final int STATE_INSTALL_BEGIN = 18;
+    private static final int STATE_INSTALL_REFERRER = 19;
+    private static final int STATE_GOOGLE_PLAY_INSTANT = 20;
+    private static final int STATE_CLICK_TIME_SERVER = 21;
+    private static final int STATE_INSTALL_BEGIN_SERVER = 22;
+    private static final int STATE_INSTALL_VERSION = 23;
+    private static final int STATE_CLICK_TIME_HUAWEI = 24;
+    private static final int STATE_INSTALL_BEGIN_HUAWEI = 25;
+    private static final int STATE_INSTALL_REFERRER_HUAWEI = 26;
+
+    // written as their index + 1, 0 is followed by the key itself. Only append to this list,
+    //  the index of a key is part of the format. Readers skip the entries of indexes past the
+    //  end of their list, appended by a newer version
+    private static final String[] PARAMETER_KEYS = {
+            "callback_params", "partner_params", "android_uuid", "gps_adid", "gps_adid_attempt",
+            "gps_adid_src", "tracking_enabled", "fire_adid", "fire_tracking_enabled", "android_id",
+            "mac_md5", "mac_sha1", "api_level", "app_secret", "app_token",
+            "app_version", "attribution_deeplink", "connectivity_type", "country", "cpu_type",
+            "created_at", "default_tracker", "device_known", "needs_cost", "device_manufacturer",
+            "device_name", "device_type", "display_height", "display_width", "environment",
+            "event_buffering_enabled", "external_device_id", "fb_id", "hardware_name", "installed_at",
+            "language", "last_interval", "mcc", "mnc", "needs_response_details",
+            "network_type", "os_build", "os_name", "os_version", "package_name",
+            "push_token", "screen_density", "screen_format", "screen_size", "secret_id",
+            "session_count", "session_length", "subsession_count", "time_spent", "updated_at",
+            "currency", "event_callback_id", "event_count", "event_token", "revenue",
+            "source", "tracker", "campaign", "adgroup", "creative",
+            "click_time", "click_time_server", "deeplink", "google_play_instant", "install_begin_time",
+            "install_begin_time_server", "install_version", "params", "raw_referrer", "referrer",
+            "referrer_api", "reftag", "payload", "found_location", "initiated_by",
+            "sharing", "granular_third_party_sharing_options", "measurement", "ad_impressions_count", "ad_revenue_network",
+            "ad_revenue_unit", "ad_revenue_placement", "billing_store", "product_id", "purchase_token",
+            "receipt", "transaction_date", "transaction_id", "sent_at", "oaid",
+            "oaid_src", "imei", "meid", "device_id",
+    };
+
+    private static final Map<String, Integer> PARAMETER_KEY_INDEXES;
+    static {
+        PARAMETER_KEY_INDEXES = new HashMap<String, Integer>(PARAMETER_KEYS.length * 2);
+        for (int i = 0; i < PARAMETER_KEYS.length; i++) {
+            PARAMETER_KEY_INDEXES.put(PARAMETER_KEYS[i], i + 1);
+        }
+    }
+
+    private PersistenceCodec() {
+    }
+
+    static byte[] encodeActivityPackage(ActivityPackage activityPackage) throws IOException {
+        Writer writer = new Writer();
+        writer.writeString(PACKAGE_PATH, activityPackage.getPath());
+        writer.writeString(PACKAGE_CLIENT_SDK, activityPackage.getClientSdk());
+        writer.writeMap(PACKAGE_PARAMETERS, activityPackage.getParameters());
+        if (activityPackage.getActivityKind() != null) {
+            writer.writeString(PACKAGE_ACTIVITY_KIND, activityPackage.getActivityKind().name());
+        }
+        writer.writeString(PACKAGE_SUFFIX, activityPackage.getSuffix());
+        writer.writeMap(PACKAGE_CALLBACK_PARAMETERS, activityPackage.getCallbackParameters());
+        writer.writeMap(PACKAGE_PARTNER_PARAMETERS, activityPackage.getPartnerParameters());
+        return writer.toByteArray();
+    }
+
+    static ActivityPackage decodeActivityPackage(byte[] bytes) throws IOException {
+        if (isJavaSerialization(bytes)) {
+            return readJavaSerialization(bytes, ActivityPackage.class);
+        }
+
+        Reader reader = new Reader(bytes);
+        String path = null;
+        String clientSdk = null;
+        Map<String, String> parameters = null;
+        ActivityKind activityKind = ActivityKind.UNKNOWN;
+        String suffix = null;
+        Map<String, String> callbackParameters = null;
+        Map<String, String> partnerParameters = null;
+
+        while (reader.hasRemaining()) {
+            int tag = reader.readVarint();
+            switch (tag >>> WIRE_TYPE_BITS) {
+                case PACKAGE_PATH: path = reader.readString(); break;
+                case PACKAGE_CLIENT_SDK: clientSdk = reader.readString(); break;
+                case PACKAGE_PARAMETERS: parameters = reader.readMap(); break;
+                case PACKAGE_ACTIVITY_KIND: activityKind = activityKindOf(reader.readString()); break;
+                case PACKAGE_SUFFIX: suffix = reader.readString(); break;
+                case PACKAGE_CALLBACK_PARAMETERS: callbackParameters = reader.readMap(); break;
+                case PACKAGE_PARTNER_PARAMETERS: partnerParameters = reader.readMap(); break;
+                default: reader.skip(tag); break;
+            }
+        }
+
+        ActivityPackage activityPackage = new ActivityPackage(activityKind);
+        activityPackage.setPath(path);
+        activityPackage.setClientSdk(clientSdk);
+        activityPackage.setParameters(parameters);
+        activityPackage.setSuffix(suffix);
+        activityPackage.setCallbackParameters(callbackParameters);
+        activityPackage.setPartnerParameters(partnerParameters);
+        return activityPackage;
+    }
+
+    static byte[] encodeActivityState(ActivityState activityState) throws IOException {
+        Writer writer = new Writer();
+        writer.writeString(STATE_UUID, activityState.uuid);
+        writer.writeBoolean(STATE_ENABLED, activityState.enabled);
+        writer.writeBoolean(STATE_IS_GDPR_FORGOTTEN, activityState.isGdprForgotten);
+        writer.writeBoolean(STATE_IS_THIRD_PARTY_SHARING_DISABLED,
+                activityState.isThirdPartySharingDisabled);
+        writer.writeBoolean(STATE_ASKING_ATTRIBUTION, activityState.askingAttribution);
+        writer.writeLong(STATE_EVENT_COUNT, activityState.eventCount);
+        writer.writeLong(STATE_SESSION_COUNT, activityState.sessionCount);
+        writer.writeLong(STATE_SUBSESSION_COUNT, activityState.subsessionCount);
+        writer.writeLong(STATE_SESSION_LENGTH, activityState.sessionLength);
+        writer.writeLong(STATE_TIME_SPENT, activityState.timeSpent);
+        writer.writeLong(STATE_LAST_ACTIVITY, activityState.lastActivity);
+        writer.writeLong(STATE_LAST_INTERVAL, activityState.lastInterval);
+        writer.writeBoolean(STATE_UPDATE_PACKAGES, activityState.updatePackages);
+        writer.writeList(STATE_ORDER_IDS, activityState.orderIds);
+        writer.writeString(STATE_PUSH_TOKEN, activityState.pushToken);
+        writer.writeString(STATE_ADID, activityState.adid);
+        writer.writeLong(STATE_CLICK_TIME, activityState.clickTime);
+        writer.writeLong(STATE_INSTALL_BEGIN, activityState.installBegin);
+        writer.writeString(STATE_INSTALL_REFERRER, activityState.installReferrer);
+        if (activityState.googlePlayInstant != null) {
+            writer.writeBoolean(STATE_GOOGLE_PLAY_INSTANT, activityState.googlePlayInstant);
+        }
+        writer.writeLong(STATE_CLICK_TIME_SERVER, activityState.clickTimeServer);
+        writer.writeLong(STATE_INSTALL_BEGIN_SERVER, activityState.installBeginServer);
+        writer.writeString(STATE_INSTALL_VERSION, activityState.installVersion);
+        writer.writeLong(STATE_CLICK_TIME_HUAWEI, activityState.clickTimeHuawei);
+        writer.writeLong(STATE_INSTALL_BEGIN_HUAWEI, activityState.installBeginHuawei);
+        writer.writeString(STATE_INSTALL_REFERRER_HUAWEI, activityState.installReferrerHuawei);
+        return writer.toByteArray();
+    }
+
+    static ActivityState decodeActivityState(byte[] bytes) throws IOException {
+        if (isJavaSerialization(bytes)) {
+            return readJavaSerialization(bytes, ActivityState.class);
+        }
+
+        Reader reader = new Reader(bytes);
+        // fields missing from the data keep the defaults of a new activity state
+        ActivityState activityState = new ActivityState(null);
+
+        while (reader.hasRemaining()) {
+            int tag = reader.readVarint();
+            switch (tag >>> WIRE_TYPE_BITS) {
+                case STATE_UUID: activityState.uuid = reader.readString(); break;
+                case STATE_ENABLED: activityState.enabled = reader.readBoolean(); break;
+                case STATE_IS_GDPR_FORGOTTEN: activityState.isGdprForgotten = reader.readBoolean(); break;
+                case STATE_IS_THIRD_PARTY_SHARING_DISABLED: activityState.isThirdPartySharingDisabled = reader.readBoolean(); break;
+                case STATE_ASKING_ATTRIBUTION: activityState.askingAttribution = reader.readBoolean(); break;
+                case STATE_EVENT_COUNT: activityState.eventCount = (int) reader.readLong(); break;
+                case STATE_SESSION_COUNT: activityState.sessionCount = (int) reader.readLong(); break;
+                case STATE_SUBSESSION_COUNT: activityState.subsessionCount = (int) reader.readLong(); break;
+                case STATE_SESSION_LENGTH: activityState.sessionLength = reader.readLong(); break;
+                case STATE_TIME_SPENT: activityState.timeSpent = reader.readLong(); break;
+                case STATE_LAST_ACTIVITY: activityState.lastActivity = reader.readLong(); break;
+                case STATE_LAST_INTERVAL: activityState.lastInterval = reader.readLong(); break;
+                case STATE_UPDATE_PACKAGES: activityState.updatePackages = reader.readBoolean(); break;
+                case STATE_ORDER_IDS: activityState.orderIds = reader.readList(); break;
+                case STATE_PUSH_TOKEN: activityState.pushToken = reader.readString(); break;
+                case STATE_ADID: activityState.adid = reader.readString(); break;
+                case STATE_CLICK_TIME: activityState.clickTime = reader.readLong(); break;
+                case STATE_INSTALL_BEGIN: activityState.installBegin = reader.readLong(); break;
+                case STATE_INSTALL_REFERRER: activityState.installReferrer = reader.readString(); break;
+                case STATE_GOOGLE_PLAY_INSTANT: activityState.googlePlayInstant = reader.readBoolean(); break;
+                case STATE_CLICK_TIME_SERVER: activityState.clickTimeServer = reader.readLong(); break;
+                case STATE_INSTALL_BEGIN_SERVER: activityState.installBeginServer = reader.readLong(); break;
+                case STATE_INSTALL_VERSION: activityState.installVersion = reader.readString(); break;
+                case STATE_CLICK_TIME_HUAWEI: activityState.clickTimeHuawei = reader.readLong(); break;
+                case STATE_INSTALL_BEGIN_HUAWEI: activityState.installBeginHuawei = reader.readLong(); break;
+                case STATE_INSTALL_REFERRER_HUAWEI: activityState.installReferrerHuawei = reader.readString(); break;
+                default: reader.skip(tag); break;
+            }
+        }
+
+        if (activityState.uuid == null) {
+            activityState.uuid = Util.createUuid();
+        }
+        return activityState;
+    }
+
+    static boolean isJavaSerialization(byte[] bytes) {
+        return bytes.length >= 2
+                && (bytes[0] & 0xFF) == JAVA_SERIALIZATION_MAGIC_FIRST
+                && (bytes[1] & 0xFF) == JAVA_SERIALIZATION_MAGIC_SECOND;
+    }
+
+    private static <T> T readJavaSerialization(byte[] bytes, Class<T> type) throws IOException {
+        ObjectInputStream objectStream = new ObjectInputStream(new ByteArrayInputStream(bytes));
+        try {
+            return type.cast(objectStream.readObject());
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e.getMessage());
+        } catch (ClassCastException e) {
+            throw new IOException(e.getMessage());
+        } finally {
+            objectStream.close();
+        }
+    }
+
+    private static ActivityKind activityKindOf(String name) {
+        try {
+            return ActivityKind.valueOf(name);
+        } catch (Exception e) {
+            return ActivityKind.UNKNOWN;
+        }
+    }
+
+    private static final class Writer {
+        private final ByteArrayOutputStream byteStream;
+
+        Writer() {
+            byteStream = new ByteArrayOutputStream(256);
+            byteStream.write(MAGIC_FIRST);
+            byteStream.write(MAGIC_SECOND);
+            writeVarint(byteStream, VERSION);
+        }
+
+        byte[] toByteArray() {
+            return byteStream.toByteArray();
+        }
+
+        void writeBoolean(int field, boolean value) {
+            writeVarint(byteStream, field << WIRE_TYPE_BITS | WIRE_TYPE_VARINT);
+            byteStream.write(value ? 1 : 0);
+        }
+
+        void writeLong(int field, long value) {
+            writeVarint(byteStream, field << WIRE_TYPE_BITS | WIRE_TYPE_VARINT);
+            // zigzag, so that the frequent -1 takes a single byte
+            writeVarint(byteStream, (value << 1) ^ (value >> 63));
+        }
+
+        void writeString(int field, String value) throws UnsupportedEncodingException {
+            if (value == null) {
+                return;
+            }
+            writeVarint(byteStream, field << WIRE_TYPE_BITS | WIRE_TYPE_LENGTH_DELIMITED);
+            writeBytes(byteStream, value.getBytes(ENCODING));
+        }
+
+        // [count:varint] then per entry [key index or 0 + key][nullable value]
+        void writeMap(int field, Map<String, String> map) throws UnsupportedEncodingException {
+            if (map == null) {
+                return;
+            }
+            ByteArrayOutputStream mapStream = new ByteArrayOutputStream(map.size() * 24 + 1);
+            writeVarint(mapStream, map.size());
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                Integer keyIndex = PARAMETER_KEY_INDEXES.get(entry.getKey());
+                if (keyIndex != null) {
+                    writeVarint(mapStream, keyIndex);
+                } else {
+                    writeVarint(mapStream, 0);
+                    writeNullableString(mapStream, entry.getKey());
+                }
+                writeNullableString(mapStream, entry.getValue());
+            }
+            writeVarint(byteStream, field << WIRE_TYPE_BITS | WIRE_TYPE_LENGTH_DELIMITED);
+            writeBytes(byteStream, mapStream.toByteArray());
+        }
+
+        // [count:varint] then the nullable elements
+        void writeList(int field, List<String> list) throws UnsupportedEncodingException {
+            if (list == null) {
+                return;
+            }
+            ByteArrayOutputStream listStream = new ByteArrayOutputStream(list.size() * 16 + 1);
+            writeVarint(listStream, list.size());
+            for (String element : list) {
+                writeNullableString(listStream, element);
+            }
+            writeVarint(byteStream, field << WIRE_TYPE_BITS | WIRE_TYPE_LENGTH_DELIMITED);
+            writeBytes(byteStream, listStream.toByteArray());
+        }
+
+        // length + 1, with 0 for null
+        private static void writeNullableString(ByteArrayOutputStream stream, String value)
+                throws UnsupportedEncodingException
+        {
+            if (value == null) {
+                writeVarint(stream, 0);
+                return;
+            }
+            byte[] bytes = value.getBytes(ENCODING);
+            writeVarint(stream, bytes.length + 1);
+            stream.write(bytes, 0, bytes.length);
+        }
+
+        private static void writeBytes(ByteArrayOutputStream stream, byte[] bytes) {
+            writeVarint(stream, bytes.length);
+            stream.write(bytes, 0, bytes.length);
+        }
+
+        private static void writeVarint(ByteArrayOutputStream stream, long value) {
+            while ((value & ~0x7FL) != 0) {
+                stream.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            stream.write((int) value);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+        private int limit;
+
+        Reader(byte[] bytes) throws IOException {
+            this.bytes = bytes;
+            this.position = 0;
+            this.limit = bytes.length;
+
+            if (bytes.length < 2
+                    || (bytes[0] & 0xFF) != MAGIC_FIRST
+                    || (bytes[1] & 0xFF) != MAGIC_SECOND)
+            {
+                throw new IOException("Unknown format");
+            }
+            position = 2;
+
+            // versions only change for incompatible layouts, new fields don't need one
+            long version = readVarintLong();
+            if (version != VERSION) {
+                throw new IOException("Unknown format version " + version);
+            }
+        }
+
+        boolean hasRemaining() {
+            return position < limit;
+        }
+
+        int readVarint() throws IOException {
+            return (int) readVarintLong();
+        }
+
+        boolean readBoolean() throws IOException {
+            return readVarintLong() != 0;
+        }
+
+        long readLong() throws IOException {
+            long zigzag = readVarintLong();
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        String readString() throws IOException {
+            int length = readLength();
+            String value = new String(bytes, position, length, ENCODING);
+            position += length;
+            return value;
+        }
+
+        Map<String, String> readMap() throws IOException {
+            int end = readLength() + position;
+            int count = readVarint();
+            Map<String, String> map = new LinkedHashMap<String, String>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                int keyIndex = readVarint();
+                String key;
+                if (keyIndex == 0) {
+                    key = readNullableString();
+                } else if (keyIndex > 0 && keyIndex <= PARAMETER_KEYS.length) {
+                    key = PARAMETER_KEYS[keyIndex - 1];
+                } else {
+                    // key appended by a newer version, its parameter is dropped instead of
+                    //  the whole package, as after a downgrade
+                    readNullableString();
+                    continue;
+                }
+                map.put(key, readNullableString());
+            }
+            position = end;
+            return map;
+        }
+
+        LinkedList<String> readList() throws IOException {
+            int end = readLength() + position;
+            int count = readVarint();
+            LinkedList<String> list = new LinkedList<String>();
+            for (int i = 0; i < count; i++) {
+                list.add(readNullableString());
+            }
+            position = end;
+            return list;
+        }
+
+        // field written by a newer version
+        void skip(int tag) throws IOException {
+            switch (tag & WIRE_TYPE_MASK) {
+                case WIRE_TYPE_VARINT:
+                    readVarintLong();
+                    break;
+                case WIRE_TYPE_LENGTH_DELIMITED:
+                    int length = readLength();
+                    position += length;
+                    break;
+                default:
+                    throw new IOException("Unknown wire type " + (tag & WIRE_TYPE_MASK));
+            }
+        }
+
+        private String readNullableString() throws IOException {
+            int lengthPlusOne = readVarint();
+            if (lengthPlusOne == 0) {
+                return null;
+            }
+            int length = lengthPlusOne - 1;
+            checkRemaining(length);
+            String value = new String(bytes, position, length, ENCODING);
+            position += length;
+            return value;
+        }
+
+        private int readLength() throws IOException {
+            int length = readVarint();
+            checkRemaining(length);
+            return length;
+        }
+
+        private void checkRemaining(int length) throws IOException {
+            if (length < 0 || length > limit - position) {
+                throw new EOFException();
+            }
+        }
+
+        private long readVarintLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= limit) {
+                    throw new EOFException();
+                }
+                int b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+    }
+}
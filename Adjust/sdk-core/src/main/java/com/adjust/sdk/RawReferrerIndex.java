@@ -0,0 +1,331 @@
+package com.adjust.sdk;
+
+import android.content.SharedPreferences;
+
+import com.adjust.sdk.scheduler.SingleThreadCachedScheduler;
+import com.adjust.sdk.scheduler.ThreadExecutor;
+
+import org.json.JSONArray;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Saved raw referrers kept in memory, in the order they were saved, and looked up by
+ * referrer and click time.
+ *
+ * Changes are written to the shared preferences in the background, several changes in a row
+ * being written once. The referrers are read from the shared preferences only once per
+ * process, including the ones saved as JSON by earlier versions.
+ */
+class RawReferrerIndex {
+    /**
+     * Key name for referrers, saved in a length prefixed format.
+     */
+    static final String PREFS_KEY_RAW_REFERRER_INDEX = "raw_referrer_index";
+
+    /**
+     * Key name for referrers saved as JSON by earlier versions.
+     */
+    static final String PREFS_KEY_RAW_REFERRERS = "raw_referrers";
+
+    /**
+     * Number of persisted referrers.
+     */
+    static final int REFERRERS_COUNT = 10;
+
+    // one index per preferences, which are a single instance per name in the process
+    private static final Map<SharedPreferences, RawReferrerIndex> indexes =
+            new WeakHashMap<SharedPreferences, RawReferrerIndex>();
+
+    private final SharedPreferences sharedPreferences;
+    private final LinkedHashMap<Key, RawReferrer> rawReferrers;
+    private final ThreadExecutor writer;
+    private boolean isWriteScheduled;
+
+    static final class RawReferrer {
+        final String rawReferrer;
+        final long clickTime;
+        boolean isSending;
+
+        RawReferrer(final String rawReferrer, final long clickTime, final boolean isSending) {
+            this.rawReferrer = rawReferrer;
+            this.clickTime = clickTime;
+            this.isSending = isSending;
+        }
+    }
+
+    private static final class Key {
+        private final String rawReferrer;
+        private final long clickTime;
+
+        Key(final String rawReferrer, final long clickTime) {
+            this.rawReferrer = rawReferrer;
+            this.clickTime = clickTime;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key otherKey = (Key) other;
+            return clickTime == otherKey.clickTime
+                    && Util.equalString(rawReferrer, otherKey.rawReferrer);
+        }
+
+        @Override
+        public int hashCode() {
+            int hashCode = 17;
+            hashCode = 37 * hashCode + Util.hashString(rawReferrer);
+            hashCode = 37 * hashCode + Util.hashLong(clickTime);
+            return hashCode;
+        }
+    }
+
+    static RawReferrerIndex getInstance(final SharedPreferences sharedPreferences) {
+        synchronized (indexes) {
+            RawReferrerIndex index = indexes.get(sharedPreferences);
+            if (index == null) {
+                index = new RawReferrerIndex(sharedPreferences);
+                indexes.put(sharedPreferences, index);
+            }
+            return index;
+        }
+    }
+
+    private RawReferrerIndex(final SharedPreferences sharedPreferences) {
+        this.sharedPreferences = sharedPreferences;
+        this.rawReferrers = new LinkedHashMap<Key, RawReferrer>();
+        this.writer = new SingleThreadCachedScheduler("RawReferrerIndex");
+
+        read();
+    }
+
+    synchronized boolean contains(final String rawReferrer, final long clickTime) {
+        return rawReferrers.containsKey(new Key(rawReferrer, clickTime));
+    }
+
+    synchronized boolean isEmpty() {
+        return rawReferrers.isEmpty();
+    }
+
+    /**
+     * @return false if the referrer was saved already or there is no room for it
+     */
+    synchronized boolean add(final String rawReferrer, final long clickTime) {
+        Key key = new Key(rawReferrer, clickTime);
+        if (rawReferrers.containsKey(key) || rawReferrers.size() >= REFERRERS_COUNT) {
+            return false;
+        }
+
+        rawReferrers.put(key, new RawReferrer(rawReferrer, clickTime, false));
+        scheduleWrite();
+        return true;
+    }
+
+    synchronized void remove(final String rawReferrer, final long clickTime) {
+        if (rawReferrers.remove(new Key(rawReferrer, clickTime)) != null) {
+            scheduleWrite();
+        }
+    }
+
+    /**
+     * Marks the referrers not being sent yet as being sent.
+     *
+     * @return The marked referrers
+     */
+    synchronized List<RawReferrer> markNotSendingAsSending() {
+        List<RawReferrer> marked = new ArrayList<RawReferrer>();
+        for (RawReferrer rawReferrer : rawReferrers.values()) {
+            if (!rawReferrer.isSending) {
+                rawReferrer.isSending = true;
+                marked.add(copyOf(rawReferrer));
+            }
+        }
+        if (!marked.isEmpty()) {
+            scheduleWrite();
+        }
+        return marked;
+    }
+
+    synchronized void markSendingAsNotSending() {
+        boolean hasChanged = false;
+        for (RawReferrer rawReferrer : rawReferrers.values()) {
+            if (rawReferrer.isSending) {
+                rawReferrer.isSending = false;
+                hasChanged = true;
+            }
+        }
+        if (hasChanged) {
+            scheduleWrite();
+        }
+    }
+
+    synchronized RawReferrer get(final String rawReferrer, final long clickTime) {
+        RawReferrer saved = rawReferrers.get(new Key(rawReferrer, clickTime));
+        return saved != null ? copyOf(saved) : null;
+    }
+
+    synchronized List<RawReferrer> getAll() {
+        List<RawReferrer> all = new ArrayList<RawReferrer>(rawReferrers.size());
+        for (RawReferrer rawReferrer : rawReferrers.values()) {
+            all.add(copyOf(rawReferrer));
+        }
+        return all;
+    }
+
+    synchronized void replaceAll(final List<RawReferrer> replacements) {
+        rawReferrers.clear();
+        for (RawReferrer rawReferrer : replacements) {
+            if (rawReferrers.size() >= REFERRERS_COUNT) {
+                break;
+            }
+            rawReferrers.put(new Key(rawReferrer.rawReferrer, rawReferrer.clickTime),
+                    copyOf(rawReferrer));
+        }
+        scheduleWrite();
+    }
+
+    /**
+     * Forgets the referrers after the preferences were cleared, without writing.
+     */
+    synchronized void clear() {
+        rawReferrers.clear();
+    }
+
+    // only the latest state is written, when the writer gets to it
+    private void scheduleWrite() {
+        if (isWriteScheduled) {
+            return;
+        }
+        isWriteScheduled = true;
+
+        writer.submit(new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        });
+    }
+
+    private void write() {
+        String encoded;
+        synchronized (this) {
+            isWriteScheduled = false;
+            encoded = rawReferrers.isEmpty() ? null : encode(rawReferrers.values());
+        }
+
+        try {
+            SharedPreferences.Editor editor = sharedPreferences.edit();
+            if (encoded == null) {
+                editor.remove(PREFS_KEY_RAW_REFERRER_INDEX);
+            } else {
+                editor.putString(PREFS_KEY_RAW_REFERRER_INDEX, encoded);
+            }
+            // migrated on the first read
+            editor.remove(PREFS_KEY_RAW_REFERRERS);
+            editor.apply();
+        } catch (Throwable t) {
+            AdjustFactory.getLogger().error("Failed to save raw referrers (%s)", t.getMessage());
+        }
+    }
+
+    private void read() {
+        String encoded = getString(PREFS_KEY_RAW_REFERRER_INDEX);
+        if (encoded != null) {
+            decode(encoded);
+            return;
+        }
+
+        String legacyJson = getString(PREFS_KEY_RAW_REFERRERS);
+        if (legacyJson != null) {
+            readLegacyJson(legacyJson);
+            scheduleWrite();
+        }
+    }
+
+    private String getString(final String key) {
+        try {
+            return sharedPreferences.getString(key, null);
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    // [[raw referrer, click time, is sending as 0 or 1], ...]
+    private void readLegacyJson(final String legacyJson) {
+        try {
+            JSONArray rawReferrerArray = new JSONArray(legacyJson);
+            for (int i = 0; i < rawReferrerArray.length(); i++) {
+                if (rawReferrers.size() >= REFERRERS_COUNT) {
+                    break;
+                }
+                JSONArray savedRawReferrer = rawReferrerArray.optJSONArray(i);
+                if (savedRawReferrer == null) {
+                    continue;
+                }
+                String rawReferrer = savedRawReferrer.optString(0, null);
+                long clickTime = savedRawReferrer.optLong(1, -1);
+                boolean isSending = savedRawReferrer.optInt(2, -1) == 1;
+                if (rawReferrer == null) {
+                    continue;
+                }
+                rawReferrers.put(new Key(rawReferrer, clickTime),
+                        new RawReferrer(rawReferrer, clickTime, isSending));
+            }
+        } catch (Throwable t) {
+            AdjustFactory.getLogger().error("Failed to read saved raw referrers (%s)",
+                    t.getMessage());
+        }
+    }
+
+    // each referrer as "<is sending>,<click time>,<length>:<raw referrer>"
+    static String encode(final Iterable<RawReferrer> rawReferrers) {
+        StringBuilder builder = new StringBuilder();
+        for (RawReferrer rawReferrer : rawReferrers) {
+            builder.append(rawReferrer.isSending ? '1' : '0')
+                    .append(',')
+                    .append(rawReferrer.clickTime)
+                    .append(',')
+                    .append(rawReferrer.rawReferrer.length())
+                    .append(':')
+                    .append(rawReferrer.rawReferrer);
+        }
+        return builder.toString();
+    }
+
+    private void decode(final String encoded) {
+        int position = 0;
+        try {
+            while (position < encoded.length() && rawReferrers.size() < REFERRERS_COUNT) {
+                boolean isSending = encoded.charAt(position) == '1';
+                int clickTimeEnd = encoded.indexOf(',', position + 2);
+                long clickTime = Long.parseLong(encoded.substring(position + 2, clickTimeEnd));
+                int lengthEnd = encoded.indexOf(':', clickTimeEnd + 1);
+                int length = Integer.parseInt(encoded.substring(clickTimeEnd + 1, lengthEnd));
+                String rawReferrer = encoded.substring(lengthEnd + 1, lengthEnd + 1 + length);
+                position = lengthEnd + 1 + length;
+
+                rawReferrers.put(new Key(rawReferrer, clickTime),
+                        new RawReferrer(rawReferrer, clickTime, isSending));
+            }
+        } catch (Throwable t) {
+            // keep what was read before the damaged part
+            AdjustFactory.getLogger().error("Failed to read saved raw referrers (%s)",
+                    t.getMessage());
+        }
+    }
+
+    private static RawReferrer copyOf(final RawReferrer rawReferrer) {
+        return new RawReferrer(rawReferrer.rawReferrer,
+                rawReferrer.clickTime,
+                rawReferrer.isSending);
+    }
+}
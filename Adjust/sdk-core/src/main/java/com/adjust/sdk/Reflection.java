@@ -8,6 +8,8 @@ import java.lang.reflect.Method;
 import java.util.Map;
 
 public class Reflection {
+    private static final Class<?>[] PLUGIN_PARAMETER_TYPES = new Class<?>[]{Context.class, ILogger.class};
+
     public static Object getAdvertisingInfoObject(Context context) throws Exception {
         return invokeStaticMethod("com.google.android.gms.ads.identifier.AdvertisingIdClient", "getAdvertisingIdInfo", new Class[]{Context.class}, context);
     }
@@ -15,7 +17,7 @@ public class Reflection {
     static Map<String, String> getImeiParameters(Context context, ILogger logger) {
         Object nonPlayParameters = null;
         try {
-            nonPlayParameters = invokeStaticMethod("com.adjust.sdk.imei.Util", "getImeiParameters", new Class[]{Context.class, ILogger.class}, context, logger);
+            nonPlayParameters = invokeStaticMethod("com.adjust.sdk.imei.Util", "getImeiParameters", PLUGIN_PARAMETER_TYPES, context, logger);
             Class<Map<String, String>> stringStringMapClass = (Class<Map<String, String>>) (Class) Map.class;
             if (nonPlayParameters != null && stringStringMapClass.isInstance(nonPlayParameters)) {
                 return (Map<String, String>) nonPlayParameters;
@@ -28,7 +30,7 @@ public class Reflection {
     static Map<String, String> getOaidParameters(Context context, ILogger logger) {
         Object oaidParameters = null;
         try {
-            oaidParameters = invokeStaticMethod("com.adjust.sdk.oaid.Util", "getOaidParameters", new Class[]{Context.class, ILogger.class}, context, logger);
+            oaidParameters = invokeStaticMethod("com.adjust.sdk.oaid.Util", "getOaidParameters", PLUGIN_PARAMETER_TYPES, context, logger);
             Class<Map<String, String>> stringStringMapClass = (Class<Map<String, String>>) (Class) Map.class;
             if (oaidParameters != null && stringStringMapClass.isInstance(oaidParameters)) {
                 return (Map<String, String>) oaidParameters;
@@ -59,7 +61,7 @@ public class Reflection {
 
     public static Class forName(String className) {
         try {
-            Class classObject = Class.forName(className);
+            Class classObject = MemberCache.getClass(className);
             return classObject;
         } catch (Throwable t) {
             return null;
@@ -87,9 +89,8 @@ public class Reflection {
 
     public static Object createInstance(String className, Class[] cArgs, Object... args) {
         try {
-            Class classObject = Class.forName(className);
-            @SuppressWarnings("unchecked")
-            Constructor constructor = classObject.getConstructor(cArgs);
+            Class classObject = MemberCache.getClass(className);
+            Constructor constructor = MemberCache.getConstructor(classObject, cArgs);
             Object instance = constructor.newInstance(args);
             return instance;
         } catch (Throwable t) {
@@ -99,7 +100,7 @@ public class Reflection {
 
     public static Object invokeStaticMethod(String className, String methodName, Class[] cArgs, Object... args)
             throws Exception {
-        Class classObject = Class.forName(className);
+        Class classObject = MemberCache.getClass(className);
         return invokeMethod(classObject, methodName, null, cArgs, args);
     }
 
@@ -111,8 +112,7 @@ public class Reflection {
 
     public static Object invokeMethod(Class classObject, String methodName, Object instance, Class[] cArgs, Object... args)
             throws Exception {
-        @SuppressWarnings("unchecked")
-        Method methodObject = classObject.getMethod(methodName, cArgs);
+        Method methodObject = MemberCache.getMethod(classObject, methodName, cArgs);
         if (methodObject == null) {
             return null;
         }
@@ -22,6 +22,11 @@ public class ResponseData {
     public Long askIn;
     public Long retryIn;
     public Long continueIn;
+    public Integer responseCode;
+    // milliseconds asked by a Retry-After header
+    public Long retryAfter;
+    // the package was part of a batch the endpoint doesn't accept, it wasn't sent
+    public boolean batchUnsupported;
 
     public ActivityPackage activityPackage;
     public Map<String, String> sendingParameters;
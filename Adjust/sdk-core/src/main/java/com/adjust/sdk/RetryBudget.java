@@ -0,0 +1,14 @@
+package com.adjust.sdk;
+
+/**
+ * Largest number of retries of an activity kind within a sliding time window.
+ */
+final class RetryBudget {
+    final int maxRetries;
+    final long windowMilliSeconds;
+
+    RetryBudget(int maxRetries, long windowMilliSeconds) {
+        this.maxRetries = maxRetries;
+        this.windowMilliSeconds = windowMilliSeconds;
+    }
+}
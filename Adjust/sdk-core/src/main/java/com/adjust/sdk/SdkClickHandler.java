@@ -4,12 +4,10 @@ import com.adjust.sdk.network.IActivityPackageSender;
 import com.adjust.sdk.scheduler.SingleThreadCachedScheduler;
 import com.adjust.sdk.scheduler.ThreadScheduler;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -56,6 +54,16 @@ public class SdkClickHandler implements ISdkClickHandler {
      */
     private BackoffStrategy backoffStrategy;
 
+    /**
+     * Retry policy.
+     */
+    private IRetryPolicy retryPolicy;
+
+    /**
+     * Last failed response of the queued sdk_click packages being retried.
+     */
+    private Map<ActivityPackage, ResponseData> retryResponses;
+
     /**
      * Sending queue.
      */
@@ -99,8 +107,11 @@ public class SdkClickHandler implements ISdkClickHandler {
                      final IActivityPackageSender sdkClickHandlerActivityPackageSender) {
         paused = !startsSending;
         packageQueue = new ArrayList<ActivityPackage>();
+        retryResponses = new IdentityHashMap<ActivityPackage, ResponseData>();
         activityHandlerWeakRef = new WeakReference<IActivityHandler>(activityHandler);
         activityPackageSender = sdkClickHandlerActivityPackageSender;
+        retryPolicy = AdjustFactory.getRetryPolicy(
+                activityHandler != null ? activityHandler.getAdjustConfig() : null);
     }
 
     /**
@@ -150,44 +161,22 @@ public class SdkClickHandler implements ISdkClickHandler {
                 IActivityHandler activityHandler = activityHandlerWeakRef.get();
                 SharedPreferencesManager sharedPreferencesManager = new SharedPreferencesManager(
                         activityHandler.getContext());
-                try {
-                    JSONArray rawReferrerArray = sharedPreferencesManager.getRawReferrerArray();
-                    boolean hasRawReferrersBeenChanged = false;
-
-                    for (int i = 0; i < rawReferrerArray.length(); i++) {
-                        JSONArray savedRawReferrer = rawReferrerArray.getJSONArray(i);
-
-                        int savedRawReferrerState = savedRawReferrer.optInt(2, -1);
-
-                        // Don't send the one already sending or sent.
-                        if (savedRawReferrerState != 0) {
-                            continue;
-                        }
-
-                        String savedRawReferrerString = savedRawReferrer.optString(0, null);
-                        long savedClickTime = savedRawReferrer.optLong(1, -1);
-                        // Mark install referrer as being sent.
-                        savedRawReferrer.put(2, 1);
-                        hasRawReferrersBeenChanged = true;
-
-                        // Create sdk click
-                        ActivityPackage sdkClickPackage = PackageFactory.buildReftagSdkClickPackage(
-                                savedRawReferrerString,
-                                savedClickTime,
-                                activityHandler.getActivityState(),
-                                activityHandler.getAdjustConfig(),
-                                activityHandler.getDeviceInfo(),
-                                activityHandler.getSessionParameters());
-
-                        // Send referrer sdk_click package.
-                        sendSdkClick(sdkClickPackage);
-                    }
-
-                    if (hasRawReferrersBeenChanged) {
-                        sharedPreferencesManager.saveRawReferrerArray(rawReferrerArray);
-                    }
-                } catch (JSONException e) {
-                    logger.error("Send saved raw referrers error (%s)", e.getMessage());
+                // Mark the ones not already sending or sent as being sent.
+                List<RawReferrerIndex.RawReferrer> rawReferrers =
+                        sharedPreferencesManager.markRawReferrersAsSending();
+
+                for (RawReferrerIndex.RawReferrer rawReferrer : rawReferrers) {
+                    // Create sdk click
+                    ActivityPackage sdkClickPackage = PackageFactory.buildReftagSdkClickPackage(
+                            rawReferrer.rawReferrer,
+                            rawReferrer.clickTime,
+                            activityHandler.getActivityState(),
+                            activityHandler.getAdjustConfig(),
+                            activityHandler.getDeviceInfo(),
+                            activityHandler.getSessionParameters());
+
+                    // Send referrer sdk_click package.
+                    sendSdkClick(sdkClickPackage);
                 }
             }
         });
@@ -244,6 +233,8 @@ public class SdkClickHandler implements ISdkClickHandler {
         logger = null;
         packageQueue = null;
         backoffStrategy = null;
+        retryPolicy = null;
+        retryResponses = null;
         scheduler = null;
     }
 
@@ -293,7 +284,11 @@ public class SdkClickHandler implements ISdkClickHandler {
             return;
         }
 
-        long waitTimeMilliSeconds = Util.getWaitingTime(retries, backoffStrategy);
+        ResponseData retryResponse = retryResponses.remove(sdkClickPackage);
+        if (retryResponse == null) {
+            retryResponse = ResponseData.buildResponseData(sdkClickPackage, null);
+        }
+        long waitTimeMilliSeconds = retryPolicy.getRetryWait(retryResponse, retries, backoffStrategy);
         double waitTimeSeconds = waitTimeMilliSeconds / MILLISECONDS_TO_SECONDS_DIVISOR;
         String secondsString = Util.SecondsDisplayFormat.format(waitTimeSeconds);
 
@@ -318,11 +313,10 @@ public class SdkClickHandler implements ISdkClickHandler {
             SharedPreferencesManager sharedPreferencesManager
                     = new SharedPreferencesManager(activityHandler.getContext());
 
-            JSONArray rawReferrer = sharedPreferencesManager.getRawReferrer(
+            if (!sharedPreferencesManager.hasRawReferrer(
                     rawReferrerString,
-                    sdkClickPackage.getClickTimeInMilliseconds());
-
-            if (rawReferrer == null) {
+                    sdkClickPackage.getClickTimeInMilliseconds()))
+            {
                 return;
             }
         }
@@ -366,9 +360,10 @@ public class SdkClickHandler implements ISdkClickHandler {
         SdkClickResponseData sdkClickResponseData = (SdkClickResponseData)responseData;
 
         if (sdkClickResponseData.willRetry) {
-            retrySendingI(sdkClickPackage);
+            retrySendingI(sdkClickPackage, sdkClickResponseData);
             return;
         }
+        retryPolicy.onSent(ActivityKind.CLICK);
 
         if (activityHandler == null) {
             return;
@@ -440,9 +435,12 @@ public class SdkClickHandler implements ISdkClickHandler {
      * Retry sending of the sdk_click package passed as the parameter (runs within scheduled executor).
      *
      * @param sdkClickPackage sdk_click package to be retried.
+     * @param responseData    Failed response, which can ask for a wait.
      */
-    private void retrySendingI(final ActivityPackage sdkClickPackage) {
+    private void retrySendingI(final ActivityPackage sdkClickPackage,
+                               final ResponseData responseData) {
         int retries = sdkClickPackage.increaseRetries();
+        retryResponses.put(sdkClickPackage, responseData);
 
         logger.error("Retrying sdk_click package for the %d time", retries);
 
@@ -7,6 +7,9 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.net.Uri;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Class used for shared preferences manipulation.
  *
@@ -20,11 +23,6 @@ public class SharedPreferencesManager {
      */
     private static final String PREFS_NAME = "adjust_preferences";
 
-    /**
-     * Key name for referrers.
-     */
-    private static final String PREFS_KEY_RAW_REFERRERS = "raw_referrers";
-
     /**
      * Key name for push token.
      */
@@ -65,11 +63,6 @@ public class SharedPreferencesManager {
      */
     private static final int INDEX_IS_SENDING = 2;
 
-    /**
-     * Number of persisted referrers.
-     */
-    private static final int REFERRERS_COUNT = 10;
-
     /**
      * Shared preferences of the app.
      */
@@ -90,28 +83,13 @@ public class SharedPreferencesManager {
      * @param rawReferrer Raw referrer string
      * @param clickTime   Click time
      */
-    public synchronized void saveRawReferrer(final String rawReferrer, final long clickTime) {
-        try {
-            if (getRawReferrer(rawReferrer, clickTime) != null) {
-                return;
-            }
-
-            JSONArray rawReferrerArray = getRawReferrerArray();
-
-            // There are exactly REFERRERS_COUNT saved referrers, do nothing.
-            if (rawReferrerArray.length() == REFERRERS_COUNT) {
-                return;
-            }
-
-            JSONArray newRawReferrer = new JSONArray();
-            newRawReferrer.put(INDEX_RAW_REFERRER, rawReferrer);
-            newRawReferrer.put(INDEX_CLICK_TIME, clickTime);
-            newRawReferrer.put(INDEX_IS_SENDING, 0);
-
-            rawReferrerArray.put(newRawReferrer);
-            saveRawReferrerArray(rawReferrerArray);
-        } catch (JSONException e) {
+    public void saveRawReferrer(final String rawReferrer, final long clickTime) {
+        if (rawReferrer == null) {
+            return;
         }
+
+        // Does nothing if already saved or there are REFERRERS_COUNT saved referrers.
+        getRawReferrerIndex().add(rawReferrer, clickTime);
     }
 
     /**
@@ -119,12 +97,26 @@ public class SharedPreferencesManager {
      *
      * @param rawReferrerArray Array of referrers to be saved
      */
-    public synchronized void saveRawReferrerArray(final JSONArray rawReferrerArray) {
-        try {
-            saveString(PREFS_KEY_RAW_REFERRERS, rawReferrerArray.toString());
-        } catch (Throwable t) {
-            remove(PREFS_KEY_RAW_REFERRERS);
+    public void saveRawReferrerArray(final JSONArray rawReferrerArray) {
+        List<RawReferrerIndex.RawReferrer> rawReferrers =
+                new ArrayList<RawReferrerIndex.RawReferrer>();
+
+        for (int i = 0; i < rawReferrerArray.length(); i++) {
+            JSONArray savedRawReferrer = rawReferrerArray.optJSONArray(i);
+            if (savedRawReferrer == null) {
+                continue;
+            }
+            String rawReferrer = savedRawReferrer.optString(INDEX_RAW_REFERRER, null);
+            if (rawReferrer == null) {
+                continue;
+            }
+            rawReferrers.add(new RawReferrerIndex.RawReferrer(
+                    rawReferrer,
+                    savedRawReferrer.optLong(INDEX_CLICK_TIME, -1),
+                    savedRawReferrer.optInt(INDEX_IS_SENDING, -1) == 1));
         }
+
+        getRawReferrerIndex().replaceAll(rawReferrers);
     }
 
     /**
@@ -133,36 +125,24 @@ public class SharedPreferencesManager {
      * @param clickTime   Click time
      * @param rawReferrer Raw referrer string
      */
-    public synchronized void removeRawReferrer(final String rawReferrer, final long clickTime) {
+    public void removeRawReferrer(final String rawReferrer, final long clickTime) {
         // Don't even try to remove null or empty referrers since they shouldn't exist in shared preferences.
         if (rawReferrer == null || rawReferrer.length() == 0) {
             return;
         }
 
-        int rawReferrerIndex = getRawReferrerIndex(rawReferrer, clickTime);
-
-        if (rawReferrerIndex < 0) {
-            return;
-        }
-
-        JSONArray rawReferrerArray = getRawReferrerArray();
-
-        // Rebuild queue without referrer that should be removed.
-        JSONArray updatedReferrers = new JSONArray();
-
-        for (int i = 0; i < rawReferrerArray.length(); i += 1) {
-            if (i == rawReferrerIndex) {
-                continue;
-            }
-
-            try {
-                updatedReferrers.put(rawReferrerArray.getJSONArray(i));
-            } catch (JSONException e) {
-            }
-        }
+        getRawReferrerIndex().remove(rawReferrer, clickTime);
+    }
 
-        // Save new referrer queue JSON array as string back to shared preferences.
-        saveString(PREFS_KEY_RAW_REFERRERS, updatedReferrers.toString());
+    /**
+     * Check if referrer is saved, without building its JSONArray object.
+     *
+     * @param rawReferrer Raw referrer string
+     * @param clickTime   Click time
+     * @return boolean indicating whether referrer is saved or not
+     */
+    public boolean hasRawReferrer(final String rawReferrer, final long clickTime) {
+        return getRawReferrerIndex().contains(rawReferrer, clickTime);
     }
 
     /**
@@ -172,15 +152,13 @@ public class SharedPreferencesManager {
      * @param clickTime   Click time
      * @return JSONArray object containing referrer information. Defaults to null if not found.
      */
-    public synchronized JSONArray getRawReferrer(final String rawReferrer, final long clickTime) {
-        int rawReferrerIndex = getRawReferrerIndex(rawReferrer, clickTime);
-        if (rawReferrerIndex >= 0) {
-            try {
-                return getRawReferrerArray().getJSONArray(rawReferrerIndex);
-            } catch (JSONException e) {
-            }
+    public JSONArray getRawReferrer(final String rawReferrer, final long clickTime) {
+        RawReferrerIndex.RawReferrer savedRawReferrer =
+                getRawReferrerIndex().get(rawReferrer, clickTime);
+        if (savedRawReferrer == null) {
+            return null;
         }
-        return null;
+        return toJSONArray(savedRawReferrer);
     }
 
     /**
@@ -188,31 +166,24 @@ public class SharedPreferencesManager {
      *
      * @return JSONArray of saved referrers. Defaults to empty JSONArray if none found.
      */
-    public synchronized JSONArray getRawReferrerArray() {
-        String referrerQueueString = getString(PREFS_KEY_RAW_REFERRERS);
-
-        if (referrerQueueString != null) {
-            try {
-                JSONArray rawReferrerArray = new JSONArray(referrerQueueString);
-
-                // Initial move for those who have more than REFERRERS_COUNT stored already.
-                // Cut the array and leave it with only REFERRERS_COUNT elements.
-                if (rawReferrerArray.length() > REFERRERS_COUNT) {
-                    JSONArray tempReferrerArray = new JSONArray();
-                    for (int i = 0; i < REFERRERS_COUNT; i += 1) {
-                        tempReferrerArray.put(rawReferrerArray.get(i));
-                    }
-                    saveRawReferrerArray(tempReferrerArray);
-                    return tempReferrerArray;
-                }
-
-                return new JSONArray(referrerQueueString);
-            } catch (JSONException e) {
-            } catch (Throwable t) {
+    public JSONArray getRawReferrerArray() {
+        JSONArray rawReferrerArray = new JSONArray();
+        for (RawReferrerIndex.RawReferrer savedRawReferrer : getRawReferrerIndex().getAll()) {
+            JSONArray rawReferrer = toJSONArray(savedRawReferrer);
+            if (rawReferrer != null) {
+                rawReferrerArray.put(rawReferrer);
             }
         }
+        return rawReferrerArray;
+    }
 
-        return new JSONArray();
+    /**
+     * Mark saved referrers which are not being sent as being sent.
+     *
+     * @return Referrers which should be sent now
+     */
+    List<RawReferrerIndex.RawReferrer> markRawReferrersAsSending() {
+        return getRawReferrerIndex().markNotSendingAsSending();
     }
 
     /**
@@ -245,54 +216,35 @@ public class SharedPreferencesManager {
      * Used to check if any of the still existing referrers was unsuccessfully being sent before app got killed.
      * If such found - switch it's isBeingSent flag back to "false".
      */
-    public synchronized void setSendingReferrersAsNotSent() {
-        try {
-            JSONArray rawReferrerArray = getRawReferrerArray();
-            boolean hasRawReferrersBeenChanged = false;
-            for (int i = 0; i < rawReferrerArray.length(); i++) {
-                JSONArray rawReferrer = rawReferrerArray.getJSONArray(i);
-                int sendingStatus = rawReferrer.optInt(INDEX_IS_SENDING, -1);
-                if (sendingStatus == 1) {
-                    rawReferrer.put(INDEX_IS_SENDING, 0);
-                    hasRawReferrersBeenChanged = true;
-                }
-            }
-            if (hasRawReferrersBeenChanged) {
-                saveRawReferrerArray(rawReferrerArray);
-            }
-        } catch (JSONException e) {
-        }
+    public void setSendingReferrersAsNotSent() {
+        getRawReferrerIndex().markSendingAsNotSending();
     }
 
     /**
-     * Get index of saved raw referrer.
+     * Get in memory index of saved referrers, read from shared preferences on first use.
      *
-     * @param rawReferrer Raw referrer string
-     * @param clickTime   Click time
-     * @return Index of saved referrer. Defaults to -1 if referrer not found.
+     * @return Index of saved referrers shared by all instances of this class
+     */
+    private RawReferrerIndex getRawReferrerIndex() {
+        return RawReferrerIndex.getInstance(this.sharedPreferences);
+    }
+
+    /**
+     * Convert saved referrer to JSONArray object.
+     *
+     * @param savedRawReferrer Saved referrer
+     * @return JSONArray object containing referrer information. Defaults to null on error.
      */
-    private synchronized int getRawReferrerIndex(final String rawReferrer, final long clickTime) {
+    private static JSONArray toJSONArray(final RawReferrerIndex.RawReferrer savedRawReferrer) {
         try {
-            JSONArray rawReferrers = getRawReferrerArray();
-
-            for (int i = 0; i < rawReferrers.length(); i++) {
-                JSONArray savedRawReferrer = rawReferrers.getJSONArray(i);
-                // Check if raw referrer is already saved.
-                String savedRawReferrerString = savedRawReferrer.optString(INDEX_RAW_REFERRER, null);
-                if (savedRawReferrerString == null || !savedRawReferrerString.equals(rawReferrer)) {
-                    continue;
-                }
-                long savedClickTime = savedRawReferrer.optLong(INDEX_CLICK_TIME, -1);
-                if (savedClickTime != clickTime) {
-                    continue;
-                }
-                // Install referrer found, skip adding it.
-                return i;
-            }
+            JSONArray rawReferrer = new JSONArray();
+            rawReferrer.put(INDEX_RAW_REFERRER, savedRawReferrer.rawReferrer);
+            rawReferrer.put(INDEX_CLICK_TIME, savedRawReferrer.clickTime);
+            rawReferrer.put(INDEX_IS_SENDING, savedRawReferrer.isSending ? 1 : 0);
+            return rawReferrer;
         } catch (JSONException e) {
+            return null;
         }
-
-        return -1;
     }
 
     /**
@@ -404,6 +356,7 @@ public class SharedPreferencesManager {
      */
     public synchronized void clear() {
         this.sharedPreferences.edit().clear().apply();
+        getRawReferrerIndex().clear();
     }
 
     /**
@@ -458,9 +411,6 @@ public class SharedPreferencesManager {
         } catch (ClassCastException e) {
             return null;
         } catch (Throwable t) {
-            if (key.equals(PREFS_KEY_RAW_REFERRERS)) {
-                remove(PREFS_KEY_RAW_REFERRERS);
-            }
             return null;
         }
     }
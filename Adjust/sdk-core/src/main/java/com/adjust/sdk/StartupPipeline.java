@@ -0,0 +1,80 @@
+package com.adjust.sdk;
+
+import com.adjust.sdk.scheduler.MultiThreadCachedScheduler;
+import com.adjust.sdk.scheduler.ThreadExecutor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Runs the independent stages of the SDK start in parallel and records them in the
+ * startup trace. The SDK thread only waits for the results it needs next.
+ *
+ * The stages run on threads of the shared SdkExecutor, the pipeline has none of its own. A
+ * stage that no thread took yet when it's awaited runs on the awaiting thread.
+ */
+class StartupPipeline {
+    private static final int MAX_THREADS = 4;
+
+    private ThreadExecutor executor;
+    private AdjustStartupTrace trace;
+    private ILogger logger;
+
+    StartupPipeline(AdjustStartupTrace trace) {
+        this.executor = new MultiThreadCachedScheduler("StartupPipeline", MAX_THREADS,
+                AdjustFactory.getSdkExecutor());
+        this.trace = trace;
+        this.logger = AdjustFactory.getLogger();
+    }
+
+    Future<Void> runAsync(final String stage, final Runnable runnable) {
+        return callAsync(stage, new Callable<Void>() {
+            @Override
+            public Void call() {
+                runnable.run();
+                return null;
+            }
+        });
+    }
+
+    <V> Future<V> callAsync(final String stage, final Callable<V> callable) {
+        trace.startStage(stage);
+
+        FutureTask<V> futureTask = new FutureTask<V>(new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                try {
+                    return callable.call();
+                } finally {
+                    trace.finishStage(stage);
+                }
+            }
+        });
+        executor.submit(futureTask);
+        return futureTask;
+    }
+
+    /**
+     * Waits for the stage to finish.
+     *
+     * @return Result of the stage, null if it failed
+     */
+    <V> V await(Future<V> future) {
+        if (future instanceof FutureTask) {
+            // does nothing when a thread of the executor already took it
+            ((FutureTask<V>) future).run();
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            logger.error("Startup stage failed (%s)", e.getCause() != null
+                    ? e.getCause().getMessage() : e.getMessage());
+        } catch (InterruptedException e) {
+            logger.error("Startup stage interrupted");
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
@@ -26,11 +26,12 @@ import android.provider.Settings.Secure;
 import android.telephony.TelephonyManager;
 import android.text.TextUtils;
 
-import com.adjust.sdk.scheduler.SingleThreadFutureScheduler;
+import com.adjust.sdk.scheduler.SingleThreadCachedScheduler;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -52,7 +53,7 @@ import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
@@ -68,12 +69,13 @@ import static com.adjust.sdk.Constants.SHA256;
  */
 public class Util {
     private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'Z";
+    private static final String TEMPORARY_FILENAME_SUFFIX = ".tmp";
     private static final String fieldReadErrorMessage = "Unable to read '%s' field in migration device with message (%s)";
     public static final DecimalFormat SecondsDisplayFormat = newLocalDecimalFormat();
     public static final SimpleDateFormat dateFormatter = new SimpleDateFormat(DATE_FORMAT, Locale.US);
 
     // https://www.cs.umd.edu/~pugh/java/memoryModel/DoubleCheckedLocking.html
-    private static volatile SingleThreadFutureScheduler playAdIdScheduler = null;
+    private static volatile SingleThreadCachedScheduler playAdIdScheduler = null;
 
     private static ILogger getLogger() {
         return AdjustFactory.getLogger();
@@ -146,12 +148,16 @@ public class Util {
         if (playAdIdScheduler == null) {
             synchronized (Util.class) {
                 if (playAdIdScheduler == null) {
-                    playAdIdScheduler = new SingleThreadFutureScheduler("PlayAdIdLibrary", true);
+                    // waited for with a timeout by the Play source lane, so not queued
+                    // behind the requests on the I/O pool
+                    playAdIdScheduler = new SingleThreadCachedScheduler("PlayAdIdLibrary",
+                            AdjustFactory.getSdkWaitingExecutor());
                 }
             }
         }
 
-        ScheduledFuture<R> playAdIdFuture = playAdIdScheduler.scheduleFutureWithReturn(callable, 0);
+        FutureTask<R> playAdIdFuture = new FutureTask<R>(callable);
+        playAdIdScheduler.submit(playAdIdFuture);
 
         try {
             return playAdIdFuture.get(timeoutMilli, TimeUnit.MILLISECONDS);
@@ -160,6 +166,9 @@ public class Util {
         } catch (TimeoutException e) {
         }
 
+        // a read that didn't start yet is dropped, a running one can't be interrupted out of
+        // the binder call and finishes on its own
+        playAdIdFuture.cancel(false);
         return null;
     }
 
@@ -280,34 +289,86 @@ public class Util {
     }
 
     public static <T> void writeObject(T object, Context context, String filename, String objectName) {
-        Closeable closable = null;
+        byte[] bytes;
         try {
-            FileOutputStream outputStream = context.openFileOutput(filename, Context.MODE_PRIVATE);
-            closable = outputStream;
-
-            BufferedOutputStream bufferedStream = new BufferedOutputStream(outputStream);
-            closable = bufferedStream;
+            ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+            ObjectOutputStream objectStream = new ObjectOutputStream(byteStream);
+            objectStream.writeObject(object);
+            objectStream.close();
+            bytes = byteStream.toByteArray();
+        } catch (NotSerializableException e) {
+            getLogger().error("Failed to serialize %s", objectName);
+            return;
+        } catch (Exception e) {
+            getLogger().error("Failed to serialize %s (%s)", objectName, e);
+            return;
+        }
 
-            ObjectOutputStream objectStream = new ObjectOutputStream(bufferedStream);
-            closable = objectStream;
+        if (writeBytes(bytes, context, filename, objectName)) {
+            getLogger().debug("Wrote %s: %s", objectName, object);
+        }
+    }
 
-            try {
-                objectStream.writeObject(object);
+    public static byte[] readBytes(Context context, String filename, String objectName) {
+        Closeable closable = null;
+        byte[] bytes = null;
+        try {
+            FileInputStream inputStream = context.openFileInput(filename);
+            closable = inputStream;
 
-                getLogger().debug("Wrote %s: %s", objectName, object);
-            } catch (NotSerializableException e) {
-                getLogger().error("Failed to serialize %s", objectName);
+            ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                byteStream.write(buffer, 0, read);
             }
+            bytes = byteStream.toByteArray();
+        } catch (FileNotFoundException e) {
+            getLogger().debug("%s file not found", objectName);
         } catch (Exception e) {
-            getLogger().error("Failed to open %s for writing (%s)", objectName, e);
+            getLogger().error("Failed to open %s file for reading (%s)", objectName, e);
         }
         try {
             if (closable != null) {
                 closable.close();
             }
         } catch (Exception e) {
-            getLogger().error("Failed to close %s file for writing (%s)", objectName, e);
+            getLogger().error("Failed to close %s file for reading (%s)", objectName, e);
         }
+
+        return bytes;
+    }
+
+    public static boolean writeBytes(byte[] bytes, Context context, String filename, String objectName) {
+        // written next to the file first, the rename replaces it atomically
+        //  so that a crash leaves either the old or the new file in place
+        String temporaryFilename = filename + TEMPORARY_FILENAME_SUFFIX;
+        FileOutputStream outputStream = null;
+        try {
+            outputStream = context.openFileOutput(temporaryFilename, Context.MODE_PRIVATE);
+            outputStream.write(bytes);
+            outputStream.getFD().sync();
+            outputStream.close();
+        } catch (Exception e) {
+            getLogger().error("Failed to open %s for writing (%s)", objectName, e);
+            try {
+                if (outputStream != null) {
+                    outputStream.close();
+                }
+            } catch (Exception closeException) {
+                getLogger().error("Failed to close %s file for writing (%s)", objectName, closeException);
+            }
+            context.deleteFile(temporaryFilename);
+            return false;
+        }
+
+        File temporaryFile = context.getFileStreamPath(temporaryFilename);
+        if (!temporaryFile.renameTo(context.getFileStreamPath(filename))) {
+            getLogger().error("Failed to replace %s file", objectName);
+            context.deleteFile(temporaryFilename);
+            return false;
+        }
+        return true;
     }
 
     public static boolean checkPermission(Context context, String permission) {
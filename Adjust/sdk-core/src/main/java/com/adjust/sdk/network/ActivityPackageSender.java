@@ -5,17 +5,20 @@ import android.net.Uri;
 import com.adjust.sdk.ActivityKind;
 import com.adjust.sdk.ActivityPackage;
 import com.adjust.sdk.AdjustAttribution;
+import com.adjust.sdk.AdjustConfig;
 import com.adjust.sdk.AdjustFactory;
 import com.adjust.sdk.Constants;
 import com.adjust.sdk.ILogger;
 import com.adjust.sdk.ResponseData;
 import com.adjust.sdk.TrackingState;
 import com.adjust.sdk.Util;
+import com.adjust.sdk.scheduler.MultiThreadCachedScheduler;
 import com.adjust.sdk.scheduler.SingleThreadCachedScheduler;
 import com.adjust.sdk.scheduler.ThreadExecutor;
 import com.adjust.sdk.network.UtilNetworking.IHttpsURLConnectionProvider;
 import com.adjust.sdk.network.UtilNetworking.IConnectionOptions;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -24,50 +27,96 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.ProtocolException;
 import java.net.SocketTimeoutException;
 import java.net.URL;
-import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLHandshakeException;
 
 public class ActivityPackageSender implements IActivityPackageSender {
+    // only used with AdjustConfig.setBatchUploadEnabled, needs a backend that accepts batches
+    private static final String BATCH_PATH = "/batch";
+    // below this size the compression headers and trailer outweigh the savings
+    private static final int MIN_COMPRESSED_BODY_LENGTH = 1024;
+
     private String basePath;
     private String gdprPath;
     private String subscriptionPath;
     private String clientSdk;
+    private String bodyCompression;
 
     private ILogger logger;
     private ThreadExecutor executor;
     private UrlStrategy urlStrategy;
     private IHttpsURLConnectionProvider httpsURLConnectionProvider;
     private IConnectionOptions connectionOptions;
+    // latched once the endpoint answered a batch like a single package, for this sender only
+    private volatile boolean isBatchEndpointUnsupported;
 
     public ActivityPackageSender(final String adjustUrlStrategy,
                                  final String basePath,
                                  final String gdprPath,
                                  final String subscriptionPath,
                                  final String clientSdk)
+    {
+        this(adjustUrlStrategy, basePath, gdprPath, subscriptionPath, clientSdk, 1, null);
+    }
+
+    public ActivityPackageSender(final String adjustUrlStrategy,
+                                 final String basePath,
+                                 final String gdprPath,
+                                 final String subscriptionPath,
+                                 final String clientSdk,
+                                 final int maxConcurrentRequests,
+                                 final String bodyCompression)
+    {
+        this(adjustUrlStrategy, basePath, gdprPath, subscriptionPath, clientSdk,
+                maxConcurrentRequests, bodyCompression, false);
+    }
+
+    public ActivityPackageSender(final String adjustUrlStrategy,
+                                 final String basePath,
+                                 final String gdprPath,
+                                 final String subscriptionPath,
+                                 final String clientSdk,
+                                 final int maxConcurrentRequests,
+                                 final String bodyCompression,
+                                 final boolean latencyBasedUrlSelection)
     {
         this.basePath = basePath;
+        this.bodyCompression = bodyCompression;
         this.gdprPath = gdprPath;
         this.subscriptionPath = subscriptionPath;
         this.clientSdk = clientSdk;
 
         logger = AdjustFactory.getLogger();
 
-        executor = new SingleThreadCachedScheduler("ActivityPackageSender");
+        // requests in flight at the same time take several threads of the I/O pool
+        if (maxConcurrentRequests > 1) {
+            executor = new MultiThreadCachedScheduler("ActivityPackageSender",
+                    maxConcurrentRequests, AdjustFactory.getSdkIoExecutor());
+        } else {
+            executor = new SingleThreadCachedScheduler("ActivityPackageSender",
+                    AdjustFactory.getSdkIoExecutor());
+        }
 
         urlStrategy = new UrlStrategy(
                 AdjustFactory.getBaseUrl(),
                 AdjustFactory.getGdprUrl(),
                 AdjustFactory.getSubscriptionUrl(),
-                adjustUrlStrategy);
+                adjustUrlStrategy,
+                AdjustFactory.getEndpointHealthRegistry(),
+                latencyBasedUrlSelection);
 
         httpsURLConnectionProvider = AdjustFactory.getHttpsURLConnectionProvider();
 
@@ -106,6 +155,76 @@ public class ActivityPackageSender implements IActivityPackageSender {
         return responseData;
     }
 
+    @Override
+    public void sendActivityPackageBatch(final List<ActivityPackage> activityPackages,
+                                         final Map<String, String> sendingParameters,
+                                         final BatchResponseDataCallbackSubscriber batchResponseCallback)
+    {
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                batchResponseCallback.onBatchResponseDataCallback(
+                        sendActivityPackageBatchSync(activityPackages, sendingParameters));
+            }
+        });
+    }
+
+    @Override
+    public List<ResponseData> sendActivityPackageBatchSync(final List<ActivityPackage> activityPackages,
+                                                           final Map<String, String> sendingParameters)
+    {
+        if (isBatchEndpointUnsupported) {
+            return unsentBatch(activityPackages, sendingParameters);
+        }
+
+        boolean retryToSend;
+        List<ResponseData> responseDataList;
+        do {
+            responseDataList = new ArrayList<ResponseData>(activityPackages.size());
+            for (ActivityPackage activityPackage : activityPackages) {
+                responseDataList.add(
+                        ResponseData.buildResponseData(activityPackage, sendingParameters));
+            }
+
+            boolean isBatchResponse = tryToGetBatchResponse(responseDataList, sendingParameters);
+            if (!isBatchResponse) {
+                logger.warn("Batch upload is not supported by the endpoint, packages will be sent one by one");
+                isBatchEndpointUnsupported = true;
+                return unsentBatch(activityPackages, sendingParameters);
+            }
+
+            retryToSend = shouldRetryToSend(batchOutcome(responseDataList));
+        } while (retryToSend);
+
+        return responseDataList;
+    }
+
+    // the packages go back to the package handler, which sends them one by one in its window
+    private List<ResponseData> unsentBatch(final List<ActivityPackage> activityPackages,
+                                           final Map<String, String> sendingParameters)
+    {
+        List<ResponseData> responseDataList = new ArrayList<ResponseData>(activityPackages.size());
+        for (ActivityPackage activityPackage : activityPackages) {
+            ResponseData responseData =
+                    ResponseData.buildResponseData(activityPackage, sendingParameters);
+            responseData.message = "Batch upload is not supported by the endpoint";
+            responseData.willRetry = true;
+            responseData.batchUnsupported = true;
+            responseDataList.add(responseData);
+        }
+        return responseDataList;
+    }
+
+    // the url strategy only moves on when not a single package of the batch went through
+    private ResponseData batchOutcome(final List<ResponseData> responseDataList) {
+        for (ResponseData responseData : responseDataList) {
+            if (!responseData.willRetry) {
+                return responseData;
+            }
+        }
+        return responseDataList.get(0);
+    }
+
     private boolean shouldRetryToSend(final ResponseData responseData) {
         if (!responseData.willRetry) {
             logger.debug("Will not retry with current url strategy");
@@ -125,6 +244,8 @@ public class ActivityPackageSender implements IActivityPackageSender {
 
     private void tryToGetResponse(final ResponseData responseData) {
         DataOutputStream dataOutputStream = null;
+        String targetUrl = null;
+        long requestStartMillis = 0;
 
         try {
             ActivityPackage activityPackage = responseData.activityPackage;
@@ -138,19 +259,24 @@ public class ActivityPackageSender implements IActivityPackageSender {
 
             boolean shouldUseGET =
                     responseData.activityPackage.getActivityKind() == ActivityKind.ATTRIBUTION;
+            targetUrl = urlStrategy.targetUrlByActivityKind(activityPackage.getActivityKind());
             final String urlString;
             if (shouldUseGET) {
                 extractEventCallbackId(activityPackageParameters);
 
                 urlString = generateUrlStringForGET(activityPackage.getActivityKind(),
+                                                    targetUrl,
                                                     activityPackage.getPath(),
                                                     activityPackageParameters,
                                                     sendingParameters);
             } else {
                 urlString = generateUrlStringForPOST(activityPackage.getActivityKind(),
+                                                     targetUrl,
                                                      activityPackage.getPath());
             }
 
+            requestStartMillis = System.currentTimeMillis();
+
             final URL url = new URL(urlString);
             final HttpsURLConnection connection =
                     httpsURLConnectionProvider.generateHttpsURLConnection(url);
@@ -175,15 +301,7 @@ public class ActivityPackageSender implements IActivityPackageSender {
             // read connection response
             Integer responseCode = readConnectionResponse(connection, responseData);
 
-            responseData.success =
-                    responseData.jsonResponse != null
-                            && responseData.retryIn == null
-                            && responseCode != null
-                            && responseCode.intValue() == HttpsURLConnection.HTTP_OK;
-            // it is only processed by the server if it contains
-            //  a JSON response *AND* does not contain a retry_in
-            responseData.willRetry =
-                    responseData.jsonResponse == null  || responseData.retryIn != null;
+            applyResponseStatus(responseData, responseCode);
         } catch (final UnsupportedEncodingException exception) {
 
             localError(exception, "Failed to encode parameters", responseData);
@@ -217,6 +335,8 @@ public class ActivityPackageSender implements IActivityPackageSender {
             localError(t, "Sending SDK package", responseData);
 
         } finally {
+            recordEndpointResponse(targetUrl, requestStartMillis,
+                    responseData.willRetry, responseData.jsonResponse != null);
             try {
                 if (dataOutputStream != null) {
                     dataOutputStream.flush();
@@ -231,6 +351,221 @@ public class ActivityPackageSender implements IActivityPackageSender {
         }
     }
 
+    // returns false when the endpoint did not answer with a response for each package
+    private boolean tryToGetBatchResponse(final List<ResponseData> responseDataList,
+                                          final Map<String, String> sendingParameters)
+    {
+        DataOutputStream dataOutputStream = null;
+        ResponseData firstResponseData = responseDataList.get(0);
+        String targetUrl = null;
+        long requestStartMillis = 0;
+        boolean isAnswered = false;
+
+        try {
+            JSONArray packagesJson = new JSONArray();
+            for (ResponseData responseData : responseDataList) {
+                packagesJson.put(generateBatchItemJson(responseData.activityPackage));
+            }
+
+            Map<String, String> batchParameters = new HashMap<String, String>();
+            batchParameters.put("packages", packagesJson.toString());
+
+            targetUrl = urlStrategy.targetUrlByActivityKind(firstResponseData.activityKind);
+            final String urlString =
+                    generateUrlStringForPOST(firstResponseData.activityKind, targetUrl, BATCH_PATH);
+            final URL url = new URL(urlString);
+            final HttpsURLConnection connection =
+                    httpsURLConnectionProvider.generateHttpsURLConnection(url);
+
+            connectionOptions.applyConnectionOptions(connection,
+                    firstResponseData.activityPackage.getClientSdk());
+
+            requestStartMillis = System.currentTimeMillis();
+            dataOutputStream = configConnectionForPOST(connection,
+                                                       batchParameters,
+                                                       sendingParameters);
+
+            // top level of the response describes the whole batch
+            ResponseData batchResponseData = ResponseData.buildResponseData(
+                    firstResponseData.activityPackage, sendingParameters);
+            Integer responseCode = readConnectionResponse(connection, batchResponseData);
+            isAnswered = (batchResponseData.jsonResponse != null
+                            && batchResponseData.retryIn == null)
+                    || (responseCode != null
+                            && responseCode.intValue() == HttpsURLConnection.HTTP_NOT_FOUND);
+
+            if (responseCode != null
+                    && responseCode.intValue() == HttpsURLConnection.HTTP_NOT_FOUND)
+            {
+                return false;
+            }
+
+            if (batchResponseData.jsonResponse == null || batchResponseData.retryIn != null) {
+                for (ResponseData responseData : responseDataList) {
+                    responseData.message = batchResponseData.message;
+                    responseData.retryIn = batchResponseData.retryIn;
+                    responseData.responseCode = batchResponseData.responseCode;
+                    responseData.retryAfter = batchResponseData.retryAfter;
+                    responseData.willRetry = true;
+                }
+                return true;
+            }
+
+            JSONArray responsesJson = batchResponseData.jsonResponse.optJSONArray("responses");
+            if (responsesJson == null || responsesJson.length() != responseDataList.size()) {
+                return false;
+            }
+
+            for (int i = 0; i < responseDataList.size(); i++) {
+                ResponseData responseData = responseDataList.get(i);
+                JSONObject itemResponseJson = responsesJson.optJSONObject(i);
+                if (itemResponseJson == null) {
+                    responseData.message = "Missing response for package in batch";
+                    responseData.willRetry = true;
+                    continue;
+                }
+
+                // each package answers with its own status, the one of the batch otherwise
+                Integer itemResponseCode = responseCode;
+                if (itemResponseJson.has("status")) {
+                    itemResponseCode = itemResponseJson.optInt("status");
+                }
+                responseData.responseCode = itemResponseCode;
+
+                if (itemResponseCode != null && itemResponseCode.intValue() == 429) {
+                    // not processed, as for a package sent alone
+                    responseData.message = "Too frequent requests to the endpoint (429)";
+                } else {
+                    parseJsonResponse(responseData, itemResponseJson);
+                }
+
+                applyResponseStatus(responseData, itemResponseCode);
+            }
+            return true;
+        } catch (final JSONException exception) {
+
+            batchError(exception, "Failed to encode batch", responseDataList, false);
+
+        } catch (final UnsupportedEncodingException exception) {
+
+            batchError(exception, "Failed to encode parameters", responseDataList, false);
+
+        } catch (final MalformedURLException exception) {
+
+            batchError(exception, "Malformed URL", responseDataList, false);
+
+        } catch (final ProtocolException exception) {
+
+            batchError(exception, "Protocol Error", responseDataList, false);
+
+        } catch (final SocketTimeoutException exception) {
+
+            batchError(exception, "Request timed out", responseDataList, true);
+
+        } catch (final SSLHandshakeException exception) {
+
+            batchError(exception, "Certificate failed", responseDataList, true);
+
+        } catch (final IOException exception) {
+
+            batchError(exception, "Request failed", responseDataList, true);
+
+        } catch (final Throwable t) {
+
+            batchError(t, "Sending SDK package batch", responseDataList, false);
+
+        } finally {
+            recordEndpointResponse(targetUrl, requestStartMillis,
+                    !isAnswered && firstResponseData.willRetry, isAnswered);
+            try {
+                if (dataOutputStream != null) {
+                    dataOutputStream.flush();
+                    dataOutputStream.close();
+                }
+            } catch (final IOException ioException) {
+                String errorMessage = errorMessage(ioException,
+                        "Flushing and closing connection output stream",
+                        firstResponseData.activityPackage);
+                logger.error(errorMessage);
+            }
+        }
+        return true;
+    }
+
+    // the same for a package sent alone and for each package of a batch
+    private static void applyResponseStatus(final ResponseData responseData,
+                                            final Integer responseCode)
+    {
+        responseData.success =
+                responseData.jsonResponse != null
+                        && responseData.retryIn == null
+                        && responseCode != null
+                        && responseCode.intValue() == HttpsURLConnection.HTTP_OK;
+        // it is only processed by the server if it contains
+        //  a JSON response *AND* does not contain a retry_in
+        responseData.willRetry =
+                responseData.jsonResponse == null  || responseData.retryIn != null;
+    }
+
+    private JSONObject generateBatchItemJson(final ActivityPackage activityPackage)
+            throws JSONException
+    {
+        Map<String, String> activityPackageParameters =
+                new HashMap<>(activityPackage.getParameters());
+
+        String authorizationHeader = buildAndExtractAuthorizationHeader(
+                activityPackageParameters,
+                activityPackage.getActivityKind());
+        extractEventCallbackId(activityPackageParameters);
+
+        JSONObject itemJson = new JSONObject();
+        itemJson.put("path", activityPackage.getPath());
+        if (authorizationHeader != null) {
+            itemJson.put("authorization", authorizationHeader);
+        }
+        itemJson.put("parameters", new JSONObject(activityPackageParameters));
+
+        return itemJson;
+    }
+
+    private void batchError(Throwable throwable,
+                            String description,
+                            List<ResponseData> responseDataList,
+                            boolean willRetry)
+    {
+        String reasonString = Util.getReasonString(description, throwable);
+        String finalMessage = Util.formatString("Failed to send batch of %d packages. (%s)",
+                responseDataList.size(), reasonString);
+        if (willRetry) {
+            finalMessage += " Will retry later";
+        }
+
+        logger.error(finalMessage);
+
+        for (ResponseData responseData : responseDataList) {
+            responseData.message = finalMessage;
+            responseData.willRetry = willRetry;
+        }
+    }
+
+    // failures of the endpoint are shared with the other senders, local errors are not
+    private void recordEndpointResponse(final String targetUrl,
+                                        final long requestStartMillis,
+                                        final boolean isRemoteFailure,
+                                        final boolean isAnswered)
+    {
+        if (targetUrl == null || requestStartMillis == 0) {
+            return;
+        }
+
+        if (isRemoteFailure) {
+            urlStrategy.recordResponse(targetUrl, false, 0);
+        } else if (isAnswered) {
+            urlStrategy.recordResponse(targetUrl, true,
+                    System.currentTimeMillis() - requestStartMillis);
+        }
+    }
+
     private void localError(Throwable throwable, String description, ResponseData responseData) {
         String finalMessage = errorMessage(throwable, description, responseData.activityPackage);
 
@@ -260,13 +595,12 @@ public class ActivityPackageSender implements IActivityPackageSender {
     }
 
     private String generateUrlStringForGET(final ActivityKind activityKind,
+                                           final String targetUrl,
                                            final String activityPackagePath,
                                            final Map<String, String> activityPackageParameters,
                                            final Map<String, String> sendingParameters)
             throws MalformedURLException
     {
-        String targetUrl = urlStrategy.targetUrlByActivityKind(activityKind);
-
         // extra path, if present, has the format '/X/Y'
         String urlWithPath =
                 urlWithExtraPathByActivityKind(activityKind, targetUrl);
@@ -294,11 +628,9 @@ public class ActivityPackageSender implements IActivityPackageSender {
     }
 
     private String generateUrlStringForPOST(final ActivityKind activityKind,
+                                            final String targetUrl,
                                             final String activityPackagePath)
     {
-        String targetUrl =
-                urlStrategy.targetUrlByActivityKind(activityKind);
-
         // extra path, if present, has the format '/X/Y'
         String urlWithPath =
                 urlWithExtraPathByActivityKind(activityKind, targetUrl);
@@ -350,64 +682,55 @@ public class ActivityPackageSender implements IActivityPackageSender {
         // necessary to pass the body to the connection
         connection.setDoOutput(true);
 
-        // build POST body
-        final String postBodyString = generatePOSTBodyString(
-                activityPackageParameters,
-                sendingParameters);
+        if (activityPackageParameters.isEmpty()) {
+            return null;
+        }
 
-        if (postBodyString == null) {
+        if (bodyCompression != null
+                && PostBodyEncoder.rawLength(activityPackageParameters, sendingParameters)
+                        >= MIN_COMPRESSED_BODY_LENGTH)
+        {
+            writeCompressedPOSTBody(connection, activityPackageParameters, sendingParameters);
             return null;
         }
 
         // write POST body to connection
         final DataOutputStream dataOutputStream =
                 new DataOutputStream(connection.getOutputStream());
-        dataOutputStream.writeBytes(postBodyString);
+        PostBodyEncoder.writePostBody(activityPackageParameters,
+                                      sendingParameters,
+                                      dataOutputStream);
 
         return dataOutputStream;
     }
 
-    private String generatePOSTBodyString(final Map<String, String> parameters,
-                                          final Map<String, String> sendingParameters)
-            throws UnsupportedEncodingException
+    private void writeCompressedPOSTBody(final HttpsURLConnection connection,
+                                         final Map<String, String> activityPackageParameters,
+                                         final Map<String, String> sendingParameters)
+            throws IOException
     {
-        if (parameters.isEmpty()) {
-            return null;
-        }
-
-        final StringBuilder postStringBuilder = new StringBuilder();
-
-        injectParametersToPOSTStringBuilder(parameters, postStringBuilder);
-        injectParametersToPOSTStringBuilder(sendingParameters, postStringBuilder);
-
-        // delete last added &
-        if (postStringBuilder.length() > 0
-                && postStringBuilder.charAt(postStringBuilder.length() - 1) == '&')
-        {
-            postStringBuilder.deleteCharAt(postStringBuilder.length() - 1);
+        connection.setRequestProperty("Content-Encoding", bodyCompression);
+        // compressed size is unknown upfront, stream it instead of buffering the whole body
+        connection.setChunkedStreamingMode(0);
+
+        final OutputStream connectionOutputStream = connection.getOutputStream();
+        final DeflaterOutputStream compressingOutputStream;
+        if (AdjustConfig.BODY_COMPRESSION_GZIP.equals(bodyCompression)) {
+            compressingOutputStream = new GZIPOutputStream(connectionOutputStream);
+        } else {
+            compressingOutputStream = new DeflaterOutputStream(connectionOutputStream);
         }
-        return postStringBuilder.toString();
-    }
 
-    private void injectParametersToPOSTStringBuilder(
-            final Map<String, String> parametersToInject,
-            final StringBuilder postStringBuilder)
-            throws UnsupportedEncodingException
-    {
-        if (parametersToInject == null || parametersToInject.isEmpty()) {
-            return;
+        try {
+            PostBodyEncoder.writePostBody(activityPackageParameters,
+                                          sendingParameters,
+                                          compressingOutputStream);
+        } finally {
+            // writes the compression trailer, which has to be sent before reading the response
+            compressingOutputStream.close();
         }
 
-        for (final Map.Entry<String, String> entry : parametersToInject.entrySet()) {
-            final String encodedName = URLEncoder.encode(entry.getKey(), Constants.ENCODING);
-            final String value = entry.getValue();
-            final String encodedValue = value != null
-                    ? URLEncoder.encode(value, Constants.ENCODING) : "";
-            postStringBuilder.append(encodedName);
-            postStringBuilder.append("=");
-            postStringBuilder.append(encodedValue);
-            postStringBuilder.append("&");
-        }
+        logger.verbose("Compressed POST body with %s", bodyCompression);
     }
 
     Integer readConnectionResponse(final HttpsURLConnection connection,
@@ -421,6 +744,9 @@ public class ActivityPackageSender implements IActivityPackageSender {
             connection.connect();
 
             responseCode = connection.getResponseCode();
+            responseData.responseCode = responseCode;
+            responseData.retryAfter = UtilNetworking.parseRetryAfter(
+                    connection.getHeaderField("Retry-After"), System.currentTimeMillis());
             final InputStream inputStream;
 
             if (responseCode.intValue() >= Constants.MINIMAL_ERROR_STATUS_CODE) {
@@ -436,15 +762,17 @@ public class ActivityPackageSender implements IActivityPackageSender {
             while ((line = bufferedReader.readLine()) != null) {
                 responseStringBuilder.append(line);
             }
+
+            // fully read and closed response releases the connection back to the pool
+            bufferedReader.close();
         } catch (final IOException ioException) {
             String errorMessage = errorMessage(ioException,
                     "Connecting and reading response",
                     responseData.activityPackage);
             logger.error(errorMessage);
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
+
+            // don't leave a broken connection in the pool
+            connection.disconnect();
         }
 
         if (responseStringBuilder.length() == 0) {
@@ -499,6 +827,10 @@ public class ActivityPackageSender implements IActivityPackageSender {
             return;
         }
 
+        parseJsonResponse(responseData, jsonResponse);
+    }
+
+    private void parseJsonResponse(final ResponseData responseData, final JSONObject jsonResponse) {
         responseData.jsonResponse = jsonResponse;
 
         responseData.message = UtilNetworking.extractJsonString(jsonResponse,"message");
@@ -0,0 +1,216 @@
+package com.adjust.sdk.network;
+
+import com.adjust.sdk.AdjustFactory;
+import com.adjust.sdk.Constants;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Health of the endpoints, shared by all package senders so that a failover learned by one
+ * of them applies to all.
+ *
+ * An endpoint that failed is avoided until it answers again. Once per probe interval one
+ * request is still sent to it, to find out when it recovered.
+ *
+ * With the latency based selection the fastest healthy endpoint is used instead of the first
+ * one. The round trip times come from real traffic: once per evaluation interval a single
+ * request goes to each endpoint, to keep its moving average current.
+ */
+public class EndpointHealthRegistry {
+    // weight of the newest sample in the moving averages
+    private static final double EWMA_WEIGHT = 0.2;
+    private static final long DEFAULT_PROBE_INTERVAL = Constants.ONE_MINUTE;
+    private static final long DEFAULT_EVALUATION_INTERVAL = Constants.ONE_MINUTE * 10;
+    // an endpoint later in the choices has to be this much faster to be preferred
+    private static final double LATENCY_MARGIN = 0.2;
+
+    private final long probeIntervalMillis;
+    private final long evaluationIntervalMillis;
+    private final Map<String, EndpointHealth> endpointHealthMap;
+
+    public static class EndpointHealth {
+        // moving average of answered requests, from 0 to 1
+        double successRate = 1.0;
+        // moving average of the round trip time of answered requests, -1 until known
+        double latencyMillis = -1;
+        int consecutiveFailures = 0;
+        long nextProbeTimeMillis = 0;
+        long nextEvaluationTimeMillis = 0;
+
+        public double getSuccessRate() {
+            return successRate;
+        }
+
+        public double getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        public boolean isHealthy() {
+            return consecutiveFailures == 0;
+        }
+    }
+
+    public EndpointHealthRegistry() {
+        this(DEFAULT_PROBE_INTERVAL, DEFAULT_EVALUATION_INTERVAL);
+    }
+
+    public EndpointHealthRegistry(final long probeIntervalMillis) {
+        this(probeIntervalMillis, DEFAULT_EVALUATION_INTERVAL);
+    }
+
+    public EndpointHealthRegistry(final long probeIntervalMillis,
+                                  final long evaluationIntervalMillis)
+    {
+        this.probeIntervalMillis = probeIntervalMillis;
+        this.evaluationIntervalMillis = evaluationIntervalMillis;
+        this.endpointHealthMap = new HashMap<String, EndpointHealth>();
+    }
+
+    public synchronized void recordSuccess(final String endpoint, final long latencyMillis) {
+        EndpointHealth endpointHealth = endpointHealthOf(endpoint);
+
+        if (!endpointHealth.isHealthy()) {
+            AdjustFactory.getLogger().info("Endpoint %s is reachable again", endpoint);
+        }
+
+        endpointHealth.successRate =
+                EWMA_WEIGHT + (1 - EWMA_WEIGHT) * endpointHealth.successRate;
+        if (endpointHealth.latencyMillis < 0) {
+            endpointHealth.latencyMillis = latencyMillis;
+        } else {
+            endpointHealth.latencyMillis = EWMA_WEIGHT * latencyMillis
+                    + (1 - EWMA_WEIGHT) * endpointHealth.latencyMillis;
+        }
+        endpointHealth.consecutiveFailures = 0;
+        endpointHealth.nextEvaluationTimeMillis =
+                System.currentTimeMillis() + evaluationIntervalMillis;
+    }
+
+    public synchronized void recordFailure(final String endpoint) {
+        EndpointHealth endpointHealth = endpointHealthOf(endpoint);
+
+        if (endpointHealth.isHealthy()) {
+            AdjustFactory.getLogger().warn("Endpoint %s failed, avoiding it", endpoint);
+        }
+
+        endpointHealth.successRate = (1 - EWMA_WEIGHT) * endpointHealth.successRate;
+        endpointHealth.consecutiveFailures++;
+        endpointHealth.nextProbeTimeMillis = System.currentTimeMillis() + probeIntervalMillis;
+    }
+
+    /**
+     * Picks the first healthy endpoint of the ordered choices. A failed endpoint is picked
+     * again when it is due for a probe, so that the primary is used again once it recovers.
+     *
+     * @return Index of the chosen endpoint
+     */
+    public synchronized int selectEndpoint(final List<String> endpointChoices) {
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < endpointChoices.size(); i++) {
+            EndpointHealth endpointHealth = endpointHealthMap.get(endpointChoices.get(i));
+            if (endpointHealth == null || endpointHealth.isHealthy()) {
+                return i;
+            }
+            if (now >= endpointHealth.nextProbeTimeMillis) {
+                // only one request probes, the others keep avoiding it
+                endpointHealth.nextProbeTimeMillis = now + probeIntervalMillis;
+                AdjustFactory.getLogger().debug("Probing endpoint %s", endpointChoices.get(i));
+                return i;
+            }
+        }
+
+        return mostSuccessfulEndpoint(endpointChoices);
+    }
+
+    /**
+     * Picks the healthy endpoint with the lowest round trip time. Endpoints due for a probe or
+     * for a new measurement are picked first, one request at a time. The choices are expected
+     * to only contain endpoints allowed by the url strategy, like a single one for a data
+     * residency.
+     *
+     * @return Index of the chosen endpoint
+     */
+    public synchronized int selectFastestEndpoint(final List<String> endpointChoices) {
+        long now = System.currentTimeMillis();
+        int fastestIndex = -1;
+        double fastestLatencyMillis = 0;
+
+        for (int i = 0; i < endpointChoices.size(); i++) {
+            EndpointHealth endpointHealth = endpointHealthOf(endpointChoices.get(i));
+
+            if (!endpointHealth.isHealthy()) {
+                if (now >= endpointHealth.nextProbeTimeMillis) {
+                    endpointHealth.nextProbeTimeMillis = now + probeIntervalMillis;
+                    AdjustFactory.getLogger().debug("Probing endpoint %s", endpointChoices.get(i));
+                    return i;
+                }
+                continue;
+            }
+
+            if (now >= endpointHealth.nextEvaluationTimeMillis) {
+                // only one request measures it, the others use the current averages
+                endpointHealth.nextEvaluationTimeMillis = now + evaluationIntervalMillis;
+                return i;
+            }
+
+            // still waiting for the first measurement
+            if (endpointHealth.latencyMillis < 0) {
+                continue;
+            }
+
+            if (fastestIndex == -1
+                    || endpointHealth.latencyMillis < fastestLatencyMillis * (1 - LATENCY_MARGIN))
+            {
+                fastestIndex = i;
+                fastestLatencyMillis = endpointHealth.latencyMillis;
+            }
+        }
+
+        if (fastestIndex != -1) {
+            return fastestIndex;
+        }
+        return mostSuccessfulEndpoint(endpointChoices);
+    }
+
+    public synchronized EndpointHealth getEndpointHealth(final String endpoint) {
+        EndpointHealth endpointHealth = endpointHealthMap.get(endpoint);
+        if (endpointHealth == null) {
+            return null;
+        }
+
+        EndpointHealth copy = new EndpointHealth();
+        copy.successRate = endpointHealth.successRate;
+        copy.latencyMillis = endpointHealth.latencyMillis;
+        copy.consecutiveFailures = endpointHealth.consecutiveFailures;
+        copy.nextProbeTimeMillis = endpointHealth.nextProbeTimeMillis;
+        copy.nextEvaluationTimeMillis = endpointHealth.nextEvaluationTimeMillis;
+        return copy;
+    }
+
+    // when every endpoint failed, the one that failed the least
+    private int mostSuccessfulEndpoint(final List<String> endpointChoices) {
+        int bestIndex = 0;
+        double bestSuccessRate = -1;
+        for (int i = 0; i < endpointChoices.size(); i++) {
+            EndpointHealth endpointHealth = endpointHealthMap.get(endpointChoices.get(i));
+            double successRate = endpointHealth != null ? endpointHealth.successRate : 1.0;
+            if (successRate > bestSuccessRate) {
+                bestSuccessRate = successRate;
+                bestIndex = i;
+            }
+        }
+        return bestIndex;
+    }
+
+    private EndpointHealth endpointHealthOf(final String endpoint) {
+        EndpointHealth endpointHealth = endpointHealthMap.get(endpoint);
+        if (endpointHealth == null) {
+            endpointHealth = new EndpointHealth();
+            endpointHealthMap.put(endpoint, endpointHealth);
+        }
+        return endpointHealth;
+    }
+}
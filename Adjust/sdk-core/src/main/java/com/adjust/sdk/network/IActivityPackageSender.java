@@ -3,6 +3,7 @@ package com.adjust.sdk.network;
 import com.adjust.sdk.ActivityPackage;
 import com.adjust.sdk.ResponseData;
 
+import java.util.List;
 import java.util.Map;
 
 public interface IActivityPackageSender {
@@ -10,10 +11,21 @@ public interface IActivityPackageSender {
         void onResponseDataCallback(ResponseData responseData);
     }
 
+    interface BatchResponseDataCallbackSubscriber {
+        void onBatchResponseDataCallback(List<ResponseData> responseDataList);
+    }
+
     void sendActivityPackage(ActivityPackage activityPackage,
                              Map<String, String> sendingParameters,
                              ResponseDataCallbackSubscriber responseCallback);
 
     ResponseData sendActivityPackageSync(ActivityPackage activityPackage,
                              Map<String, String> sendingParameters);
+
+    void sendActivityPackageBatch(List<ActivityPackage> activityPackages,
+                                  Map<String, String> sendingParameters,
+                                  BatchResponseDataCallbackSubscriber batchResponseCallback);
+
+    List<ResponseData> sendActivityPackageBatchSync(List<ActivityPackage> activityPackages,
+                                                    Map<String, String> sendingParameters);
 }
@@ -0,0 +1,20 @@
+package com.adjust.sdk.network;
+
+/**
+ * Source of the connectivity of the device, which the activity handler pauses and resumes
+ * sending with.
+ */
+public interface INetworkMonitor {
+    interface NetworkListener {
+        // called on a thread of the monitor, only when one of the values changed
+        void onNetworkChanged(boolean isConnected, boolean isUnmetered);
+    }
+
+    void start(NetworkListener networkListener);
+
+    boolean isConnected();
+
+    boolean isUnmetered();
+
+    void teardown();
+}
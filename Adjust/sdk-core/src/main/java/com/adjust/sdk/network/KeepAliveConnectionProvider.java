@@ -0,0 +1,213 @@
+package com.adjust.sdk.network;
+
+import com.adjust.sdk.AdjustFactory;
+import com.adjust.sdk.network.UtilNetworking.IHttpsURLConnectionProvider;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Connection provider shared by all activity package senders.
+ *
+ * Connections are pooled per host by the platform as long as responses are fully read and
+ * connections are not disconnected. Every connection is created through the same socket
+ * factory, since the platform only reuses pooled connections for the same factory, which also
+ * lets it count new TLS handshakes against the number of requests for each host.
+ */
+public class KeepAliveConnectionProvider implements IHttpsURLConnectionProvider {
+    private final MeteredSSLSocketFactory socketFactory;
+    private final Map<String, ConnectionMetrics> metricsByHost;
+
+    public KeepAliveConnectionProvider() {
+        this(HttpsURLConnection.getDefaultSSLSocketFactory());
+    }
+
+    public KeepAliveConnectionProvider(final SSLSocketFactory sslSocketFactory) {
+        this.metricsByHost = new HashMap<String, ConnectionMetrics>();
+        this.socketFactory = new MeteredSSLSocketFactory(sslSocketFactory);
+    }
+
+    @Override
+    public HttpsURLConnection generateHttpsURLConnection(final URL url) throws IOException {
+        HttpsURLConnection connection = openConnection(url);
+        connection.setSSLSocketFactory(socketFactory);
+        connection.setRequestProperty("Connection", "keep-alive");
+
+        synchronized (metricsByHost) {
+            metricsForHost(url.getHost()).requests++;
+        }
+
+        return connection;
+    }
+
+    protected HttpsURLConnection openConnection(final URL url) throws IOException {
+        return (HttpsURLConnection) url.openConnection();
+    }
+
+    public ConnectionMetrics getMetrics(final String host) {
+        synchronized (metricsByHost) {
+            ConnectionMetrics metrics = metricsByHost.get(host);
+            return metrics != null ? metrics.copy() : new ConnectionMetrics();
+        }
+    }
+
+    // only called while holding the lock on metricsByHost
+    private ConnectionMetrics metricsForHost(final String host) {
+        ConnectionMetrics metrics = metricsByHost.get(host);
+        if (metrics == null) {
+            metrics = new ConnectionMetrics();
+            metricsByHost.put(host, metrics);
+        }
+        return metrics;
+    }
+
+    private void handshakeCompleted(final String host, final long handshakeMilli) {
+        ConnectionMetrics metrics;
+        synchronized (metricsByHost) {
+            metrics = metricsForHost(host);
+            metrics.handshakes++;
+            metrics.totalHandshakeMilli += handshakeMilli;
+            metrics = metrics.copy();
+        }
+
+        AdjustFactory.getLogger().verbose(
+                "New connection to %s, handshake took %d ms (%d of %d requests reused a connection)",
+                host, handshakeMilli, metrics.getReusedRequests(), metrics.requests);
+    }
+
+    /**
+     * Reuse and handshake numbers of one host.
+     */
+    public static class ConnectionMetrics {
+        long requests;
+        long handshakes;
+        long totalHandshakeMilli;
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getHandshakes() {
+            return handshakes;
+        }
+
+        public long getReusedRequests() {
+            return Math.max(0, requests - handshakes);
+        }
+
+        public double getReuseRate() {
+            if (requests == 0) {
+                return 0;
+            }
+            return getReusedRequests() / (double) requests;
+        }
+
+        public long getAverageHandshakeMilli() {
+            if (handshakes == 0) {
+                return 0;
+            }
+            return totalHandshakeMilli / handshakes;
+        }
+
+        ConnectionMetrics copy() {
+            ConnectionMetrics copy = new ConnectionMetrics();
+            copy.requests = requests;
+            copy.handshakes = handshakes;
+            copy.totalHandshakeMilli = totalHandshakeMilli;
+            return copy;
+        }
+    }
+
+    private class MeteredSSLSocketFactory extends SSLSocketFactory {
+        private final SSLSocketFactory delegate;
+
+        MeteredSSLSocketFactory(final SSLSocketFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String[] getDefaultCipherSuites() {
+            return delegate.getDefaultCipherSuites();
+        }
+
+        @Override
+        public String[] getSupportedCipherSuites() {
+            return delegate.getSupportedCipherSuites();
+        }
+
+        @Override
+        public Socket createSocket(final Socket socket,
+                                   final String host,
+                                   final int port,
+                                   final boolean autoClose) throws IOException
+        {
+            return metered(delegate.createSocket(socket, host, port, autoClose), host);
+        }
+
+        @Override
+        public Socket createSocket(final String host, final int port) throws IOException {
+            return metered(delegate.createSocket(host, port), host);
+        }
+
+        @Override
+        public Socket createSocket(final String host,
+                                   final int port,
+                                   final InetAddress localHost,
+                                   final int localPort) throws IOException
+        {
+            return metered(delegate.createSocket(host, port, localHost, localPort), host);
+        }
+
+        @Override
+        public Socket createSocket(final InetAddress host, final int port) throws IOException {
+            return metered(delegate.createSocket(host, port), hostOf(host));
+        }
+
+        @Override
+        public Socket createSocket(final InetAddress address,
+                                   final int port,
+                                   final InetAddress localAddress,
+                                   final int localPort) throws IOException
+        {
+            return metered(delegate.createSocket(address, port, localAddress, localPort),
+                    hostOf(address));
+        }
+
+        // the host name the address was created with, getHostName would look up unnamed
+        //  addresses in the DNS, on every new connection
+        private String hostOf(final InetAddress address) {
+            String addressString = address.toString();
+            int separatorIndex = addressString.indexOf('/');
+            if (separatorIndex > 0) {
+                return addressString.substring(0, separatorIndex);
+            }
+            return address.getHostAddress();
+        }
+
+        private Socket metered(final Socket socket, final String host) {
+            if (!(socket instanceof SSLSocket)) {
+                return socket;
+            }
+
+            final long createdAt = System.currentTimeMillis();
+            ((SSLSocket) socket).addHandshakeCompletedListener(new HandshakeCompletedListener() {
+                @Override
+                public void handshakeCompleted(final HandshakeCompletedEvent event) {
+                    KeepAliveConnectionProvider.this.handshakeCompleted(host,
+                            System.currentTimeMillis() - createdAt);
+                }
+            });
+            return socket;
+        }
+    }
+}
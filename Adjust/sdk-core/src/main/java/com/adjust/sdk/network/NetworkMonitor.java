@@ -0,0 +1,151 @@
+package com.adjust.sdk.network;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.Build;
+
+import com.adjust.sdk.AdjustFactory;
+
+/**
+ * Follows the default network of the device with a ConnectivityManager.NetworkCallback.
+ *
+ * Where the callback is not available, before api 24 or without the ACCESS_NETWORK_STATE
+ * permission, the device is taken as always connected to an unmetered network, which leaves
+ * sending as it was without the monitor.
+ */
+public class NetworkMonitor implements INetworkMonitor {
+    private final ConnectivityManager connectivityManager;
+    private ConnectivityManager.NetworkCallback networkCallback;
+    private volatile NetworkListener networkListener;
+    private Network defaultNetwork;
+    private volatile boolean isConnected = true;
+    private volatile boolean isUnmetered = true;
+
+    public NetworkMonitor(Context context) {
+        ConnectivityManager manager = null;
+        try {
+            manager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        } catch (Exception e) {
+            AdjustFactory.getLogger().warn("Couldn't get the connectivity manager (%s)", e.getMessage());
+        }
+        this.connectivityManager = manager;
+    }
+
+    @Override
+    public void start(NetworkListener networkListener) {
+        if (connectivityManager == null || networkCallback != null) {
+            return;
+        }
+        // the default network callback is only available from api 24
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            return;
+        }
+
+        ConnectivityManager.NetworkCallback callback = new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                NetworkCapabilities networkCapabilities =
+                        connectivityManager.getNetworkCapabilities(network);
+                networkUpdated(network, true, isUnmeteredNetwork(networkCapabilities));
+            }
+
+            @Override
+            public void onCapabilitiesChanged(Network network,
+                                              NetworkCapabilities networkCapabilities)
+            {
+                networkUpdated(network, true, isUnmeteredNetwork(networkCapabilities));
+            }
+
+            @Override
+            public void onLost(Network network) {
+                networkLost(network);
+            }
+        };
+
+        this.networkListener = networkListener;
+        try {
+            synchronized (this) {
+                defaultNetwork = connectivityManager.getActiveNetwork();
+                isConnected = defaultNetwork != null;
+                isUnmetered = isConnected && isUnmeteredNetwork(
+                        connectivityManager.getNetworkCapabilities(defaultNetwork));
+            }
+            connectivityManager.registerDefaultNetworkCallback(callback);
+            networkCallback = callback;
+        } catch (Exception e) {
+            AdjustFactory.getLogger().warn("Failed to monitor the network (%s)", e.getMessage());
+            this.networkListener = null;
+            synchronized (this) {
+                defaultNetwork = null;
+                isConnected = true;
+                isUnmetered = true;
+            }
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return isConnected;
+    }
+
+    @Override
+    public boolean isUnmetered() {
+        return isUnmetered;
+    }
+
+    @Override
+    public void teardown() {
+        networkListener = null;
+        if (networkCallback == null) {
+            return;
+        }
+        try {
+            connectivityManager.unregisterNetworkCallback(networkCallback);
+        } catch (Exception e) {
+            AdjustFactory.getLogger().warn("Failed to stop monitoring the network (%s)", e.getMessage());
+        }
+        networkCallback = null;
+    }
+
+    private void networkUpdated(Network network, boolean connected, boolean unmetered) {
+        synchronized (this) {
+            defaultNetwork = network;
+            if (isConnected == connected && isUnmetered == unmetered) {
+                return;
+            }
+            isConnected = connected;
+            isUnmetered = unmetered;
+        }
+        notifyListener(connected, unmetered);
+    }
+
+    private void networkLost(Network network) {
+        synchronized (this) {
+            // a replaced default network is lost after its replacement is available
+            if (defaultNetwork != null && !defaultNetwork.equals(network)) {
+                return;
+            }
+            defaultNetwork = null;
+            if (!isConnected) {
+                return;
+            }
+            isConnected = false;
+            isUnmetered = false;
+        }
+        notifyListener(false, false);
+    }
+
+    private void notifyListener(boolean connected, boolean unmetered) {
+        NetworkListener listener = networkListener;
+        if (listener != null) {
+            listener.onNetworkChanged(connected, unmetered);
+        }
+    }
+
+    private static boolean isUnmeteredNetwork(NetworkCapabilities networkCapabilities) {
+        return networkCapabilities != null
+                && networkCapabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+    }
+}
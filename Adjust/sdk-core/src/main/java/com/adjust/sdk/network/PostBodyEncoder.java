@@ -0,0 +1,175 @@
+package com.adjust.sdk.network;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Writes parameters as an application/x-www-form-urlencoded body straight to a stream.
+ *
+ * The output is byte for byte what joining URLEncoder.encode(key, "UTF-8") + "=" +
+ * URLEncoder.encode(value, "UTF-8") with '&' produces, without the intermediate Strings.
+ * Bytes are collected in a per thread buffer and written to the stream in chunks.
+ */
+public final class PostBodyEncoder {
+    private static final int BUFFER_SIZE = 4096;
+    // longest output of a single char, a surrogate pair encoded as 4 escaped bytes
+    private static final int MAX_CHAR_OUTPUT = 12;
+    private static final byte[] HEX_DIGITS = {
+            '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F' };
+    private static final boolean[] UNRESERVED = new boolean[128];
+
+    static {
+        // same set of characters URLEncoder leaves as they are
+        for (char c = 'a'; c <= 'z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            UNRESERVED[c] = true;
+        }
+        UNRESERVED['-'] = true;
+        UNRESERVED['_'] = true;
+        UNRESERVED['.'] = true;
+        UNRESERVED['*'] = true;
+    }
+
+    private static final ThreadLocal<byte[]> buffer = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BUFFER_SIZE];
+        }
+    };
+
+    private final OutputStream outputStream;
+    private final byte[] bytes;
+    private int position;
+    private boolean isFirstEntry;
+
+    private PostBodyEncoder(final OutputStream outputStream) {
+        this.outputStream = outputStream;
+        this.bytes = buffer.get();
+        this.position = 0;
+        this.isFirstEntry = true;
+    }
+
+    /**
+     * Writes the parameters followed by the sending parameters, nothing when both are empty.
+     */
+    public static void writePostBody(final Map<String, String> parameters,
+                                     final Map<String, String> sendingParameters,
+                                     final OutputStream outputStream)
+            throws IOException
+    {
+        PostBodyEncoder encoder = new PostBodyEncoder(outputStream);
+        encoder.writeParameters(parameters);
+        encoder.writeParameters(sendingParameters);
+        encoder.flushBuffer();
+    }
+
+    /**
+     * Length of the body before encoding, a lower bound of the encoded length.
+     */
+    public static int rawLength(final Map<String, String> parameters,
+                                final Map<String, String> sendingParameters)
+    {
+        return rawLength(parameters) + rawLength(sendingParameters);
+    }
+
+    private static int rawLength(final Map<String, String> parameters) {
+        if (parameters == null) {
+            return 0;
+        }
+
+        int length = 0;
+        for (final Map.Entry<String, String> entry : parameters.entrySet()) {
+            String value = entry.getValue();
+            // key, '=', value and '&'
+            length += entry.getKey().length() + 2 + (value != null ? value.length() : 0);
+        }
+        return length;
+    }
+
+    private void writeParameters(final Map<String, String> parameters) throws IOException {
+        if (parameters == null || parameters.isEmpty()) {
+            return;
+        }
+
+        for (final Map.Entry<String, String> entry : parameters.entrySet()) {
+            if (!isFirstEntry) {
+                writeByte('&');
+            }
+            isFirstEntry = false;
+
+            writeEncoded(entry.getKey());
+            writeByte('=');
+            String value = entry.getValue();
+            if (value != null) {
+                writeEncoded(value);
+            }
+        }
+    }
+
+    private void writeEncoded(final String string) throws IOException {
+        final int length = string.length();
+        for (int i = 0; i < length; i++) {
+            if (position > BUFFER_SIZE - MAX_CHAR_OUTPUT) {
+                flushBuffer();
+            }
+
+            final char c = string.charAt(i);
+            if (c < 128) {
+                if (UNRESERVED[c]) {
+                    bytes[position++] = (byte) c;
+                } else if (c == ' ') {
+                    bytes[position++] = '+';
+                } else {
+                    writeEscaped(c);
+                }
+            } else if (c < 0x800) {
+                writeEscaped(0xC0 | (c >> 6));
+                writeEscaped(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c)
+                    && i + 1 < length
+                    && Character.isLowSurrogate(string.charAt(i + 1)))
+            {
+                final int codePoint = Character.toCodePoint(c, string.charAt(i + 1));
+                i++;
+                writeEscaped(0xF0 | (codePoint >> 18));
+                writeEscaped(0x80 | ((codePoint >> 12) & 0x3F));
+                writeEscaped(0x80 | ((codePoint >> 6) & 0x3F));
+                writeEscaped(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogates can't be encoded in UTF-8 and become '?', as in URLEncoder
+                writeEscaped('?');
+            } else {
+                writeEscaped(0xE0 | (c >> 12));
+                writeEscaped(0x80 | ((c >> 6) & 0x3F));
+                writeEscaped(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void writeEscaped(final int b) {
+        bytes[position++] = '%';
+        bytes[position++] = HEX_DIGITS[(b >> 4) & 0xF];
+        bytes[position++] = HEX_DIGITS[b & 0xF];
+    }
+
+    private void writeByte(final char c) throws IOException {
+        if (position == BUFFER_SIZE) {
+            flushBuffer();
+        }
+        bytes[position++] = (byte) c;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position == 0) {
+            return;
+        }
+        outputStream.write(bytes, 0, position);
+        position = 0;
+    }
+}
@@ -37,6 +37,8 @@ public class UrlStrategy {
     private final String baseUrlOverwrite;
     private final String gdprUrlOverwrite;
     private final String subscriptionUrlOverwrite;
+    private final EndpointHealthRegistry endpointHealthRegistry;
+    private final boolean isLatencyBasedSelection;
 
     final List<String> baseUrlChoicesList;
     final List<String> gdprUrlChoicesList;
@@ -45,15 +47,34 @@ public class UrlStrategy {
     int choiceIndex;
     int startingChoiceIndex;
     boolean wasLastAttemptWithOverwrittenUrl;
+    // rotating through the choices after a failure, instead of asking the registry
+    boolean isRotatingAfterFailure;
 
     public UrlStrategy(final String baseUrlOverwrite,
                        final String gdprUrlOverwrite,
                        final String subscriptionUrlOverwrite,
                        final String adjustUrlStrategy)
+    {
+        this(baseUrlOverwrite,
+                gdprUrlOverwrite,
+                subscriptionUrlOverwrite,
+                adjustUrlStrategy,
+                new EndpointHealthRegistry(),
+                false);
+    }
+
+    public UrlStrategy(final String baseUrlOverwrite,
+                       final String gdprUrlOverwrite,
+                       final String subscriptionUrlOverwrite,
+                       final String adjustUrlStrategy,
+                       final EndpointHealthRegistry endpointHealthRegistry,
+                       final boolean isLatencyBasedSelection)
     {
         this.baseUrlOverwrite = baseUrlOverwrite;
         this.gdprUrlOverwrite = gdprUrlOverwrite;
         this.subscriptionUrlOverwrite = subscriptionUrlOverwrite;
+        this.endpointHealthRegistry = endpointHealthRegistry;
+        this.isLatencyBasedSelection = isLatencyBasedSelection;
 
         baseUrlChoicesList = baseUrlChoices(adjustUrlStrategy);
         gdprUrlChoicesList = gdprUrlChoices(adjustUrlStrategy);
@@ -63,15 +84,35 @@ public class UrlStrategy {
         choiceIndex = 0;
         startingChoiceIndex = 0;
         wasLastAttemptWithOverwrittenUrl = false;
+        isRotatingAfterFailure = false;
     }
 
-    public void resetAfterSuccess() {
+    public synchronized void resetAfterSuccess() {
         startingChoiceIndex = choiceIndex;
         wasLastAttemptSuccess = true;
+        isRotatingAfterFailure = false;
+    }
+
+    /**
+     * Shares the outcome of a request with the other senders.
+     *
+     * @param targetUrl Url returned by targetUrlByActivityKind for the request
+     * @param answered Whether the endpoint answered without asking to retry
+     * @param latencyMillis Round trip time of the request
+     */
+    public void recordResponse(final String targetUrl,
+                               final boolean answered,
+                               final long latencyMillis)
+    {
+        if (answered) {
+            endpointHealthRegistry.recordSuccess(targetUrl, latencyMillis);
+        } else {
+            endpointHealthRegistry.recordFailure(targetUrl);
+        }
     }
 
     @SuppressWarnings("UnnecessaryLocalVariable")
-    public boolean shouldRetryAfterFailure(final ActivityKind activityKind) {
+    public synchronized boolean shouldRetryAfterFailure(final ActivityKind activityKind) {
         wasLastAttemptSuccess = false;
 
         // does not need to "rotate" choice index
@@ -79,6 +120,7 @@ public class UrlStrategy {
         //  might as well stop retrying in the same sending "session"
         //  and let the backoff strategy pick it up
         if (wasLastAttemptWithOverwrittenUrl) {
+            isRotatingAfterFailure = false;
             return false;
         }
 
@@ -98,17 +140,19 @@ public class UrlStrategy {
         final boolean nextChoiceHasNotReturnedToStartingChoice =
                 choiceIndex != startingChoiceIndex;
 
+        isRotatingAfterFailure = nextChoiceHasNotReturnedToStartingChoice;
+
         return nextChoiceHasNotReturnedToStartingChoice;
     }
 
-    public String targetUrlByActivityKind(final ActivityKind activityKind) {
+    public synchronized String targetUrlByActivityKind(final ActivityKind activityKind) {
         if (activityKind == ActivityKind.GDPR) {
             if (gdprUrlOverwrite != null) {
                 wasLastAttemptWithOverwrittenUrl = true;
                 return gdprUrlOverwrite;
             } else {
                 wasLastAttemptWithOverwrittenUrl = false;
-                return gdprUrlChoicesList.get(choiceIndex);
+                return choiceOf(gdprUrlChoicesList);
             }
         } else if (activityKind == ActivityKind.SUBSCRIPTION) {
             if (subscriptionUrlOverwrite != null) {
@@ -116,7 +160,7 @@ public class UrlStrategy {
                 return subscriptionUrlOverwrite;
             } else {
                 wasLastAttemptWithOverwrittenUrl = false;
-                return subscriptionUrlChoicesList.get(choiceIndex);
+                return choiceOf(subscriptionUrlChoicesList);
             }
         } else {
             if (baseUrlOverwrite != null) {
@@ -124,11 +168,23 @@ public class UrlStrategy {
                 return baseUrlOverwrite;
             } else {
                 wasLastAttemptWithOverwrittenUrl = false;
-                return baseUrlChoicesList.get(choiceIndex);
+                return choiceOf(baseUrlChoicesList);
             }
         }
     }
 
+    private String choiceOf(final List<String> urlChoicesList) {
+        // a new sending starts with the first, or the fastest, choice the shared registry
+        //  finds healthy, among the choices allowed by the url strategy
+        if (!isRotatingAfterFailure) {
+            choiceIndex = isLatencyBasedSelection
+                    ? endpointHealthRegistry.selectFastestEndpoint(urlChoicesList)
+                    : endpointHealthRegistry.selectEndpoint(urlChoicesList);
+            startingChoiceIndex = choiceIndex;
+        }
+        return urlChoicesList.get(choiceIndex);
+    }
+
     private static List<String> baseUrlChoices(final String urlStrategy)
     {
         if (URL_STRATEGY_INDIA.equals(urlStrategy)) {
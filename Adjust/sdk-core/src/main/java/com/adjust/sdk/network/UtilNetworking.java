@@ -8,6 +8,11 @@ import org.json.JSONObject;
 
 import java.io.IOException;
 import java.net.URL;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
 
 import javax.net.ssl.HttpsURLConnection;
 
@@ -17,6 +22,7 @@ import javax.net.ssl.HttpsURLConnection;
 
 public class UtilNetworking {
     private static String userAgent;
+    private static KeepAliveConnectionProvider keepAliveConnectionProvider;
 
     private static ILogger getLogger() {
         return AdjustFactory.getLogger();
@@ -53,14 +59,26 @@ public class UtilNetworking {
     }
 
     public static IHttpsURLConnectionProvider createDefaultHttpsURLConnectionProvider() {
-        return new IHttpsURLConnectionProvider() {
-            @Override
-            public HttpsURLConnection generateHttpsURLConnection(final URL url)
-                    throws IOException
-            {
-                return (HttpsURLConnection) url.openConnection();
+        // one instance for all senders, so that they share pooled connections
+        synchronized (UtilNetworking.class) {
+            if (keepAliveConnectionProvider == null) {
+                keepAliveConnectionProvider = new KeepAliveConnectionProvider();
             }
-        };
+            return keepAliveConnectionProvider;
+        }
+    }
+
+    /**
+     * @return Reuse and handshake numbers of the connections to the host, made by the provider
+     *         all senders share by default
+     */
+    public static KeepAliveConnectionProvider.ConnectionMetrics getConnectionMetrics(String host) {
+        synchronized (UtilNetworking.class) {
+            if (keepAliveConnectionProvider == null) {
+                return new KeepAliveConnectionProvider.ConnectionMetrics();
+            }
+            return keepAliveConnectionProvider.getMetrics(host);
+        }
     }
 
     public static String extractJsonString(final JSONObject jsonObject, final String name) {
@@ -94,4 +112,28 @@ public class UtilNetworking {
         }
         return null;
     }
+
+    // the value of a Retry-After header in milliseconds from now, either delay seconds or a date
+    public static Long parseRetryAfter(final String retryAfter, final long nowMillis) {
+        if (retryAfter == null) {
+            return null;
+        }
+        final String value = retryAfter.trim();
+        try {
+            long seconds = Long.parseLong(value);
+            return seconds < 0 ? null : seconds * Constants.ONE_SECOND;
+        } catch (final NumberFormatException ignored) {
+        }
+
+        final SimpleDateFormat httpDateFormat =
+                new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        httpDateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            Date retryDate = httpDateFormat.parse(value);
+            return Math.max(0, retryDate.getTime() - nowMillis);
+        } catch (final ParseException parseException) {
+            getLogger().debug("Ignoring Retry-After header %s", value);
+            return null;
+        }
+    }
 }
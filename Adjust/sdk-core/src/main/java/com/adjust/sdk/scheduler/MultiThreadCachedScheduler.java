@@ -0,0 +1,111 @@
+package com.adjust.sdk.scheduler;
+
+import com.adjust.sdk.AdjustFactory;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs submitted tasks on up to a fixed number of threads at the same time, borrowed from the
+ * shared SdkExecutor or from the given executor, instead of threads of its own. Tasks start in
+ * the order they were submitted.
+ */
+public class MultiThreadCachedScheduler implements ThreadExecutor {
+    private final ConcurrentLinkedQueue<Runnable> queue;
+    // threads of the executor draining the queue right now
+    private final AtomicInteger drainingThreads;
+    private final int maxThreads;
+    private volatile boolean isTeardown;
+    private final String source;
+    private final Executor executor;
+    private final Runnable drainTask;
+
+    public MultiThreadCachedScheduler(final String source, final int maxThreads) {
+        this(source, maxThreads, AdjustFactory.getSdkExecutor());
+    }
+
+    public MultiThreadCachedScheduler(final String source,
+                                      final int maxThreads,
+                                      final Executor executor)
+    {
+        this.queue = new ConcurrentLinkedQueue<Runnable>();
+        this.drainingThreads = new AtomicInteger(0);
+        this.maxThreads = maxThreads;
+        this.isTeardown = false;
+        this.source = source;
+        this.executor = executor;
+        this.drainTask = new Runnable() {
+            @Override
+            public void run() {
+                drainQueue();
+            }
+        };
+    }
+
+    @Override
+    public void submit(final Runnable task) {
+        if (isTeardown) {
+            return;
+        }
+        queue.offer(task);
+        startDrainingThread();
+    }
+
+    private void startDrainingThread() {
+        if (!tryAcquireThread()) {
+            return;
+        }
+
+        try {
+            executor.execute(drainTask);
+        } catch (RejectedExecutionException e) {
+            drainingThreads.decrementAndGet();
+            AdjustFactory.getLogger().warn("Runnable [%s] rejected from [%s] ",
+                    drainTask.toString(), source);
+        }
+    }
+
+    private void drainQueue() {
+        while (true) {
+            Runnable task;
+            while ((task = queue.poll()) != null) {
+                if (isTeardown) {
+                    queue.clear();
+                    break;
+                }
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    AdjustFactory.getLogger().warn("Execution failed: %s", t.getMessage());
+                }
+            }
+
+            drainingThreads.decrementAndGet();
+
+            // A task added after the last poll could have found every thread still draining.
+            if (queue.isEmpty() || isTeardown || !tryAcquireThread()) {
+                return;
+            }
+        }
+    }
+
+    private boolean tryAcquireThread() {
+        while (true) {
+            int draining = drainingThreads.get();
+            if (draining >= maxThreads) {
+                return false;
+            }
+            if (drainingThreads.compareAndSet(draining, draining + 1)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void teardown() {
+        isTeardown = true;
+        queue.clear();
+    }
+}
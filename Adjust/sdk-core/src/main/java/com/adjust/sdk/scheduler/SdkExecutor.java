@@ -0,0 +1,116 @@
+package com.adjust.sdk.scheduler;
+
+import com.adjust.sdk.AdjustFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The threads shared by the serial lanes of all SDK components, instead of a pool per component.
+ * Each SingleThreadCachedScheduler is one lane: its tasks run one at a time and in order, on
+ * whichever of these threads is free. Delays are held by the SharedTimerScheduler.
+ *
+ * The lanes that block on the network run on the I/O pool, the others on the shared pool, so a
+ * blocked lane never holds a thread the others need. Both pools are bounded, a lane waiting for
+ * a thread stays queued, which is only safe as long as no lane on them waits for another lane.
+ *
+ * The lanes that wait for other lanes, like the activity handler and the identifier sources,
+ * and the ones waited for with a timeout, like the Play ad id library, run on the waiting pool.
+ * It starts a thread for every lane that has work instead of queueing it, so a lane never waits
+ * for a thread held by the lanes waiting for it. Its threads are bounded by the number of those
+ * lanes. Idle threads of all pools are released after the same keep alive as before, so an idle
+ * SDK holds none.
+ */
+public class SdkExecutor implements Executor {
+    private static final String SOURCE = "SdkExecutor";
+    private static final String IO_SOURCE = "SdkIoExecutor";
+    private static final String WAITING_SOURCE = "SdkWaitingExecutor";
+    // the lanes on it don't block, beyond reading and writing files
+    public static final int MAX_THREADS = 4;
+    // the package senders and link resolution
+    public static final int MAX_IO_THREADS = 8;
+
+    private static SdkExecutor defaultInstance;
+    private static SdkExecutor ioInstance;
+    private static SdkExecutor waitingInstance;
+
+    private ThreadPoolExecutor threadPoolExecutor;
+
+    public static synchronized SdkExecutor getInstance() {
+        if (defaultInstance == null) {
+            defaultInstance = new SdkExecutor(MAX_THREADS);
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * @return Pool of the lanes that block on the network, nobody waits for them
+     */
+    public static synchronized SdkExecutor getIoInstance() {
+        if (ioInstance == null) {
+            ioInstance = new SdkExecutor(IO_SOURCE, MAX_IO_THREADS, MAX_IO_THREADS,
+                    new LinkedBlockingQueue<Runnable>());
+        }
+        return ioInstance;
+    }
+
+    /**
+     * @return Pool of the lanes that wait for other lanes or are waited for, a thread per lane
+     */
+    public static synchronized SdkExecutor getWaitingInstance() {
+        if (waitingInstance == null) {
+            waitingInstance = new SdkExecutor(WAITING_SOURCE, 0, Integer.MAX_VALUE,
+                    new SynchronousQueue<Runnable>());
+        }
+        return waitingInstance;
+    }
+
+    public SdkExecutor(int maxThreads) {
+        this(SOURCE, maxThreads, maxThreads, new LinkedBlockingQueue<Runnable>());
+    }
+
+    private SdkExecutor(final String source,
+                        int coreThreads,
+                        int maxThreads,
+                        BlockingQueue<Runnable> workQueue)
+    {
+        threadPoolExecutor = new ThreadPoolExecutor(
+            coreThreads, maxThreads,
+            60L, TimeUnit.SECONDS,
+            workQueue,
+            new ThreadFactoryWrapper(source),
+            new RejectedExecutionHandler() {     // Logs rejected runnables rejected from the entering the pool
+                @Override
+                public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+                    AdjustFactory.getLogger().warn("Runnable [%s] rejected from [%s] ",
+                            runnable.toString(), source);
+                }
+            }
+        );
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable runnable) {
+        threadPoolExecutor.execute(runnable);
+    }
+
+    /**
+     * @return Number of threads alive right now
+     */
+    public int getPoolSize() {
+        return threadPoolExecutor.getPoolSize();
+    }
+
+    /**
+     * @return Largest number of threads that were alive at the same time
+     */
+    public int getLargestPoolSize() {
+        return threadPoolExecutor.getLargestPoolSize();
+    }
+}
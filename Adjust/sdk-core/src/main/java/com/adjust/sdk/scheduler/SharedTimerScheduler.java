@@ -0,0 +1,117 @@
+package com.adjust.sdk.scheduler;
+
+import android.os.Build;
+
+import com.adjust.sdk.AdjustFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One timer thread that holds the delayed tasks of all schedulers, instead of a sleeping
+ * thread per delay. The thread only exists while tasks are pending.
+ *
+ * Tasks run on the timer thread, so they should just hand their work over to the executor
+ * of their component. They are cancelled without interrupting it, since the thread runs the
+ * tasks of every component. Cancelled tasks leave the queue right away, so rescheduled timers
+ * don't pile up until their original delays.
+ */
+public class SharedTimerScheduler implements FutureScheduler {
+    private static final String SOURCE = "SharedTimer";
+    // queued tasks above which cancelled ones are purged, where they can't be removed on cancel
+    private static final int PURGE_QUEUE_SIZE = 64;
+    private static SharedTimerScheduler defaultInstance;
+
+    private ScheduledThreadPoolExecutor scheduledThreadPoolExecutor;
+
+    public static synchronized SharedTimerScheduler getInstance() {
+        if (defaultInstance == null) {
+            defaultInstance = new SharedTimerScheduler();
+        }
+        return defaultInstance;
+    }
+
+    private SharedTimerScheduler() {
+        scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(
+                1,
+                new ThreadFactoryWrapper(SOURCE),
+                new RejectedExecutionHandler() {     // Logs rejected runnables rejected from the entering the pool
+                    @Override
+                    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+                        AdjustFactory.getLogger().warn("Runnable [%s] rejected from [%s] ",
+                                runnable.toString(), SOURCE);
+                    }
+                }
+        );
+
+        // the thread is kept while delayed tasks are waiting in the queue
+        scheduledThreadPoolExecutor.setKeepAliveTime(60L, TimeUnit.SECONDS);
+        scheduledThreadPoolExecutor.allowCoreThreadTimeOut(true);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            scheduledThreadPoolExecutor.setRemoveOnCancelPolicy(true);
+        }
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleFuture(Runnable command, long millisecondDelay) {
+        purgeIfNeeded();
+        return scheduledThreadPoolExecutor.schedule(new RunnableWrapper(command), millisecondDelay, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> scheduleFutureWithReturn(final Callable<V> callable, long millisecondDelay) {
+        purgeIfNeeded();
+        return scheduledThreadPoolExecutor.schedule(new Callable<V>() {
+            @Override
+            public V call() {
+                try {
+                    return callable.call();
+                } catch (Throwable t) {
+                    AdjustFactory.getLogger().error("Callable error [%s] of type [%s]",
+                            t.getMessage(), t.getClass().getCanonicalName());
+                    return null;
+                }
+            }
+        }, millisecondDelay, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleFutureWithFixedDelay(Runnable command, long initialMillisecondDelay, long millisecondDelay) {
+        purgeIfNeeded();
+        return scheduledThreadPoolExecutor.scheduleWithFixedDelay(new RunnableWrapper(command), initialMillisecondDelay, millisecondDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Drops cancelled tasks from the queue.
+     */
+    public void purge() {
+        scheduledThreadPoolExecutor.purge();
+    }
+
+    /**
+     * @return Number of tasks in the queue, cancelled ones included until they are removed
+     */
+    public int getQueueSize() {
+        return scheduledThreadPoolExecutor.getQueue().size();
+    }
+
+    // before Lollipop cancelled tasks stay queued until their delay, so they're purged instead
+    private void purgeIfNeeded() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return;
+        }
+        if (scheduledThreadPoolExecutor.getQueue().size() >= PURGE_QUEUE_SIZE) {
+            scheduledThreadPoolExecutor.purge();
+        }
+    }
+
+    @Override
+    public void teardown() {
+        // shared by all schedulers, their tasks are cancelled by their owners
+    }
+}
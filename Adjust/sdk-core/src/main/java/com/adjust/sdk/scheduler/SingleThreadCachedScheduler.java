@@ -2,106 +2,154 @@ package com.adjust.sdk.scheduler;
 
 import com.adjust.sdk.AdjustFactory;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.RejectedExecutionHandler;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Serial lane of one component on the shared SdkExecutor, or on the executor set in
+ * AdjustFactory. Tasks run one at a time and in the order they were submitted, but not always
+ * on the same thread.
+ */
 public class SingleThreadCachedScheduler implements ThreadScheduler {
-    private final List<Runnable> queue;
-    private boolean isThreadProcessing;
-    private boolean isTeardown;
-    private ThreadPoolExecutor threadPoolExecutor;
+    // tasks a lane runs before it lets the other lanes waiting for a thread go first
+    private static final int TASKS_PER_TURN = 64;
+
+    // Lock free multi producer, single consumer queue of linked nodes. Producers swap
+    // themselves in as the tail, only the thread draining the queue moves the head.
+    private final AtomicReference<Node> tail;
+    private Node head;
+    private final AtomicBoolean isThreadProcessing;
+    private volatile boolean isTeardown;
+    private final String source;
+    private final Executor executor;
+    private final Runnable drainTask;
+
+    private static final class Node {
+        Runnable task;
+        volatile Node next;
+
+        Node(Runnable task) {
+            this.task = task;
+        }
+    }
 
     public SingleThreadCachedScheduler(final String source) {
-        this.queue = new ArrayList<>();
-        isThreadProcessing = false;
-        isTeardown = false;
+        this(source, AdjustFactory.getSdkExecutor());
+    }
 
-        // Same configuration as Executors.newCachedThreadPool().
-        threadPoolExecutor = new ThreadPoolExecutor(
-            0, Integer.MAX_VALUE,
-            60L, TimeUnit.SECONDS,
-            new SynchronousQueue<Runnable>(),
-            new ThreadFactoryWrapper(source),
-            new RejectedExecutionHandler() {     // Logs rejected runnables rejected from the entering the pool
-                @Override
-                public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
-                    AdjustFactory.getLogger().warn("Runnable [%s] rejected from [%s] ",
-                            runnable.toString(), source);
-                }
+    public SingleThreadCachedScheduler(final String source, final Executor executor) {
+        head = new Node(null);
+        tail = new AtomicReference<Node>(head);
+        isThreadProcessing = new AtomicBoolean(false);
+        isTeardown = false;
+        this.source = source;
+        this.executor = executor;
+        this.drainTask = new Runnable() {
+            @Override
+            public void run() {
+                drainQueue();
             }
-        );
+        };
     }
 
     @Override
     public void submit(Runnable task) {
-        synchronized (queue) {
-            if (isTeardown) {
-                return;
-            }
-            if (!isThreadProcessing) {
-                isThreadProcessing = true;
-                processQueue(task);
-            }
-            else {
-                queue.add(task);
-            }
+        if (isTeardown) {
+            return;
+        }
+
+        Node node = new Node(task);
+        Node previous = tail.getAndSet(node);
+        previous.next = node;
+
+        if (isThreadProcessing.compareAndSet(false, true)) {
+            processQueue();
         }
     }
 
     @Override
     public void schedule(final Runnable task, final long millisecondsDelay) {
-        synchronized (queue) {
-            if (isTeardown) {
-                return;
+        if (isTeardown) {
+            return;
+        }
+
+        // The delay is held by the shared timer, not by a sleeping thread of the executor.
+        SharedTimerScheduler.getInstance().scheduleFuture(new Runnable() {
+            @Override
+            public void run() {
+                submit(task);
             }
+        }, millisecondsDelay);
+    }
 
-            threadPoolExecutor.submit(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        Thread.sleep(millisecondsDelay);
-                    } catch (InterruptedException e) {
-                        AdjustFactory.getLogger().warn("Sleep delay exception: %s",
-                                e.getMessage());
-                    }
-
-                    submit(task);
-                }
-            });
+    private void processQueue() {
+        try {
+            executor.execute(drainTask);
+        } catch (RejectedExecutionException e) {
+            isThreadProcessing.set(false);
+            AdjustFactory.getLogger().warn("Runnable [%s] rejected from [%s] ",
+                    drainTask.toString(), source);
         }
     }
 
-    private void processQueue(final Runnable firstRunnable) {
-        threadPoolExecutor.submit(new Runnable() {
-            @Override
-            public void run() {
-                // Execute the first task.
-                tryExecuteRunnable(firstRunnable);
-
-                Runnable runnable;
-                // Process all available items in the queue.
-                while (true) {
-                    synchronized (queue) {
-                        // Possible teardown happened meanwhile.
-                        if (isTeardown) {
-                            return;
-                        }
-
-                        if (queue.isEmpty()) {
-                            isThreadProcessing = false;
-                            break;
-                        }
-                        runnable = queue.get(0);
-                        queue.remove(0);
-                    }
-                    tryExecuteRunnable(runnable);
+    private void drainQueue() {
+        while (true) {
+            Runnable runnable;
+            int tasksRun = 0;
+            while ((runnable = poll()) != null) {
+                // Possible teardown happened meanwhile.
+                if (isTeardown) {
+                    clearQueue();
+                    return;
                 }
+                tryExecuteRunnable(runnable);
+
+                // Keeps processing, but queues up behind the other lanes.
+                if (++tasksRun == TASKS_PER_TURN && !isEmpty()) {
+                    processQueue();
+                    return;
+                }
+            }
+
+            isThreadProcessing.set(false);
+
+            // A task added after the last poll, but before the flag was cleared,
+            // was left for this thread to execute.
+            if (isEmpty() || !isThreadProcessing.compareAndSet(false, true)) {
+                return;
             }
-        });
+        }
+    }
+
+    // Only called by the thread processing the queue.
+    private Runnable poll() {
+        Node next = head.next;
+        if (next == null) {
+            if (tail.get() == head) {
+                return null;
+            }
+            // A producer swapped the tail and is about to link its node.
+            do {
+                Thread.yield();
+                next = head.next;
+            } while (next == null);
+        }
+
+        head = next;
+        Runnable task = next.task;
+        next.task = null;
+        return task;
+    }
+
+    private boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+    private void clearQueue() {
+        while (poll() != null) {
+        }
     }
 
     private void tryExecuteRunnable(Runnable runnable) {
@@ -117,10 +165,12 @@ public class SingleThreadCachedScheduler implements ThreadScheduler {
 
     @Override
     public void teardown() {
-        synchronized (queue) {
-            isTeardown = true;
-            queue.clear();
-            threadPoolExecutor.shutdown();
+        isTeardown = true;
+
+        // Without a thread processing the queue, drop the queued tasks here. The flag stays
+        // set, so that no processing starts afterwards.
+        if (isThreadProcessing.compareAndSet(false, true)) {
+            clearQueue();
         }
     }
 }
@@ -13,7 +13,7 @@ import java.util.concurrent.TimeUnit;
 public class TimerCycle {
     private FutureScheduler scheduler;
 
-    private ScheduledFuture waitingTask;
+    private ScheduledFuture<?> waitingTask;
     private String name;
     private Runnable command;
     private long initialDelay;
@@ -22,7 +22,13 @@ public class TimerCycle {
     private ILogger logger;
 
     public TimerCycle(Runnable command, long initialDelay, long cycleDelay, String name) {
-        this.scheduler = new SingleThreadFutureScheduler(name, true);
+        this(command, initialDelay, cycleDelay, name, SharedTimerScheduler.getInstance());
+    }
+
+    public TimerCycle(Runnable command, long initialDelay, long cycleDelay, String name,
+                      FutureScheduler scheduler)
+    {
+        this.scheduler = scheduler;
 
         this.name = name;
         this.command = command;
@@ -85,7 +91,8 @@ public class TimerCycle {
     }
 
     public void teardown() {
-        cancel(true);
+        // not interrupting, the thread of the shared timer could be running another task
+        cancel(false);
 
         if (scheduler != null) {
             scheduler.teardown();
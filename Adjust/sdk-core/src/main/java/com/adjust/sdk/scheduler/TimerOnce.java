@@ -13,14 +13,18 @@ import java.util.concurrent.TimeUnit;
 public class TimerOnce {
     private FutureScheduler scheduler;
 
-    private ScheduledFuture waitingTask;
+    private ScheduledFuture<?> waitingTask;
     private String name;
     private Runnable command;
     private ILogger logger;
 
     public TimerOnce(Runnable command, String name) {
+        this(command, name, SharedTimerScheduler.getInstance());
+    }
+
+    public TimerOnce(Runnable command, String name, FutureScheduler scheduler) {
         this.name = name;
-        this.scheduler = new SingleThreadFutureScheduler(name, true);
+        this.scheduler = scheduler;
         this.command = command;
         this.logger = AdjustFactory.getLogger();
     }
@@ -64,7 +68,8 @@ public class TimerOnce {
     }
 
     public void teardown() {
-        cancel(true);
+        // not interrupting, the thread of the shared timer could be running another task
+        cancel(false);
 
         if (scheduler != null) {
             scheduler.teardown();
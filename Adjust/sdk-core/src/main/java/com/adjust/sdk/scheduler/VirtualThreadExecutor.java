@@ -0,0 +1,89 @@
+package com.adjust.sdk.scheduler;
+
+import com.adjust.sdk.AdjustFactory;
+import com.adjust.sdk.Constants;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs every task on a new virtual thread, for running the SDK on JDK 21 and newer, as in
+ * replay and load test harnesses on the JVM. Select it for the lanes with
+ * AdjustFactory.setSdkExecutor, AdjustFactory.setSdkIoExecutor and
+ * AdjustFactory.setSdkWaitingExecutor before starting the SDK.
+ *
+ * Lanes keep their order on it, since a lane hands only one drain of its queue at a time to
+ * the executor. A lane blocked on the network or on a binder call parks its virtual thread
+ * instead of holding a platform thread of the SdkExecutor I/O pool.
+ *
+ * Virtual threads don't exist on Android or before JDK 21, so they are created through
+ * reflection, and create() returns null without them.
+ *
+ * Experimental, and nothing selects it by default. Its thread footprint and latency against
+ * the SdkExecutor haven't been measured on JDK 21 yet, see SdkThreadFootprintBenchmark, so the
+ * bounded SdkExecutor pools stay the backend of the SDK.
+ */
+public class VirtualThreadExecutor implements Executor {
+    private static final String SOURCE = "VirtualThread";
+
+    private final ExecutorService executorService;
+    private final AtomicLong startedThreads;
+
+    private VirtualThreadExecutor(ExecutorService executorService) {
+        this.executorService = executorService;
+        this.startedThreads = new AtomicLong(0);
+    }
+
+    /**
+     * @return Executor of virtual threads, or null when the JVM doesn't have them
+     */
+    public static VirtualThreadExecutor create() {
+        try {
+            Class<?> builderClass;
+            try {
+                builderClass = Class.forName("java.lang.Thread$Builder");
+            } catch (ClassNotFoundException e) {
+                AdjustFactory.getLogger().debug("Virtual threads are not available");
+                return null;
+            }
+
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Method name = builderClass.getMethod("name", String.class, long.class);
+            Method factory = builderClass.getMethod("factory");
+            Method newThreadPerTaskExecutor =
+                    Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+
+            Object builder = ofVirtual.invoke(null);
+            builder = name.invoke(builder, Constants.THREAD_PREFIX + SOURCE + "-", 0L);
+            ThreadFactory threadFactory = (ThreadFactory) factory.invoke(builder);
+            ExecutorService executorService =
+                    (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+            return new VirtualThreadExecutor(executorService);
+        } catch (Throwable t) {
+            AdjustFactory.getLogger().debug("Virtual threads are not available (%s)",
+                    t.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void execute(Runnable runnable) {
+        startedThreads.incrementAndGet();
+        executorService.execute(new RunnableWrapper(runnable));
+    }
+
+    /**
+     * @return Number of virtual threads started since the executor was created
+     */
+    public long getStartedThreadCount() {
+        return startedThreads.get();
+    }
+
+    public void shutdown() {
+        executorService.shutdown();
+    }
+}
@@ -2,6 +2,7 @@ package com.adjust.sdk.oaid;
 
 import android.content.Context;
 
+import com.adjust.sdk.AdjustFactory;
 import com.adjust.sdk.Reflection;
 
 public class AdjustOaid {
@@ -17,6 +18,9 @@ public class AdjustOaid {
 
     public static void readOaid(Context base) {
         readOaid();
+
+        // resolve ahead of the first package, which otherwise waits for it
+        OaidCache.refresh(base, AdjustFactory.getLogger());
     }
 
     public static void doNotReadOaid() {
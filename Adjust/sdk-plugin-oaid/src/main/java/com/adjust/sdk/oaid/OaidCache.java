@@ -0,0 +1,159 @@
+package com.adjust.sdk.oaid;
+
+import android.content.Context;
+
+import com.adjust.sdk.AdjustFactory;
+import com.adjust.sdk.ILogger;
+import com.adjust.sdk.scheduler.SingleThreadCachedScheduler;
+import com.adjust.sdk.scheduler.ThreadExecutor;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Last OAID read from the device, which the package builders read without waiting for the
+ * HMS and MSA services.
+ *
+ * A snapshot older than its time to live is still handed out while a newer one is resolved in
+ * the background. Before any snapshot exists, the first read queries the services on the
+ * calling thread, as every read did before, so that the first session and install carry the
+ * OAID. Reads made while the first resolution runs wait for it to finish or fail, for at most
+ * FIRST_READ_TIMEOUT.
+ */
+final class OaidCache {
+    interface Resolver {
+        Map<String, String> resolve(Context context, ILogger logger);
+    }
+
+    // how long a read OAID is used before reading it again, it changes when the user resets it
+    static final long SNAPSHOT_TTL = 30 * 60 * 1000L;
+    // how long a failed read is used before trying again
+    static final long MISSING_SNAPSHOT_TTL = 60 * 1000L;
+    // longest a read waits for the first resolution, which takes up to 18 seconds with HMS
+    // alone, before MSA is tried
+    static final long FIRST_READ_TIMEOUT = 60 * 1000L;
+
+    static final class Snapshot {
+        // null when neither service gave an OAID
+        final Map<String, String> parameters;
+        final long resolvedAt;
+
+        Snapshot(Map<String, String> parameters, long resolvedAt) {
+            this.parameters = parameters == null
+                    ? null : Collections.unmodifiableMap(parameters);
+            this.resolvedAt = resolvedAt;
+        }
+
+        boolean isExpired(long now) {
+            long ttl = parameters != null ? SNAPSHOT_TTL : MISSING_SNAPSHOT_TTL;
+            return now - resolvedAt >= ttl || now < resolvedAt;
+        }
+    }
+
+    private static final Resolver SERVICES_RESOLVER = new Resolver() {
+        @Override
+        public Map<String, String> resolve(Context context, ILogger logger) {
+            return Util.resolveOaidParameters(context, logger);
+        }
+    };
+
+    private static volatile Snapshot snapshot;
+    private static final AtomicBoolean isResolving = new AtomicBoolean(false);
+    private static volatile CountDownLatch firstResolution = new CountDownLatch(1);
+    private static volatile Resolver resolver = SERVICES_RESOLVER;
+    private static volatile long firstReadTimeout = FIRST_READ_TIMEOUT;
+    private static ThreadExecutor executor;
+
+    private OaidCache() {
+    }
+
+    static Map<String, String> getOaidParameters(Context context, ILogger logger) {
+        Snapshot currentSnapshot = snapshot;
+        if (currentSnapshot != null) {
+            if (currentSnapshot.isExpired(System.currentTimeMillis())) {
+                refresh(context, logger);
+            }
+            return currentSnapshot.parameters;
+        }
+
+        // nothing read yet and no read running, this one reads the services
+        if (isResolving.compareAndSet(false, true)) {
+            return resolve(getApplicationContext(context), logger).parameters;
+        }
+
+        CountDownLatch currentFirstResolution = firstResolution;
+        try {
+            if (!currentFirstResolution.await(firstReadTimeout, TimeUnit.MILLISECONDS)) {
+                logger.debug("OAID is still being resolved after %d ms", firstReadTimeout);
+            }
+        } catch (InterruptedException e) {
+            logger.debug("Waiting for the OAID interrupted");
+            Thread.currentThread().interrupt();
+        }
+        currentSnapshot = snapshot;
+        return currentSnapshot != null ? currentSnapshot.parameters : null;
+    }
+
+    static boolean isResolving() {
+        return isResolving.get();
+    }
+
+    // starts reading the OAID in the background, unless it's being read already
+    static void refresh(Context context, final ILogger logger) {
+        if (!isResolving.compareAndSet(false, true)) {
+            return;
+        }
+        final Context applicationContext = getApplicationContext(context);
+
+        getExecutor().submit(new Runnable() {
+            @Override
+            public void run() {
+                resolve(applicationContext, logger);
+            }
+        });
+    }
+
+    // clears the cache and reads the services through the given resolver, used by tests
+    static void reset(Resolver newResolver, long newFirstReadTimeout) {
+        snapshot = null;
+        isResolving.set(false);
+        firstResolution = new CountDownLatch(1);
+        resolver = newResolver != null ? newResolver : SERVICES_RESOLVER;
+        firstReadTimeout = newFirstReadTimeout;
+    }
+
+    // replaces the last read, used by tests
+    static void setSnapshot(Snapshot newSnapshot) {
+        snapshot = newSnapshot;
+    }
+
+    // only called by the caller that set isResolving
+    private static Snapshot resolve(Context context, ILogger logger) {
+        Map<String, String> parameters = null;
+        Snapshot resolvedSnapshot;
+        try {
+            parameters = resolver.resolve(context, logger);
+        } finally {
+            resolvedSnapshot = new Snapshot(parameters, System.currentTimeMillis());
+            snapshot = resolvedSnapshot;
+            isResolving.set(false);
+            firstResolution.countDown();
+        }
+        return resolvedSnapshot;
+    }
+
+    private static Context getApplicationContext(Context context) {
+        return context.getApplicationContext() != null ? context.getApplicationContext() : context;
+    }
+
+    private static synchronized ThreadExecutor getExecutor() {
+        if (executor == null) {
+            executor = new SingleThreadCachedScheduler("OaidCache",
+                    AdjustFactory.getSdkIoExecutor());
+        }
+        return executor;
+    }
+}
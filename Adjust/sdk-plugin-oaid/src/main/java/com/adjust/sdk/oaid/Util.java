@@ -10,11 +10,17 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class Util {
-    public synchronized static Map<String, String> getOaidParameters(Context context, ILogger logger) {
+    public static Map<String, String> getOaidParameters(Context context, ILogger logger) {
         if (!AdjustOaid.isOaidToBeRead) {
             return null;
         }
 
+        // read from the cache, the services are only queried when it expires
+        return OaidCache.getOaidParameters(context, logger);
+    }
+
+    // can block for several seconds on each service, only called on the thread of the cache
+    static Map<String, String> resolveOaidParameters(Context context, ILogger logger) {
         Map<String, String> oaidParameters;
 
         // IMPORTANT:
@@ -1,7 +1,10 @@
 package com.adjust.sdk;
 
+import android.content.Context;
 import android.net.Uri;
 
+import org.json.JSONObject;
+
 
 /**
  * Created by pfms on 09/01/15.
@@ -11,6 +14,7 @@ public class MockActivityHandler implements IActivityHandler {
     private String prefix = "ActivityHandler ";
     private AdjustConfig config;
     private ResponseData lastResponseData;
+    private AdjustStartupTrace startupTrace = new AdjustStartupTrace();
 
     public MockActivityHandler(MockLogger testLogger) {
         this.testLogger = testLogger;
@@ -90,8 +94,18 @@ public class MockActivityHandler implements IActivityHandler {
     }
 
     @Override
-    public void sendReferrer(String referrer, long clickTime) {
-        testLogger.test(prefix + "sendReferrer, " + referrer + ". ClickTime, " + clickTime);
+    public void sendReftagReferrer() {
+        testLogger.test(prefix + "sendReftagReferrer");
+    }
+
+    @Override
+    public void sendPreinstallReferrer() {
+        testLogger.test(prefix + "sendPreinstallReferrer");
+    }
+
+    @Override
+    public void sendInstallReferrer(ReferrerDetails referrerDetails, String referrerApi) {
+        testLogger.test(prefix + "sendInstallReferrer, " + referrerApi);
     }
 
     @Override
@@ -140,12 +154,93 @@ public class MockActivityHandler implements IActivityHandler {
     }
 
     @Override
-    public void teardown(boolean deleteState) {
-        testLogger.test(prefix + "teardown deleteState, " + deleteState);
+    public void teardown() {
+        testLogger.test(prefix + "teardown");
+    }
+
+    @Override
+    public void setPushToken(String token, boolean preSaved) {
+        testLogger.test(prefix + "setPushToken token, " + token + ", preSaved, " + preSaved);
+    }
+
+    @Override
+    public void gdprForgetMe() {
+        testLogger.test(prefix + "gdprForgetMe");
+    }
+
+    @Override
+    public void disableThirdPartySharing() {
+        testLogger.test(prefix + "disableThirdPartySharing");
+    }
+
+    @Override
+    public void trackThirdPartySharing(AdjustThirdPartySharing adjustThirdPartySharing) {
+        testLogger.test(prefix + "trackThirdPartySharing");
+    }
+
+    @Override
+    public void trackMeasurementConsent(boolean consentMeasurement) {
+        testLogger.test(prefix + "trackMeasurementConsent, " + consentMeasurement);
+    }
+
+    @Override
+    public void trackAdRevenue(String source, JSONObject adRevenueJson) {
+        testLogger.test(prefix + "trackAdRevenue, " + source);
+    }
+
+    @Override
+    public void trackAdRevenue(AdjustAdRevenue adjustAdRevenue) {
+        testLogger.test(prefix + "trackAdRevenue");
+    }
+
+    @Override
+    public void trackPlayStoreSubscription(AdjustPlayStoreSubscription subscription) {
+        testLogger.test(prefix + "trackPlayStoreSubscription");
+    }
+
+    @Override
+    public void gotOptOutResponse() {
+        testLogger.test(prefix + "gotOptOutResponse");
+    }
+
+    @Override
+    public Context getContext() {
+        return config != null ? config.context : null;
+    }
+
+    @Override
+    public String getAdid() {
+        return null;
+    }
+
+    @Override
+    public AdjustAttribution getAttribution() {
+        return null;
+    }
+
+    @Override
+    public AdjustConfig getAdjustConfig() {
+        return config;
+    }
+
+    @Override
+    public DeviceInfo getDeviceInfo() {
+        return null;
+    }
+
+    @Override
+    public ActivityState getActivityState() {
+        return null;
+    }
+
+    @Override
+    public SessionParameters getSessionParameters() {
+        return null;
     }
 
     @Override
-    public void setPushToken(String token) {
-        testLogger.test(prefix + "setPushToken token, " + token);
+    public AdjustStartupTrace getStartupTrace() {
+        testLogger.test(prefix + "getStartupTrace");
+        return startupTrace;
     }
 }
@@ -0,0 +1,57 @@
+package com.adjust.sdk;
+
+import com.adjust.sdk.network.IActivityPackageSender;
+
+import java.util.List;
+import java.util.Map;
+
+public class MockActivityPackageSender implements IActivityPackageSender {
+    private MockLogger testLogger;
+    private String prefix = "ActivityPackageSender ";
+    ActivityPackage lastActivityPackage;
+    ResponseDataCallbackSubscriber lastResponseCallback;
+
+    public MockActivityPackageSender(MockLogger testLogger) {
+        this.testLogger = testLogger;
+    }
+
+    @Override
+    public void sendActivityPackage(ActivityPackage activityPackage,
+                                    Map<String, String> sendingParameters,
+                                    ResponseDataCallbackSubscriber responseCallback) {
+        testLogger.test(prefix + "sendActivityPackage, activityPackage " + activityPackage);
+        testLogger.test(prefix + "sendActivityPackage, queueSize " + queueSizeOf(sendingParameters));
+
+        // answered by the test through the last callback
+        this.lastActivityPackage = activityPackage;
+        this.lastResponseCallback = responseCallback;
+    }
+
+    @Override
+    public ResponseData sendActivityPackageSync(ActivityPackage activityPackage,
+                                                Map<String, String> sendingParameters) {
+        testLogger.test(prefix + "sendActivityPackageSync, activityPackage " + activityPackage);
+        return null;
+    }
+
+    @Override
+    public void sendActivityPackageBatch(List<ActivityPackage> activityPackages,
+                                         Map<String, String> sendingParameters,
+                                         BatchResponseDataCallbackSubscriber batchResponseCallback) {
+        testLogger.test(prefix + "sendActivityPackageBatch, activityPackages " + activityPackages);
+    }
+
+    @Override
+    public List<ResponseData> sendActivityPackageBatchSync(List<ActivityPackage> activityPackages,
+                                                           Map<String, String> sendingParameters) {
+        testLogger.test(prefix + "sendActivityPackageBatchSync, activityPackages " + activityPackages);
+        return null;
+    }
+
+    private static String queueSizeOf(Map<String, String> sendingParameters) {
+        if (sendingParameters == null || !sendingParameters.containsKey("queue_size")) {
+            return "0";
+        }
+        return sendingParameters.get("queue_size");
+    }
+}
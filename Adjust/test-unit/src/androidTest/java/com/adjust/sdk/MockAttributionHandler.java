@@ -1,5 +1,7 @@
 package com.adjust.sdk;
 
+import com.adjust.sdk.network.IActivityPackageSender;
+
 /**
  * Created by pfms on 09/01/15.
  */
@@ -17,11 +19,10 @@ public class MockAttributionHandler implements IAttributionHandler {
 
     @Override
     public void init(IActivityHandler activityHandler,
-                     ActivityPackage attributionPackage,
-                     boolean startsSending) {
+                     boolean startsSending,
+                     IActivityPackageSender attributionHandlerActivityPackageSender) {
         testLogger.test(prefix + "init, startsSending: " + startsSending);
         this.activityHandler = activityHandler;
-        this.attributionPackage = attributionPackage;
     }
 
     @Override
@@ -23,7 +23,7 @@ public class MockLogger implements ILogger {
     private long lastTime;
 
     public class ContainsReturn {
-        boolean containsMessage;
+        public boolean containsMessage;
         String matchMessage;
         ContainsReturn(boolean containsMessage, String matchMessage) {
             this.containsMessage = containsMessage;
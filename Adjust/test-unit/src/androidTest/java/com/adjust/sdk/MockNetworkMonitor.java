@@ -0,0 +1,49 @@
+package com.adjust.sdk;
+
+import com.adjust.sdk.network.INetworkMonitor;
+
+public class MockNetworkMonitor implements INetworkMonitor {
+    private MockLogger testLogger;
+    private String prefix = "NetworkMonitor ";
+    private NetworkListener networkListener;
+    private boolean isConnected = true;
+    private boolean isUnmetered = true;
+
+    public MockNetworkMonitor(MockLogger testLogger) {
+        this.testLogger = testLogger;
+    }
+
+    // as the connectivity manager would, only tells the listener about changes
+    public void setNetwork(boolean isConnected, boolean isUnmetered) {
+        if (this.isConnected == isConnected && this.isUnmetered == isUnmetered) {
+            return;
+        }
+        this.isConnected = isConnected;
+        this.isUnmetered = isUnmetered;
+        if (networkListener != null) {
+            networkListener.onNetworkChanged(isConnected, isUnmetered);
+        }
+    }
+
+    @Override
+    public void start(NetworkListener networkListener) {
+        testLogger.test(prefix + "start");
+        this.networkListener = networkListener;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return isConnected;
+    }
+
+    @Override
+    public boolean isUnmetered() {
+        return isUnmetered;
+    }
+
+    @Override
+    public void teardown() {
+        testLogger.test(prefix + "teardown");
+        networkListener = null;
+    }
+}
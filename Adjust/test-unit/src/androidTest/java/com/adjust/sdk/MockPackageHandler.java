@@ -2,6 +2,8 @@ package com.adjust.sdk;
 
 import android.content.Context;
 
+import com.adjust.sdk.network.IActivityPackageSender;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,7 +19,10 @@ public class MockPackageHandler implements IPackageHandler {
     }
 
     @Override
-    public void init(IActivityHandler activityHandler, Context context, boolean startsSending) {
+    public void init(IActivityHandler activityHandler,
+                     Context context,
+                     boolean startsSending,
+                     IActivityPackageSender packageHandlerActivityPackageSender) {
         testLogger.test(prefix + "init, startsSending: " + startsSending);
         this.activityHandler = activityHandler;
         this.context = context;
@@ -40,17 +45,6 @@ public class MockPackageHandler implements IPackageHandler {
         */
     }
 
-    @Override
-    public void sendNextPackage(ResponseData responseData) {
-        testLogger.test(prefix + "sendNextPackage, " + responseData);
-    }
-
-    @Override
-    public void closeFirstPackage(ResponseData responseData, ActivityPackage activityPackage) {
-        testLogger.test(prefix + "closeFirstPackage, responseData" + responseData);
-        testLogger.test(prefix + "closeFirstPackage, activityPackage" + activityPackage);
-    }
-
     @Override
     public void pauseSending() {
         testLogger.test(prefix + "pauseSending");
@@ -61,13 +55,24 @@ public class MockPackageHandler implements IPackageHandler {
         testLogger.test(prefix + "resumeSending");
     }
 
+    @Override
+    public void setNetworkState(boolean isConnected, boolean isUnmetered) {
+        testLogger.test(prefix + "setNetworkState, isConnected: " + isConnected
+                + ", isUnmetered: " + isUnmetered);
+    }
+
     @Override
     public void updatePackages(SessionParameters sessionParameters) {
         testLogger.test(prefix + "updatePackages, sessionParameters" + sessionParameters);
     }
 
     @Override
-    public void teardown(boolean deleteState) {
-        testLogger.test(prefix + "teardown deleteState, " + deleteState);
+    public void flush() {
+        testLogger.test(prefix + "flush");
+    }
+
+    @Override
+    public void teardown() {
+        testLogger.test(prefix + "teardown");
     }
 }
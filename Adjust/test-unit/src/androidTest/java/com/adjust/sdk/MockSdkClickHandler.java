@@ -1,5 +1,7 @@
 package com.adjust.sdk;
 
+import com.adjust.sdk.network.IActivityPackageSender;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,8 +18,11 @@ public class MockSdkClickHandler implements ISdkClickHandler {
         this.testLogger = testLogger;
         queue = new ArrayList<ActivityPackage>();
     }
+
     @Override
-    public void init(IActivityHandler activityHandler, boolean startsSending) {
+    public void init(IActivityHandler activityHandler,
+                     boolean startsSending,
+                     IActivityPackageSender sdkClickHandlerActivityPackageSender) {
         this.activityHandler = activityHandler;
         testLogger.test(prefix + "init, startsSending: " + startsSending);
     }
@@ -38,6 +43,16 @@ public class MockSdkClickHandler implements ISdkClickHandler {
         queue.add(sdkClick);
     }
 
+    @Override
+    public void sendReftagReferrers() {
+        testLogger.test(prefix + "sendReftagReferrers");
+    }
+
+    @Override
+    public void sendPreinstallPayload(String payload, String location) {
+        testLogger.test(prefix + "sendPreinstallPayload, " + location);
+    }
+
     @Override
     public void teardown() {
         testLogger.test(prefix + "teardown");
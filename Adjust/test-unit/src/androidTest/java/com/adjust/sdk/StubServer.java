@@ -0,0 +1,284 @@
+package com.adjust.sdk;
+
+import android.os.SystemClock;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * In-process server of one host, answering every request with an ok response.
+ *
+ * It keeps connections alive as the platform pools them: a connection whose response was read
+ * and closed is reused by the next request made through the same socket factory. A new
+ * connection opens a socket through the socket factory of the request, unless it's the default
+ * one, which a HandshakingSocketFactory can stand in for.
+ */
+class StubServer {
+    volatile boolean isDown;
+    volatile long roundTripMillis;
+    AtomicInteger requests = new AtomicInteger();
+    AtomicInteger newConnections = new AtomicInteger();
+
+    private final Map<SSLSocketFactory, Integer> idleConnections =
+            new IdentityHashMap<SSLSocketFactory, Integer>();
+
+    HttpsURLConnection openConnection(URL url) {
+        return new StubServerConnection(url, this);
+    }
+
+    private synchronized boolean takeIdleConnection(SSLSocketFactory socketFactory) {
+        Integer idle = idleConnections.get(socketFactory);
+        if (idle == null || idle == 0) {
+            return false;
+        }
+        idleConnections.put(socketFactory, idle - 1);
+        return true;
+    }
+
+    private synchronized void releaseConnection(SSLSocketFactory socketFactory) {
+        Integer idle = idleConnections.get(socketFactory);
+        idleConnections.put(socketFactory, idle == null ? 1 : idle + 1);
+    }
+
+    private static class StubServerConnection extends HttpsURLConnection {
+        private StubServer stubServer;
+        private ByteArrayOutputStream requestBody = new ByteArrayOutputStream();
+        private boolean isConnected;
+
+        StubServerConnection(URL url, StubServer stubServer) {
+            super(url);
+            this.stubServer = stubServer;
+        }
+
+        @Override
+        public void connect() throws IOException {
+            stubServer.requests.incrementAndGet();
+            if (stubServer.isDown) {
+                throw new IOException("Connection refused");
+            }
+            SystemClock.sleep(stubServer.roundTripMillis);
+
+            SSLSocketFactory socketFactory = getSSLSocketFactory();
+            if (isConnected || stubServer.takeIdleConnection(socketFactory)) {
+                isConnected = true;
+                return;
+            }
+            isConnected = true;
+            stubServer.newConnections.incrementAndGet();
+            // the default one would go to the network
+            if (socketFactory != HttpsURLConnection.getDefaultSSLSocketFactory()) {
+                Socket socket = socketFactory.createSocket(url.getHost(), 443);
+                if (socket instanceof SSLSocket) {
+                    ((SSLSocket) socket).startHandshake();
+                }
+            }
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return requestBody;
+        }
+
+        @Override
+        public int getResponseCode() {
+            return HttpsURLConnection.HTTP_OK;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new ByteArrayInputStream("{\"message\":\"ok\"}".getBytes("UTF-8")) {
+                @Override
+                public void close() {
+                    // a fully read response gives the connection back to the pool
+                    if (isConnected) {
+                        isConnected = false;
+                        stubServer.releaseConnection(getSSLSocketFactory());
+                    }
+                }
+            };
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return null;
+        }
+
+        @Override
+        public String getCipherSuite() {
+            return null;
+        }
+
+        @Override
+        public Certificate[] getLocalCertificates() {
+            return null;
+        }
+
+        @Override
+        public Certificate[] getServerCertificates() {
+            return null;
+        }
+
+        @Override
+        public void disconnect() {
+            isConnected = false;
+        }
+
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+    }
+
+    /**
+     * Creates sockets that complete their TLS handshake without a network.
+     */
+    static class HandshakingSocketFactory extends SSLSocketFactory {
+        @Override
+        public String[] getDefaultCipherSuites() {
+            return new String[0];
+        }
+
+        @Override
+        public String[] getSupportedCipherSuites() {
+            return new String[0];
+        }
+
+        @Override
+        public Socket createSocket(Socket socket, String host, int port, boolean autoClose) {
+            return new HandshakingSocket();
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) {
+            return new HandshakingSocket();
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) {
+            return new HandshakingSocket();
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) {
+            return new HandshakingSocket();
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress,
+                                   int localPort)
+        {
+            return new HandshakingSocket();
+        }
+    }
+
+    private static class HandshakingSocket extends SSLSocket {
+        private final List<HandshakeCompletedListener> listeners =
+                new ArrayList<HandshakeCompletedListener>();
+
+        @Override
+        public void startHandshake() {
+            HandshakeCompletedEvent event = new HandshakeCompletedEvent(this, null);
+            for (HandshakeCompletedListener listener : listeners) {
+                listener.handshakeCompleted(event);
+            }
+        }
+
+        @Override
+        public void addHandshakeCompletedListener(HandshakeCompletedListener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeHandshakeCompletedListener(HandshakeCompletedListener listener) {
+            listeners.remove(listener);
+        }
+
+        @Override
+        public String[] getSupportedCipherSuites() {
+            return new String[0];
+        }
+
+        @Override
+        public String[] getEnabledCipherSuites() {
+            return new String[0];
+        }
+
+        @Override
+        public void setEnabledCipherSuites(String[] suites) {
+        }
+
+        @Override
+        public String[] getSupportedProtocols() {
+            return new String[0];
+        }
+
+        @Override
+        public String[] getEnabledProtocols() {
+            return new String[0];
+        }
+
+        @Override
+        public void setEnabledProtocols(String[] protocols) {
+        }
+
+        @Override
+        public SSLSession getSession() {
+            return null;
+        }
+
+        @Override
+        public void setUseClientMode(boolean mode) {
+        }
+
+        @Override
+        public boolean getUseClientMode() {
+            return true;
+        }
+
+        @Override
+        public void setNeedClientAuth(boolean need) {
+        }
+
+        @Override
+        public boolean getNeedClientAuth() {
+            return false;
+        }
+
+        @Override
+        public void setWantClientAuth(boolean want) {
+        }
+
+        @Override
+        public boolean getWantClientAuth() {
+            return false;
+        }
+
+        @Override
+        public void setEnableSessionCreation(boolean flag) {
+        }
+
+        @Override
+        public boolean getEnableSessionCreation() {
+            return true;
+        }
+    }
+}
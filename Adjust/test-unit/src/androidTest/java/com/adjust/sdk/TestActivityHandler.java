@@ -50,6 +50,10 @@ public class TestActivityHandler {
         AdjustFactory.setPackageHandler(mockPackageHandler);
         AdjustFactory.setAttributionHandler(mockAttributionHandler);
         AdjustFactory.setSdkClickHandler(mockSdkClickHandler);
+        // the tests check every write of the activity state
+        AdjustFactory.setActivityStateFlushInterval(0);
+        // connected, whatever the network of the test device
+        AdjustFactory.setNetworkMonitor(new MockNetworkMonitor(mockLogger));
 
         //activity = launchActivity(null);
         activity = mActivityRule.getActivity();
@@ -75,6 +79,8 @@ public class TestActivityHandler {
         AdjustFactory.setTimerStart(-1);
         AdjustFactory.setSessionInterval(-1);
         AdjustFactory.setSubsessionInterval(-1);
+        AdjustFactory.setActivityStateFlushInterval(-1);
+        AdjustFactory.setNetworkMonitor(null);
 
         SharedPreferences settings = context.getSharedPreferences(Constants.PREFERENCES_NAME, Context.MODE_PRIVATE);
         SharedPreferences.Editor editor = settings.edit();
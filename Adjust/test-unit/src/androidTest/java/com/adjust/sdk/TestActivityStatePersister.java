@@ -0,0 +1,181 @@
+package com.adjust.sdk;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.adjust.sdk.scheduler.SharedTimerScheduler;
+import com.adjust.sdk.scheduler.SingleThreadCachedScheduler;
+import com.adjust.sdk.scheduler.ThreadExecutor;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.FileOutputStream;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestActivityStatePersister {
+    private static final long FLUSH_INTERVAL = 300;
+
+    private MockLogger mockLogger;
+    private Context context;
+    private ThreadExecutor executor;
+
+    @Rule
+    public ActivityTestRule<com.adjust.sdk.test.UnitTestActivity> mActivityRule = new ActivityTestRule(com.adjust.sdk.test.UnitTestActivity.class);
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        AdjustFactory.setLogger(mockLogger);
+
+        context = mActivityRule.getActivity().getApplicationContext();
+        ActivityHandler.deleteActivityState(context);
+        executor = new SingleThreadCachedScheduler("TestActivityStatePersister");
+    }
+
+    @After
+    public void tearDown() {
+        executor.teardown();
+        ActivityHandler.deleteActivityState(context);
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testCoalescedWrites() {
+        ActivityStatePersister persister = newPersister(FLUSH_INTERVAL);
+        ActivityState activityState = new ActivityState();
+
+        // as the foreground timer and subsessions update the session time
+        for (int i = 1; i <= 100; i++) {
+            activityState.subsessionCount = i;
+            activityState.timeSpent = i * 1000L;
+            persister.markDirty(activityState);
+        }
+
+        Assert.assertEquals(0, countWrites());
+        Assert.assertTrue(persister.isDirty());
+
+        SystemClock.sleep(FLUSH_INTERVAL * 3);
+
+        // one write with the latest state
+        Assert.assertEquals(1, countWrites());
+        Assert.assertFalse(persister.isDirty());
+        Assert.assertEquals(100, readActivityState().subsessionCount);
+    }
+
+    @Test
+    public void testOrderIdWrittenNow() {
+        ActivityStatePersister persister = newPersister(FLUSH_INTERVAL);
+        ActivityState activityState = new ActivityState();
+
+        activityState.subsessionCount = 2;
+        persister.markDirty(activityState);
+
+        // as ActivityHandler writes a tracked event, without waiting for the flush interval
+        activityState.addOrderId("order-1");
+        activityState.eventCount = 1;
+        persister.markDirty(activityState);
+        persister.flush();
+
+        Assert.assertEquals(1, countWrites());
+        ActivityState readActivityState = readActivityState();
+        Assert.assertTrue(readActivityState.findOrderId("order-1"));
+        Assert.assertEquals(1, readActivityState.eventCount);
+        // pending session time goes with it
+        Assert.assertEquals(2, readActivityState.subsessionCount);
+
+        SystemClock.sleep(FLUSH_INTERVAL * 3);
+        Assert.assertEquals(0, countWrites());
+    }
+
+    @Test
+    public void testFlush() {
+        ActivityStatePersister persister = newPersister(FLUSH_INTERVAL);
+        ActivityState activityState = new ActivityState();
+
+        activityState.sessionCount = 2;
+        persister.markDirty(activityState);
+        persister.flush();
+
+        Assert.assertEquals(1, countWrites());
+        Assert.assertEquals(2, readActivityState().sessionCount);
+
+        // nothing pending, neither now nor when the scheduled flush runs
+        persister.flush();
+        SystemClock.sleep(FLUSH_INTERVAL * 3);
+        Assert.assertEquals(0, countWrites());
+    }
+
+    @Test
+    public void testWithoutFlushInterval() {
+        ActivityStatePersister persister = newPersister(0);
+        ActivityState activityState = new ActivityState();
+
+        activityState.eventCount = 1;
+        persister.markDirty(activityState);
+        activityState.eventCount = 2;
+        persister.markDirty(activityState);
+
+        Assert.assertEquals(2, countWrites());
+        Assert.assertFalse(persister.isDirty());
+    }
+
+    @Test
+    public void testTornWrite() throws Exception {
+        ActivityStatePersister persister = newPersister(FLUSH_INTERVAL);
+        ActivityState activityState = new ActivityState();
+        activityState.sessionCount = 3;
+        persister.markDirty(activityState);
+        persister.flush();
+        Assert.assertFalse(context.getFileStreamPath(
+                Constants.ACTIVITY_STATE_FILENAME + ".tmp").exists());
+
+        // a write interrupted by a crash only leaves a partial temporary file behind
+        FileOutputStream outputStream = context.openFileOutput(
+                Constants.ACTIVITY_STATE_FILENAME + ".tmp", Context.MODE_PRIVATE);
+        outputStream.write(new byte[] { (byte) 0xAC, (byte) 0xED, 0x00 });
+        outputStream.close();
+
+        Assert.assertEquals(3, readActivityState().sessionCount);
+
+        activityState.sessionCount = 4;
+        persister.markDirty(activityState);
+        persister.flush();
+        Assert.assertEquals(4, readActivityState().sessionCount);
+    }
+
+    @Test
+    public void testReadJavaSerialization() {
+        ActivityState activityState = new ActivityState();
+        activityState.sessionCount = 5;
+        // as written by earlier versions
+        Util.writeObject(activityState, context, Constants.ACTIVITY_STATE_FILENAME, "Activity state");
+
+        Assert.assertEquals(activityState, readActivityState());
+    }
+
+    private ActivityStatePersister newPersister(long flushIntervalMillis) {
+        return new ActivityStatePersister(context, executor,
+                SharedTimerScheduler.getInstance(), flushIntervalMillis);
+    }
+
+    private ActivityState readActivityState() {
+        return ActivityStatePersister.read(context);
+    }
+
+    private int countWrites() {
+        int writes = 0;
+        while (mockLogger.containsMessage(LogLevel.DEBUG, "Wrote Activity state").containsMessage) {
+            writes++;
+        }
+        return writes;
+    }
+}
@@ -0,0 +1,455 @@
+package com.adjust.sdk;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.adjust.sdk.network.ActivityPackageSender;
+import com.adjust.sdk.network.IActivityPackageSender;
+import com.adjust.sdk.network.UtilNetworking;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.HttpsURLConnection;
+
+/**
+ * Drains a backlog through ActivityPackageSender against an in-process mock server that answers
+ * every request after a fixed round trip time, and through a package handler with batch upload
+ * enabled against a sender that counts its requests.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestBatchUpload {
+    private static final int BACKLOG_SIZE = 1000;
+    private static final int BATCH_SIZE = 50;
+    private static final long ROUND_TRIP_MILLIS = 20;
+
+    private MockLogger mockLogger;
+    private AtomicInteger requestCount;
+    // packages the mock server answered as sent
+    private AtomicInteger sentPackageCount;
+    private volatile boolean isBatchEndpointMissing;
+    // the status of a batch request, whose packages answer with their own when it isn't 200
+    private volatile int batchResponseCode;
+    private Context context;
+    private PackageHandler packageHandler;
+
+    @Rule
+    public ActivityTestRule<com.adjust.sdk.test.UnitTestActivity> mActivityRule = new ActivityTestRule(com.adjust.sdk.test.UnitTestActivity.class);
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        requestCount = new AtomicInteger();
+        sentPackageCount = new AtomicInteger();
+        isBatchEndpointMissing = false;
+        batchResponseCode = HttpsURLConnection.HTTP_OK;
+
+        AdjustFactory.setLogger(mockLogger);
+        context = mActivityRule.getActivity().getApplicationContext();
+        PackageHandler.deleteState(context);
+        AdjustFactory.setHttpsURLConnectionProvider(new UtilNetworking.IHttpsURLConnectionProvider() {
+            @Override
+            public HttpsURLConnection generateHttpsURLConnection(URL url) {
+                return new MockServerConnection(url);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        if (packageHandler != null) {
+            packageHandler.teardown();
+        }
+        PackageHandler.deleteState(context);
+        AdjustFactory.setHttpsURLConnectionProvider(null);
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testDrainBacklog() {
+        List<ActivityPackage> backlog = createBacklog(BACKLOG_SIZE, -1);
+
+        ActivityPackageSender sender = createSender();
+        for (ActivityPackage activityPackage : backlog) {
+            ResponseData responseData = sender.sendActivityPackageSync(activityPackage, null);
+            Assert.assertTrue(responseData.success);
+        }
+        Assert.assertEquals(BACKLOG_SIZE, requestCount.getAndSet(0));
+
+        for (int i = 0; i < BACKLOG_SIZE; i += BATCH_SIZE) {
+            List<ResponseData> responseDataList =
+                    sender.sendActivityPackageBatchSync(backlog.subList(i, i + BATCH_SIZE), null);
+            Assert.assertEquals(BATCH_SIZE, responseDataList.size());
+            for (ResponseData responseData : responseDataList) {
+                Assert.assertTrue(responseData.success);
+            }
+        }
+        Assert.assertEquals(BACKLOG_SIZE / BATCH_SIZE, requestCount.get());
+    }
+
+    @Test
+    public void testUnsupportedBatchEndpoint() {
+        isBatchEndpointMissing = true;
+        startPackageHandler(createSender(), true);
+
+        List<ActivityPackage> backlog = createBacklog(2 * BATCH_SIZE, -1);
+        for (ActivityPackage activityPackage : backlog) {
+            packageHandler.addPackage(activityPackage);
+        }
+        packageHandler.sendFirstPackage();
+
+        Assert.assertTrue(waitForSentPackages(backlog.size(), 10 * Constants.ONE_SECOND));
+        // a single rejected batch, then every package on its own
+        Assert.assertEquals(1 + backlog.size(), requestCount.get());
+        Assert.assertTrue(mockLogger.containsMessage(LogLevel.WARN,
+                "Batch upload turned off, the endpoint doesn't support it").containsMessage);
+        for (ActivityPackage activityPackage : backlog) {
+            Assert.assertEquals(0, activityPackage.getRetries());
+        }
+    }
+
+    @Test
+    public void testQueuedPackagesRequestCount() {
+        final List<Integer> requestSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        startPackageHandler(new CountingSender(requestSizes, false));
+
+        // two full batches and what's left
+        for (ActivityPackage activityPackage : createBacklog(2 * BATCH_SIZE + 7, -1)) {
+            packageHandler.addPackage(activityPackage);
+        }
+        packageHandler.sendFirstPackage();
+
+        Assert.assertTrue(waitForRequests(requestSizes, 3));
+        SystemClock.sleep(200);
+        Assert.assertEquals(3, requestSizes.size());
+        Assert.assertEquals(Integer.valueOf(BATCH_SIZE), requestSizes.get(0));
+        Assert.assertEquals(Integer.valueOf(BATCH_SIZE), requestSizes.get(1));
+        Assert.assertEquals(Integer.valueOf(7), requestSizes.get(2));
+    }
+
+    @Test
+    public void testFailedBatchRetriesEveryPackage() {
+        final List<Integer> requestSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        startPackageHandler(new CountingSender(requestSizes, true));
+
+        List<ActivityPackage> batch = createBacklog(BATCH_SIZE, -1);
+        for (ActivityPackage activityPackage : batch) {
+            packageHandler.addPackage(activityPackage);
+        }
+        packageHandler.sendFirstPackage();
+
+        Assert.assertTrue(waitForRequests(requestSizes, 1));
+        SystemClock.sleep(200);
+        // the retry waits for the backoff
+        Assert.assertEquals(1, requestSizes.size());
+        for (ActivityPackage activityPackage : batch) {
+            Assert.assertEquals(1, activityPackage.getRetries());
+        }
+    }
+
+    @Test
+    public void testPartialFailure() {
+        List<ActivityPackage> batch = createBacklog(BATCH_SIZE, 7);
+
+        List<ResponseData> responseDataList =
+                createSender().sendActivityPackageBatchSync(batch, null);
+
+        Assert.assertEquals(1, requestCount.get());
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            ResponseData responseData = responseDataList.get(i);
+            Assert.assertSame(batch.get(i), responseData.activityPackage);
+            Assert.assertEquals(i == 7, responseData.willRetry);
+            Assert.assertEquals(i != 7, responseData.success);
+        }
+    }
+
+    @Test
+    public void testPackageStatusInFailedBatch() {
+        batchResponseCode = HttpsURLConnection.HTTP_UNAVAILABLE;
+        List<ActivityPackage> batch = createBacklog(BATCH_SIZE, 7);
+
+        List<ResponseData> responseDataList =
+                createSender().sendActivityPackageBatchSync(batch, null);
+
+        // judged by the status of each package, not the one of the batch
+        Assert.assertEquals(1, requestCount.get());
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            ResponseData responseData = responseDataList.get(i);
+            Assert.assertEquals(i == 7 ? 429 : HttpsURLConnection.HTTP_OK,
+                    responseData.responseCode.intValue());
+            Assert.assertEquals(i == 7, responseData.willRetry);
+            Assert.assertEquals(i != 7, responseData.success);
+        }
+    }
+
+    private boolean waitForSentPackages(int count, long timeoutMillis) {
+        long deadline = SystemClock.uptimeMillis() + timeoutMillis;
+        while (sentPackageCount.get() < count && SystemClock.uptimeMillis() < deadline) {
+            SystemClock.sleep(10);
+        }
+        return sentPackageCount.get() == count;
+    }
+
+    private void startPackageHandler(IActivityPackageSender sender) {
+        startPackageHandler(sender, true);
+    }
+
+    private void startPackageHandler(IActivityPackageSender sender, boolean batchUploadEnabled) {
+        final AdjustConfig adjustConfig =
+                new AdjustConfig(context, "123456789012", AdjustConfig.ENVIRONMENT_SANDBOX);
+        adjustConfig.setBatchUploadEnabled(batchUploadEnabled);
+        IActivityHandler activityHandler = (IActivityHandler) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class[]{IActivityHandler.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("getAdjustConfig")) {
+                            return adjustConfig;
+                        }
+                        return null;
+                    }
+                });
+        packageHandler = new PackageHandler(activityHandler, context, true, sender);
+    }
+
+    private boolean waitForRequests(List<Integer> requestSizes, int count) {
+        for (int i = 0; i < 50 && requestSizes.size() < count; i++) {
+            SystemClock.sleep(100);
+        }
+        return requestSizes.size() == count;
+    }
+
+    private ActivityPackageSender createSender() {
+        return new ActivityPackageSender(null, null, null, null, "android4.28.3");
+    }
+
+    private List<ActivityPackage> createBacklog(int size, int failingIndex) {
+        List<ActivityPackage> backlog = new ArrayList<ActivityPackage>(size);
+        for (int i = 0; i < size; i++) {
+            ActivityPackage activityPackage = new ActivityPackage(ActivityKind.EVENT);
+            activityPackage.setPath("/event");
+            activityPackage.setClientSdk("android4.28.3");
+            Map<String, String> parameters = new HashMap<String, String>();
+            parameters.put("event_token", i == failingIndex ? "fail" : "abc123");
+            parameters.put("created_at", Integer.toString(i));
+            activityPackage.setParameters(parameters);
+            backlog.add(activityPackage);
+        }
+        return backlog;
+    }
+
+    // records the number of packages of every request, which all succeed or all fail
+    private static class CountingSender implements IActivityPackageSender {
+        private final List<Integer> requestSizes;
+        private final boolean fails;
+
+        CountingSender(List<Integer> requestSizes, boolean fails) {
+            this.requestSizes = requestSizes;
+            this.fails = fails;
+        }
+
+        @Override
+        public void sendActivityPackage(ActivityPackage activityPackage,
+                                        Map<String, String> sendingParameters,
+                                        ResponseDataCallbackSubscriber responseCallback)
+        {
+            responseCallback.onResponseDataCallback(
+                    sendActivityPackageSync(activityPackage, sendingParameters));
+        }
+
+        @Override
+        public ResponseData sendActivityPackageSync(ActivityPackage activityPackage,
+                                                    Map<String, String> sendingParameters)
+        {
+            requestSizes.add(1);
+            return buildResponseData(activityPackage);
+        }
+
+        @Override
+        public void sendActivityPackageBatch(List<ActivityPackage> activityPackages,
+                                             Map<String, String> sendingParameters,
+                                             BatchResponseDataCallbackSubscriber batchResponseCallback)
+        {
+            batchResponseCallback.onBatchResponseDataCallback(
+                    sendActivityPackageBatchSync(activityPackages, sendingParameters));
+        }
+
+        @Override
+        public List<ResponseData> sendActivityPackageBatchSync(List<ActivityPackage> activityPackages,
+                                                               Map<String, String> sendingParameters)
+        {
+            requestSizes.add(activityPackages.size());
+            List<ResponseData> responseDataList = new ArrayList<ResponseData>();
+            for (ActivityPackage activityPackage : activityPackages) {
+                responseDataList.add(buildResponseData(activityPackage));
+            }
+            return responseDataList;
+        }
+
+        private ResponseData buildResponseData(ActivityPackage activityPackage) {
+            ResponseData responseData = ResponseData.buildResponseData(activityPackage, null);
+            responseData.success = !fails;
+            responseData.willRetry = fails;
+            return responseData;
+        }
+    }
+
+    private class MockServerConnection extends HttpsURLConnection {
+        private ByteArrayOutputStream requestBody = new ByteArrayOutputStream();
+
+        MockServerConnection(URL url) {
+            super(url);
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return requestBody;
+        }
+
+        @Override
+        public int getResponseCode() {
+            if (isBatchRequest() && isBatchEndpointMissing) {
+                return HttpsURLConnection.HTTP_NOT_FOUND;
+            }
+            if (isBatchRequest()) {
+                return batchResponseCode;
+            }
+            return HttpsURLConnection.HTTP_OK;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            requestCount.incrementAndGet();
+            SystemClock.sleep(ROUND_TRIP_MILLIS);
+
+            String body = requestBody.toString("UTF-8");
+            String response;
+            try {
+                if (isBatchRequest()) {
+                    response = batchResponse(body).toString();
+                } else {
+                    boolean fail = body.contains("event_token=fail");
+                    if (!fail) {
+                        sentPackageCount.incrementAndGet();
+                    }
+                    response = itemResponse(fail).toString();
+                }
+            } catch (Exception e) {
+                throw new IOException(e.getMessage());
+            }
+            return new ByteArrayInputStream(response.getBytes("UTF-8"));
+        }
+
+        private boolean isBatchRequest() {
+            return url.getPath().endsWith("/batch");
+        }
+
+        private JSONObject batchResponse(String body) throws Exception {
+            String packagesParameter = body.substring(body.indexOf("packages=") + "packages=".length());
+            int end = packagesParameter.indexOf('&');
+            if (end != -1) {
+                packagesParameter = packagesParameter.substring(0, end);
+            }
+            JSONArray packages = new JSONArray(URLDecoder.decode(packagesParameter, "UTF-8"));
+
+            JSONArray responses = new JSONArray();
+            for (int i = 0; i < packages.length(); i++) {
+                String eventToken = packages.getJSONObject(i)
+                        .getJSONObject("parameters").optString("event_token");
+                boolean fail = "fail".equals(eventToken);
+                if (!fail) {
+                    sentPackageCount.incrementAndGet();
+                }
+                if (batchResponseCode == HttpsURLConnection.HTTP_OK) {
+                    responses.put(itemResponse(fail));
+                } else if (fail) {
+                    responses.put(new JSONObject().put("status", 429));
+                } else {
+                    responses.put(itemResponse(false).put("status", HttpsURLConnection.HTTP_OK));
+                }
+            }
+            return new JSONObject().put("responses", responses);
+        }
+
+        private JSONObject itemResponse(boolean fail) throws Exception {
+            if (fail) {
+                return new JSONObject().put("message", "try again").put("retry_in", 1000);
+            }
+            return new JSONObject().put("message", "ok");
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            if (isBatchRequest() && isBatchEndpointMissing) {
+                requestCount.incrementAndGet();
+                SystemClock.sleep(ROUND_TRIP_MILLIS);
+                return new ByteArrayInputStream("Not Found".getBytes());
+            }
+            if (isBatchRequest() && batchResponseCode != HttpsURLConnection.HTTP_OK) {
+                try {
+                    return getInputStream();
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public String getCipherSuite() {
+            return null;
+        }
+
+        @Override
+        public Certificate[] getLocalCertificates() {
+            return null;
+        }
+
+        @Override
+        public Certificate[] getServerCertificates() {
+            return null;
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+
+        @Override
+        public void connect() {
+        }
+    }
+}
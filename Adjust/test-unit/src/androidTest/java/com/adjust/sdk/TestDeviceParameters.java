@@ -0,0 +1,195 @@
+package com.adjust.sdk;
+
+import android.content.Context;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestDeviceParameters {
+    private MockLogger mockLogger;
+    private Context context;
+    private AdjustConfig adjustConfig;
+    private DeviceInfo deviceInfo;
+
+    @Rule
+    public ActivityTestRule<com.adjust.sdk.test.UnitTestActivity> mActivityRule = new ActivityTestRule(com.adjust.sdk.test.UnitTestActivity.class);
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        AdjustFactory.setLogger(mockLogger);
+
+        context = mActivityRule.getActivity().getApplicationContext();
+        adjustConfig = new AdjustConfig(context, "123456789012", AdjustConfig.ENVIRONMENT_SANDBOX);
+        deviceInfo = new DeviceInfo(context, null);
+        deviceInfo.reloadIdentifiers(context);
+    }
+
+    @After
+    public void tearDown() {
+        deviceInfo.stopMonitoringChanges(context);
+        deviceInfo.teardown();
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testOverlayPut() {
+        Map<String, String> template = createTemplate();
+        OverlayMap parameters = new OverlayMap(template);
+
+        Assert.assertEquals("1", parameters.put("a", "10"));
+        Assert.assertNull(parameters.put("c", "3"));
+        Assert.assertEquals("10", parameters.put("a", "11"));
+
+        Map<String, String> expected = new HashMap<String, String>();
+        expected.put("a", "11");
+        expected.put("b", "2");
+        expected.put("c", "3");
+        Assert.assertEquals(3, parameters.size());
+        Assert.assertEquals(expected, parameters);
+        Assert.assertEquals(expected, new HashMap<String, String>(parameters));
+        Assert.assertEquals(expected.hashCode(), parameters.hashCode());
+
+        // the template is shared with the other packages
+        Assert.assertEquals(createTemplate(), template);
+    }
+
+    @Test
+    public void testOverlayRemove() {
+        Map<String, String> template = createTemplate();
+        OverlayMap parameters = new OverlayMap(template);
+        parameters.put("a", "10");
+        parameters.put("c", "3");
+
+        Assert.assertEquals("3", parameters.remove("c"));
+        Assert.assertEquals("10", parameters.remove("a"));
+        Assert.assertFalse(parameters.containsKey("a"));
+        Assert.assertEquals("2", parameters.remove("b"));
+        Assert.assertNull(parameters.remove("d"));
+        Assert.assertTrue(parameters.isEmpty());
+        Assert.assertEquals(createTemplate(), template);
+
+        parameters = new OverlayMap(template);
+        parameters.clear();
+        Assert.assertEquals(0, parameters.size());
+        Assert.assertNull(parameters.get("a"));
+        Assert.assertEquals(createTemplate(), template);
+    }
+
+    @Test
+    public void testOverlaySerialization() throws Exception {
+        OverlayMap parameters = new OverlayMap(createTemplate());
+        parameters.put("c", "3");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(bytes);
+        objectOutputStream.writeObject(parameters);
+        objectOutputStream.close();
+
+        Object read = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+        // stored as a plain map, which older versions of the SDK can read
+        Assert.assertEquals(HashMap.class, read.getClass());
+        Assert.assertEquals(parameters, read);
+    }
+
+    @Test
+    public void testSnapshotReuse() {
+        deviceInfo.startMonitoringChanges(context);
+
+        DeviceParameters deviceParameters = deviceInfo.getDeviceParameters(adjustConfig);
+        Assert.assertSame(deviceParameters, deviceInfo.getDeviceParameters(adjustConfig));
+        Assert.assertEquals("123456789012", deviceParameters.sessionTemplate.get("app_token"));
+        Assert.assertEquals(deviceInfo.osName, deviceParameters.sessionTemplate.get("os_name"));
+        Assert.assertFalse(deviceParameters.thirdPartySharingTemplate.containsKey("needs_cost"));
+
+        // as when the connectivity or the configuration change
+        deviceInfo.invalidateDeviceParameters();
+        DeviceParameters changedParameters = deviceInfo.getDeviceParameters(adjustConfig);
+        Assert.assertNotSame(deviceParameters, changedParameters);
+        Assert.assertEquals(deviceParameters.sessionTemplate, changedParameters.sessionTemplate);
+        Assert.assertSame(changedParameters, deviceInfo.getDeviceParameters(adjustConfig));
+
+        AdjustConfig otherConfig = new AdjustConfig(context, "210987654321", AdjustConfig.ENVIRONMENT_SANDBOX);
+        Assert.assertEquals("210987654321",
+                deviceInfo.getDeviceParameters(otherConfig).infoTemplate.get("app_token"));
+    }
+
+    @Test
+    public void testSnapshotWithoutMonitoring() {
+        DeviceParameters deviceParameters = deviceInfo.getDeviceParameters(adjustConfig);
+        Assert.assertNotSame(deviceParameters, deviceInfo.getDeviceParameters(adjustConfig));
+
+        deviceInfo.startMonitoringChanges(context);
+        deviceParameters = deviceInfo.getDeviceParameters(adjustConfig);
+        deviceInfo.stopMonitoringChanges(context);
+        Assert.assertNotSame(deviceParameters, deviceInfo.getDeviceParameters(adjustConfig));
+    }
+
+    @Test
+    public void testPackagesDoNotShareChanges() {
+        deviceInfo.startMonitoringChanges(context);
+
+        ActivityPackage firstPackage = createPackageBuilder().buildSessionPackage(false);
+        firstPackage.getParameters().put("app_token", "changed");
+        firstPackage.getParameters().remove("os_name");
+
+        ActivityPackage secondPackage = createPackageBuilder().buildSessionPackage(false);
+        Map<String, String> parameters = secondPackage.getParameters();
+        Assert.assertEquals("123456789012", parameters.get("app_token"));
+        Assert.assertEquals(deviceInfo.osName, parameters.get("os_name"));
+        Assert.assertEquals("1", parameters.get("session_count"));
+        Assert.assertTrue(parameters.containsKey("created_at"));
+        Assert.assertFalse(firstPackage.getParameters().containsKey("os_name"));
+    }
+
+    @Test
+    public void testNetworkTypesNotShared() {
+        deviceInfo.startMonitoringChanges(context);
+
+        DeviceParameters deviceParameters = deviceInfo.getDeviceParameters(adjustConfig);
+        Assert.assertFalse(deviceParameters.sessionTemplate.containsKey("connectivity_type"));
+        Assert.assertFalse(deviceParameters.eventTemplate.containsKey("network_type"));
+
+        // read for every package instead, without waiting for a connectivity change
+        Map<String, String> parameters = createPackageBuilder().buildSessionPackage(false).getParameters();
+        Assert.assertEquals(String.valueOf(Util.getConnectivityType(context)),
+                parameters.get("connectivity_type"));
+        Assert.assertEquals(String.valueOf(Util.getNetworkType(context)),
+                parameters.get("network_type"));
+        Assert.assertSame(deviceParameters, deviceInfo.getDeviceParameters(adjustConfig));
+    }
+
+    private PackageBuilder createPackageBuilder() {
+        ActivityState activityState = new ActivityState();
+        activityState.sessionCount = 1;
+        SessionParameters sessionParameters = new SessionParameters();
+        return new PackageBuilder(adjustConfig, deviceInfo, activityState, sessionParameters,
+                System.currentTimeMillis());
+    }
+
+    private static Map<String, String> createTemplate() {
+        Map<String, String> template = new HashMap<String, String>();
+        template.put("a", "1");
+        template.put("b", "2");
+        return Collections.unmodifiableMap(template);
+    }
+}
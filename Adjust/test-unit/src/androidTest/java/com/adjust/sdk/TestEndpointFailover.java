@@ -0,0 +1,253 @@
+package com.adjust.sdk;
+
+import android.os.SystemClock;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.adjust.sdk.network.ActivityPackageSender;
+import com.adjust.sdk.network.EndpointHealthRegistry;
+import com.adjust.sdk.network.UtilNetworking;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.net.ssl.HttpsURLConnection;
+
+/**
+ * Takes down the primary endpoint of in-process stub servers and checks that all package
+ * senders fail over together, and move back once a probe finds the primary recovered.
+ * With the latency based selection, the stub servers answer after different round trip times.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestEndpointFailover {
+    private static final String PRIMARY_HOST = "app.adjust.com";
+    private static final String SECONDARY_HOST = "app.adjust.net.in";
+    private static final String TERTIARY_HOST = "app.adjust.world";
+    private static final String EU_HOST = "app.eu.adjust.com";
+    private static final long PROBE_INTERVAL_MILLIS = 300;
+    private static final long EVALUATION_INTERVAL_MILLIS = 500;
+
+    private MockLogger mockLogger;
+    private Map<String, StubServer> stubServers;
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        stubServers = new HashMap<String, StubServer>();
+        for (String host : Arrays.asList(PRIMARY_HOST, SECONDARY_HOST, TERTIARY_HOST, EU_HOST)) {
+            stubServers.put(host, new StubServer());
+        }
+
+        AdjustFactory.setLogger(mockLogger);
+        AdjustFactory.setBaseUrl(null);
+        AdjustFactory.setEndpointHealthRegistry(
+                new EndpointHealthRegistry(PROBE_INTERVAL_MILLIS, EVALUATION_INTERVAL_MILLIS));
+        AdjustFactory.setHttpsURLConnectionProvider(new UtilNetworking.IHttpsURLConnectionProvider() {
+            @Override
+            public HttpsURLConnection generateHttpsURLConnection(URL url) {
+                return stubServers.get(url.getHost()).openConnection(url);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        AdjustFactory.setHttpsURLConnectionProvider(null);
+        AdjustFactory.setEndpointHealthRegistry(null);
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testOutageFailsOverAllSenders() {
+        ActivityPackageSender packageHandlerSender = createSender();
+        ActivityPackageSender sdkClickHandlerSender = createSender();
+        ActivityPackageSender otherSender = createSender();
+
+        stubServers.get(PRIMARY_HOST).isDown = true;
+
+        // the first sender finds out about the outage
+        Assert.assertTrue(send(packageHandlerSender, ActivityKind.SESSION).success);
+        Assert.assertEquals(1, stubServers.get(PRIMARY_HOST).requests.get());
+        Assert.assertEquals(1, stubServers.get(SECONDARY_HOST).requests.get());
+
+        // the others go straight to the secondary
+        Assert.assertTrue(send(sdkClickHandlerSender, ActivityKind.CLICK).success);
+        Assert.assertTrue(send(otherSender, ActivityKind.EVENT).success);
+        Assert.assertTrue(send(packageHandlerSender, ActivityKind.EVENT).success);
+
+        Assert.assertEquals(1, stubServers.get(PRIMARY_HOST).requests.get());
+        Assert.assertEquals(4, stubServers.get(SECONDARY_HOST).requests.get());
+        Assert.assertEquals(0, stubServers.get(TERTIARY_HOST).requests.get());
+    }
+
+    @Test
+    public void testTotalOutage() {
+        ActivityPackageSender sender = createSender();
+        for (StubServer stubServer : stubServers.values()) {
+            stubServer.isDown = true;
+        }
+
+        // every endpoint is tried once, then the backoff of the handler takes over
+        ResponseData responseData = send(sender, ActivityKind.EVENT);
+        Assert.assertFalse(responseData.success);
+        Assert.assertTrue(responseData.willRetry);
+        for (String host : Arrays.asList(PRIMARY_HOST, SECONDARY_HOST, TERTIARY_HOST)) {
+            Assert.assertEquals(1, stubServers.get(host).requests.get());
+        }
+    }
+
+    @Test
+    public void testProbeRecoversPrimary() {
+        ActivityPackageSender packageHandlerSender = createSender();
+        ActivityPackageSender sdkClickHandlerSender = createSender();
+
+        stubServers.get(PRIMARY_HOST).isDown = true;
+        Assert.assertTrue(send(packageHandlerSender, ActivityKind.SESSION).success);
+        Assert.assertTrue(send(sdkClickHandlerSender, ActivityKind.CLICK).success);
+        Assert.assertEquals(1, stubServers.get(PRIMARY_HOST).requests.get());
+
+        // still down when probed
+        SystemClock.sleep(PROBE_INTERVAL_MILLIS + 50);
+        Assert.assertTrue(send(packageHandlerSender, ActivityKind.EVENT).success);
+        Assert.assertEquals(2, stubServers.get(PRIMARY_HOST).requests.get());
+        Assert.assertTrue(send(sdkClickHandlerSender, ActivityKind.CLICK).success);
+        Assert.assertEquals(2, stubServers.get(PRIMARY_HOST).requests.get());
+
+        // recovered when probed the next time
+        stubServers.get(PRIMARY_HOST).isDown = false;
+        SystemClock.sleep(PROBE_INTERVAL_MILLIS + 50);
+        Assert.assertTrue(send(packageHandlerSender, ActivityKind.EVENT).success);
+        Assert.assertEquals(3, stubServers.get(PRIMARY_HOST).requests.get());
+
+        int secondaryRequests = stubServers.get(SECONDARY_HOST).requests.get();
+        Assert.assertTrue(send(sdkClickHandlerSender, ActivityKind.CLICK).success);
+        Assert.assertTrue(send(packageHandlerSender, ActivityKind.EVENT).success);
+        Assert.assertEquals(5, stubServers.get(PRIMARY_HOST).requests.get());
+        Assert.assertEquals(secondaryRequests, stubServers.get(SECONDARY_HOST).requests.get());
+    }
+
+    @Test
+    public void testMovingAverages() {
+        EndpointHealthRegistry registry = new EndpointHealthRegistry();
+
+        registry.recordSuccess(PRIMARY_HOST, 100);
+        EndpointHealthRegistry.EndpointHealth endpointHealth =
+                registry.getEndpointHealth(PRIMARY_HOST);
+        Assert.assertEquals(100, endpointHealth.getLatencyMillis(), 0.001);
+        Assert.assertEquals(1.0, endpointHealth.getSuccessRate(), 0.001);
+
+        registry.recordSuccess(PRIMARY_HOST, 200);
+        Assert.assertEquals(120, registry.getEndpointHealth(PRIMARY_HOST).getLatencyMillis(), 0.001);
+
+        registry.recordFailure(PRIMARY_HOST);
+        endpointHealth = registry.getEndpointHealth(PRIMARY_HOST);
+        Assert.assertEquals(0.8, endpointHealth.getSuccessRate(), 0.001);
+        Assert.assertFalse(endpointHealth.isHealthy());
+        // failures don't count towards the latency
+        Assert.assertEquals(120, endpointHealth.getLatencyMillis(), 0.001);
+
+        Assert.assertNull(registry.getEndpointHealth(SECONDARY_HOST));
+        Assert.assertEquals(1, registry.selectEndpoint(Arrays.asList(PRIMARY_HOST, SECONDARY_HOST)));
+    }
+
+    @Test
+    public void testLatencyBasedSelection() {
+        ActivityPackageSender sender = createLatencyBasedSender(null);
+        stubServers.get(PRIMARY_HOST).roundTripMillis = 150;
+        stubServers.get(SECONDARY_HOST).roundTripMillis = 10;
+        stubServers.get(TERTIARY_HOST).roundTripMillis = 80;
+
+        // each endpoint is measured once
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(send(sender, ActivityKind.EVENT).success);
+        }
+        Assert.assertEquals(1, stubServers.get(PRIMARY_HOST).requests.get());
+        Assert.assertEquals(1, stubServers.get(SECONDARY_HOST).requests.get());
+        Assert.assertEquals(1, stubServers.get(TERTIARY_HOST).requests.get());
+
+        // then the fastest is used
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(send(sender, ActivityKind.EVENT).success);
+        }
+        Assert.assertEquals(6, stubServers.get(SECONDARY_HOST).requests.get());
+
+        // the endpoints are measured again after the evaluation interval, and the traffic
+        //  moves once the moving average of the slowed down endpoint caught up
+        stubServers.get(SECONDARY_HOST).roundTripMillis = 300;
+        SystemClock.sleep(EVALUATION_INTERVAL_MILLIS + 50);
+        int primaryRequests = stubServers.get(PRIMARY_HOST).requests.get();
+        int secondaryRequests = stubServers.get(SECONDARY_HOST).requests.get();
+        int tertiaryRequests = stubServers.get(TERTIARY_HOST).requests.get();
+        for (int i = 0; i < 15; i++) {
+            Assert.assertTrue(send(sender, ActivityKind.EVENT).success);
+        }
+        primaryRequests = stubServers.get(PRIMARY_HOST).requests.get() - primaryRequests;
+        secondaryRequests = stubServers.get(SECONDARY_HOST).requests.get() - secondaryRequests;
+        tertiaryRequests = stubServers.get(TERTIARY_HOST).requests.get() - tertiaryRequests;
+        Assert.assertTrue(tertiaryRequests > primaryRequests);
+        Assert.assertTrue(tertiaryRequests > secondaryRequests);
+    }
+
+    @Test
+    public void testLatencyBasedSelectionKeepsDataResidency() {
+        ActivityPackageSender sender = createLatencyBasedSender(AdjustConfig.DATA_RESIDENCY_EU);
+        stubServers.get(EU_HOST).roundTripMillis = 100;
+
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(send(sender, ActivityKind.EVENT).success);
+        }
+        Assert.assertEquals(5, stubServers.get(EU_HOST).requests.get());
+        Assert.assertEquals(0, stubServers.get(PRIMARY_HOST).requests.get());
+        Assert.assertEquals(0, stubServers.get(SECONDARY_HOST).requests.get());
+        Assert.assertEquals(0, stubServers.get(TERTIARY_HOST).requests.get());
+    }
+
+    @Test
+    public void testLatencyBasedSelectionFailsOver() {
+        ActivityPackageSender sender = createLatencyBasedSender(null);
+        stubServers.get(SECONDARY_HOST).roundTripMillis = 0;
+        stubServers.get(PRIMARY_HOST).roundTripMillis = 50;
+        stubServers.get(TERTIARY_HOST).roundTripMillis = 50;
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(send(sender, ActivityKind.EVENT).success);
+        }
+
+        // the fastest goes down, the next fastest healthy one takes over
+        stubServers.get(SECONDARY_HOST).isDown = true;
+        Assert.assertTrue(send(sender, ActivityKind.EVENT).success);
+        int secondaryRequests = stubServers.get(SECONDARY_HOST).requests.get();
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(send(sender, ActivityKind.EVENT).success);
+        }
+        Assert.assertEquals(secondaryRequests, stubServers.get(SECONDARY_HOST).requests.get());
+    }
+
+    private ActivityPackageSender createSender() {
+        return new ActivityPackageSender(null, null, null, null, "android4.28.3");
+    }
+
+    private ActivityPackageSender createLatencyBasedSender(String urlStrategy) {
+        return new ActivityPackageSender(urlStrategy, null, null, null, "android4.28.3",
+                1, null, true);
+    }
+
+    private ResponseData send(ActivityPackageSender sender, ActivityKind activityKind) {
+        ActivityPackage activityPackage = new ActivityPackage(activityKind);
+        activityPackage.setPath("/" + activityKind.toString());
+        activityPackage.setClientSdk("android4.28.3");
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("created_at", Long.toString(System.currentTimeMillis()));
+        activityPackage.setParameters(parameters);
+
+        return sender.sendActivityPackageSync(activityPackage, null);
+    }
+}
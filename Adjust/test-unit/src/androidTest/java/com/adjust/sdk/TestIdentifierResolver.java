@@ -0,0 +1,300 @@
+package com.adjust.sdk;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestIdentifierResolver {
+    private MockLogger mockLogger;
+    private Context context;
+    private MockIdentifierResolver identifierResolver;
+
+    @Rule
+    public ActivityTestRule<com.adjust.sdk.test.UnitTestActivity> mActivityRule = new ActivityTestRule(com.adjust.sdk.test.UnitTestActivity.class);
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        AdjustFactory.setLogger(mockLogger);
+
+        context = mActivityRule.getActivity().getApplicationContext();
+        identifierResolver = new MockIdentifierResolver();
+        identifierResolver.setValue(IdentifierResolver.Source.PLAY,
+                new IdentifierSnapshot.PlayIds("gps-1", "service", 1, true));
+        identifierResolver.setValue(IdentifierResolver.Source.FIRE,
+                new IdentifierSnapshot.FireIds(null, null));
+        identifierResolver.setValue(IdentifierResolver.Source.IMEI, null);
+        identifierResolver.setValue(IdentifierResolver.Source.OAID,
+                Collections.singletonMap("oaid", "oaid-1"));
+    }
+
+    @After
+    public void tearDown() {
+        identifierResolver.teardown();
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testSourcesReadConcurrently() {
+        for (IdentifierResolver.Source source : IdentifierResolver.Source.values()) {
+            identifierResolver.setDelay(source, 400);
+            identifierResolver.setDeadline(source, 2000);
+        }
+
+        long start = SystemClock.uptimeMillis();
+        // only starts the reads, doesn't wait for them
+        Assert.assertNull(identifierResolver.getSnapshot(context).playIds.playAdId);
+        IdentifierSnapshot snapshot = identifierResolver.awaitFirstResolutions();
+        long elapsed = SystemClock.uptimeMillis() - start;
+
+        // the wait for the first read took about as long as one of the sources
+        Assert.assertTrue(elapsed >= 350);
+        Assert.assertTrue(elapsed < 1200);
+        Assert.assertEquals("gps-1", snapshot.playIds.playAdId);
+        Assert.assertEquals("oaid-1", snapshot.oaidParameters.get("oaid"));
+        Assert.assertNull(snapshot.imeiParameters);
+        Assert.assertNull(snapshot.fireIds.fireAdId);
+    }
+
+    @Test
+    public void testSlowSourceMissesDeadline() {
+        identifierResolver.setDelay(IdentifierResolver.Source.OAID, 1500);
+        identifierResolver.setDeadline(IdentifierResolver.Source.OAID, 200);
+
+        long start = SystemClock.uptimeMillis();
+        identifierResolver.getSnapshot(context);
+        IdentifierSnapshot snapshot = identifierResolver.awaitFirstResolutions();
+        long elapsed = SystemClock.uptimeMillis() - start;
+
+        Assert.assertTrue(elapsed < 1000);
+        Assert.assertEquals("gps-1", snapshot.playIds.playAdId);
+        Assert.assertNull(snapshot.oaidParameters);
+        Assert.assertEquals(1, identifierResolver.getMetrics(IdentifierResolver.Source.OAID).deadlineMisses);
+        Assert.assertTrue(mockLogger.containsMessage(LogLevel.DEBUG,
+                "Identifier source oaid missed its deadline of 200 ms").containsMessage);
+
+        // the late read still gets into the snapshot
+        SystemClock.sleep(1800);
+        snapshot = identifierResolver.getSnapshot(context);
+        Assert.assertEquals("oaid-1", snapshot.oaidParameters.get("oaid"));
+    }
+
+    @Test
+    public void testPackagesWaitForSourceDeadline() {
+        DeviceInfo deviceInfo = new DeviceInfo(context, null, identifierResolver);
+        // a source that doesn't answer for much longer than its deadline
+        identifierResolver.setDelay(IdentifierResolver.Source.PLAY, 10 * Constants.ONE_SECOND);
+        identifierResolver.setDeadline(IdentifierResolver.Source.PLAY, 1000);
+
+        AdjustConfig adjustConfig =
+                new AdjustConfig(context, "123456789012", AdjustConfig.ENVIRONMENT_SANDBOX);
+        ActivityState activityState = new ActivityState();
+        SessionParameters sessionParameters = new SessionParameters();
+
+        // event packages don't wait for the identifiers
+        long start = SystemClock.uptimeMillis();
+        ActivityPackage eventPackage = new PackageBuilder(adjustConfig, deviceInfo,
+                activityState, sessionParameters, System.currentTimeMillis())
+                .buildEventPackage(new AdjustEvent("abc123"), false);
+        Assert.assertTrue(SystemClock.uptimeMillis() - start < 500);
+        Assert.assertNull(eventPackage.getParameters().get("gps_adid"));
+        // nor fall back to the other device ids before the Play ids were read
+        Assert.assertNull(eventPackage.getParameters().get("android_id"));
+
+        // session, click and attribution packages wait until the deadline of the source
+        ActivityPackage sessionPackage = new PackageBuilder(adjustConfig, deviceInfo,
+                activityState, sessionParameters, System.currentTimeMillis())
+                .buildSessionPackage(false);
+        long elapsed = SystemClock.uptimeMillis() - start;
+
+        Assert.assertTrue(String.valueOf(elapsed), elapsed >= 900);
+        Assert.assertTrue(String.valueOf(elapsed), elapsed < 1500);
+        Assert.assertNull(sessionPackage.getParameters().get("gps_adid"));
+        Assert.assertNull(sessionPackage.getParameters().get("android_id"));
+        // the other sources answered in time
+        Assert.assertEquals("oaid-1", sessionPackage.getParameters().get("oaid"));
+        Assert.assertFalse(mockLogger.containsMessage(LogLevel.WARN,
+                "Google Advertising ID or Fire Advertising ID not detected").containsMessage);
+
+        // the deadline passed, nothing waits anymore
+        start = SystemClock.uptimeMillis();
+        new PackageBuilder(adjustConfig, deviceInfo, activityState, sessionParameters,
+                System.currentTimeMillis()).buildClickPackage("deeplink");
+        Assert.assertTrue(SystemClock.uptimeMillis() - start < 500);
+    }
+
+    @Test
+    public void testFallbackAfterPlayIdsRead() {
+        DeviceInfo deviceInfo = new DeviceInfo(context, null, identifierResolver);
+        // a device without Google Play Services
+        identifierResolver.setValue(IdentifierResolver.Source.PLAY,
+                new IdentifierSnapshot.PlayIds(null, null, -1, null));
+
+        AdjustConfig adjustConfig =
+                new AdjustConfig(context, "123456789012", AdjustConfig.ENVIRONMENT_SANDBOX);
+        new PackageBuilder(adjustConfig, deviceInfo, new ActivityState(),
+                new SessionParameters(), System.currentTimeMillis()).buildSessionPackage(false);
+
+        Assert.assertTrue(mockLogger.containsMessage(LogLevel.WARN,
+                "Google Advertising ID or Fire Advertising ID not detected").containsMessage);
+    }
+
+    @Test
+    public void testChangeDetection() {
+        identifierResolver.resolveNow(context);
+        IdentifierSnapshot snapshot = identifierResolver.getSnapshot(context);
+
+        // same values, same snapshot
+        identifierResolver.setValue(IdentifierResolver.Source.PLAY,
+                new IdentifierSnapshot.PlayIds("gps-1", "service", 1, true));
+        identifierResolver.resolveNow(context);
+        Assert.assertSame(snapshot, identifierResolver.getSnapshot(context));
+
+        identifierResolver.setValue(IdentifierResolver.Source.PLAY,
+                new IdentifierSnapshot.PlayIds("gps-1", "service", 1, false));
+        identifierResolver.resolveNow(context);
+        IdentifierSnapshot changedSnapshot = identifierResolver.getSnapshot(context);
+        Assert.assertNotSame(snapshot, changedSnapshot);
+        Assert.assertEquals(Boolean.FALSE, changedSnapshot.playIds.isTrackingEnabled);
+        // the other sources are carried over
+        Assert.assertSame(snapshot.oaidParameters, changedSnapshot.oaidParameters);
+
+        IdentifierResolver.SourceMetrics playMetrics =
+                identifierResolver.getMetrics(IdentifierResolver.Source.PLAY);
+        Assert.assertEquals(3, playMetrics.resolutions);
+        Assert.assertEquals(3, playMetrics.found);
+        Assert.assertEquals(2, playMetrics.changes);
+        IdentifierResolver.SourceMetrics imeiMetrics =
+                identifierResolver.getMetrics(IdentifierResolver.Source.IMEI);
+        Assert.assertEquals(0, imeiMetrics.found);
+        Assert.assertEquals(0, imeiMetrics.changes);
+    }
+
+    @Test
+    public void testTimeToLive() {
+        identifierResolver.resolveNow(context);
+        for (int i = 0; i < 9; i++) {
+            identifierResolver.getSnapshot(context);
+        }
+        IdentifierResolver.SourceMetrics fireMetrics =
+                identifierResolver.getMetrics(IdentifierResolver.Source.FIRE);
+        Assert.assertEquals(1, fireMetrics.resolutions);
+        Assert.assertEquals(9, fireMetrics.cacheHits);
+        Assert.assertEquals(1.0, fireMetrics.cacheHitRate(), 0.001);
+
+        // expired values are still handed out while they are read again
+        identifierResolver.setTimeToLive(0);
+        identifierResolver.setDelay(IdentifierResolver.Source.FIRE, 300);
+        identifierResolver.setValue(IdentifierResolver.Source.FIRE,
+                new IdentifierSnapshot.FireIds("fire-1", true));
+        Assert.assertNull(identifierResolver.getSnapshot(context).fireIds.fireAdId);
+
+        SystemClock.sleep(600);
+        Assert.assertEquals("fire-1", identifierResolver.getSnapshot(context).fireIds.fireAdId);
+        fireMetrics = identifierResolver.getMetrics(IdentifierResolver.Source.FIRE);
+        Assert.assertEquals(9.0 / 11, fireMetrics.cacheHitRate(), 0.001);
+        Assert.assertTrue(fireMetrics.maxLatencyMillis >= 300);
+    }
+
+    @Test
+    public void testPackageBuildingDoesNotWaitForSlowSource() {
+        DeviceInfo deviceInfo = new DeviceInfo(context, null, identifierResolver);
+        deviceInfo.reloadIdentifiers(context);
+
+        // every source expired and answers only after the packages are built
+        identifierResolver.setTimeToLive(0);
+        for (IdentifierResolver.Source source : IdentifierResolver.Source.values()) {
+            identifierResolver.setDelay(source, 2000);
+        }
+        identifierResolver.setValue(IdentifierResolver.Source.PLAY,
+                new IdentifierSnapshot.PlayIds("gps-2", "service", 1, true));
+
+        AdjustConfig adjustConfig =
+                new AdjustConfig(context, "123456789012", AdjustConfig.ENVIRONMENT_SANDBOX);
+        ActivityState activityState = new ActivityState();
+        SessionParameters sessionParameters = new SessionParameters();
+
+        long start = SystemClock.uptimeMillis();
+        for (int i = 0; i < 10; i++) {
+            ActivityPackage sessionPackage = new PackageBuilder(adjustConfig, deviceInfo,
+                    activityState, sessionParameters, System.currentTimeMillis())
+                    .buildSessionPackage(false);
+            // the value read before, while the source is read again in the background
+            Assert.assertEquals("gps-1", sessionPackage.getParameters().get("gps_adid"));
+            Assert.assertEquals("oaid-1", sessionPackage.getParameters().get("oaid"));
+        }
+        long elapsed = SystemClock.uptimeMillis() - start;
+
+        Assert.assertTrue(elapsed < 1000);
+        Assert.assertEquals(1, identifierResolver.getMetrics(IdentifierResolver.Source.PLAY).resolutions);
+
+        SystemClock.sleep(2500);
+        ActivityPackage sessionPackage = new PackageBuilder(adjustConfig, deviceInfo,
+                activityState, sessionParameters, System.currentTimeMillis())
+                .buildSessionPackage(false);
+        Assert.assertEquals("gps-2", sessionPackage.getParameters().get("gps_adid"));
+    }
+
+    private static class MockIdentifierResolver extends IdentifierResolver {
+        private final Map<Source, Object> values = new EnumMap<Source, Object>(Source.class);
+        private final Map<Source, Long> delays = new EnumMap<Source, Long>(Source.class);
+        private final Map<Source, Long> deadlines = new EnumMap<Source, Long>(Source.class);
+        private volatile long timeToLive = Constants.ONE_HOUR;
+
+        synchronized void setValue(Source source, Object value) {
+            values.put(source, value);
+        }
+
+        synchronized void setDelay(Source source, long delay) {
+            delays.put(source, delay);
+        }
+
+        synchronized void setDeadline(Source source, long deadline) {
+            deadlines.put(source, deadline);
+        }
+
+        void setTimeToLive(long timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        @Override
+        synchronized long deadlineOf(Source source) {
+            Long deadline = deadlines.get(source);
+            return deadline != null ? deadline : super.deadlineOf(source);
+        }
+
+        @Override
+        long timeToLiveOf(Source source) {
+            return timeToLive;
+        }
+
+        @Override
+        Object read(Context context, Source source, IdentifierSnapshot current) {
+            Long delay;
+            synchronized (this) {
+                delay = delays.get(source);
+            }
+            if (delay != null) {
+                SystemClock.sleep(delay);
+            }
+            synchronized (this) {
+                return values.get(source);
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.adjust.sdk;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.adjust.sdk.network.ActivityPackageSender;
+import com.adjust.sdk.network.KeepAliveConnectionProvider;
+import com.adjust.sdk.network.UtilNetworking;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Sends through the keep alive connection provider to in-process stub servers, which keep
+ * connections alive for the socket factory of the provider and complete a handshake for every
+ * new connection.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestKeepAliveConnection {
+    private static final String PRIMARY_HOST = "app.adjust.com";
+    private static final String SECONDARY_HOST = "app.adjust.net.in";
+
+    private MockLogger mockLogger;
+    private Map<String, StubServer> stubServers;
+    private KeepAliveConnectionProvider connectionProvider;
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        AdjustFactory.setLogger(mockLogger);
+        AdjustFactory.setBaseUrl(null);
+
+        stubServers = new HashMap<String, StubServer>();
+        stubServers.put(PRIMARY_HOST, new StubServer());
+        stubServers.put(SECONDARY_HOST, new StubServer());
+        connectionProvider = new KeepAliveConnectionProvider(new StubServer.HandshakingSocketFactory()) {
+            @Override
+            protected HttpsURLConnection openConnection(URL url) {
+                return stubServers.get(url.getHost()).openConnection(url);
+            }
+        };
+        AdjustFactory.setHttpsURLConnectionProvider(connectionProvider);
+    }
+
+    @After
+    public void tearDown() {
+        AdjustFactory.setHttpsURLConnectionProvider(null);
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testConnectionReuse() {
+        ActivityPackageSender sender = new ActivityPackageSender(null, null, null, null, "android4.28.3");
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(send(sender).success);
+        }
+
+        // the fully read responses leave the connection open for the next request
+        Assert.assertEquals(10, stubServers.get(PRIMARY_HOST).requests.get());
+        Assert.assertEquals(1, stubServers.get(PRIMARY_HOST).newConnections.get());
+
+        KeepAliveConnectionProvider.ConnectionMetrics metrics =
+                connectionProvider.getMetrics(PRIMARY_HOST);
+        Assert.assertEquals(10, metrics.getRequests());
+        Assert.assertEquals(1, metrics.getHandshakes());
+        Assert.assertEquals(9, metrics.getReusedRequests());
+        Assert.assertEquals(0.9, metrics.getReuseRate(), 0.001);
+        Assert.assertTrue(mockLogger.containsMessage(LogLevel.VERBOSE,
+                "New connection to app.adjust.com").containsMessage);
+    }
+
+    @Test
+    public void testMetricsPerHost() throws IOException {
+        for (int i = 0; i < 4; i++) {
+            request(PRIMARY_HOST, true);
+        }
+        request(SECONDARY_HOST, true);
+        // a response not read to the end doesn't give the connection back
+        request(SECONDARY_HOST, false);
+        request(SECONDARY_HOST, true);
+
+        KeepAliveConnectionProvider.ConnectionMetrics primaryMetrics =
+                connectionProvider.getMetrics(PRIMARY_HOST);
+        Assert.assertEquals(4, primaryMetrics.getRequests());
+        Assert.assertEquals(1, primaryMetrics.getHandshakes());
+        Assert.assertEquals(3, primaryMetrics.getReusedRequests());
+
+        KeepAliveConnectionProvider.ConnectionMetrics secondaryMetrics =
+                connectionProvider.getMetrics(SECONDARY_HOST);
+        Assert.assertEquals(3, secondaryMetrics.getRequests());
+        Assert.assertEquals(2, secondaryMetrics.getHandshakes());
+        Assert.assertEquals(1, secondaryMetrics.getReusedRequests());
+
+        Assert.assertEquals(0, connectionProvider.getMetrics("app.adjust.world").getRequests());
+    }
+
+    @Test
+    public void testConcurrentRequestCount() throws InterruptedException {
+        final int threads = 8;
+        final int requestsPerThread = 500;
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int i = 0; i < threads; i++) {
+            final String host = i % 2 == 0 ? PRIMARY_HOST : SECONDARY_HOST;
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < requestsPerThread; j++) {
+                            connectionProvider.generateHttpsURLConnection(
+                                    new URL("https://" + host + "/event"));
+                        }
+                    } catch (Exception e) {
+                        mockLogger.test(e.getMessage());
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        Assert.assertEquals(threads / 2 * requestsPerThread,
+                connectionProvider.getMetrics(PRIMARY_HOST).getRequests());
+        Assert.assertEquals(threads / 2 * requestsPerThread,
+                connectionProvider.getMetrics(SECONDARY_HOST).getRequests());
+    }
+
+    @Test
+    public void testHandshakeToAddress() throws IOException {
+        HttpsURLConnection connection = connectionProvider.generateHttpsURLConnection(
+                new URL("https://" + PRIMARY_HOST + "/event"));
+        SSLSocketFactory socketFactory = connection.getSSLSocketFactory();
+
+        // the host name the address was created with, and no reverse lookup without one
+        InetAddress namedAddress = InetAddress.getByAddress(PRIMARY_HOST, new byte[] {10, 0, 0, 1});
+        ((SSLSocket) socketFactory.createSocket(namedAddress, 443)).startHandshake();
+        InetAddress unnamedAddress = InetAddress.getByAddress(new byte[] {10, 0, 0, 2});
+        ((SSLSocket) socketFactory.createSocket(unnamedAddress, 443)).startHandshake();
+
+        Assert.assertEquals(1, connectionProvider.getMetrics(PRIMARY_HOST).getHandshakes());
+        Assert.assertEquals(1, connectionProvider.getMetrics("10.0.0.2").getHandshakes());
+    }
+
+    @Test
+    public void testSharedProviderMetrics() throws IOException {
+        UtilNetworking.IHttpsURLConnectionProvider sharedProvider =
+                UtilNetworking.createDefaultHttpsURLConnectionProvider();
+        long requestsBefore = UtilNetworking.getConnectionMetrics(PRIMARY_HOST).getRequests();
+
+        // opening a connection doesn't connect it yet
+        for (int i = 0; i < 3; i++) {
+            sharedProvider.generateHttpsURLConnection(new URL("https://" + PRIMARY_HOST + "/event"));
+        }
+
+        Assert.assertEquals(requestsBefore + 3,
+                UtilNetworking.getConnectionMetrics(PRIMARY_HOST).getRequests());
+    }
+
+    private ResponseData send(ActivityPackageSender sender) {
+        ActivityPackage activityPackage = new ActivityPackage(ActivityKind.EVENT);
+        activityPackage.setPath("/event");
+        activityPackage.setClientSdk("android4.28.3");
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("created_at", Long.toString(System.currentTimeMillis()));
+        activityPackage.setParameters(parameters);
+
+        return sender.sendActivityPackageSync(activityPackage, null);
+    }
+
+    // what the package senders do with a connection: read and close the response, or drop it
+    private void request(String host, boolean readsResponse) throws IOException {
+        HttpsURLConnection connection =
+                connectionProvider.generateHttpsURLConnection(new URL("https://" + host + "/event"));
+        connection.connect();
+        if (readsResponse) {
+            connection.getInputStream().close();
+        } else {
+            connection.disconnect();
+        }
+    }
+}
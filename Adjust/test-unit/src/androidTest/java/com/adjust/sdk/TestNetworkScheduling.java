@@ -0,0 +1,218 @@
+package com.adjust.sdk;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.adjust.sdk.network.IActivityPackageSender;
+import com.adjust.sdk.network.INetworkMonitor;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends through a package handler driven by a fake network monitor, as the activity handler
+ * does with the real one.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestNetworkScheduling {
+    private MockLogger mockLogger;
+    private MockNetworkMonitor mockNetworkMonitor;
+    private Context context;
+    private AdjustConfig adjustConfig;
+    private AtomicInteger sendAttempts;
+    private AtomicInteger sentPackages;
+    private AtomicInteger failuresLeft;
+    private PackageHandler packageHandler;
+
+    @Rule
+    public ActivityTestRule<com.adjust.sdk.test.UnitTestActivity> mActivityRule = new ActivityTestRule(com.adjust.sdk.test.UnitTestActivity.class);
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        mockNetworkMonitor = new MockNetworkMonitor(mockLogger);
+        AdjustFactory.setLogger(mockLogger);
+
+        context = mActivityRule.getActivity().getApplicationContext();
+        PackageHandler.deleteState(context);
+
+        adjustConfig = new AdjustConfig(context, "123456789012", AdjustConfig.ENVIRONMENT_SANDBOX);
+        sendAttempts = new AtomicInteger();
+        sentPackages = new AtomicInteger();
+        failuresLeft = new AtomicInteger();
+    }
+
+    @After
+    public void tearDown() {
+        if (packageHandler != null) {
+            packageHandler.teardown();
+        }
+        PackageHandler.deleteState(context);
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testDeferLargeBacklogToUnmetered() {
+        adjustConfig.setUnmeteredBacklogThreshold(5);
+        startPackageHandler();
+        mockNetworkMonitor.setNetwork(true, false);
+
+        addEventPackages(10);
+        packageHandler.sendFirstPackage();
+        SystemClock.sleep(500);
+
+        Assert.assertEquals(0, sendAttempts.get());
+        Assert.assertTrue(mockLogger.containsMessage(LogLevel.DEBUG,
+                "Package handler waits for an unmetered network to send 10 packages").containsMessage);
+
+        // wifi is back, the whole backlog goes without waiting for the next timer
+        mockNetworkMonitor.setNetwork(true, true);
+        Assert.assertTrue(waitForSentPackages(10));
+    }
+
+    @Test
+    public void testSendSmallQueueOnMetered() {
+        adjustConfig.setUnmeteredBacklogThreshold(5);
+        startPackageHandler();
+        mockNetworkMonitor.setNetwork(true, false);
+
+        addEventPackages(3);
+        packageHandler.sendFirstPackage();
+
+        Assert.assertTrue(waitForSentPackages(3));
+    }
+
+    @Test
+    public void testRetryOnReconnect() {
+        // with the default backoff the retry would wait for at least a minute
+        failuresLeft.set(1);
+        startPackageHandler();
+
+        addEventPackages(1);
+        packageHandler.sendFirstPackage();
+        SystemClock.sleep(500);
+
+        Assert.assertEquals(1, sendAttempts.get());
+        Assert.assertEquals(0, sentPackages.get());
+
+        mockNetworkMonitor.setNetwork(false, false);
+        SystemClock.sleep(200);
+        Assert.assertEquals(1, sendAttempts.get());
+
+        mockNetworkMonitor.setNetwork(true, false);
+        Assert.assertTrue(waitForSentPackages(1));
+        Assert.assertEquals(2, sendAttempts.get());
+        Assert.assertTrue(mockLogger.containsMessage(LogLevel.VERBOSE,
+                "Package handler retries now that the network is back").containsMessage);
+    }
+
+    private void startPackageHandler() {
+        packageHandler = new PackageHandler(createActivityHandler(), context, true, createSender());
+
+        // what the activity handler does with the network changes
+        packageHandler.setNetworkState(mockNetworkMonitor.isConnected(), mockNetworkMonitor.isUnmetered());
+        mockNetworkMonitor.start(new INetworkMonitor.NetworkListener() {
+            @Override
+            public void onNetworkChanged(boolean isConnected, boolean isUnmetered) {
+                packageHandler.setNetworkState(isConnected, isUnmetered);
+            }
+        });
+    }
+
+    private void addEventPackages(int count) {
+        for (int i = 0; i < count; i++) {
+            ActivityPackage activityPackage = new ActivityPackage(ActivityKind.EVENT);
+            activityPackage.setPath("/event");
+            Map<String, String> parameters = new HashMap<String, String>();
+            parameters.put("created_at", Integer.toString(i));
+            activityPackage.setParameters(parameters);
+            packageHandler.addPackage(activityPackage);
+        }
+    }
+
+    private boolean waitForSentPackages(int count) {
+        for (int i = 0; i < 50 && sentPackages.get() < count; i++) {
+            SystemClock.sleep(100);
+        }
+        return sentPackages.get() == count;
+    }
+
+    private IActivityHandler createActivityHandler() {
+        return (IActivityHandler) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{IActivityHandler.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("getAdjustConfig")) {
+                            return adjustConfig;
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private IActivityPackageSender createSender() {
+        return new IActivityPackageSender() {
+            @Override
+            public void sendActivityPackage(ActivityPackage activityPackage,
+                                            Map<String, String> sendingParameters,
+                                            ResponseDataCallbackSubscriber responseCallback)
+            {
+                responseCallback.onResponseDataCallback(
+                        sendActivityPackageSync(activityPackage, sendingParameters));
+            }
+
+            @Override
+            public ResponseData sendActivityPackageSync(ActivityPackage activityPackage,
+                                                        Map<String, String> sendingParameters)
+            {
+                sendAttempts.incrementAndGet();
+                ResponseData responseData = ResponseData.buildResponseData(activityPackage, null);
+                if (failuresLeft.getAndDecrement() > 0) {
+                    responseData.willRetry = true;
+                    return responseData;
+                }
+                responseData.success = true;
+                sentPackages.incrementAndGet();
+                return responseData;
+            }
+
+            @Override
+            public void sendActivityPackageBatch(List<ActivityPackage> activityPackages,
+                                                 Map<String, String> sendingParameters,
+                                                 BatchResponseDataCallbackSubscriber batchResponseCallback)
+            {
+                batchResponseCallback.onBatchResponseDataCallback(
+                        sendActivityPackageBatchSync(activityPackages, sendingParameters));
+            }
+
+            @Override
+            public List<ResponseData> sendActivityPackageBatchSync(List<ActivityPackage> activityPackages,
+                                                                   Map<String, String> sendingParameters)
+            {
+                List<ResponseData> responseDataList = new ArrayList<ResponseData>();
+                for (ActivityPackage activityPackage : activityPackages) {
+                    responseDataList.add(sendActivityPackageSync(activityPackage, sendingParameters));
+                }
+                return responseDataList;
+            }
+        };
+    }
+}
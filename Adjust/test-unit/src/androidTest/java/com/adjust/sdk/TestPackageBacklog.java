@@ -0,0 +1,217 @@
+package com.adjust.sdk;
+
+import android.content.Context;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestPackageBacklog {
+    private static final int CAPACITY = 4096;
+
+    private MockLogger mockLogger;
+    private Context context;
+
+    @Rule
+    public ActivityTestRule<com.adjust.sdk.test.UnitTestActivity> mActivityRule = new ActivityTestRule(com.adjust.sdk.test.UnitTestActivity.class);
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        AdjustFactory.setLogger(mockLogger);
+
+        context = mActivityRule.getActivity().getApplicationContext();
+        PackageBacklog.delete(context);
+    }
+
+    @After
+    public void tearDown() {
+        PackageBacklog.delete(context);
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testAddAndRemove() {
+        PackageBacklog packageBacklog = PackageBacklog.open(context, CAPACITY, true);
+        Assert.assertNull(packageBacklog.peek());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(packageBacklog.add(createEventPackage(i)));
+        }
+        packageBacklog.close();
+
+        packageBacklog = PackageBacklog.open(context, CAPACITY, true);
+        Assert.assertEquals(10, packageBacklog.size());
+        assertPackages(packageBacklog, 0, 10);
+        Assert.assertTrue(packageBacklog.isEmpty());
+        Assert.assertNull(packageBacklog.peek());
+    }
+
+    @Test
+    public void testWrapAround() {
+        PackageBacklog packageBacklog = PackageBacklog.open(context, CAPACITY, true);
+        int added = 0;
+        int removed = 0;
+
+        // goes around the buffer many times, reopening it on the way
+        while (added < 1000) {
+            for (int i = 0; i < 7; i++) {
+                Assert.assertTrue(packageBacklog.add(createEventPackage(added++)));
+            }
+            if (added % 70 == 0) {
+                packageBacklog.close();
+                packageBacklog = PackageBacklog.open(context, CAPACITY, true);
+                Assert.assertEquals(added - removed, packageBacklog.size());
+            }
+            for (int i = 0; i < 7 && added - removed > 20; i++) {
+                assertPackages(packageBacklog, removed++, 1);
+            }
+        }
+
+        assertPackages(packageBacklog, removed, added - removed);
+        Assert.assertFalse(mockLogger.containsMessage(LogLevel.WARN,
+                "Package backlog is full").containsMessage);
+    }
+
+    @Test
+    public void testDropOldest() {
+        PackageBacklog packageBacklog = PackageBacklog.open(context, CAPACITY, true);
+        for (int i = 0; i < 200; i++) {
+            Assert.assertTrue(packageBacklog.add(createEventPackage(i)));
+        }
+
+        int size = packageBacklog.size();
+        Assert.assertTrue(size < 200);
+        Assert.assertTrue(mockLogger.containsMessage(LogLevel.WARN,
+                "Package backlog is full, dropped the oldest").containsMessage);
+        assertPackages(packageBacklog, 200 - size, size);
+    }
+
+    @Test
+    public void testDropNewest() {
+        PackageBacklog packageBacklog = PackageBacklog.open(context, CAPACITY, false);
+        int size = 0;
+        for (int i = 0; i < 200; i++) {
+            if (packageBacklog.add(createEventPackage(i))) {
+                Assert.assertEquals(i, size++);
+            }
+        }
+
+        Assert.assertTrue(size < 200);
+        Assert.assertEquals(size, packageBacklog.size());
+        Assert.assertTrue(mockLogger.containsMessage(LogLevel.WARN,
+                "Package backlog is full with " + size + " packages, dropping the newest one").containsMessage);
+        assertPackages(packageBacklog, 0, size);
+    }
+
+    @Test
+    public void testCorruptedRecord() throws Exception {
+        PackageBacklog packageBacklog = PackageBacklog.open(context, CAPACITY, true);
+        for (int i = 0; i < 3; i++) {
+            packageBacklog.add(createEventPackage(i));
+        }
+        packageBacklog.close();
+
+        // file header and the records of the first two packages
+        int lastRecordPosition = 16;
+        for (int i = 0; i < 2; i++) {
+            lastRecordPosition += 8 + PersistenceCodec.encodeActivityPackage(createEventPackage(i)).length;
+        }
+
+        // as if the page with the end of the last record was lost
+        RandomAccessFile backlogFile = new RandomAccessFile(
+                context.getFileStreamPath("AdjustIoPackageBacklog"), "rw");
+        backlogFile.seek(lastRecordPosition + 20);
+        backlogFile.write(backlogFile.read() ^ 0xFF);
+        backlogFile.close();
+
+        packageBacklog = PackageBacklog.open(context, CAPACITY, true);
+        Assert.assertEquals(2, packageBacklog.size());
+        Assert.assertTrue(mockLogger.containsMessage(LogLevel.WARN,
+                "Package backlog had a corrupted record, keeping its first 2 packages").containsMessage);
+
+        // new packages go after the last good one
+        packageBacklog.add(createEventPackage(2));
+        packageBacklog.close();
+        assertPackages(PackageBacklog.open(context, CAPACITY, true), 0, 3);
+    }
+
+    @Test
+    public void testResize() {
+        PackageBacklog packageBacklog = PackageBacklog.open(context, CAPACITY, true);
+        for (int i = 0; i < 10; i++) {
+            packageBacklog.add(createEventPackage(i));
+        }
+        packageBacklog.close();
+
+        packageBacklog = PackageBacklog.open(context, CAPACITY * 4, true);
+        Assert.assertEquals(10, packageBacklog.size());
+        for (int i = 10; i < 100; i++) {
+            Assert.assertTrue(packageBacklog.add(createEventPackage(i)));
+        }
+        Assert.assertFalse(mockLogger.containsMessage(LogLevel.WARN,
+                "Package backlog is full").containsMessage);
+        packageBacklog.close();
+
+        // 0 keeps the size, as when the backlog is no longer configured
+        packageBacklog = PackageBacklog.open(context, 0, true);
+        assertPackages(packageBacklog, 0, 100);
+    }
+
+    @Test
+    public void testUpdate() {
+        PackageBacklog packageBacklog = PackageBacklog.open(context, CAPACITY, true);
+        for (int i = 0; i < 10; i++) {
+            packageBacklog.add(createEventPackage(i));
+        }
+        packageBacklog.removeFirst();
+
+        packageBacklog.update(new PackageBacklog.PackageUpdater() {
+            @Override
+            public void update(ActivityPackage activityPackage) {
+                activityPackage.getParameters().put("callback_params", "{\"key\":\"value\"}");
+            }
+        });
+
+        Assert.assertEquals(9, packageBacklog.size());
+        for (int i = 1; i < 10; i++) {
+            ActivityPackage activityPackage = packageBacklog.peek();
+            Assert.assertEquals(Integer.toString(i), activityPackage.getParameters().get("created_at"));
+            Assert.assertEquals("{\"key\":\"value\"}", activityPackage.getParameters().get("callback_params"));
+            packageBacklog.removeFirst();
+        }
+    }
+
+    private static void assertPackages(PackageBacklog packageBacklog, int first, int count) {
+        for (int i = first; i < first + count; i++) {
+            ActivityPackage activityPackage = packageBacklog.peek();
+            Assert.assertNotNull(activityPackage);
+            Assert.assertEquals(createEventPackage(i), activityPackage);
+            packageBacklog.removeFirst();
+        }
+    }
+
+    private static ActivityPackage createEventPackage(int index) {
+        ActivityPackage activityPackage = new ActivityPackage(ActivityKind.EVENT);
+        activityPackage.setPath("/event");
+        activityPackage.setClientSdk("android4.28.3");
+
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("app_token", "123456789012");
+        parameters.put("event_token", "abc123");
+        parameters.put("created_at", Integer.toString(index));
+        activityPackage.setParameters(parameters);
+        return activityPackage;
+    }
+}
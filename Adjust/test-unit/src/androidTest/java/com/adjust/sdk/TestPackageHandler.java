@@ -29,7 +29,7 @@ import java.util.regex.Pattern;
 public class TestPackageHandler {
     private MockLogger mockLogger;
     private MockActivityHandler mockActivityHandler;
-    protected MockRequestHandler mockRequestHandler;
+    private MockActivityPackageSender mockActivityPackageSender;
     private AssertUtil assertUtil;
     private com.adjust.sdk.test.UnitTestActivity activity;
     private Context context;
@@ -41,12 +41,11 @@ public class TestPackageHandler {
     public void setUp() {
         mockLogger = new MockLogger();
         mockActivityHandler = new MockActivityHandler(mockLogger);
-        mockRequestHandler = new MockRequestHandler(mockLogger);
+        mockActivityPackageSender = new MockActivityPackageSender(mockLogger);
 
         assertUtil = new AssertUtil(mockLogger);
 
         AdjustFactory.setLogger(mockLogger);
-        AdjustFactory.setRequestHandler(mockRequestHandler);
 
         activity = mActivityRule.getActivity();
         context = activity.getApplicationContext();
@@ -54,7 +53,7 @@ public class TestPackageHandler {
 
     @After
     public void tearDown() {
-        AdjustFactory.setRequestHandler(null);
+        AdjustFactory.setPackageHandlerBackoffStrategy(null);
         AdjustFactory.setLogger(null);
     }
 
@@ -87,22 +86,22 @@ public class TestPackageHandler {
         secondPackageHandler.sendFirstPackage();
         SystemClock.sleep(1000);
 
-        assertUtil.test("RequestHandler sendPackage, activityPackage clickFirstPackage");
-        assertUtil.test("RequestHandler sendPackage, queueSize 2");
+        assertUtil.test("ActivityPackageSender sendActivityPackage, activityPackage clickFirstPackage");
+        assertUtil.test("ActivityPackageSender sendActivityPackage, queueSize 2");
 
-        // send the second click package/ third package
-        secondPackageHandler.sendNextPackage(null);
+        // send the unknown package/ second package
+        respondToLastPackage(secondPackageHandler, false);
         SystemClock.sleep(1000);
 
-        assertUtil.test("RequestHandler sendPackage, activityPackage unknownSecondPackage");
-        assertUtil.test("RequestHandler sendPackage, queueSize 1");
+        assertUtil.test("ActivityPackageSender sendActivityPackage, activityPackage unknownSecondPackage");
+        assertUtil.test("ActivityPackageSender sendActivityPackage, queueSize 1");
 
-        // send the unknow package/ second package
-        secondPackageHandler.sendNextPackage(null);
+        // send the second click package/ third package
+        respondToLastPackage(secondPackageHandler, false);
         SystemClock.sleep(1000);
 
-        assertUtil.test("RequestHandler sendPackage, activityPackage clickThirdPackage");
-        assertUtil.test("RequestHandler sendPackage, queueSize 0");
+        assertUtil.test("ActivityPackageSender sendActivityPackage, activityPackage clickThirdPackage");
+        assertUtil.test("ActivityPackageSender sendActivityPackage, queueSize 0");
     }
 
     @Test
@@ -140,7 +139,8 @@ public class TestPackageHandler {
         sendFirstTests(SendFirstState.IS_SENDING, null, null);
 
         // verify that both paused and isSending are reset with a new session
-        PackageHandler secondSessionPackageHandler = new PackageHandler(mockActivityHandler, context, true);
+        PackageHandler secondSessionPackageHandler = new PackageHandler(mockActivityHandler, context, true,
+                mockActivityPackageSender);
 
         secondSessionPackageHandler.sendFirstPackage();
         SystemClock.sleep(1000);
@@ -169,20 +169,21 @@ public class TestPackageHandler {
         // add a second package
         addSecondPackageTest(packageHandler);
 
-        //send next package
-        packageHandler.sendNextPackage(null);
+        // the first package was sent, send the next one
+        respondToLastPackage(packageHandler, false);
         SystemClock.sleep(2000);
 
         assertUtil.debug("Package handler wrote 1 packages");
+        assertUtil.verbose("Package handler can send");
 
         // try to send the second package
         sendFirstTests(SendFirstState.SEND, "unknownSecondPackage", 0);
     }
 
     @Test
-    public void testCloseFirstPackage() {
+    public void testRetryFirstPackage() {
         // assert test name to read better in logcat
-        mockLogger.Assert("TestPackageHandler testCloseFirstPackage");
+        mockLogger.Assert("TestPackageHandler testRetryFirstPackage");
         AdjustFactory.setPackageHandlerBackoffStrategy(BackoffStrategy.NO_WAIT);
 
         PackageHandler packageHandler = startPackageHandler();
@@ -195,13 +196,12 @@ public class TestPackageHandler {
 
         sendFirstTests(SendFirstState.IS_SENDING, null, null);
 
-        //send next package
-        ActivityPackage activityPackage = new ActivityPackage(ActivityKind.UNKNOWN);
-        ResponseData unknownResponseData = ResponseData.buildResponseData(activityPackage);
-        packageHandler.closeFirstPackage(unknownResponseData, null);
+        // the first package failed and is retried
+        respondToLastPackage(packageHandler, true);
         SystemClock.sleep(2000);
 
         assertUtil.test("ActivityHandler finishedTrackingActivity, message:null timestamp:null json:null");
+        assertUtil.verbose("Waiting for 0.0 seconds before retrying the 1 time");
         assertUtil.verbose("Package handler can send");
 
         assertUtil.notInDebug("Package handler wrote");
@@ -219,58 +219,26 @@ public class TestPackageHandler {
 
         PackageHandler packageHandler = startPackageHandler();
 
-        ActivityPackage activityPackage = new ActivityPackage(ActivityKind.UNKNOWN);
-        ResponseData unknownResponseData = ResponseData.buildResponseData(activityPackage);
-        Pattern pattern = Pattern.compile("Waiting for (\\d+\\.\\d) seconds before retrying the (\\d+) time");
-
-        // 1st
-        packageHandler.closeFirstPackage(unknownResponseData, activityPackage);
-        SystemClock.sleep(1500);
-
-        String matchingString = assertUtil.verbose("Waiting for ");
-        // Waiting for 0.1 seconds before retrying the 1 time
-
-        checkSleeping(pattern, matchingString, 0.1, 0.2, 1, 0.5, 1);
-
-        // 2nd
-        packageHandler.closeFirstPackage(unknownResponseData, activityPackage);
-        SystemClock.sleep(1500);
-
-        matchingString = assertUtil.verbose("Waiting for ");
-
-        checkSleeping(pattern, matchingString, 0.2, 0.4, 1, 0.5, 2);
-
-        // 3rd
-        packageHandler.closeFirstPackage(unknownResponseData, activityPackage);
-        SystemClock.sleep(1500);
-
-        matchingString = assertUtil.verbose("Waiting for ");
-
-        checkSleeping(pattern, matchingString, 0.4, 0.8, 1, 0.5, 3);
-
-        // 4th
-        packageHandler.closeFirstPackage(unknownResponseData, activityPackage);
-        SystemClock.sleep(1500);
-
-        matchingString = assertUtil.verbose("Waiting for ");
-
-        checkSleeping(pattern, matchingString, 0.8, 1.6, 1, 0.5, 4);
-
-        // 5th
-        packageHandler.closeFirstPackage(unknownResponseData, activityPackage);
-        SystemClock.sleep(1500);
-
-        matchingString = assertUtil.verbose("Waiting for ");
-
-        checkSleeping(pattern, matchingString, 1.6, 3.2, 1, 0.5, 5);
-
-        // 6th
-        packageHandler.closeFirstPackage(unknownResponseData, activityPackage);
-        SystemClock.sleep(1500);
+        addAndSendFirstPackageTest(packageHandler);
 
-        matchingString = assertUtil.verbose("Waiting for ");
+        Pattern pattern = Pattern.compile("Waiting for (\\d+\\.\\d) seconds before retrying the (\\d+) time");
 
-        checkSleeping(pattern, matchingString, 6.4, 12.8, 1, 0.5, 6);
+        // decorrelated jitter, between the base wait and three times the previous one,
+        //  up to the longest wait of the strategy
+        double baseWait = 0.2;
+        double maxWait = 1.0;
+        double previousWait = baseWait;
+        for (int retries = 1; retries <= 6; retries++) {
+            respondToLastPackage(packageHandler, true);
+            SystemClock.sleep(1500);
+
+            String matchingString = assertUtil.verbose("Waiting for ");
+            // Waiting for 0.3 seconds before retrying the 1 time
+            double waitingTime = checkSleeping(pattern, matchingString,
+                    baseWait, Math.min(3 * previousWait, maxWait), retries);
+            // the logged wait is rounded, the actual one can be up to half a tenth longer
+            previousWait = Math.max(waitingTime + 0.05, baseWait);
+        }
     }
 
     @Test
@@ -351,7 +319,7 @@ public class TestPackageHandler {
         assertUtil.verbose("Session partner parameters: null");
 
         // writes the non-updated packages
-        assertUtil.debug("Wrote Package queue: [session, event'event1', event'event2']");
+        assertUtil.debug("Package handler compacted queue journal with 3 packages");
         assertUtil.debug("Package handler wrote 3 packages");
 
         SessionParameters sessionParameters = new SessionParameters();
@@ -440,13 +408,12 @@ public class TestPackageHandler {
         return Arrays.asList(firstSessionPackage, firstEventPackage, secondEventPackage);
     }
 
-    private void checkSleeping(Pattern pattern,
-                               String sleepingLog,
-                               double minRange,
-                               double maxRange,
-                               long maxCeiling,
-                               double minCeiling,
-                               int numberRetries)
+    // the logged wait is rounded to a tenth of a second
+    private double checkSleeping(Pattern pattern,
+                                 String sleepingLog,
+                                 double minWait,
+                                 double maxWait,
+                                 int numberRetries)
     {
         Matcher matcher = pattern.matcher(sleepingLog);
 
@@ -455,45 +422,37 @@ public class TestPackageHandler {
         }
         Double sleepingTime = Double.valueOf(matcher.group(1));
 
-        boolean failsCeiling = sleepingTime > maxCeiling;
-        assertUtil.isFalse(failsCeiling);
+        boolean failsMinWait = sleepingTime < minWait - 0.05;
+        assertUtil.isFalse(failsMinWait);
 
-        if (maxRange < maxCeiling) {
-            boolean failsMinRange = sleepingTime < minRange;
-            assertUtil.isFalse(failsMinRange);
-        } else {
-            boolean failsMinRange = sleepingTime < minCeiling ;
-            assertUtil.isFalse(failsMinRange);
-        }
-
-        if (maxRange < maxCeiling) {
-            boolean failsMaxRange = sleepingTime > maxRange;
-            assertUtil.isFalse(failsMaxRange);
-        } else {
-            boolean failsMaxRange = sleepingTime > maxCeiling;
-            assertUtil.isFalse(failsMaxRange);
-        }
+        boolean failsMaxWait = sleepingTime > maxWait + 0.05;
+        assertUtil.isFalse(failsMaxWait);
 
         Integer retryTime = Integer.valueOf(matcher.group(2));
         assertUtil.isEqual(numberRetries, retryTime);
+
+        return sleepingTime;
     }
 
     private PackageHandler startPackageHandler() {
         // delete package queue for fresh start
         deletePackageQueue();
 
-        PackageHandler packageHandler = new PackageHandler(mockActivityHandler, context, true);
+        PackageHandler packageHandler = new PackageHandler(mockActivityHandler, context, true,
+                mockActivityPackageSender);
 
         SystemClock.sleep(1000);
 
-        assertUtil.debug("Package queue file not found");
+        assertUtil.debug("Package queue journal file not found");
+        assertUtil.debug("Package handler read 0 packages");
 
         return packageHandler;
     }
 
     private PackageHandler addSecondPackageTest(PackageHandler packageHandler) {
         if (packageHandler == null) {
-            packageHandler = new PackageHandler(mockActivityHandler, context, true);
+            packageHandler = new PackageHandler(mockActivityHandler, context, true,
+                    mockActivityPackageSender);
 
             SystemClock.sleep(1000);
 
@@ -551,13 +510,22 @@ public class TestPackageHandler {
         }
 
         if (sendFirstState == SendFirstState.SEND) {
-            assertUtil.test("RequestHandler sendPackage, activityPackage " + packageString);
-            assertUtil.test("RequestHandler sendPackage, queueSize " + queueSize);
+            assertUtil.test("ActivityPackageSender sendActivityPackage, activityPackage " + packageString);
+            assertUtil.test("ActivityPackageSender sendActivityPackage, queueSize " + queueSize);
         } else {
-            assertUtil.notInTest("RequestHandler sendPackage");
+            assertUtil.notInTest("ActivityPackageSender sendActivityPackage");
         }
     }
 
+    // answers the last package sent, as the sender does when its request finishes
+    private void respondToLastPackage(PackageHandler packageHandler, boolean willRetry) {
+        ResponseData responseData = ResponseData.buildResponseData(
+                mockActivityPackageSender.lastActivityPackage, null);
+        responseData.success = !willRetry;
+        responseData.willRetry = willRetry;
+        packageHandler.onResponseDataCallback(responseData);
+    }
+
     private void deletePackageQueue() {
         boolean packageQueueDeleted = PackageHandler.deletePackageQueue(context);
 
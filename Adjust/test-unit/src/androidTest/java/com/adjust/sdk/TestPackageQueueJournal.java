@@ -0,0 +1,181 @@
+package com.adjust.sdk;
+
+import android.content.Context;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestPackageQueueJournal {
+    private MockLogger mockLogger;
+    private Context context;
+
+    @Rule
+    public ActivityTestRule<com.adjust.sdk.test.UnitTestActivity> mActivityRule = new ActivityTestRule(com.adjust.sdk.test.UnitTestActivity.class);
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        AdjustFactory.setLogger(mockLogger);
+
+        context = mActivityRule.getActivity().getApplicationContext();
+        PackageQueueJournal.delete(context);
+    }
+
+    @After
+    public void tearDown() {
+        PackageQueueJournal.delete(context);
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testReplay() {
+        PackageQueueJournal journal = new PackageQueueJournal(context);
+        List<ActivityPackage> packageQueue = journal.read();
+        Assert.assertEquals(0, packageQueue.size());
+
+        for (int i = 0; i < 100; i++) {
+            ActivityPackage activityPackage = createEventPackage(i);
+            packageQueue.add(activityPackage);
+            Assert.assertTrue(journal.append(activityPackage, packageQueue));
+        }
+
+        // enough removals to trigger a compaction in between
+        for (int i = 0; i < 60; i++) {
+            packageQueue.remove(0);
+            journal.removeFirst(packageQueue);
+        }
+
+        List<ActivityPackage> replayedQueue = new PackageQueueJournal(context).read();
+
+        Assert.assertEquals(40, replayedQueue.size());
+        Assert.assertEquals("/event60", replayedQueue.get(0).getPath());
+        Assert.assertEquals("/event99", replayedQueue.get(39).getPath());
+    }
+
+    @Test
+    public void testTornRecord() throws Exception {
+        PackageQueueJournal journal = new PackageQueueJournal(context);
+        List<ActivityPackage> packageQueue = journal.read();
+
+        for (int i = 0; i < 3; i++) {
+            ActivityPackage activityPackage = createEventPackage(i);
+            packageQueue.add(activityPackage);
+            journal.append(activityPackage, packageQueue);
+        }
+
+        // simulate a crash in the middle of writing the last record
+        File journalFile = context.getFileStreamPath("AdjustIoPackageQueueJournal");
+        RandomAccessFile randomAccessFile = new RandomAccessFile(journalFile, "rw");
+        randomAccessFile.setLength(randomAccessFile.length() - 5);
+        randomAccessFile.close();
+
+        List<ActivityPackage> replayedQueue = new PackageQueueJournal(context).read();
+        Assert.assertEquals(2, replayedQueue.size());
+        Assert.assertEquals("/event1", replayedQueue.get(1).getPath());
+
+        // the torn tail is dropped by rewriting the journal
+        replayedQueue = new PackageQueueJournal(context).read();
+        Assert.assertEquals(2, replayedQueue.size());
+    }
+
+    @Test
+    public void testLegacyMigration() {
+        List<ActivityPackage> legacyQueue = new ArrayList<ActivityPackage>();
+        legacyQueue.add(createEventPackage(0));
+        legacyQueue.add(createEventPackage(1));
+        Util.writeObject(legacyQueue, context, "AdjustIoPackageQueue", "Package queue");
+
+        List<ActivityPackage> migratedQueue = new PackageQueueJournal(context).read();
+
+        Assert.assertEquals(2, migratedQueue.size());
+        Assert.assertFalse(context.getFileStreamPath("AdjustIoPackageQueue").exists());
+
+        List<ActivityPackage> replayedQueue = new PackageQueueJournal(context).read();
+        Assert.assertEquals(2, replayedQueue.size());
+        Assert.assertEquals("/event0", replayedQueue.get(0).getPath());
+    }
+
+    @Test
+    public void testFailedLegacyMigration() throws Exception {
+        List<ActivityPackage> legacyQueue = new ArrayList<ActivityPackage>();
+        legacyQueue.add(createEventPackage(0));
+        legacyQueue.add(createEventPackage(1));
+        Util.writeObject(legacyQueue, context, "AdjustIoPackageQueue", "Package queue");
+
+        // the compacted journal can't be written while a directory takes its place
+        File compactionFile = context.getFileStreamPath("AdjustIoPackageQueueJournal.tmp");
+        File blockingFile = new File(compactionFile, "blocking");
+        Assert.assertTrue(compactionFile.mkdir());
+        Assert.assertTrue(blockingFile.createNewFile());
+
+        PackageQueueJournal journal = new PackageQueueJournal(context);
+        List<ActivityPackage> packageQueue = journal.read();
+        Assert.assertEquals(2, packageQueue.size());
+        // kept until its packages are in the journal
+        Assert.assertTrue(context.getFileStreamPath("AdjustIoPackageQueue").exists());
+        Assert.assertFalse(context.getFileStreamPath("AdjustIoPackageQueueJournal").exists());
+
+        ActivityPackage addedPackage = createEventPackage(2);
+        packageQueue.add(addedPackage);
+        Assert.assertFalse(journal.append(addedPackage, packageQueue));
+        Assert.assertTrue(context.getFileStreamPath("AdjustIoPackageQueue").exists());
+
+        // the next change writes the whole queue
+        Assert.assertTrue(blockingFile.delete());
+        Assert.assertTrue(compactionFile.delete());
+        addedPackage = createEventPackage(3);
+        packageQueue.add(addedPackage);
+        Assert.assertTrue(journal.append(addedPackage, packageQueue));
+        Assert.assertFalse(context.getFileStreamPath("AdjustIoPackageQueue").exists());
+
+        List<ActivityPackage> replayedQueue = new PackageQueueJournal(context).read();
+        Assert.assertEquals(4, replayedQueue.size());
+        Assert.assertEquals("/event0", replayedQueue.get(0).getPath());
+        Assert.assertEquals("/event3", replayedQueue.get(3).getPath());
+    }
+
+    @Test
+    public void testInterruptedLegacyMigration() {
+        PackageQueueJournal journal = new PackageQueueJournal(context);
+        List<ActivityPackage> packageQueue = journal.read();
+        for (int i = 0; i < 3; i++) {
+            ActivityPackage activityPackage = createEventPackage(i);
+            packageQueue.add(activityPackage);
+            journal.append(activityPackage, packageQueue);
+        }
+
+        // as left by a crash after the compaction of a migration, before deleting the file
+        List<ActivityPackage> legacyQueue = new ArrayList<ActivityPackage>();
+        legacyQueue.add(createEventPackage(0));
+        legacyQueue.add(createEventPackage(1));
+        Util.writeObject(legacyQueue, context, "AdjustIoPackageQueue", "Package queue");
+
+        List<ActivityPackage> replayedQueue = new PackageQueueJournal(context).read();
+        Assert.assertEquals(3, replayedQueue.size());
+        Assert.assertEquals("/event2", replayedQueue.get(2).getPath());
+        Assert.assertFalse(context.getFileStreamPath("AdjustIoPackageQueue").exists());
+
+        replayedQueue = new PackageQueueJournal(context).read();
+        Assert.assertEquals(3, replayedQueue.size());
+    }
+
+    private ActivityPackage createEventPackage(int index) {
+        ActivityPackage activityPackage = new ActivityPackage(ActivityKind.EVENT);
+        activityPackage.setPath("/event" + index);
+        return activityPackage;
+    }
+}
@@ -0,0 +1,186 @@
+package com.adjust.sdk;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestPersistenceCodec {
+    private MockLogger mockLogger;
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        AdjustFactory.setLogger(mockLogger);
+    }
+
+    @After
+    public void tearDown() {
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testActivityPackage() throws Exception {
+        ActivityPackage activityPackage = createEventPackage();
+
+        byte[] bytes = PersistenceCodec.encodeActivityPackage(activityPackage);
+        ActivityPackage decoded = PersistenceCodec.decodeActivityPackage(bytes);
+
+        Assert.assertEquals(activityPackage, decoded);
+        Assert.assertEquals(ActivityKind.EVENT, decoded.getActivityKind());
+        Assert.assertNull(decoded.getPartnerParameters());
+        Assert.assertTrue(decoded.getParameters().containsKey("null_value"));
+        Assert.assertNull(decoded.getParameters().get("null_value"));
+        // no class descriptors and known keys as a single byte
+        Assert.assertTrue(bytes.length < javaSerialize(activityPackage).length / 2);
+    }
+
+    @Test
+    public void testActivityState() throws Exception {
+        ActivityState activityState = new ActivityState();
+        activityState.eventCount = 300;
+        activityState.sessionCount = 7;
+        activityState.lastInterval = -1;
+        activityState.clickTime = 1600000000000L;
+        activityState.orderIds = new LinkedList<String>();
+        activityState.orderIds.add("order1");
+        activityState.orderIds.add("\u00FCnic\u00F6de");
+        activityState.pushToken = "token";
+        activityState.googlePlayInstant = true;
+        activityState.isThirdPartySharingDisabled = true;
+
+        ActivityState decoded = PersistenceCodec.decodeActivityState(
+                PersistenceCodec.encodeActivityState(activityState));
+
+        Assert.assertEquals(activityState, decoded);
+        Assert.assertEquals(activityState.uuid, decoded.uuid);
+        Assert.assertEquals(activityState.orderIds, decoded.orderIds);
+        Assert.assertEquals(Boolean.TRUE, decoded.googlePlayInstant);
+
+        activityState.googlePlayInstant = null;
+        decoded = PersistenceCodec.decodeActivityState(
+                PersistenceCodec.encodeActivityState(activityState));
+        Assert.assertNull(decoded.googlePlayInstant);
+    }
+
+    @Test
+    public void testJavaSerialization() throws Exception {
+        ActivityPackage activityPackage = createEventPackage();
+        ActivityState activityState = new ActivityState();
+        activityState.sessionCount = 3;
+        activityState.adid = "adid";
+
+        // as written by earlier versions
+        Assert.assertEquals(activityPackage,
+                PersistenceCodec.decodeActivityPackage(javaSerialize(activityPackage)));
+        Assert.assertEquals(activityState,
+                PersistenceCodec.decodeActivityState(javaSerialize(activityState)));
+    }
+
+    @Test
+    public void testUnknownFields() throws Exception {
+        ActivityPackage activityPackage = createEventPackage();
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        byteStream.write(PersistenceCodec.encodeActivityPackage(activityPackage));
+
+        // field 100 as a varint and field 101 as a string, written by a newer version
+        byteStream.write(new byte[] { (byte) 0xA0, 0x06, (byte) 0xFF, 0x01 });
+        byteStream.write(new byte[] { (byte) 0xAA, 0x06, 0x03, 'a', 'b', 'c' });
+
+        Assert.assertEquals(activityPackage,
+                PersistenceCodec.decodeActivityPackage(byteStream.toByteArray()));
+    }
+
+    @Test
+    public void testUnknownParameterKey() throws Exception {
+        byte[] bytes = new byte[] {
+                (byte) 0xAD, 0x4A, 0x01,
+                // path
+                0x0A, 0x06, '/', 'e', 'v', 'e', 'n', 't',
+                // parameters: app_token, then a key past the end of the known ones
+                0x1A, 0x0B, 0x02, 0x0F, 0x04, 'a', 'b', 'c', (byte) 0xC8, 0x01, 0x02, 'x',
+                // activity kind, after the parameters
+                0x22, 0x05, 'E', 'V', 'E', 'N', 'T',
+        };
+
+        ActivityPackage activityPackage = PersistenceCodec.decodeActivityPackage(bytes);
+
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("app_token", "abc");
+        Assert.assertEquals(parameters, activityPackage.getParameters());
+        Assert.assertEquals("/event", activityPackage.getPath());
+        Assert.assertEquals(ActivityKind.EVENT, activityPackage.getActivityKind());
+    }
+
+    @Test
+    public void testUnknownVersion() throws Exception {
+        byte[] bytes = PersistenceCodec.encodeActivityPackage(createEventPackage());
+        bytes[2] = 2;
+
+        try {
+            PersistenceCodec.decodeActivityPackage(bytes);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("Unknown format version 2", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testTruncated() throws Exception {
+        byte[] bytes = PersistenceCodec.encodeActivityState(new ActivityState());
+        // cut in the middle of the last field
+        byte[] truncated = new byte[bytes.length - 2];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+        try {
+            PersistenceCodec.decodeActivityState(truncated);
+            Assert.fail();
+        } catch (IOException e) {
+            // not read as a partial field
+        }
+    }
+
+    private static ActivityPackage createEventPackage() {
+        ActivityPackage activityPackage = new ActivityPackage(ActivityKind.EVENT);
+        activityPackage.setPath("/event");
+        activityPackage.setClientSdk("android4.28.3");
+        activityPackage.setSuffix("'abc123'");
+
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("app_token", "123456789012");
+        parameters.put("event_token", "abc123");
+        parameters.put("created_at", "2021-03-04T10:11:12.123Z+0100");
+        parameters.put("gps_adid", "38400000-8cf0-11bd-b23e-10b96e40000d");
+        parameters.put("custom_key", "J\u00FCrgen");
+        parameters.put("null_value", null);
+        activityPackage.setParameters(parameters);
+
+        Map<String, String> callbackParameters = new HashMap<String, String>();
+        callbackParameters.put("user_id", "12345");
+        activityPackage.setCallbackParameters(callbackParameters);
+
+        return activityPackage;
+    }
+
+    private static byte[] javaSerialize(Serializable object) throws IOException {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectStream = new ObjectOutputStream(byteStream);
+        objectStream.writeObject(object);
+        objectStream.close();
+        return byteStream.toByteArray();
+    }
+}
@@ -0,0 +1,137 @@
+package com.adjust.sdk;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.adjust.sdk.network.PostBodyEncoder;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URLEncoder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Checks that PostBodyEncoder writes the same bytes as the URLEncoder based body it replaced.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestPostBodyEncoder {
+    private static final int ITERATIONS = 2000;
+    // characters from every UTF-8 length class, reserved characters and lone surrogates
+    private static final char[] INTERESTING_CHARS = {
+            'a', 'Z', '0', '9', '-', '_', '.', '*', ' ', '+', '&', '=', '%', '/', '?', '~',
+            '"', '{', '}', ':', ',', '\n', '\t', '\u0000', '\u007F', '\u0080', '\u00E9',
+            '\u07FF', '\u0800', '\u4E2D', '\uFFFD', '\uFFFF', '\uD83D', '\uDE00', '\uDBFF', '\uDC00' };
+
+    @Test
+    public void testMatchesUrlEncoder() throws Exception {
+        Random random = new Random(42);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            Map<String, String> parameters = randomParameters(random, 1 + random.nextInt(40));
+            Map<String, String> sendingParameters =
+                    random.nextBoolean() ? randomParameters(random, random.nextInt(3)) : null;
+
+            assertSameBody(parameters, sendingParameters);
+        }
+    }
+
+    @Test
+    public void testEdgeCases() throws Exception {
+        Map<String, String> parameters = new LinkedHashMap<String, String>();
+        parameters.put("null_value", null);
+        parameters.put("", "");
+        parameters.put("emoji", "\uD83D\uDE00");
+        parameters.put("lone_high_at_end", "abc\uD83D");
+        parameters.put("lone_low", "\uDE00abc");
+        parameters.put("swapped_pair", "\uDE00\uD83D");
+        parameters.put("json", "{\"key\":\"value with spaces\",\"n\":1}");
+
+        assertSameBody(parameters, null);
+
+        // larger than the encoder buffer
+        char[] longValue = new char[20000];
+        Arrays.fill(longValue, '\u4E2D');
+        parameters.put("long", new String(longValue));
+        assertSameBody(parameters, null);
+
+        Map<String, String> sendingParameters = new HashMap<String, String>();
+        sendingParameters.put("sent_at", "2021-01-01T00:00:00.000Z+0100");
+        sendingParameters.put("queue_size", "3");
+        assertSameBody(parameters, sendingParameters);
+    }
+
+    private void assertSameBody(Map<String, String> parameters,
+                                Map<String, String> sendingParameters) throws Exception
+    {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        PostBodyEncoder.writePostBody(parameters, sendingParameters, outputStream);
+
+        byte[] expected = urlEncoderBody(parameters, sendingParameters).getBytes("ISO-8859-1");
+        Assert.assertTrue(Arrays.equals(expected, outputStream.toByteArray()));
+    }
+
+    private Map<String, String> randomParameters(Random random, int count) {
+        Map<String, String> parameters = new HashMap<String, String>();
+        for (int i = 0; i < count; i++) {
+            parameters.put(randomString(random, 1 + random.nextInt(12)),
+                    random.nextInt(20) == 0 ? null : randomString(random, random.nextInt(200)));
+        }
+        return parameters;
+    }
+
+    private String randomString(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    builder.append(INTERESTING_CHARS[random.nextInt(INTERESTING_CHARS.length)]);
+                    break;
+                case 1:
+                    builder.append((char) (32 + random.nextInt(95)));
+                    break;
+                default:
+                    builder.append((char) random.nextInt(Character.MAX_VALUE + 1));
+                    break;
+            }
+        }
+        return builder.toString();
+    }
+
+    // body as built before PostBodyEncoder
+    private String urlEncoderBody(Map<String, String> parameters,
+                                  Map<String, String> sendingParameters) throws Exception
+    {
+        StringBuilder builder = new StringBuilder();
+        appendUrlEncoded(parameters, builder);
+        appendUrlEncoded(sendingParameters, builder);
+
+        if (builder.length() > 0 && builder.charAt(builder.length() - 1) == '&') {
+            builder.deleteCharAt(builder.length() - 1);
+        }
+        return builder.toString();
+    }
+
+    private void appendUrlEncoded(Map<String, String> parameters, StringBuilder builder)
+            throws Exception
+    {
+        if (parameters == null || parameters.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<String, String> entry : parameters.entrySet()) {
+            String value = entry.getValue();
+            builder.append(URLEncoder.encode(entry.getKey(), Constants.ENCODING));
+            builder.append("=");
+            builder.append(value != null ? URLEncoder.encode(value, Constants.ENCODING) : "");
+            builder.append("&");
+        }
+    }
+}
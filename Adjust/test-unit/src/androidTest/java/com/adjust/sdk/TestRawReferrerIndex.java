@@ -0,0 +1,330 @@
+package com.adjust.sdk;
+
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import org.json.JSONArray;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestRawReferrerIndex {
+    private static final String RAW_REFERRER = "adjust_reftag=abc1foo";
+    private static final long WRITE_TIMEOUT = 2000;
+
+    private MockLogger mockLogger;
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        AdjustFactory.setLogger(mockLogger);
+    }
+
+    @After
+    public void tearDown() {
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testMigratesJsonReferrers() throws Exception {
+        JSONArray rawReferrerArray = new JSONArray();
+        // more than kept, from before the count was limited
+        for (int i = 0; i < 12; i++) {
+            JSONArray rawReferrer = new JSONArray();
+            rawReferrer.put(0, RAW_REFERRER + i);
+            rawReferrer.put(1, 1000L + i);
+            rawReferrer.put(2, i == 1 ? 1 : 0);
+            rawReferrerArray.put(rawReferrer);
+        }
+        MapSharedPreferences sharedPreferences = new MapSharedPreferences();
+        sharedPreferences.edit()
+                .putString(RawReferrerIndex.PREFS_KEY_RAW_REFERRERS, rawReferrerArray.toString())
+                .apply();
+
+        RawReferrerIndex rawReferrerIndex = RawReferrerIndex.getInstance(sharedPreferences);
+
+        List<RawReferrerIndex.RawReferrer> rawReferrers = rawReferrerIndex.getAll();
+        Assert.assertEquals(RawReferrerIndex.REFERRERS_COUNT, rawReferrers.size());
+        Assert.assertEquals(RAW_REFERRER + 0, rawReferrers.get(0).rawReferrer);
+        Assert.assertEquals(1000L, rawReferrers.get(0).clickTime);
+        Assert.assertFalse(rawReferrers.get(0).isSending);
+        Assert.assertTrue(rawReferrers.get(1).isSending);
+        Assert.assertTrue(rawReferrerIndex.contains(RAW_REFERRER + 9, 1009L));
+        Assert.assertFalse(rawReferrerIndex.contains(RAW_REFERRER + 10, 1010L));
+
+        // the JSON is replaced by the new format
+        waitForWrite(sharedPreferences, rawReferrerIndex);
+        Assert.assertFalse(sharedPreferences.contains(RawReferrerIndex.PREFS_KEY_RAW_REFERRERS));
+        Assert.assertTrue(sharedPreferences.contains(RawReferrerIndex.PREFS_KEY_RAW_REFERRER_INDEX));
+    }
+
+    @Test
+    public void testLookupsDoNotReadPreferences() {
+        MapSharedPreferences sharedPreferences = new MapSharedPreferences();
+        RawReferrerIndex rawReferrerIndex = RawReferrerIndex.getInstance(sharedPreferences);
+        int readCount = sharedPreferences.readCount;
+
+        rawReferrerIndex.add(RAW_REFERRER, 1000L);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(rawReferrerIndex.contains(RAW_REFERRER, 1000L));
+            Assert.assertFalse(rawReferrerIndex.contains(RAW_REFERRER, 1001L));
+        }
+
+        Assert.assertEquals(readCount, sharedPreferences.readCount);
+        // same index for the same preferences
+        Assert.assertSame(rawReferrerIndex, RawReferrerIndex.getInstance(sharedPreferences));
+    }
+
+    @Test
+    public void testAddOnlyOnce() {
+        RawReferrerIndex rawReferrerIndex =
+                RawReferrerIndex.getInstance(new MapSharedPreferences());
+
+        Assert.assertTrue(rawReferrerIndex.add(RAW_REFERRER, 1000L));
+        Assert.assertFalse(rawReferrerIndex.add(RAW_REFERRER, 1000L));
+        // same referrer clicked at another time
+        Assert.assertTrue(rawReferrerIndex.add(RAW_REFERRER, 2000L));
+
+        for (int i = 2; i < RawReferrerIndex.REFERRERS_COUNT; i++) {
+            Assert.assertTrue(rawReferrerIndex.add(RAW_REFERRER + i, 1000L));
+        }
+        Assert.assertFalse(rawReferrerIndex.add(RAW_REFERRER + "full", 1000L));
+        Assert.assertEquals(RawReferrerIndex.REFERRERS_COUNT, rawReferrerIndex.getAll().size());
+    }
+
+    @Test
+    public void testMarkAsSending() {
+        RawReferrerIndex rawReferrerIndex =
+                RawReferrerIndex.getInstance(new MapSharedPreferences());
+        rawReferrerIndex.add(RAW_REFERRER + 1, 1000L);
+        rawReferrerIndex.add(RAW_REFERRER + 2, 2000L);
+
+        List<RawReferrerIndex.RawReferrer> marked = rawReferrerIndex.markNotSendingAsSending();
+        Assert.assertEquals(2, marked.size());
+        Assert.assertEquals(RAW_REFERRER + 1, marked.get(0).rawReferrer);
+        Assert.assertTrue(rawReferrerIndex.get(RAW_REFERRER + 2, 2000L).isSending);
+
+        // already being sent
+        rawReferrerIndex.add(RAW_REFERRER + 3, 3000L);
+        marked = rawReferrerIndex.markNotSendingAsSending();
+        Assert.assertEquals(1, marked.size());
+        Assert.assertEquals(3000L, marked.get(0).clickTime);
+
+        // after a restart
+        rawReferrerIndex.markSendingAsNotSending();
+        Assert.assertEquals(3, rawReferrerIndex.markNotSendingAsSending().size());
+    }
+
+    @Test
+    public void testPersistence() {
+        MapSharedPreferences sharedPreferences = new MapSharedPreferences();
+        RawReferrerIndex rawReferrerIndex = RawReferrerIndex.getInstance(sharedPreferences);
+        // separators in the referrer itself
+        String rawReferrer = "a,1,2:b=c&d=" + RAW_REFERRER;
+
+        rawReferrerIndex.add(rawReferrer, 1000L);
+        rawReferrerIndex.add(RAW_REFERRER + 2, 2000L);
+        rawReferrerIndex.add(RAW_REFERRER + 3, 3000L);
+        rawReferrerIndex.remove(RAW_REFERRER + 2, 2000L);
+        rawReferrerIndex.markNotSendingAsSending();
+        waitForWrite(sharedPreferences, rawReferrerIndex);
+
+        // as read by the next process
+        MapSharedPreferences nextSharedPreferences = new MapSharedPreferences();
+        nextSharedPreferences.values.putAll(sharedPreferences.values);
+        RawReferrerIndex nextRawReferrerIndex = RawReferrerIndex.getInstance(nextSharedPreferences);
+
+        List<RawReferrerIndex.RawReferrer> rawReferrers = nextRawReferrerIndex.getAll();
+        Assert.assertEquals(2, rawReferrers.size());
+        Assert.assertEquals(rawReferrer, rawReferrers.get(0).rawReferrer);
+        Assert.assertEquals(1000L, rawReferrers.get(0).clickTime);
+        Assert.assertTrue(rawReferrers.get(0).isSending);
+        Assert.assertEquals(RAW_REFERRER + 3, rawReferrers.get(1).rawReferrer);
+
+        // nothing left to save
+        nextRawReferrerIndex.remove(rawReferrer, 1000L);
+        nextRawReferrerIndex.remove(RAW_REFERRER + 3, 3000L);
+        long timeout = SystemClock.uptimeMillis() + WRITE_TIMEOUT;
+        while (nextSharedPreferences.contains(RawReferrerIndex.PREFS_KEY_RAW_REFERRER_INDEX)
+                && SystemClock.uptimeMillis() < timeout)
+        {
+            SystemClock.sleep(10);
+        }
+        Assert.assertFalse(
+                nextSharedPreferences.contains(RawReferrerIndex.PREFS_KEY_RAW_REFERRER_INDEX));
+    }
+
+    @Test
+    public void testDamagedIndex() {
+        MapSharedPreferences sharedPreferences = new MapSharedPreferences();
+        sharedPreferences.edit()
+                .putString(RawReferrerIndex.PREFS_KEY_RAW_REFERRER_INDEX, "0,1000,3:abc1,x")
+                .apply();
+
+        RawReferrerIndex rawReferrerIndex = RawReferrerIndex.getInstance(sharedPreferences);
+
+        // the referrers before the damaged part are kept
+        Assert.assertEquals(1, rawReferrerIndex.getAll().size());
+        Assert.assertTrue(rawReferrerIndex.contains("abc", 1000L));
+        Assert.assertTrue(mockLogger.containsMessage(LogLevel.ERROR,
+                "Failed to read saved raw referrers").containsMessage);
+    }
+
+    // until the last state of the index is saved
+    private static void waitForWrite(final MapSharedPreferences sharedPreferences,
+                                     final RawReferrerIndex rawReferrerIndex)
+    {
+        String encoded = RawReferrerIndex.encode(rawReferrerIndex.getAll());
+        long timeout = SystemClock.uptimeMillis() + WRITE_TIMEOUT;
+        while (!encoded.equals(savedIndex(sharedPreferences))
+                && SystemClock.uptimeMillis() < timeout)
+        {
+            SystemClock.sleep(10);
+        }
+        Assert.assertEquals(encoded, savedIndex(sharedPreferences));
+    }
+
+    private static String savedIndex(final MapSharedPreferences sharedPreferences) {
+        synchronized (sharedPreferences) {
+            return (String) sharedPreferences.values.get(
+                    RawReferrerIndex.PREFS_KEY_RAW_REFERRER_INDEX);
+        }
+    }
+
+    private static class MapSharedPreferences implements SharedPreferences {
+        final Map<String, Object> values = new HashMap<String, Object>();
+        volatile int readCount;
+
+        @Override
+        public synchronized Map<String, ?> getAll() {
+            return new HashMap<String, Object>(values);
+        }
+
+        @Override
+        public synchronized String getString(String key, String defaultValue) {
+            readCount++;
+            return values.containsKey(key) ? (String) values.get(key) : defaultValue;
+        }
+
+        @Override
+        public Set<String> getStringSet(String key, Set<String> defaultValues) {
+            return defaultValues;
+        }
+
+        @Override
+        public int getInt(String key, int defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public long getLong(String key, long defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public float getFloat(String key, float defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public boolean getBoolean(String key, boolean defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public synchronized boolean contains(String key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public Editor edit() {
+            return new MapEditor();
+        }
+
+        @Override
+        public void registerOnSharedPreferenceChangeListener(
+                OnSharedPreferenceChangeListener listener) {
+        }
+
+        @Override
+        public void unregisterOnSharedPreferenceChangeListener(
+                OnSharedPreferenceChangeListener listener) {
+        }
+
+        private class MapEditor implements Editor {
+            private final Map<String, String> changes = new HashMap<String, String>();
+
+            @Override
+            public Editor putString(String key, String value) {
+                changes.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor remove(String key) {
+                changes.put(key, null);
+                return this;
+            }
+
+            @Override
+            public boolean commit() {
+                synchronized (MapSharedPreferences.this) {
+                    for (Map.Entry<String, String> change : changes.entrySet()) {
+                        if (change.getValue() == null) {
+                            values.remove(change.getKey());
+                        } else {
+                            values.put(change.getKey(), change.getValue());
+                        }
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public void apply() {
+                commit();
+            }
+
+            @Override
+            public Editor putStringSet(String key, Set<String> values) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Editor putInt(String key, int value) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Editor putLong(String key, long value) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Editor putFloat(String key, float value) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Editor putBoolean(String key, boolean value) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Editor clear() {
+                throw new UnsupportedOperationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.adjust.sdk;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestReflection {
+    private static final String TARGET_CLASS = "com.adjust.sdk.TestReflection$Target";
+    private static final String MISSING_CLASS = "com.adjust.sdk.missing.Plugin";
+
+    public static class Target {
+        private final String value;
+
+        public Target() {
+            this("default");
+        }
+
+        public Target(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static String concat(String first, String second) {
+            return first + second;
+        }
+    }
+
+    private MockLogger mockLogger;
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        AdjustFactory.setLogger(mockLogger);
+        MemberCache.clear();
+    }
+
+    @After
+    public void tearDown() {
+        MemberCache.clear();
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testMethodsAreCached() throws Exception {
+        Class<?>[] parameterTypes = new Class<?>[]{String.class, String.class};
+        Assert.assertEquals("ab", Reflection.invokeStaticMethod(TARGET_CLASS, "concat",
+                parameterTypes, "a", "b"));
+        int size = MemberCache.size();
+
+        Assert.assertEquals("cd", Reflection.invokeStaticMethod(TARGET_CLASS, "concat",
+                new Class<?>[]{String.class, String.class}, "c", "d"));
+        Assert.assertEquals(size, MemberCache.size());
+
+        Method method = MemberCache.getMethod(Target.class, "concat", parameterTypes);
+        Assert.assertSame(method,
+                MemberCache.getMethod(Target.class, "concat", parameterTypes.clone()));
+
+        // changing the array of the caller doesn't change the cached key
+        parameterTypes[1] = Integer.class;
+        Assert.assertEquals("ef", Reflection.invokeStaticMethod(TARGET_CLASS, "concat",
+                new Class<?>[]{String.class, String.class}, "e", "f"));
+        Assert.assertSame(method, MemberCache.getMethod(Target.class, "concat",
+                new Class<?>[]{String.class, String.class}));
+    }
+
+    @Test
+    public void testInstanceMethodsAndConstructors() throws Exception {
+        Object target = Reflection.createInstance(TARGET_CLASS,
+                new Class<?>[]{String.class}, "value");
+        Assert.assertEquals("value", Reflection.invokeInstanceMethod(target, "getValue", null));
+        Assert.assertEquals("value",
+                Reflection.invokeInstanceMethod(target, "getValue", new Class[0]));
+
+        Object defaultTarget = Reflection.createDefaultInstance(TARGET_CLASS);
+        Assert.assertEquals("default",
+                Reflection.invokeInstanceMethod(defaultTarget, "getValue", null));
+
+        // no parameter types and an empty array are the same method
+        Assert.assertSame(MemberCache.getMethod(Target.class, "getValue", null),
+                MemberCache.getMethod(Target.class, "getValue", new Class[0]));
+        Assert.assertSame(MemberCache.getConstructor(Target.class, new Class<?>[]{String.class}),
+                MemberCache.getConstructor(Target.class, new Class<?>[]{String.class}));
+    }
+
+    @Test
+    public void testMissingClassIsCached() {
+        Exception firstException = null;
+        try {
+            Reflection.invokeStaticMethod(MISSING_CLASS, "run", null);
+        } catch (Exception e) {
+            firstException = e;
+        }
+        Assert.assertTrue(firstException instanceof ClassNotFoundException);
+        int size = MemberCache.size();
+
+        Exception secondException = null;
+        try {
+            Reflection.invokeStaticMethod(MISSING_CLASS, "run", null);
+        } catch (Exception e) {
+            secondException = e;
+        }
+        Assert.assertSame(firstException, secondException);
+        Assert.assertEquals(size, MemberCache.size());
+
+        Assert.assertNull(Reflection.forName(MISSING_CLASS));
+        Assert.assertNull(Reflection.createDefaultInstance(MISSING_CLASS));
+        Assert.assertNull(Reflection.createInstance(MISSING_CLASS, new Class<?>[]{String.class}, "value"));
+        Assert.assertEquals(size, MemberCache.size());
+    }
+
+    @Test
+    public void testMissingMethodIsCached() throws Exception {
+        Target target = new Target();
+        NoSuchMethodException firstException = null;
+        try {
+            Reflection.invokeInstanceMethod(target, "getMissingValue", null);
+        } catch (NoSuchMethodException e) {
+            firstException = e;
+        }
+        Assert.assertNotNull(firstException);
+
+        try {
+            MemberCache.getMethod(Target.class, "getMissingValue", null);
+            Assert.fail("Missing method was found");
+        } catch (NoSuchMethodException e) {
+            Assert.assertSame(firstException, e);
+        }
+
+        // a missing overload doesn't hide the ones that are there
+        try {
+            Reflection.invokeInstanceMethod(target, "getValue", new Class<?>[]{String.class}, "value");
+            Assert.fail("Missing overload was found");
+        } catch (NoSuchMethodException e) {
+        }
+        Assert.assertEquals("default", Reflection.invokeInstanceMethod(target, "getValue", null));
+    }
+
+    @Test
+    public void testMissingPlugins() {
+        Map<String, String> imeiParameters = Reflection.getImeiParameters(null, mockLogger);
+        Assert.assertNull(imeiParameters);
+        int size = MemberCache.size();
+
+        Assert.assertNull(Reflection.getImeiParameters(null, mockLogger));
+        Assert.assertEquals(size, MemberCache.size());
+
+        // without the signature plugin, signing leaves the parameters as they are
+        AdjustSigner.sign(null, "session", "android4.0.0", null, mockLogger);
+        AdjustSigner.sign(null, "event", "android4.0.0", null, mockLogger);
+        Assert.assertFalse(mockLogger.containsMessage(LogLevel.WARN,
+                "Invoking Signer sign()").containsMessage);
+    }
+}
@@ -0,0 +1,323 @@
+package com.adjust.sdk;
+
+import android.content.Context;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.adjust.sdk.network.UtilNetworking;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.text.SimpleDateFormat;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.TimeZone;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestRetryPolicy {
+    private static final int DEVICES = 1000;
+    private static final long BROWNOUT = 30 * Constants.ONE_MINUTE;
+    private static final long SIMULATION_END = 4 * Constants.ONE_HOUR;
+    private static final long BACKEND_RETRY_AFTER = 5 * Constants.ONE_MINUTE;
+
+    private MockLogger mockLogger;
+    private Context context;
+    private AdjustConfig adjustConfig;
+
+    @Rule
+    public ActivityTestRule<com.adjust.sdk.test.UnitTestActivity> mActivityRule = new ActivityTestRule(com.adjust.sdk.test.UnitTestActivity.class);
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        AdjustFactory.setLogger(mockLogger);
+
+        context = mActivityRule.getActivity().getApplicationContext();
+        adjustConfig = new AdjustConfig(context, "123456789012", AdjustConfig.ENVIRONMENT_SANDBOX);
+    }
+
+    @After
+    public void tearDown() {
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testServerWait() {
+        SimulatedRetryPolicy retryPolicy = new SimulatedRetryPolicy(adjustConfig, 1);
+
+        ResponseData responseData = createResponseData(ActivityKind.EVENT);
+        responseData.retryIn = 5000L;
+        // the backend is followed even where the strategy wouldn't wait
+        Assert.assertEquals(5000, retryPolicy.getRetryWait(responseData, 1, BackoffStrategy.NO_WAIT));
+
+        responseData = createResponseData(ActivityKind.EVENT);
+        responseData.responseCode = 429;
+        responseData.retryAfter = 120000L;
+        Assert.assertEquals(120000, retryPolicy.getRetryWait(responseData, 2, BackoffStrategy.TEST_WAIT));
+
+        // retry_in of the body goes before the header
+        responseData.retryIn = 3000L;
+        Assert.assertEquals(3000, retryPolicy.getRetryWait(responseData, 3, BackoffStrategy.TEST_WAIT));
+    }
+
+    @Test
+    public void testParseRetryAfter() {
+        long now = System.currentTimeMillis();
+        Assert.assertEquals(Long.valueOf(120000), UtilNetworking.parseRetryAfter(" 120 ", now));
+        Assert.assertNull(UtilNetworking.parseRetryAfter("-1", now));
+        Assert.assertNull(UtilNetworking.parseRetryAfter("soon", now));
+        Assert.assertNull(UtilNetworking.parseRetryAfter(null, now));
+
+        SimpleDateFormat httpDateFormat =
+                new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        httpDateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+        String inAMinute = httpDateFormat.format(new Date(now + Constants.ONE_MINUTE));
+        long wait = UtilNetworking.parseRetryAfter(inAMinute, now);
+        // the date has no milliseconds
+        Assert.assertTrue(wait > Constants.ONE_MINUTE - Constants.ONE_SECOND);
+        Assert.assertTrue(wait <= Constants.ONE_MINUTE);
+
+        String aMinuteAgo = httpDateFormat.format(new Date(now - Constants.ONE_MINUTE));
+        Assert.assertEquals(Long.valueOf(0), UtilNetworking.parseRetryAfter(aMinuteAgo, now));
+    }
+
+    @Test
+    public void testDecorrelatedJitter() {
+        SimulatedRetryPolicy retryPolicy = new SimulatedRetryPolicy(adjustConfig, 1);
+        ResponseData responseData = createResponseData(ActivityKind.EVENT);
+
+        long previousWait = 200;
+        for (int retries = 1; retries <= 8; retries++) {
+            long wait = retryPolicy.getRetryWait(responseData, retries, BackoffStrategy.TEST_WAIT);
+            Assert.assertTrue(wait >= 200);
+            Assert.assertTrue(wait <= Math.min(1000, previousWait * 3));
+            previousWait = wait;
+        }
+
+        // throttled without a Retry-After, the highest wait of the range
+        retryPolicy.onSent(ActivityKind.EVENT);
+        responseData.responseCode = 429;
+        Assert.assertEquals(600, retryPolicy.getRetryWait(responseData, 1, BackoffStrategy.TEST_WAIT));
+        Assert.assertEquals(1000, retryPolicy.getRetryWait(responseData, 2, BackoffStrategy.TEST_WAIT));
+
+        // below the retries the strategy starts waiting at
+        Assert.assertEquals(0, retryPolicy.getRetryWait(createResponseData(ActivityKind.SESSION),
+                1, BackoffStrategy.NO_WAIT));
+    }
+
+    @Test
+    public void testRetryBudgetPerKind() {
+        adjustConfig.setRetryBudget("event", 3, 60);
+        adjustConfig.setRetryBudget("unknown", 3, 60);
+        Assert.assertTrue(mockLogger.containsMessage(LogLevel.ERROR,
+                "Unsupported activity kind unknown for a retry budget").containsMessage);
+        adjustConfig.setRetryBudget("event", 0, 60);
+        Assert.assertTrue(mockLogger.containsMessage(LogLevel.ERROR,
+                "Retry budget of 0 retries per 60 seconds is not positive").containsMessage);
+
+        SimulatedRetryPolicy retryPolicy = new SimulatedRetryPolicy(adjustConfig, 1);
+        ResponseData eventResponse = createResponseData(ActivityKind.EVENT);
+        ResponseData sessionResponse = createResponseData(ActivityKind.SESSION);
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(0, retryPolicy.getRetryWait(eventResponse, 1, BackoffStrategy.NO_WAIT));
+            retryPolicy.now += Constants.ONE_SECOND;
+        }
+        // the first retry leaves the window 60 seconds after it went out
+        Assert.assertEquals(57000, retryPolicy.getRetryWait(eventResponse, 1, BackoffStrategy.NO_WAIT));
+        Assert.assertTrue(mockLogger.containsMessage(LogLevel.DEBUG,
+                "Retry budget of event is spent, waiting for 57000 ms").containsMessage);
+
+        // other kinds keep their own budget
+        Assert.assertEquals(0, retryPolicy.getRetryWait(sessionResponse, 1, BackoffStrategy.NO_WAIT));
+
+        // the window slides, the retry after the first one is still in it
+        retryPolicy.now += 57000;
+        Assert.assertEquals(Constants.ONE_SECOND,
+                retryPolicy.getRetryWait(eventResponse, 1, BackoffStrategy.NO_WAIT));
+
+        retryPolicy.now += 2 * Constants.ONE_MINUTE;
+        Assert.assertEquals(0, retryPolicy.getRetryWait(eventResponse, 1, BackoffStrategy.NO_WAIT));
+    }
+
+    @Test
+    public void testServerWaitWithSpentBudget() {
+        adjustConfig.setRetryBudget("event", 2, 60);
+        SimulatedRetryPolicy retryPolicy = new SimulatedRetryPolicy(adjustConfig, 1);
+        ResponseData eventResponse = createResponseData(ActivityKind.EVENT);
+
+        for (int i = 0; i < 2; i++) {
+            Assert.assertEquals(0, retryPolicy.getRetryWait(eventResponse, 1, BackoffStrategy.NO_WAIT));
+        }
+        Assert.assertEquals(60000, retryPolicy.getRetryWait(eventResponse, 1, BackoffStrategy.NO_WAIT));
+
+        // the budget is spent, what the backend asks for is still followed
+        ResponseData hintedResponse = createResponseData(ActivityKind.EVENT);
+        hintedResponse.retryIn = 0L;
+        Assert.assertEquals(0, retryPolicy.getRetryWait(hintedResponse, 1, BackoffStrategy.NO_WAIT));
+        hintedResponse.retryIn = 5000L;
+        Assert.assertEquals(5000, retryPolicy.getRetryWait(hintedResponse, 1, BackoffStrategy.NO_WAIT));
+    }
+
+    @Test
+    public void testInstallSessionHasNoBudget() {
+        adjustConfig.setRetryBudget("session", 2, 60);
+        SimulatedRetryPolicy retryPolicy = new SimulatedRetryPolicy(adjustConfig, 1);
+        ResponseData installSessionResponse = createSessionResponseData(1);
+
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(0, retryPolicy.getRetryWait(installSessionResponse, 1,
+                    BackoffStrategy.NO_WAIT));
+            retryPolicy.now += Constants.ONE_SECOND;
+        }
+
+        // the sessions after it keep the budget
+        Assert.assertEquals(55000, retryPolicy.getRetryWait(createSessionResponseData(2), 1,
+                BackoffStrategy.NO_WAIT));
+    }
+
+    @Test
+    public void testBrownoutLoad() {
+        // the backend fails every request for half an hour without saying anything
+        BrownoutResult fixedResult = simulateBrownout(false, false);
+        BrownoutResult adaptiveResult = simulateBrownout(true, false);
+        mockLogger.test("Opaque brownout, fixed backoff: " + fixedResult);
+        mockLogger.test("Opaque brownout, adaptive policy: " + adaptiveResult);
+
+        Assert.assertEquals(DEVICES, fixedResult.delivered);
+        Assert.assertEquals(DEVICES, adaptiveResult.delivered);
+        // the retry budget stops the devices at 10 retries per hour
+        Assert.assertTrue(adaptiveResult.brownoutRequests <= DEVICES * 11);
+        Assert.assertTrue(adaptiveResult.brownoutRequests < fixedResult.brownoutRequests);
+
+        // the backend sheds load with 429 and a Retry-After of five minutes
+        fixedResult = simulateBrownout(false, true);
+        adaptiveResult = simulateBrownout(true, true);
+        mockLogger.test("Shedding brownout, fixed backoff: " + fixedResult);
+        mockLogger.test("Shedding brownout, adaptive policy: " + adaptiveResult);
+
+        Assert.assertEquals(DEVICES, fixedResult.delivered);
+        Assert.assertEquals(DEVICES, adaptiveResult.delivered);
+        Assert.assertTrue(adaptiveResult.brownoutRequests <= DEVICES * 7);
+        Assert.assertTrue(adaptiveResult.brownoutRequests * 2 < fixedResult.brownoutRequests);
+        // the first minutes of the brownout only see the retries the backend asked for
+        Assert.assertTrue(adaptiveResult.requestsPerTenMinutes[0] <= DEVICES * 2);
+        Assert.assertTrue(adaptiveResult.requestsPerTenMinutes[0] * 5
+                < fixedResult.requestsPerTenMinutes[0]);
+        // and the devices are through shortly after it recovers
+        Assert.assertTrue(adaptiveResult.lastDelivery <= BROWNOUT + BACKEND_RETRY_AFTER);
+    }
+
+    private static class BrownoutResult {
+        int brownoutRequests;
+        int delivered;
+        long lastDelivery;
+        final int[] requestsPerTenMinutes = new int[(int) (SIMULATION_END / (10 * Constants.ONE_MINUTE))];
+
+        @Override
+        public String toString() {
+            StringBuilder load = new StringBuilder();
+            for (int requests : requestsPerTenMinutes) {
+                load.append(' ').append(requests);
+            }
+            return Util.formatString("%d requests during the brownout, %d delivered by %d s,"
+                    + " requests per 10 minutes:%s",
+                    brownoutRequests, delivered, lastDelivery / Constants.ONE_SECOND, load);
+        }
+    }
+
+    // one install session per device, which start within the first minute of the brownout
+    private BrownoutResult simulateBrownout(boolean adaptive, boolean backendAsksToWait) {
+        Random random = new Random(7);
+        BrownoutResult result = new BrownoutResult();
+        SimulatedRetryPolicy[] retryPolicies = new SimulatedRetryPolicy[DEVICES];
+        int[] retries = new int[DEVICES];
+
+        // pending requests as {time, device}
+        PriorityQueue<long[]> requests = new PriorityQueue<long[]>(DEVICES, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] lhs, long[] rhs) {
+                return lhs[0] < rhs[0] ? -1 : (lhs[0] == rhs[0] ? 0 : 1);
+            }
+        });
+        for (int device = 0; device < DEVICES; device++) {
+            retryPolicies[device] = new SimulatedRetryPolicy(adjustConfig, device);
+            requests.add(new long[]{(long) (random.nextDouble() * Constants.ONE_MINUTE), device});
+        }
+
+        while (!requests.isEmpty()) {
+            long[] request = requests.poll();
+            long time = request[0];
+            int device = (int) request[1];
+            if (time >= SIMULATION_END) {
+                break;
+            }
+            result.requestsPerTenMinutes[(int) (time / (10 * Constants.ONE_MINUTE))]++;
+
+            SimulatedRetryPolicy retryPolicy = retryPolicies[device];
+            if (time >= BROWNOUT) {
+                retryPolicy.onSent(ActivityKind.SESSION);
+                result.delivered++;
+                result.lastDelivery = time;
+                continue;
+            }
+
+            result.brownoutRequests++;
+            ResponseData responseData = createResponseData(ActivityKind.SESSION);
+            responseData.willRetry = true;
+            if (backendAsksToWait) {
+                responseData.responseCode = 429;
+                responseData.retryAfter = BACKEND_RETRY_AFTER;
+            }
+
+            retries[device]++;
+            long wait;
+            if (adaptive) {
+                retryPolicy.now = time;
+                wait = retryPolicy.getRetryWait(responseData, retries[device], BackoffStrategy.SHORT_WAIT);
+            } else {
+                wait = Util.getWaitingTime(retries[device], BackoffStrategy.SHORT_WAIT);
+            }
+            requests.add(new long[]{time + wait, device});
+        }
+        return result;
+    }
+
+    private static ResponseData createResponseData(ActivityKind activityKind) {
+        ActivityPackage activityPackage = new ActivityPackage(activityKind);
+        activityPackage.setParameters(new HashMap<String, String>());
+        return ResponseData.buildResponseData(activityPackage, null);
+    }
+
+    private static ResponseData createSessionResponseData(int sessionCount) {
+        ResponseData responseData = createResponseData(ActivityKind.SESSION);
+        responseData.activityPackage.getParameters().put("session_count",
+                Integer.toString(sessionCount));
+        return responseData;
+    }
+
+    // a device of the simulation, on the clock of the simulation
+    private static class SimulatedRetryPolicy extends AdaptiveRetryPolicy {
+        long now;
+
+        SimulatedRetryPolicy(AdjustConfig adjustConfig, long seed) {
+            super(adjustConfig.retryBudgets, new Random(seed));
+        }
+
+        @Override
+        long currentTimeMillis() {
+            return now;
+        }
+    }
+}
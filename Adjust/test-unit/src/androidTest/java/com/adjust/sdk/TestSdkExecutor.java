@@ -0,0 +1,530 @@
+package com.adjust.sdk;
+
+import android.os.SystemClock;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.adjust.sdk.scheduler.MultiThreadCachedScheduler;
+import com.adjust.sdk.scheduler.SdkExecutor;
+import com.adjust.sdk.scheduler.SharedTimerScheduler;
+import com.adjust.sdk.scheduler.SingleThreadCachedScheduler;
+import com.adjust.sdk.scheduler.TimerCycle;
+import com.adjust.sdk.scheduler.TimerOnce;
+import com.adjust.sdk.scheduler.VirtualThreadExecutor;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestSdkExecutor {
+    // the lanes and timers each SDK instance creates
+    private static final String[] COMPONENT_LANES = {"PackageHandler", "AttributionHandler",
+            "SdkClickHandler", "InstallReferrer"};
+    // the lanes that block on the network, on the I/O pool
+    private static final String[] IO_LANES = {"AdjustLinkResolution", "ActivityPackageSender",
+            "ActivityPackageSender", "ActivityPackageSender"};
+    private static final int SDK_INSTANCES = 20;
+
+    private MockLogger mockLogger;
+    private List<SingleThreadCachedScheduler> lanes;
+    private List<TimerOnce> timers;
+    private List<TimerCycle> timerCycles;
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        AdjustFactory.setLogger(mockLogger);
+        lanes = new ArrayList<SingleThreadCachedScheduler>();
+        timers = new ArrayList<TimerOnce>();
+        timerCycles = new ArrayList<TimerCycle>();
+    }
+
+    @After
+    public void tearDown() {
+        for (SingleThreadCachedScheduler lane : lanes) {
+            lane.teardown();
+        }
+        for (TimerOnce timer : timers) {
+            timer.teardown();
+        }
+        for (TimerCycle timerCycle : timerCycles) {
+            timerCycle.teardown();
+        }
+        AdjustFactory.setSdkExecutor(null);
+        AdjustFactory.setSdkIoExecutor(null);
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testThreadCountOfSdkInstances() throws Exception {
+        int threadsBefore = countAdjustThreads();
+        final CountDownLatch executed = new CountDownLatch(
+                SDK_INSTANCES * (COMPONENT_LANES.length + IO_LANES.length) * 10);
+        final CountDownLatch fired = new CountDownLatch(SDK_INSTANCES * 2);
+
+        for (int i = 0; i < SDK_INSTANCES; i++) {
+            for (int c = 0; c < COMPONENT_LANES.length + IO_LANES.length; c++) {
+                SingleThreadCachedScheduler lane = c < COMPONENT_LANES.length
+                        ? new SingleThreadCachedScheduler(COMPONENT_LANES[c])
+                        : new SingleThreadCachedScheduler(IO_LANES[c - COMPONENT_LANES.length],
+                                AdjustFactory.getSdkIoExecutor());
+                lanes.add(lane);
+                for (int t = 0; t < 10; t++) {
+                    lane.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            SystemClock.sleep(1);
+                            executed.countDown();
+                        }
+                    });
+                }
+            }
+
+            TimerCycle foregroundTimer = new TimerCycle(new Runnable() {
+                @Override
+                public void run() {
+                    fired.countDown();
+                }
+            }, 50, TimeUnit.HOURS.toMillis(1), "Foreground timer");
+            timerCycles.add(foregroundTimer);
+            foregroundTimer.start();
+
+            TimerOnce backgroundTimer = new TimerOnce(new Runnable() {
+                @Override
+                public void run() {
+                    fired.countDown();
+                }
+            }, "Background timer");
+            timers.add(backgroundTimer);
+            backgroundTimer.startIn(50);
+
+            TimerOnce attributionTimer = new TimerOnce(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }, "Attribution timer");
+            timers.add(attributionTimer);
+            attributionTimer.startIn(TimeUnit.HOURS.toMillis(1));
+        }
+
+        Assert.assertTrue(executed.await(30, TimeUnit.SECONDS));
+        Assert.assertTrue(fired.await(10, TimeUnit.SECONDS));
+
+        // the two pools and the shared timer, for any number of instances
+        Assert.assertTrue(countAdjustThreads() - threadsBefore
+                <= SdkExecutor.MAX_THREADS + SdkExecutor.MAX_IO_THREADS + 1);
+        Assert.assertTrue(SdkExecutor.getInstance().getLargestPoolSize() <= SdkExecutor.MAX_THREADS);
+        Assert.assertTrue(SdkExecutor.getIoInstance().getLargestPoolSize() <= SdkExecutor.MAX_IO_THREADS);
+    }
+
+    @Test
+    public void testBlockedIoLanesDoNotHoldSharedThreads() throws Exception {
+        final int blockedLanes = SdkExecutor.MAX_IO_THREADS;
+        final CountDownLatch started = new CountDownLatch(blockedLanes);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        // as many requests waiting for a response as the shared executor has threads, and more
+        for (int l = 0; l < blockedLanes; l++) {
+            SingleThreadCachedScheduler lane = new SingleThreadCachedScheduler("Blocked" + l,
+                    SdkExecutor.getIoInstance());
+            lanes.add(lane);
+            lane.submit(new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                    }
+                }
+            });
+        }
+        Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        // the lanes of the components still get the shared threads
+        final CountDownLatch executed = new CountDownLatch(SdkExecutor.MAX_THREADS);
+        for (int l = 0; l < SdkExecutor.MAX_THREADS; l++) {
+            SingleThreadCachedScheduler lane = new SingleThreadCachedScheduler("Other" + l);
+            lanes.add(lane);
+            lane.submit(new Runnable() {
+                @Override
+                public void run() {
+                    executed.countDown();
+                }
+            });
+        }
+
+        Assert.assertTrue(executed.await(1, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    public void testWaitingLanesDoNotStarve() throws Exception {
+        // more lanes waiting for other lanes than the I/O pool has threads, as the identifier
+        // sources waiting for the Play ad id library
+        final int waitingLanes = SdkExecutor.MAX_IO_THREADS * 2;
+        final CountDownLatch done = new CountDownLatch(waitingLanes);
+        final AtomicInteger timeouts = new AtomicInteger(0);
+
+        for (int l = 0; l < waitingLanes; l++) {
+            SingleThreadCachedScheduler lane = new SingleThreadCachedScheduler("Waiting" + l,
+                    AdjustFactory.getSdkWaitingExecutor());
+            final SingleThreadCachedScheduler waitedLane = new SingleThreadCachedScheduler(
+                    "Waited" + l, AdjustFactory.getSdkWaitingExecutor());
+            lanes.add(lane);
+            lanes.add(waitedLane);
+            lane.submit(new Runnable() {
+                @Override
+                public void run() {
+                    FutureTask<Void> read = new FutureTask<Void>(new Runnable() {
+                        @Override
+                        public void run() {
+                            SystemClock.sleep(100);
+                        }
+                    }, null);
+                    waitedLane.submit(read);
+                    try {
+                        read.get(2, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        timeouts.incrementAndGet();
+                    }
+                    done.countDown();
+                }
+            });
+        }
+
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, timeouts.get());
+    }
+
+    @Test
+    public void testCancelledTimersLeaveQueue() {
+        SharedTimerScheduler timer = SharedTimerScheduler.getInstance();
+        int queueSizeBefore = timer.getQueueSize();
+
+        // as a backoff timer rescheduled over and over
+        for (int i = 0; i < 1000; i++) {
+            ScheduledFuture<?> future = timer.scheduleFuture(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }, TimeUnit.HOURS.toMillis(1));
+            future.cancel(false);
+        }
+
+        Assert.assertTrue(timer.getQueueSize() - queueSizeBefore < 100);
+    }
+
+    @Test
+    public void testMultiThreadSchedulerBorrowsThreads() throws Exception {
+        final int maxThreads = 3;
+        SdkExecutor executor = new SdkExecutor(maxThreads + 2);
+        MultiThreadCachedScheduler scheduler =
+                new MultiThreadCachedScheduler("Concurrent", maxThreads, executor);
+        final AtomicInteger running = new AtomicInteger(0);
+        final AtomicInteger maxRunning = new AtomicInteger(0);
+        final CountDownLatch executed = new CountDownLatch(30);
+
+        for (int i = 0; i < 30; i++) {
+            scheduler.submit(new Runnable() {
+                @Override
+                public void run() {
+                    int nowRunning = running.incrementAndGet();
+                    while (true) {
+                        int max = maxRunning.get();
+                        if (nowRunning <= max || maxRunning.compareAndSet(max, nowRunning)) {
+                            break;
+                        }
+                    }
+                    SystemClock.sleep(20);
+                    running.decrementAndGet();
+                    executed.countDown();
+                }
+            });
+        }
+
+        Assert.assertTrue(executed.await(10, TimeUnit.SECONDS));
+        // runs tasks concurrently, on no more threads than it may take
+        Assert.assertTrue(maxRunning.get() > 1);
+        Assert.assertTrue(maxRunning.get() <= maxThreads);
+        Assert.assertTrue(executor.getLargestPoolSize() <= maxThreads);
+        scheduler.teardown();
+    }
+
+    @Test
+    public void testLanesKeepOrder() throws Exception {
+        final int laneCount = 8;
+        final int tasksPerLane = 1000;
+        SdkExecutor executor = new SdkExecutor(2);
+        final CountDownLatch executed = new CountDownLatch(laneCount * tasksPerLane);
+        final AtomicBoolean wasOutOfOrder = new AtomicBoolean(false);
+        final AtomicBoolean wasRunConcurrently = new AtomicBoolean(false);
+
+        for (int l = 0; l < laneCount; l++) {
+            SingleThreadCachedScheduler lane = new SingleThreadCachedScheduler("Lane" + l, executor);
+            lanes.add(lane);
+            // only touched by the tasks of the lane, which run one at a time
+            final int[] lastTask = new int[]{-1};
+            final AtomicInteger running = new AtomicInteger(0);
+            for (int i = 0; i < tasksPerLane; i++) {
+                final int task = i;
+                lane.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (running.incrementAndGet() != 1) {
+                            wasRunConcurrently.set(true);
+                        }
+                        if (lastTask[0] != task - 1) {
+                            wasOutOfOrder.set(true);
+                        }
+                        lastTask[0] = task;
+                        running.decrementAndGet();
+                        executed.countDown();
+                    }
+                });
+            }
+        }
+
+        Assert.assertTrue(executed.await(30, TimeUnit.SECONDS));
+        Assert.assertFalse(wasOutOfOrder.get());
+        Assert.assertFalse(wasRunConcurrently.get());
+        Assert.assertTrue(executor.getLargestPoolSize() <= 2);
+    }
+
+    @Test
+    public void testBusyLaneLetsOtherLanesRun() throws Exception {
+        SdkExecutor executor = new SdkExecutor(1);
+        SingleThreadCachedScheduler busyLane = new SingleThreadCachedScheduler("Busy", executor);
+        SingleThreadCachedScheduler otherLane = new SingleThreadCachedScheduler("Other", executor);
+        lanes.add(busyLane);
+        lanes.add(otherLane);
+
+        final List<String> executions = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+
+        busyLane.submit(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                }
+            }
+        });
+        for (int i = 0; i < 1000; i++) {
+            busyLane.submit(new Runnable() {
+                @Override
+                public void run() {
+                    executions.add("busy");
+                }
+            });
+        }
+        busyLane.submit(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        otherLane.submit(new Runnable() {
+            @Override
+            public void run() {
+                executions.add("other");
+            }
+        });
+        release.countDown();
+
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        int otherIndex = executions.indexOf("other");
+        Assert.assertTrue(otherIndex >= 0);
+        // the other lane got the only thread before the busy lane ran all of its tasks
+        Assert.assertTrue(otherIndex < 1000);
+    }
+
+    @Test
+    public void testBlockedLaneDoesNotBlockOtherLanes() throws Exception {
+        SdkExecutor executor = new SdkExecutor(2);
+        SingleThreadCachedScheduler blockedLane = new SingleThreadCachedScheduler("Blocked", executor);
+        SingleThreadCachedScheduler otherLane = new SingleThreadCachedScheduler("Other", executor);
+        lanes.add(blockedLane);
+        lanes.add(otherLane);
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch executed = new CountDownLatch(1);
+
+        blockedLane.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                }
+            }
+        });
+        otherLane.submit(new Runnable() {
+            @Override
+            public void run() {
+                executed.countDown();
+            }
+        });
+
+        Assert.assertTrue(executed.await(1, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    public void testTeardownDropsQueuedTasks() throws Exception {
+        SdkExecutor executor = new SdkExecutor(1);
+        SingleThreadCachedScheduler lane = new SingleThreadCachedScheduler("Teardown", executor);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger executed = new AtomicInteger(0);
+
+        lane.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                }
+            }
+        });
+        for (int i = 0; i < 10; i++) {
+            lane.submit(new Runnable() {
+                @Override
+                public void run() {
+                    executed.incrementAndGet();
+                }
+            });
+        }
+        lane.teardown();
+        release.countDown();
+
+        // the shared executor keeps running the other lanes
+        final CountDownLatch otherExecuted = new CountDownLatch(1);
+        SingleThreadCachedScheduler otherLane = new SingleThreadCachedScheduler("Other", executor);
+        lanes.add(otherLane);
+        otherLane.submit(new Runnable() {
+            @Override
+            public void run() {
+                otherExecuted.countDown();
+            }
+        });
+
+        Assert.assertTrue(otherExecuted.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, executed.get());
+    }
+
+    @Test
+    public void testExecutorFromFactory() throws Exception {
+        final AtomicInteger executions = new AtomicInteger(0);
+        final SdkExecutor sdkExecutor = new SdkExecutor(1);
+        AdjustFactory.setSdkExecutor(new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                executions.incrementAndGet();
+                sdkExecutor.execute(runnable);
+            }
+        });
+
+        final CountDownLatch executed = new CountDownLatch(1);
+        SingleThreadCachedScheduler lane = new SingleThreadCachedScheduler("Factory");
+        lanes.add(lane);
+        lane.submit(new Runnable() {
+            @Override
+            public void run() {
+                executed.countDown();
+            }
+        });
+
+        Assert.assertTrue(executed.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, executions.get());
+
+        // lanes created afterwards go back to the shared executor
+        AdjustFactory.setSdkExecutor(null);
+        Assert.assertSame(SdkExecutor.getInstance(), AdjustFactory.getSdkExecutor());
+    }
+
+    @Test
+    public void testVirtualThreadExecutor() throws Exception {
+        VirtualThreadExecutor executor = VirtualThreadExecutor.create();
+        if (executor == null) {
+            // Android and JVMs before 21
+            Assert.assertTrue(mockLogger.containsMessage(LogLevel.DEBUG,
+                    "Virtual threads are not available").containsMessage);
+            return;
+        }
+
+        final int laneCount = 100;
+        final int tasksPerLane = 100;
+        final CountDownLatch executed = new CountDownLatch(laneCount * tasksPerLane);
+        final AtomicBoolean wasOutOfOrder = new AtomicBoolean(false);
+        final CountDownLatch release = new CountDownLatch(1);
+        int threadsBefore = countAdjustThreads();
+
+        for (int l = 0; l < laneCount; l++) {
+            SingleThreadCachedScheduler lane = new SingleThreadCachedScheduler("Virtual" + l, executor);
+            lanes.add(lane);
+            // every lane blocks, as on a request, without a platform thread for each
+            lane.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                    }
+                }
+            });
+            final int[] lastTask = new int[]{-1};
+            for (int i = 0; i < tasksPerLane; i++) {
+                final int task = i;
+                lane.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (lastTask[0] != task - 1) {
+                            wasOutOfOrder.set(true);
+                        }
+                        lastTask[0] = task;
+                        executed.countDown();
+                    }
+                });
+            }
+        }
+
+        Assert.assertTrue(executor.getStartedThreadCount() >= laneCount);
+        Assert.assertTrue(countAdjustThreads() - threadsBefore < laneCount);
+        release.countDown();
+
+        Assert.assertTrue(executed.await(30, TimeUnit.SECONDS));
+        Assert.assertFalse(wasOutOfOrder.get());
+        executor.shutdown();
+    }
+
+    private static int countAdjustThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith(Constants.THREAD_PREFIX)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,350 @@
+package com.adjust.sdk;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.adjust.sdk.network.IActivityPackageSender;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends through a package handler with several requests in flight, against a sender that
+ * answers only when the test tells it to, in any order.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestSendWindow {
+    private static final int MAX_CONCURRENT_REQUESTS = 3;
+
+    private MockLogger mockLogger;
+    private Context context;
+    private AdjustConfig adjustConfig;
+    private WindowSender sender;
+    private PackageHandler packageHandler;
+
+    @Rule
+    public ActivityTestRule<com.adjust.sdk.test.UnitTestActivity> mActivityRule = new ActivityTestRule(com.adjust.sdk.test.UnitTestActivity.class);
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        AdjustFactory.setLogger(mockLogger);
+        AdjustFactory.setPackageHandlerBackoffStrategy(BackoffStrategy.TEST_WAIT);
+
+        context = mActivityRule.getActivity().getApplicationContext();
+        PackageHandler.deleteState(context);
+
+        adjustConfig = new AdjustConfig(context, "123456789012", AdjustConfig.ENVIRONMENT_SANDBOX);
+        adjustConfig.setMaxConcurrentRequests(MAX_CONCURRENT_REQUESTS);
+        sender = new WindowSender();
+        packageHandler = new PackageHandler(createActivityHandler(), context, true, sender);
+    }
+
+    @After
+    public void tearDown() {
+        packageHandler.teardown();
+        PackageHandler.deleteState(context);
+        AdjustFactory.setPackageHandlerBackoffStrategy(null);
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testWindowLimit() {
+        addEventPackages(10);
+        packageHandler.sendFirstPackage();
+        Assert.assertTrue(waitForSent(MAX_CONCURRENT_REQUESTS));
+        SystemClock.sleep(200);
+        Assert.assertEquals(MAX_CONCURRENT_REQUESTS, sender.getSentCount());
+
+        // each response lets the next package go
+        for (int i = 0; i < 10; i++) {
+            sender.respond(i, false);
+            Assert.assertTrue(waitForSent(Math.min(10, i + 1 + MAX_CONCURRENT_REQUESTS)));
+        }
+        SystemClock.sleep(200);
+
+        Assert.assertEquals(10, sender.getSentCount());
+        Assert.assertEquals(MAX_CONCURRENT_REQUESTS, sender.getMaxInFlight());
+        Assert.assertEquals(0, readQueue().size());
+    }
+
+    @Test
+    public void testOutOfOrderResponses() {
+        addEventPackages(5);
+        packageHandler.sendFirstPackage();
+        Assert.assertTrue(waitForSent(MAX_CONCURRENT_REQUESTS));
+
+        sender.respond(2, false);
+        Assert.assertTrue(waitForSent(4));
+        sender.respond(0, false);
+        Assert.assertTrue(waitForSent(5));
+        SystemClock.sleep(200);
+
+        Assert.assertEquals(list(0, 1, 2, 3, 4), createdAtOf(sender.getSent()));
+        Assert.assertEquals(list(1, 3, 4), createdAtOf(readQueue()));
+        Assert.assertEquals(MAX_CONCURRENT_REQUESTS, sender.getMaxInFlight());
+    }
+
+    @Test
+    public void testRetryDoesNotStallOthers() {
+        addEventPackages(5);
+        packageHandler.sendFirstPackage();
+        Assert.assertTrue(waitForSent(MAX_CONCURRENT_REQUESTS));
+
+        // only the failed package waits for its retry, the window is filled behind it
+        sender.respond(1, true);
+        sender.respond(0, false);
+        sender.respond(2, false);
+        SystemClock.sleep(100);
+        Assert.assertEquals(list(0, 1, 2, 3, 4), createdAtOf(sender.getSent()));
+        Assert.assertEquals(list(1, 3, 4), createdAtOf(readQueue()));
+
+        sender.respond(3, false);
+        sender.respond(4, false);
+        Assert.assertTrue(waitForSent(6));
+        SystemClock.sleep(200);
+        Assert.assertEquals(list(0, 1, 2, 3, 4, 1), createdAtOf(sender.getSent()));
+        Assert.assertEquals(1, sender.getSent().get(5).getRetries());
+        Assert.assertEquals(list(1), createdAtOf(readQueue()));
+    }
+
+    @Test
+    public void testLaterFailuresDontMoveRetry() {
+        addEventPackages(5);
+        packageHandler.sendFirstPackage();
+        Assert.assertTrue(waitForSent(MAX_CONCURRENT_REQUESTS));
+
+        long start = SystemClock.uptimeMillis();
+        sender.respond(0, true);
+        SystemClock.sleep(50);
+        long firstWaitMillis = readRetryWaitMillis();
+
+        // the other requests in flight fail while the first package waits
+        SystemClock.sleep(100);
+        sender.respond(1, true);
+        SystemClock.sleep(100);
+        sender.respond(2, true);
+
+        for (int i = 0; i < 50 && countSent(0) < 2; i++) {
+            SystemClock.sleep(20);
+        }
+        long elapsed = SystemClock.uptimeMillis() - start;
+
+        // the logged wait is rounded to a tenth of a second
+        Assert.assertEquals(2, countSent(0));
+        Assert.assertTrue(elapsed + " " + firstWaitMillis, elapsed >= firstWaitMillis - 50);
+        Assert.assertTrue(elapsed + " " + firstWaitMillis, elapsed < firstWaitMillis + 200);
+    }
+
+    @Test
+    public void testBarrierWaitsForRetry() {
+        addEventPackages(2);
+        ActivityPackage sessionPackage = new ActivityPackage(ActivityKind.SESSION);
+        sessionPackage.setPath("/session");
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("created_at", "2");
+        sessionPackage.setParameters(parameters);
+        packageHandler.addPackage(sessionPackage);
+        packageHandler.sendFirstPackage();
+        Assert.assertTrue(waitForSent(2));
+
+        // the session doesn't go before the event that waits to retry
+        sender.respond(0, true);
+        sender.respond(1, false);
+        SystemClock.sleep(100);
+        Assert.assertEquals(list(0, 1), createdAtOf(sender.getSent()));
+
+        Assert.assertTrue(waitForSent(3));
+        sender.respond(0, false);
+        Assert.assertTrue(waitForSent(4));
+        Assert.assertEquals(list(0, 1, 0, 2), createdAtOf(sender.getSent()));
+    }
+
+    @Test
+    public void testResponseWithoutPackageFreesSlot() {
+        addEventPackages(4);
+        packageHandler.sendFirstPackage();
+        Assert.assertTrue(waitForSent(MAX_CONCURRENT_REQUESTS));
+
+        // the package the request was sent for leaves the window and goes out again
+        sender.respond(0, true, false);
+        Assert.assertTrue(waitForSent(MAX_CONCURRENT_REQUESTS + 1));
+        sender.respond(1, false);
+        Assert.assertTrue(waitForSent(MAX_CONCURRENT_REQUESTS + 2));
+        SystemClock.sleep(200);
+
+        Assert.assertEquals(list(0, 1, 2, 0, 3), createdAtOf(sender.getSent()));
+        Assert.assertEquals(MAX_CONCURRENT_REQUESTS, sender.getMaxInFlight());
+    }
+
+    private void addEventPackages(int count) {
+        for (int i = 0; i < count; i++) {
+            ActivityPackage activityPackage = new ActivityPackage(ActivityKind.EVENT);
+            activityPackage.setPath("/event");
+            Map<String, String> parameters = new HashMap<String, String>();
+            parameters.put("created_at", Integer.toString(i));
+            activityPackage.setParameters(parameters);
+            packageHandler.addPackage(activityPackage);
+        }
+    }
+
+    private boolean waitForSent(int count) {
+        for (int i = 0; i < 50 && sender.getSentCount() < count; i++) {
+            SystemClock.sleep(100);
+        }
+        return sender.getSentCount() == count;
+    }
+
+    private int countSent(int createdAt) {
+        int count = 0;
+        for (Integer sentCreatedAt : createdAtOf(sender.getSent())) {
+            if (sentCreatedAt == createdAt) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long readRetryWaitMillis() {
+        MockLogger.ContainsReturn waitMessage =
+                mockLogger.containsMessage(LogLevel.VERBOSE, "Waiting for ");
+        Assert.assertTrue(waitMessage.containsMessage);
+        Matcher matcher = Pattern.compile("Waiting for (\\d+\\.\\d+) seconds.*")
+                .matcher(waitMessage.matchMessage);
+        Assert.assertTrue(waitMessage.matchMessage, matcher.matches());
+        return (long) (Double.parseDouble(matcher.group(1)) * 1000);
+    }
+
+    private List<ActivityPackage> readQueue() {
+        return new PackageQueueJournal(context).read();
+    }
+
+    private static List<Integer> createdAtOf(List<ActivityPackage> activityPackages) {
+        List<Integer> createdAt = new ArrayList<Integer>();
+        for (ActivityPackage activityPackage : activityPackages) {
+            createdAt.add(Integer.valueOf(activityPackage.getParameters().get("created_at")));
+        }
+        return createdAt;
+    }
+
+    private static List<Integer> list(Integer... values) {
+        List<Integer> list = new ArrayList<Integer>();
+        for (Integer value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    private IActivityHandler createActivityHandler() {
+        return (IActivityHandler) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{IActivityHandler.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("getAdjustConfig")) {
+                            return adjustConfig;
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    // holds every request until the test answers it
+    private static class WindowSender implements IActivityPackageSender {
+        private final List<ActivityPackage> sent = new ArrayList<ActivityPackage>();
+        private final Map<ActivityPackage, ResponseDataCallbackSubscriber> pending =
+                new IdentityHashMap<ActivityPackage, ResponseDataCallbackSubscriber>();
+        private int maxInFlight;
+
+        synchronized int getSentCount() {
+            return sent.size();
+        }
+
+        synchronized List<ActivityPackage> getSent() {
+            return new ArrayList<ActivityPackage>(sent);
+        }
+
+        synchronized int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        // answers the request in flight for the package created at that index
+        void respond(int createdAt, boolean willRetry) {
+            respond(createdAt, willRetry, true);
+        }
+
+        void respond(int createdAt, boolean willRetry, boolean hasPackage) {
+            ActivityPackage activityPackage = null;
+            ResponseDataCallbackSubscriber responseCallback = null;
+            synchronized (this) {
+                for (Map.Entry<ActivityPackage, ResponseDataCallbackSubscriber> entry : pending.entrySet()) {
+                    if (Integer.toString(createdAt).equals(entry.getKey().getParameters().get("created_at"))) {
+                        activityPackage = entry.getKey();
+                        responseCallback = entry.getValue();
+                    }
+                }
+                Assert.assertNotNull(activityPackage);
+                pending.remove(activityPackage);
+            }
+
+            ResponseData responseData = ResponseData.buildResponseData(activityPackage, null);
+            responseData.success = !willRetry;
+            responseData.willRetry = willRetry;
+            if (!hasPackage) {
+                responseData.activityPackage = null;
+            }
+            responseCallback.onResponseDataCallback(responseData);
+        }
+
+        @Override
+        public synchronized void sendActivityPackage(ActivityPackage activityPackage,
+                                                     Map<String, String> sendingParameters,
+                                                     ResponseDataCallbackSubscriber responseCallback)
+        {
+            sent.add(activityPackage);
+            pending.put(activityPackage, responseCallback);
+            maxInFlight = Math.max(maxInFlight, pending.size());
+        }
+
+        @Override
+        public ResponseData sendActivityPackageSync(ActivityPackage activityPackage,
+                                                    Map<String, String> sendingParameters)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void sendActivityPackageBatch(List<ActivityPackage> activityPackages,
+                                             Map<String, String> sendingParameters,
+                                             BatchResponseDataCallbackSubscriber batchResponseCallback)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<ResponseData> sendActivityPackageBatchSync(List<ActivityPackage> activityPackages,
+                                                               Map<String, String> sendingParameters)
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
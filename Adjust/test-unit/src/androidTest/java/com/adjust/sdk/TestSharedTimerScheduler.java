@@ -0,0 +1,141 @@
+package com.adjust.sdk;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.adjust.sdk.scheduler.SharedTimerScheduler;
+import com.adjust.sdk.scheduler.SingleThreadCachedScheduler;
+import com.adjust.sdk.scheduler.TimerOnce;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestSharedTimerScheduler {
+    private static final int PENDING_RETRIES = 200;
+
+    private MockLogger mockLogger;
+    private List<SingleThreadCachedScheduler> schedulers;
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        AdjustFactory.setLogger(mockLogger);
+        schedulers = new ArrayList<SingleThreadCachedScheduler>();
+    }
+
+    @After
+    public void tearDown() {
+        for (SingleThreadCachedScheduler scheduler : schedulers) {
+            scheduler.teardown();
+        }
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testThreadCountWithPendingRetries() throws Exception {
+        int threadsBefore = countAdjustThreads();
+
+        for (int i = 0; i < PENDING_RETRIES; i++) {
+            SingleThreadCachedScheduler scheduler = new SingleThreadCachedScheduler("Retry" + i);
+            schedulers.add(scheduler);
+            scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }, TimeUnit.HOURS.toMillis(1));
+        }
+
+        // a single timer thread holds every pending retry
+        Assert.assertTrue(countAdjustThreads() - threadsBefore <= 1);
+    }
+
+    @Test
+    public void testDelayedTasksRun() throws Exception {
+        final CountDownLatch executed = new CountDownLatch(PENDING_RETRIES);
+
+        for (int i = 0; i < PENDING_RETRIES; i++) {
+            SingleThreadCachedScheduler scheduler = new SingleThreadCachedScheduler("Retry" + i);
+            schedulers.add(scheduler);
+            scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    executed.countDown();
+                }
+            }, 50 + i);
+        }
+
+        Assert.assertTrue(executed.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testTeardownDropsDelayedTask() throws Exception {
+        final CountDownLatch executed = new CountDownLatch(1);
+        SingleThreadCachedScheduler scheduler = new SingleThreadCachedScheduler("Retry");
+
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                executed.countDown();
+            }
+        }, 100);
+        scheduler.teardown();
+
+        Assert.assertFalse(executed.await(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testTimerOnceOnSharedTimer() throws Exception {
+        final CountDownLatch fired = new CountDownLatch(1);
+        final CountDownLatch canceledFired = new CountDownLatch(1);
+
+        TimerOnce timer = new TimerOnce(new Runnable() {
+            @Override
+            public void run() {
+                fired.countDown();
+            }
+        }, "Test timer", SharedTimerScheduler.getInstance());
+        TimerOnce canceledTimer = new TimerOnce(new Runnable() {
+            @Override
+            public void run() {
+                canceledFired.countDown();
+            }
+        }, "Canceled timer", SharedTimerScheduler.getInstance());
+
+        canceledTimer.startIn(100);
+        timer.startIn(100);
+        canceledTimer.teardown();
+
+        Assert.assertTrue(fired.await(5, TimeUnit.SECONDS));
+        Assert.assertFalse(canceledFired.await(200, TimeUnit.MILLISECONDS));
+
+        // the shared timer keeps running after a timer using it is torn down
+        final CountDownLatch firedAgain = new CountDownLatch(1);
+        SharedTimerScheduler.getInstance().scheduleFuture(new Runnable() {
+            @Override
+            public void run() {
+                firedAgain.countDown();
+            }
+        }, 10);
+        Assert.assertTrue(firedAgain.await(5, TimeUnit.SECONDS));
+    }
+
+    private static int countAdjustThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith(Constants.THREAD_PREFIX)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
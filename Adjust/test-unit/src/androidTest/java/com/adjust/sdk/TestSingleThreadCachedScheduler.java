@@ -0,0 +1,132 @@
+package com.adjust.sdk;
+
+import android.os.SystemClock;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.adjust.sdk.scheduler.SingleThreadCachedScheduler;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestSingleThreadCachedScheduler {
+    private static final int PRODUCERS = 8;
+    private static final int TASKS_PER_PRODUCER = 10000;
+
+    private MockLogger mockLogger;
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        AdjustFactory.setLogger(mockLogger);
+    }
+
+    @After
+    public void tearDown() {
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        final SingleThreadCachedScheduler scheduler = new SingleThreadCachedScheduler("Test");
+        final CountDownLatch executed = new CountDownLatch(PRODUCERS * TASKS_PER_PRODUCER);
+        final AtomicInteger concurrentRuns = new AtomicInteger(0);
+        final AtomicBoolean wasRunConcurrently = new AtomicBoolean(false);
+        // only touched by the tasks, which run one at a time
+        final int[] lastTaskOfProducer = new int[PRODUCERS];
+        final List<String> outOfOrder = new ArrayList<String>();
+
+        List<Thread> producers = new ArrayList<Thread>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            final int producer = p;
+            lastTaskOfProducer[producer] = -1;
+            producers.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < TASKS_PER_PRODUCER; i++) {
+                        final int task = i;
+                        scheduler.submit(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (concurrentRuns.incrementAndGet() > 1) {
+                                    wasRunConcurrently.set(true);
+                                }
+                                if (lastTaskOfProducer[producer] != task - 1) {
+                                    outOfOrder.add(producer + ":" + task);
+                                }
+                                lastTaskOfProducer[producer] = task;
+                                concurrentRuns.decrementAndGet();
+                                executed.countDown();
+                            }
+                        });
+                    }
+                }
+            }));
+        }
+
+        for (Thread producer : producers) {
+            producer.start();
+        }
+
+        Assert.assertTrue(executed.await(30, TimeUnit.SECONDS));
+        Assert.assertFalse(wasRunConcurrently.get());
+        Assert.assertTrue(outOfOrder.toString(), outOfOrder.isEmpty());
+
+        scheduler.teardown();
+    }
+
+    @Test
+    public void testTeardown() throws Exception {
+        final SingleThreadCachedScheduler scheduler = new SingleThreadCachedScheduler("Test");
+        final CountDownLatch isBlocking = new CountDownLatch(1);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        final AtomicInteger executedAfterTeardown = new AtomicInteger(0);
+
+        scheduler.submit(new Runnable() {
+            @Override
+            public void run() {
+                isBlocking.countDown();
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                }
+            }
+        });
+        Assert.assertTrue(isBlocking.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 100; i++) {
+            scheduler.submit(new Runnable() {
+                @Override
+                public void run() {
+                    executedAfterTeardown.incrementAndGet();
+                }
+            });
+        }
+
+        scheduler.teardown();
+        unblock.countDown();
+
+        // tasks queued before and submitted after the teardown are dropped
+        scheduler.submit(new Runnable() {
+            @Override
+            public void run() {
+                executedAfterTeardown.incrementAndGet();
+            }
+        });
+        SystemClock.sleep(500);
+
+        Assert.assertEquals(0, executedAfterTeardown.get());
+    }
+}
@@ -0,0 +1,197 @@
+package com.adjust.sdk;
+
+import android.os.SystemClock;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.adjust.sdk.scheduler.SdkExecutor;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestStartupPipeline {
+    private static final long STAGE_MILLIS = 300;
+
+    private MockLogger mockLogger;
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        AdjustFactory.setLogger(mockLogger);
+    }
+
+    @After
+    public void tearDown() {
+        AdjustFactory.setSdkExecutor(null);
+        AdjustFactory.setLogger(null);
+    }
+
+    @Test
+    public void testStagesRunInParallel() {
+        AdjustStartupTrace trace = new AdjustStartupTrace();
+        StartupPipeline startupPipeline = new StartupPipeline(trace);
+        String[] stages = {
+                AdjustStartupTrace.STAGE_ATTRIBUTION,
+                AdjustStartupTrace.STAGE_ACTIVITY_STATE,
+                AdjustStartupTrace.STAGE_SESSION_CALLBACK_PARAMETERS,
+                AdjustStartupTrace.STAGE_SESSION_PARTNER_PARAMETERS,
+        };
+
+        trace.startStage(AdjustStartupTrace.STAGE_STATE_FILES);
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        for (String stage : stages) {
+            futures.add(startupPipeline.runAsync(stage, new Runnable() {
+                @Override
+                public void run() {
+                    SystemClock.sleep(STAGE_MILLIS);
+                }
+            }));
+        }
+        for (Future<Void> future : futures) {
+            startupPipeline.await(future);
+        }
+        trace.finishStage(AdjustStartupTrace.STAGE_STATE_FILES);
+
+        for (String stage : stages) {
+            Assert.assertTrue(trace.isStageFinished(stage));
+            Assert.assertTrue(trace.getStageDuration(stage) >= STAGE_MILLIS);
+        }
+
+        // waiting for all of them took about as long as one of them
+        long stateFilesDuration = trace.getStageDuration(AdjustStartupTrace.STAGE_STATE_FILES);
+        Assert.assertTrue(String.valueOf(stateFilesDuration),
+                stateFilesDuration < STAGE_MILLIS * stages.length);
+    }
+
+    @Test
+    public void testAwaitReturnsResult() {
+        AdjustStartupTrace trace = new AdjustStartupTrace();
+        StartupPipeline startupPipeline = new StartupPipeline(trace);
+
+        Future<String> future = startupPipeline.callAsync(AdjustStartupTrace.STAGE_DEVICE_INFO,
+                new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return "deviceInfo";
+                    }
+                });
+
+        Assert.assertEquals("deviceInfo", startupPipeline.await(future));
+        Assert.assertTrue(trace.isStageFinished(AdjustStartupTrace.STAGE_DEVICE_INFO));
+    }
+
+    @Test
+    public void testFailedStage() {
+        AdjustStartupTrace trace = new AdjustStartupTrace();
+        StartupPipeline startupPipeline = new StartupPipeline(trace);
+
+        Future<String> future = startupPipeline.callAsync(AdjustStartupTrace.STAGE_DEVICE_INFO,
+                new Callable<String>() {
+                    @Override
+                    public String call() {
+                        throw new IllegalStateException("no context");
+                    }
+                });
+
+        Assert.assertNull(startupPipeline.await(future));
+        Assert.assertTrue(mockLogger.containsMessage(LogLevel.ERROR,
+                "Startup stage failed (no context)").containsMessage);
+        // failed stages are still traced
+        Assert.assertTrue(trace.isStageFinished(AdjustStartupTrace.STAGE_DEVICE_INFO));
+    }
+
+    @Test
+    public void testStagesRunOnSharedExecutor() {
+        final AtomicInteger executions = new AtomicInteger(0);
+        final SdkExecutor sdkExecutor = new SdkExecutor(2);
+        AdjustFactory.setSdkExecutor(new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                executions.incrementAndGet();
+                sdkExecutor.execute(runnable);
+            }
+        });
+        int threadsBefore = countPipelineThreads();
+        AdjustStartupTrace trace = new AdjustStartupTrace();
+        StartupPipeline startupPipeline = new StartupPipeline(trace);
+
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(startupPipeline.runAsync(AdjustStartupTrace.STAGE_ATTRIBUTION + i,
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            SystemClock.sleep(50);
+                        }
+                    }));
+        }
+        for (Future<Void> future : futures) {
+            startupPipeline.await(future);
+        }
+
+        Assert.assertTrue(executions.get() > 0);
+        Assert.assertEquals(threadsBefore, countPipelineThreads());
+    }
+
+    @Test
+    public void testAwaitRunsStageWithoutFreeThread() {
+        // an executor whose threads are all taken, it never runs anything
+        AdjustFactory.setSdkExecutor(new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+            }
+        });
+        AdjustStartupTrace trace = new AdjustStartupTrace();
+        StartupPipeline startupPipeline = new StartupPipeline(trace);
+
+        Future<String> future = startupPipeline.callAsync(AdjustStartupTrace.STAGE_DEVICE_INFO,
+                new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return "deviceInfo";
+                    }
+                });
+
+        Assert.assertEquals("deviceInfo", startupPipeline.await(future));
+        Assert.assertTrue(trace.isStageFinished(AdjustStartupTrace.STAGE_DEVICE_INFO));
+    }
+
+    @Test
+    public void testUnfinishedStage() {
+        AdjustStartupTrace trace = new AdjustStartupTrace();
+
+        Assert.assertEquals(-1, trace.getStageDuration(AdjustStartupTrace.STAGE_PLAY_IDS));
+
+        trace.startStage(AdjustStartupTrace.STAGE_PLAY_IDS);
+        Assert.assertFalse(trace.isStageFinished(AdjustStartupTrace.STAGE_PLAY_IDS));
+        Assert.assertEquals(-1, trace.getStageDuration(AdjustStartupTrace.STAGE_PLAY_IDS));
+
+        trace.finishStage(AdjustStartupTrace.STAGE_PLAY_IDS);
+        Map<String, Long> stageDurations = trace.getStageDurations();
+        Assert.assertEquals(1, stageDurations.size());
+        Assert.assertTrue(stageDurations.containsKey(AdjustStartupTrace.STAGE_PLAY_IDS));
+    }
+
+    private static int countPipelineThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().contains("StartupPipeline")) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
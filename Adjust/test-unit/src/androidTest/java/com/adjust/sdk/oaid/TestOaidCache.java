@@ -0,0 +1,192 @@
+package com.adjust.sdk.oaid;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.adjust.sdk.ILogger;
+import com.adjust.sdk.LogLevel;
+import com.adjust.sdk.MockLogger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reads the OAID cache through a resolver that stands in for the HMS and MSA services, which
+ * answers only when the test lets it.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class TestOaidCache {
+    private MockLogger mockLogger;
+    private Context context;
+    private BlockingResolver resolver;
+
+    @Rule
+    public ActivityTestRule<com.adjust.sdk.test.UnitTestActivity> mActivityRule = new ActivityTestRule(com.adjust.sdk.test.UnitTestActivity.class);
+
+    @Before
+    public void setUp() {
+        mockLogger = new MockLogger();
+        context = mActivityRule.getActivity().getApplicationContext();
+        resolver = new BlockingResolver();
+        OaidCache.reset(resolver, 2000);
+    }
+
+    @After
+    public void tearDown() {
+        resolver.release();
+        OaidCache.reset(null, OaidCache.FIRST_READ_TIMEOUT);
+    }
+
+    @Test
+    public void testFirstReadResolvesOnCaller() {
+        resolver.release();
+
+        Map<String, String> parameters = OaidCache.getOaidParameters(context, mockLogger);
+
+        Assert.assertEquals("oaid-1", parameters.get("oaid"));
+        Assert.assertEquals(Thread.currentThread(), resolver.lastThread.get());
+        Assert.assertFalse(OaidCache.isResolving());
+
+        // the next read uses the snapshot
+        Assert.assertEquals("oaid-1", OaidCache.getOaidParameters(context, mockLogger).get("oaid"));
+        Assert.assertEquals(1, resolver.resolutions.get());
+    }
+
+    @Test
+    public void testConcurrentReadWaitsForFirstResolution() throws InterruptedException {
+        ReadThread first = new ReadThread();
+        first.start();
+        Assert.assertTrue(resolver.waitForResolutions(1));
+
+        ReadThread second = new ReadThread();
+        second.start();
+        SystemClock.sleep(200);
+        Assert.assertTrue(second.isAlive());
+
+        resolver.release();
+        first.join(1000);
+        second.join(1000);
+
+        Assert.assertEquals("oaid-1", first.parameters.get("oaid"));
+        Assert.assertEquals("oaid-1", second.parameters.get("oaid"));
+        Assert.assertEquals(1, resolver.resolutions.get());
+    }
+
+    @Test
+    public void testFirstReadTimeout() throws InterruptedException {
+        OaidCache.reset(resolver, 200);
+        ReadThread first = new ReadThread();
+        first.start();
+        Assert.assertTrue(resolver.waitForResolutions(1));
+
+        // a second read gives up on the first resolution after the timeout
+        Assert.assertNull(OaidCache.getOaidParameters(context, mockLogger));
+        Assert.assertTrue(mockLogger.containsMessage(LogLevel.DEBUG,
+                "OAID is still being resolved after 200 ms").containsMessage);
+
+        // the late resolution still lands in the snapshot
+        resolver.release();
+        first.join(1000);
+        Assert.assertEquals("oaid-1", OaidCache.getOaidParameters(context, mockLogger).get("oaid"));
+        Assert.assertEquals(1, resolver.resolutions.get());
+    }
+
+    @Test
+    public void testExpiredSnapshotRefreshedInBackground() {
+        long resolvedAt = System.currentTimeMillis() - OaidCache.SNAPSHOT_TTL;
+        OaidCache.setSnapshot(new OaidCache.Snapshot(
+                Collections.singletonMap("oaid", "oaid-0"), resolvedAt));
+
+        // the expired snapshot is handed out without waiting for the services
+        Assert.assertEquals("oaid-0", OaidCache.getOaidParameters(context, mockLogger).get("oaid"));
+        Assert.assertTrue(resolver.waitForResolutions(1));
+        Assert.assertNotSame(Thread.currentThread(), resolver.lastThread.get());
+        Assert.assertTrue(OaidCache.isResolving());
+
+        // a single refresh runs at a time
+        Assert.assertEquals("oaid-0", OaidCache.getOaidParameters(context, mockLogger).get("oaid"));
+
+        resolver.release();
+        for (int i = 0; i < 50 && OaidCache.isResolving(); i++) {
+            SystemClock.sleep(20);
+        }
+        Assert.assertEquals("oaid-1", OaidCache.getOaidParameters(context, mockLogger).get("oaid"));
+        Assert.assertEquals(1, resolver.resolutions.get());
+    }
+
+    @Test
+    public void testFailedReadCachedAsMissing() {
+        resolver.release();
+        resolver.fails = true;
+
+        try {
+            OaidCache.getOaidParameters(context, mockLogger);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // the services threw on the caller
+        }
+
+        // the failure is kept until the missing snapshot expires
+        Assert.assertFalse(OaidCache.isResolving());
+        Assert.assertNull(OaidCache.getOaidParameters(context, mockLogger));
+        Assert.assertEquals(1, resolver.resolutions.get());
+    }
+
+    private class ReadThread extends Thread {
+        volatile Map<String, String> parameters;
+
+        @Override
+        public void run() {
+            parameters = OaidCache.getOaidParameters(context, mockLogger);
+        }
+    }
+
+    // answers every resolution with the same OAID, once released
+    private static class BlockingResolver implements OaidCache.Resolver {
+        final AtomicInteger resolutions = new AtomicInteger();
+        final AtomicReference<Thread> lastThread = new AtomicReference<Thread>();
+        private final CountDownLatch released = new CountDownLatch(1);
+        volatile boolean fails;
+
+        void release() {
+            released.countDown();
+        }
+
+        boolean waitForResolutions(int count) {
+            for (int i = 0; i < 50 && resolutions.get() < count; i++) {
+                SystemClock.sleep(20);
+            }
+            return resolutions.get() == count;
+        }
+
+        @Override
+        public Map<String, String> resolve(Context context, ILogger logger) {
+            lastThread.set(Thread.currentThread());
+            resolutions.incrementAndGet();
+            try {
+                released.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (fails) {
+                throw new IllegalStateException("Services unavailable");
+            }
+            return Collections.singletonMap("oaid", "oaid-1");
+        }
+    }
+}